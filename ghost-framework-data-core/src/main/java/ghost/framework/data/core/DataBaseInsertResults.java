@@ -1,13 +1,32 @@
 package ghost.framework.data.core;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 数据插入返回。
  */
 public class DataBaseInsertResults extends DataBaseResults {
-    private List<DataBaseInsertResult> results = new ArrayList<>();
+    /**
+     * 返回列表，复制线程并发添加。
+     */
+    private List<DataBaseInsertResult> results = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * 完成通知。
+     * 并行模式返回前完成，异步与顺序模式在全部数据库写入完成后完成。
+     */
+    private final CompletableFuture<DataBaseInsertResults> future = new CompletableFuture<>();
+
+    /**
+     * 获取完成通知。
+     *
+     * @return
+     */
+    public CompletableFuture<DataBaseInsertResults> getFuture() {
+        return future;
+    }
 
     /**
      * 获取返回列表。
@@ -25,9 +44,11 @@ public class DataBaseInsertResults extends DataBaseResults {
      */
     public List<DataBaseInsertResult> getCompleteResult() {
         List<DataBaseInsertResult> list = new ArrayList<>();
-        for (DataBaseInsertResult result : this.results) {
-            if (result.getInsert() != -1) {
-                list.add(result);
+        synchronized (this.results) {
+            for (DataBaseInsertResult result : this.results) {
+                if (result.getInsert() != -1) {
+                    list.add(result);
+                }
             }
         }
         return list;
@@ -39,9 +60,11 @@ public class DataBaseInsertResults extends DataBaseResults {
      */
     public int getCount() {
         int count = 0;
-        for (DataBaseInsertResult result : this.results) {
-            if (result.getInsert() != -1) {
-                count += result.getInsert();
+        synchronized (this.results) {
+            for (DataBaseInsertResult result : this.results) {
+                if (result.getInsert() != -1) {
+                    count += result.getInsert();
+                }
             }
         }
         return count;
@@ -0,0 +1,22 @@
+package ghost.framework.data.core;
+/**
+ * 数据库操作类型枚举。
+ */
+public enum DataBaseOperation {
+    /**
+     * 选择。
+     */
+    select,
+    /**
+     * 插入。
+     */
+    insert,
+    /**
+     * 更新。
+     */
+    update,
+    /**
+     * 删除。
+     */
+    delete
+}
@@ -0,0 +1,105 @@
+package ghost.framework.data.core;
+
+/**
+ * 数据库操作统计快照。
+ * 延迟单位纳秒。
+ */
+public final class DataBaseOperationStats {
+    private final DataBaseOperation operation;
+    private final long inFlight;
+    private final long completed;
+    private final long latencyCount;
+    private final long latencyMean;
+    private final long latencyRecent;
+    private final long latencyP50;
+    private final long latencyP99;
+    private final long latencyMax;
+
+    public DataBaseOperationStats(DataBaseOperation operation, long inFlight, long completed,
+                                  long latencyCount, long latencyMean, long latencyRecent,
+                                  long latencyP50, long latencyP99, long latencyMax) {
+        this.operation = operation;
+        this.inFlight = inFlight;
+        this.completed = completed;
+        this.latencyCount = latencyCount;
+        this.latencyMean = latencyMean;
+        this.latencyRecent = latencyRecent;
+        this.latencyP50 = latencyP50;
+        this.latencyP99 = latencyP99;
+        this.latencyMax = latencyMax;
+    }
+
+    /**
+     * 获取操作类型。
+     *
+     * @return
+     */
+    public DataBaseOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * 获取执行中数量。
+     *
+     * @return
+     */
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * 获取完成数量。
+     *
+     * @return
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * 获取延迟样本数量。
+     * 同一线程嵌套执行的操作按一个样本记录。
+     *
+     * @return
+     */
+    public long getLatencyCount() {
+        return latencyCount;
+    }
+
+    /**
+     * 获取平均延迟。
+     *
+     * @return
+     */
+    public long getLatencyMean() {
+        return latencyMean;
+    }
+
+    /**
+     * 获取最近延迟指数加权平均值。
+     *
+     * @return 未有样本返回0。
+     */
+    public long getLatencyRecent() {
+        return latencyRecent;
+    }
+
+    public long getLatencyP50() {
+        return latencyP50;
+    }
+
+    public long getLatencyP99() {
+        return latencyP99;
+    }
+
+    public long getLatencyMax() {
+        return latencyMax;
+    }
+
+    @Override
+    public String toString() {
+        return operation + "{inFlight=" + inFlight + ", completed=" + completed + ", count=" + latencyCount
+                + ", mean=" + latencyMean + ", recent=" + latencyRecent + ", p50=" + latencyP50
+                + ", p99=" + latencyP99 + ", max=" + latencyMax + "}";
+    }
+}
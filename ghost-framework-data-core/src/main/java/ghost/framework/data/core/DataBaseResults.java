@@ -4,7 +4,10 @@ package ghost.framework.data.core;
  * 数据库控制器操作返回基础类。
  */
 public abstract class DataBaseResults {
-    private boolean complete = true;
+    /**
+     * 是否全部数据库完成，异步完成时由写入线程设置。
+     */
+    private volatile boolean complete = true;
 
     public boolean isComplete() {
         return complete;
@@ -0,0 +1,34 @@
+package ghost.framework.data.core;
+import ghost.framework.localization.annotations.LocalMetadata;
+/**
+ * 数据库读取路由模式枚举。
+ */
+@LocalMetadata
+public enum DataBaseRouteMode {
+    /**
+     * 轮询读取数据库。
+     */
+    roundRobin,
+    /**
+     * 最少执行中读取优先。
+     * 选择计数器最小的数据库最先读取。
+     */
+    leastInFlight,
+    /**
+     * 延迟加权读取。
+     * 数据库读取延迟越低被选中的机会越大。
+     */
+    latencyWeighted;
+    /**
+     * 转换枚举值。
+     *
+     * @param value
+     * @return
+     */
+    public static DataBaseRouteMode valueOf(int value) throws ArithmeticException {
+        if (value == 0) return roundRobin;
+        if (value == 1) return leastInFlight;
+        if (value == 2) return latencyWeighted;
+        throw new ArithmeticException("转换数据库读取路由模式枚举值[" + value + "]无效错误！");
+    }
+}
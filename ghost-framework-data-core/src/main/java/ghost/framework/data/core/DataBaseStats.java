@@ -0,0 +1,87 @@
+package ghost.framework.data.core;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 数据库统计快照。
+ * 由 {@link IDataBase#getStats()} 创建，创建后不再改变，可在路由、健康检查与jmx中读取。
+ */
+public final class DataBaseStats {
+    private final String id;
+    private final DataBaseStatus status;
+    private final long timestamp;
+    private final Map<DataBaseOperation, DataBaseOperationStats> operations;
+
+    public DataBaseStats(String id, DataBaseStatus status, Map<DataBaseOperation, DataBaseOperationStats> operations) {
+        this.id = id;
+        this.status = status;
+        this.timestamp = System.currentTimeMillis();
+        this.operations = Collections.unmodifiableMap(new EnumMap<>(operations));
+    }
+
+    /**
+     * 获取数据库Id。
+     *
+     * @return
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 获取数据库状态。
+     *
+     * @return
+     */
+    public DataBaseStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * 获取快照时间。
+     *
+     * @return
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 获取操作统计。
+     *
+     * @param operation 操作类型。
+     * @return
+     */
+    public DataBaseOperationStats get(DataBaseOperation operation) {
+        return this.operations.get(operation);
+    }
+
+    /**
+     * 获取全部操作统计。
+     *
+     * @return
+     */
+    public Map<DataBaseOperation, DataBaseOperationStats> getOperations() {
+        return operations;
+    }
+
+    /**
+     * 获取全部操作执行中数量。
+     *
+     * @return
+     */
+    public long getInFlight() {
+        long c = 0;
+        for (DataBaseOperationStats stats : this.operations.values()) {
+            c += stats.getInFlight();
+        }
+        return c;
+    }
+
+    @Override
+    public String toString() {
+        return "DataBaseStats{id=" + id + ", status=" + status + ", operations=" + operations.values() + "}";
+    }
+}
@@ -1,14 +1,31 @@
 package ghost.framework.data.core;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class DataBaseUpdateResults extends DataBaseResults {
-    private List<DataBaseUpdateResult> results = new ArrayList<>();
-
-
+    /**
+     * 返回列表，复制线程并发添加。
+     */
+    private List<DataBaseUpdateResult> results = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * 完成通知。
+     * 并行模式返回前完成，异步与顺序模式在全部数据库写入完成后完成。
+     */
+    private final CompletableFuture<DataBaseUpdateResults> future = new CompletableFuture<>();
 
     public List<DataBaseUpdateResult> getResults() {
         return results;
     }
+
+    /**
+     * 获取完成通知。
+     *
+     * @return
+     */
+    public CompletableFuture<DataBaseUpdateResults> getFuture() {
+        return future;
+    }
 }
@@ -111,6 +111,14 @@ public interface IDataBase extends AutoCloseable, IGetObjectId {
 
     void reduceInsert();
 
+    /**
+     * 获取数据库统计快照。
+     * 读取操作计数器与延迟分布，不阻塞执行中的操作。
+     *
+     * @return
+     */
+    DataBaseStats getStats();
+
     /**
      * 返回包装对象。
      *
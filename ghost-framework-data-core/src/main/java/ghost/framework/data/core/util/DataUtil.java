@@ -8,15 +8,20 @@ import org.apache.commons.beanutils.ConvertUtils;
 import org.apache.commons.beanutils.converters.DateConverter;
 import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
+import org.hibernate.ReplicationMode;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.transform.Transformers;
 
 import javax.persistence.Id;
 import javax.persistence.criteria.*;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Date;
@@ -1204,6 +1209,50 @@ public final class DataUtil {
         }
     }
 
+    /**
+     * 复制实体。
+     * 浅复制实体主键与属性，复制到多个数据库时每个会话使用独立的实体对象，同一个实体对象不会同时关联多个会话。
+     *
+     * @param d      数据库。
+     * @param entity 实体对象。
+     * @return 返回复制的实体对象。
+     * @throws ReflectiveOperationException
+     */
+    public static Object copyEntity(IDataBase d, Object entity) throws ReflectiveOperationException {
+        EntityPersister persister = d.getSessionFactory().unwrap(SessionFactoryImplementor.class).getMetamodel().entityPersister(entity.getClass());
+        Constructor<?> constructor = persister.getMappedClass().getDeclaredConstructor();
+        constructor.setAccessible(true);
+        Object copy = constructor.newInstance();
+        persister.setPropertyValues(copy, persister.getPropertyValues(entity));
+        persister.setIdentifier(copy, persister.getIdentifier(entity, (SharedSessionContractImplementor) null), null);
+        return copy;
+    }
+
+    /**
+     * 复制插入实体。
+     * 使用实体已有的主键插入实体副本，不重新生成主键，主键由第一个插入的数据库生成。
+     *
+     * @param d      数据库。
+     * @param entity 已插入其它数据库的实体对象。
+     * @throws Exception
+     */
+    public static void openReplicate(IDataBase d, Object entity) throws Exception {
+        Session s = d.openSession();
+        try {
+            d.plusInsert();
+            Transaction t = s.beginTransaction();
+            try {
+                s.replicate(copyEntity(d, entity), ReplicationMode.EXCEPTION);
+                t.commit();
+            } catch (Exception e) {
+                t.rollback();
+                throw e;
+            }
+        } finally {
+            insertClose(d, s);
+        }
+    }
+
     public static void insertClose(IDataBase d, Session s) {
         d.reduceInsert();
         if (s != null && s.isOpen()) s.close();
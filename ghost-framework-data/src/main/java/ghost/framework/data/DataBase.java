@@ -15,8 +15,11 @@ import javax.persistence.criteria.CriteriaUpdate;
 import java.lang.reflect.InvocationTargetException;
 import java.sql.SQLException;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 /**
  * 数据库。
  */
@@ -34,8 +37,9 @@ public class DataBase extends DataBaseProperties implements IDataBase, IDataBase
 
     /**
      * 删除动作时间。
+     * 单位毫秒，获取时创建日期对象，避免每次删除创建日期对象。
      */
-    private volatile Date deleteActionTime = new Date();
+    private volatile long deleteActionTime = System.currentTimeMillis();
 
     /**
      * 清理数据库全部外键关联。
@@ -72,7 +76,7 @@ public class DataBase extends DataBaseProperties implements IDataBase, IDataBase
     /**
      * 数据库是否关闭。
      */
-    private boolean close;
+    private volatile boolean close;
 
     /**
      * 获取数据库是否关闭。
@@ -90,6 +94,32 @@ public class DataBase extends DataBaseProperties implements IDataBase, IDataBase
      */
     public void setClose(boolean close) {
         this.close = close;
+        this.refreshRouteTable();
+    }
+
+    /**
+     * 设置数据库状态。
+     * 状态改变后重新创建控制器路由表。
+     *
+     * @param status
+     */
+    @Override
+    public void setStatus(DataBaseStatus status) {
+        DataBaseStatus old = this.getStatus();
+        super.setStatus(status);
+        if (old != status) {
+            this.refreshRouteTable();
+        }
+    }
+
+    /**
+     * 重新创建控制器路由表。
+     * 初始化配置时控制器为null不处理。
+     */
+    private void refreshRouteTable() {
+        if (this.controller instanceof DataBaseController) {
+            ((DataBaseController) this.controller).refreshRouteTable();
+        }
     }
 
     /**
@@ -109,7 +139,7 @@ public class DataBase extends DataBaseProperties implements IDataBase, IDataBase
     /**
      * 数据库最近一次数据插入时间。
      */
-    private volatile Date insertActionTime = new Date();
+    private volatile long insertActionTime = System.currentTimeMillis();
 
     /**
      * 获取数据库最近一次数据插入时间。
@@ -117,17 +147,17 @@ public class DataBase extends DataBaseProperties implements IDataBase, IDataBase
      * @param insertActionTime
      */
     public void setInsertActionTime(Date insertActionTime) {
-        this.insertActionTime = insertActionTime;
+        this.insertActionTime = insertActionTime.getTime();
     }
 
     public Date getInsertActionTime() {
-        return insertActionTime;
+        return new Date(insertActionTime);
     }
 
     /**
      * 数据库最近一次读取数据时间。
      */
-    private volatile Date selectActionTime = new Date();
+    private volatile long selectActionTime = System.currentTimeMillis();
 
     /**
      * 获取数据库最近一次读取数据时间。
@@ -135,14 +165,7 @@ public class DataBase extends DataBaseProperties implements IDataBase, IDataBase
      * @return
      */
     public Date getSelectActionTime() {
-        return this.selectActionTime;
-    }
-
-    /**
-     * 更新选择动作时间。
-     */
-    private synchronized void updatesSlectActionTime() {
-        this.selectActionTime = new Date();
+        return new Date(this.selectActionTime);
     }
 
     /**
@@ -160,37 +183,36 @@ public class DataBase extends DataBaseProperties implements IDataBase, IDataBase
     private volatile Date actionTime = new Date();
     /**
      * 计数器。
+     * 直接调用 {@link DataBase#plus()} 的执行中数量，操作计数器另外累加。
      */
-    private volatile int counter = 0;
+    private final LongAdder counter = new LongAdder();
 
     /**
      * 获取计数器数量。
+     * 包括全部操作执行中数量。
      *
      * @return
      */
-    public synchronized int getCounter() {
-        return counter;
+    public int getCounter() {
+        long c = this.counter.sum();
+        for (DataBaseOperationCounter operationCounter : this.operationCounters) {
+            c += operationCounter.getInFlight();
+        }
+        return (int) c;
     }
 
     /**
      * 计数器加。
      */
-    public synchronized void plus() {
-        this.counter++;
-        if (this.logger.isDebugEnabled()) {
-            this.logger.debug("数据库[" + this.getId() + "]累加计数器[" + this.counter + "]");
-        }
+    public void plus() {
+        this.counter.increment();
     }
 
     /**
      * 减计数器。
      */
-    public synchronized void reduce() {
-        this.counter--;
-        if (this.logger.isDebugEnabled()) {
-            this.logger.debug("数据库[" + this.getId() + "]减计数器[" + this.counter + "]");
-        }
-        if (this.counter < 0) throw new ArithmeticException("数据库计数器小于0错误！");
+    public void reduce() {
+        this.counter.decrement();
     }
 
     /**
@@ -305,7 +327,47 @@ public class DataBase extends DataBaseProperties implements IDataBase, IDataBase
     /**
      * 选择计数器。
      */
-    private volatile int counterSelect = 0;
+    private final DataBaseOperationCounter counterSelect = new DataBaseOperationCounter(DataBaseOperation.select);
+    /**
+     * 删除计数器。
+     */
+    private final DataBaseOperationCounter counterDelete = new DataBaseOperationCounter(DataBaseOperation.delete);
+    /**
+     * 插入计数器。
+     */
+    private final DataBaseOperationCounter counterInsert = new DataBaseOperationCounter(DataBaseOperation.insert);
+    /**
+     * 更新计数器。
+     */
+    private final DataBaseOperationCounter counterUpdate = new DataBaseOperationCounter(DataBaseOperation.update);
+    /**
+     * 操作计数器列表。
+     */
+    private final DataBaseOperationCounter[] operationCounters = {this.counterSelect, this.counterInsert, this.counterUpdate, this.counterDelete};
+
+    /**
+     * 获取数据库统计快照。
+     *
+     * @return
+     */
+    @Override
+    public DataBaseStats getStats() {
+        Map<DataBaseOperation, DataBaseOperationStats> map = new EnumMap<>(DataBaseOperation.class);
+        for (DataBaseOperationCounter operationCounter : this.operationCounters) {
+            DataBaseOperationStats stats = operationCounter.snapshot();
+            map.put(stats.getOperation(), stats);
+        }
+        return new DataBaseStats(this.getId(), this.getStatus(), map);
+    }
+
+    /**
+     * 获取选择延迟指数加权平均值。
+     *
+     * @return 单位纳秒，未有选择返回0。
+     */
+    public long getSelectLatency() {
+        return this.counterSelect.getRecent();
+    }
 
     /**
      * 获取选择计数器。
@@ -313,134 +375,100 @@ public class DataBase extends DataBaseProperties implements IDataBase, IDataBase
      * @return
      */
     public int getCounterSelect() {
-        return counterSelect;
+        return (int) this.counterSelect.getInFlight();
     }
 
     /**
      * 累加选择计数器。
      */
-    public synchronized void plusSelect() {
-        this.updatesSlectActionTime();
-        this.counterSelect++;
-        this.plus();
+    public void plusSelect() {
+        this.selectActionTime = System.currentTimeMillis();
+        this.counterSelect.plus();
         if (this.logger.isDebugEnabled()) {
-            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]总选择计数器[" + this.counter + "]");
-            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]累加选择计数器[" + this.counterSelect + "]");
+            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]总选择计数器[" + this.getCounter() + "]");
+            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]累加选择计数器[" + this.counterSelect.getInFlight() + "]");
         }
     }
 
     /**
      * 减选择计数器。
      */
-    public synchronized void reduceSelect() {
-        this.counterSelect--;
-        this.reduce();
+    public void reduceSelect() {
+        this.counterSelect.reduce();
         if (this.logger.isDebugEnabled()) {
-            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]减选择计数器[" + this.counterSelect + "]");
+            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]减选择计数器[" + this.counterSelect.getInFlight() + "]");
         }
-        if (this.counterSelect < 0) throw new ArithmeticException("数据库减选择计数器小于0错误！");
     }
 
-    /**
-     * 删除计数器。
-     */
-    private volatile int counterDelete = 0;
-
     /**
      * 获取删除计数器。
      *
      * @return
      */
     public int getCounterDelete() {
-        return counterDelete;
+        return (int) this.counterDelete.getInFlight();
     }
 
     /**
      * 累加删除计数器。
      */
-    public synchronized void plusDelete() {
-        this.updatesDeleteActionTime();
-        this.counterDelete++;
-        this.plus();
+    public void plusDelete() {
+        this.deleteActionTime = System.currentTimeMillis();
+        this.counterDelete.plus();
         if (this.logger.isDebugEnabled()) {
-            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]累加删除计数器[" + this.counterDelete + "]");
+            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]累加删除计数器[" + this.counterDelete.getInFlight() + "]");
         }
     }
 
-    /**
-     * 更新删除动作时间。
-     */
-    private synchronized void updatesDeleteActionTime() {
-        this.deleteActionTime = new Date();
-    }
-
     /**
      * 减删除计数器。
      */
-    public synchronized void reduceDelete() {
-        this.counterDelete--;
-        this.reduce();
+    public void reduceDelete() {
+        this.counterDelete.reduce();
         if (this.logger.isDebugEnabled()) {
-            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]减删除计数器[" + this.counterDelete + "]");
+            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]减删除计数器[" + this.counterDelete.getInFlight() + "]");
         }
-        if (this.counterDelete < 0) throw new ArithmeticException("数据库减删除计数器小于0错误！");
     }
 
-    /**
-     * 插入计数器。
-     */
-    private volatile int counterInsert = 0;
-
     /**
      * 累加插入计数器。
      */
-    public synchronized void plusInsert() {
-        this.insertActionTime = new Date();
-        this.counterInsert++;
-        this.plus();
+    public void plusInsert() {
+        this.insertActionTime = System.currentTimeMillis();
+        this.counterInsert.plus();
         if (this.logger.isDebugEnabled()) {
-            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]累加插入计数器[" + this.counterInsert + "]");
+            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]累加插入计数器[" + this.counterInsert.getInFlight() + "]");
         }
     }
 
     /**
      * 减插入计数器。
      */
-    public synchronized void reduceInsert() {
-        this.counterInsert--;
-        this.reduce();
+    public void reduceInsert() {
+        this.counterInsert.reduce();
         if (this.logger.isDebugEnabled()) {
-            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]减插入计数器[" + this.counterInsert + "]");
+            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]减插入计数器[" + this.counterInsert.getInFlight() + "]");
         }
-        if (this.counterInsert < 0) throw new ArithmeticException("数据库减插入计数器小于0错误！");
     }
 
-    /**
-     * 更新计数器。
-     */
-    private volatile Integer counterUpdate = 0;
-
     /**
      * 累加更新计数器。
      */
-    public synchronized void plusUpdate() {
-        this.counterUpdate++;
-        this.plus();
+    public void plusUpdate() {
+        this.counterUpdate.plus();
         if (this.logger.isDebugEnabled()) {
-            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]累加更新计数器[" + this.counterUpdate.toString() + "]");
+            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]累加更新计数器[" + this.counterUpdate.getInFlight() + "]");
         }
     }
 
     /**
      * 减更新计数器。
      */
-    public synchronized void reduceUpdate() {
-        this.counterUpdate--;
-        this.reduce();
+    public void reduceUpdate() {
+        this.counterUpdate.reduce();
         if (this.logger.isDebugEnabled()) {
-            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]减更新计数器[" + this.counterUpdate.toString() + "]");
+            this.logger.debug("数据库[Id:" + this.getId() + ",Name:" + this.getDataBaseName() + "]减更新计数器[" + this.counterUpdate.getInFlight() + "]");
         }
-        if (this.counterUpdate < 0) throw new ArithmeticException("数据库减更新计数器小于0错误！");
     }
 
     /**
@@ -21,11 +21,16 @@ import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 /**
  * 数据库控制器。
  */
@@ -125,6 +130,7 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
         }
         //清除数据库列表。
         this.map.clear();
+        this.refreshRouteTable();
         //重新创建数据库列表。
         for (IDataBaseProperties properties : propertiesList) {
             this.create(properties);
@@ -282,11 +288,28 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
                 dataBase.close();
             }
             this.map.clear();
+            this.refreshRouteTable();
         } finally {
             this.lock.unlock();
         }
     }
 
+    /**
+     * 获取全部数据库统计快照。
+     * 从路由表读取数据库，不加锁。
+     *
+     * @return
+     */
+    public List<DataBaseStats> getStats() {
+        List<DataBaseStats> list = new ArrayList<>();
+        for (DataBaseStatus status : DataBaseStatus.values()) {
+            for (IDataBase dataBase : this.routeTable.get(status)) {
+                list.add(dataBase.getStats());
+            }
+        }
+        return list;
+    }
+
     public int size() {
         try {
             this.lock.lock();
@@ -326,6 +349,7 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
             for (IDataBase m : c) {
                 IDataBase dataBase = this.map.remove(m.getId());
                 if (dataBase != null) {
+                    if (this.writeQueue != null) this.writeQueue.remove(dataBase.getId());
                     dataBase.close();
                     isRemoveAll = true;
                 }
@@ -350,6 +374,7 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
             }
             if (d != null) {
                 this.map.remove(d.getId());
+                if (this.writeQueue != null) this.writeQueue.remove(d.getId());
                 d.close();
             }
         } finally {
@@ -370,6 +395,8 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
         try {
             this.lock.lock();
             IDataBase dataBase = this.map.remove(module.getId());
+            this.refreshRouteTable();
+            if (this.writeQueue != null) this.writeQueue.remove(module.getId());
             if (dataBase != null) dataBase.close();
             return dataBase;
         } finally {
@@ -383,6 +410,7 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
             for (IDataBase module : c) {
                 this.map.put(module.getId(), module);
             }
+            this.refreshRouteTable();
         } finally {
             this.lock.unlock();
         }
@@ -649,6 +677,261 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
         this.formatSql = formatSql;
     }
 
+    /**
+     * 复制线程数量。
+     * 默认处理器数量。
+     */
+    private int replicationThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 获取复制线程数量。
+     * @return
+     */
+    public int getReplicationThreads() {
+        return replicationThreads;
+    }
+
+    /**
+     * 设置复制线程数量。
+     * 需要在首次写入前设置。
+     * @param replicationThreads
+     */
+    public void setReplicationThreads(int replicationThreads) {
+        this.replicationThreads = replicationThreads;
+    }
+
+    /**
+     * 复制线程池等待列队容量。
+     * 同步并行写入时列队已满由调用线程执行，限制写入速度，写入列队的提交不受限制。
+     */
+    private int replicationQueueCapacity = 10000;
+
+    public int getReplicationQueueCapacity() {
+        return replicationQueueCapacity;
+    }
+
+    public void setReplicationQueueCapacity(int replicationQueueCapacity) {
+        this.replicationQueueCapacity = replicationQueueCapacity;
+    }
+
+    /**
+     * 写入列队每批写入数量。
+     */
+    private int writeBatchSize = 100;
+
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public void setWriteBatchSize(int writeBatchSize) {
+        this.writeBatchSize = writeBatchSize;
+    }
+
+    /**
+     * 复制线程池。
+     * 控制器的全部数据库写入共用，替代每次写入创建线程池。
+     */
+    private volatile ReplicationExecutor replicationExecutor;
+
+    /**
+     * 复制线程池。
+     * 写入列队每个数据库最多提交一个写入任务，直接提交到线程池，不在调用线程执行。
+     * 同步并行写入调用线程等待提交的任务完成，由 {@link #executeWaiting(Runnable)} 提交。
+     */
+    private static final class ReplicationExecutor extends ThreadPoolExecutor {
+        /**
+         * 线程编号。
+         */
+        private final AtomicInteger threadNumber = new AtomicInteger();
+        /**
+         * 复制线程。
+         */
+        private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        /**
+         * 等待列队容量。
+         */
+        private final int queueCapacity;
+
+        private ReplicationExecutor(int threads, int queueCapacity) {
+            super(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+            this.queueCapacity = queueCapacity;
+            this.setThreadFactory(r -> {
+                Thread thread = new Thread(() -> {
+                    try {
+                        r.run();
+                    } finally {
+                        this.threads.remove(Thread.currentThread());
+                    }
+                }, "DataBaseController-replication-" + this.threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                this.threads.add(thread);
+                return thread;
+            });
+            this.allowCoreThreadTimeOut(true);
+        }
+
+        /**
+         * 提交调用线程等待完成的任务。
+         * 复制线程提交时直接执行，复制线程等待自己提交的任务时不会因任务在列队中等待而阻塞；
+         * 等待列队已满时由调用线程执行，限制写入速度。
+         * @param command
+         */
+        private void executeWaiting(Runnable command) {
+            if (this.threads.contains(Thread.currentThread()) || this.getQueue().size() >= this.queueCapacity) {
+                command.run();
+                return;
+            }
+            this.execute(command);
+        }
+    }
+
+    /**
+     * 获取同步并行写入使用的复制线程池。
+     * 调用线程需要等待提交的任务完成。
+     * @return
+     */
+    protected Executor getReplicationExecutor() {
+        return this.getReplicationPool()::executeWaiting;
+    }
+
+    /**
+     * 获取复制线程池。
+     * @return
+     */
+    private ReplicationExecutor getReplicationPool() {
+        ReplicationExecutor executor = this.replicationExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.replicationExecutor;
+                if (executor == null) {
+                    executor = new ReplicationExecutor(this.replicationThreads, this.replicationQueueCapacity);
+                    this.replicationExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 数据库写入列队。
+     */
+    private volatile DataBaseWriteQueue writeQueue;
+
+    /**
+     * 获取数据库写入列队。
+     * @return
+     */
+    DataBaseWriteQueue getWriteQueue() {
+        DataBaseWriteQueue queue = this.writeQueue;
+        if (queue == null) {
+            synchronized (this) {
+                queue = this.writeQueue;
+                if (queue == null) {
+                    queue = new DataBaseWriteQueue(this.getReplicationPool(), this.writeBatchSize, this::contains);
+                    this.writeQueue = queue;
+                }
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * 数据库路由表。
+     * 数据库添加、删除或状态改变时重新创建，查询线程读取不加锁。
+     */
+    private volatile DataBaseRouteTable routeTable = DataBaseRouteTable.EMPTY;
+
+    /**
+     * 重新创建数据库路由表。
+     */
+    public void refreshRouteTable() {
+        try {
+            this.lock.lock();
+            this.routeTable = DataBaseRouteTable.build(this.map.values());
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 数据库读取路由策略。
+     * 默认轮询。
+     */
+    private volatile IDataBaseRoutePolicy routePolicy = new RoundRobinRoutePolicy();
+
+    /**
+     * 获取数据库读取路由策略。
+     * @return
+     */
+    public IDataBaseRoutePolicy getRoutePolicy() {
+        return routePolicy;
+    }
+
+    /**
+     * 设置数据库读取路由策略。
+     * @param routePolicy
+     */
+    public void setRoutePolicy(IDataBaseRoutePolicy routePolicy) {
+        this.routePolicy = routePolicy;
+    }
+
+    /**
+     * 设置数据库读取路由模式。
+     * @param routeMode
+     */
+    public void setRouteMode(DataBaseRouteMode routeMode) {
+        this.routePolicy = IDataBaseRoutePolicy.of(routeMode);
+    }
+
+    /**
+     * 路由选择数据库。
+     * 选中的数据库已关闭或状态已改变时重新创建路由表后再选择一次。
+     * @param statuses 数据库状态列表。
+     * @return 返回选中的数据库，没有可用数据库返回null。
+     */
+    private IDataBase route(DataBaseStatus... statuses) {
+        IDataBase dataBase = this.select(this.routeTable, statuses);
+        if (dataBase != null && !isRoutable(dataBase, statuses)) {
+            this.refreshRouteTable();
+            dataBase = this.select(this.routeTable, statuses);
+        }
+        return dataBase;
+    }
+
+    private IDataBase select(DataBaseRouteTable table, DataBaseStatus... statuses) {
+        IDataBase[] dataBases;
+        if (statuses.length == 2 && statuses[0] == DataBaseStatus.enable && statuses[1] == DataBaseStatus.read) {
+            dataBases = table.getEnableOrRead();
+        } else if (statuses.length == 2 && statuses[0] == DataBaseStatus.enable && statuses[1] == DataBaseStatus.write) {
+            dataBases = table.getEnableOrWrite();
+        } else {
+            dataBases = table.get(statuses);
+        }
+        if (dataBases.length == 0) {
+            return null;
+        }
+        return this.routePolicy.select(dataBases);
+    }
+
+    /**
+     * 验证数据库是否可路由。
+     * @param dataBase 数据库。
+     * @param statuses 数据库状态列表。
+     * @return
+     */
+    private static boolean isRoutable(IDataBase dataBase, DataBaseStatus... statuses) {
+        if (dataBase.isClose()) {
+            return false;
+        }
+        DataBaseStatus status = dataBase.getStatus();
+        for (DataBaseStatus s : statuses) {
+            if (s == status) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * 同步锁。
      */
@@ -684,6 +967,7 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
         try {
             this.lock.lock();
             this.map.put(module.getId(), module);
+            this.refreshRouteTable();
         } finally {
             this.lock.unlock();
         }
@@ -699,9 +983,12 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
         try {
             this.lock.lock();
             dataBase = this.map.remove(id);
+            this.refreshRouteTable();
         } finally {
             this.lock.unlock();
         }
+        //删除写入列队，未写入的实体以错误完成。
+        if (this.writeQueue != null) this.writeQueue.remove(id);
         if (dataBase != null) dataBase.close();
     }
     /**
@@ -765,6 +1052,7 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
         this.lock.lock();
         try {
              this.map.put(dataBase.getId(), dataBase);
+             this.refreshRouteTable();
         } finally {
             this.lock.unlock();
         }
@@ -806,90 +1094,119 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
         }
         return c;
     }
+
     /**
-     * 并行插入数据。
-     * @param entity
+     * 获取可写入数据库列表。
+     * @param excludeId 排除的数据库Id，为null时不排除。
      * @return
-     * @throws InterruptedException
      */
-    private DataBaseInsertResults parallelInsert(Object entity) throws InterruptedException {
-        DataBaseInsertResults results = new DataBaseInsertResults();
-        CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
-        int threadNum = 0;
+    protected List<IDataBase> getWriteDataBases(String excludeId) {
+        List<IDataBase> list = new ArrayList<>();
         try {
             this.lock.lock();
-            //获取可写入数据库数量。
-            threadNum = this.getEnableOrWriteCount();
-            threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
             for (IDataBase dataBase : this.map.values()) {
-                if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
-                    executor.execute(new FourRunnable<CountDownLatch, IDataBase, DataBaseInsertResults, Object>(threadSignal, dataBase, results, entity) {
-                        @Override
-                        public void run() {
-                            try {
-                                this.getB().openInsert(this.getD());
-                                this.getC().getResults().add(new DataBaseInsertResult(this.getB(), 0));
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                                this.getC().getResults().add(new DataBaseInsertResult(this.getB(), -1, e));
-                                error(this, e);
-                            } finally {
-                                this.getA().countDown();
-                            }
-                        }
-                    });
+                if ((dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write) && !dataBase.isClose()) {
+                    if (excludeId == null || !excludeId.equals(dataBase.getId())) {
+                        list.add(dataBase);
+                    }
                 }
             }
         } finally {
-            //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
-        threadSignal.await(); // 等待所有子线程执行完
-        //验证是否正常完成。
-        for (DataBaseInsertResult insertResult : results.getResults())
-            if (insertResult.getInsert() == -1 || insertResult.getError() != null) {
-                results.setComplete(false);
-                break;
-            }
-        //验证是否全部数据库都完成插入。
-        if (!results.isComplete()) {
-            //添加失败删除。
-            try {
-                List<DataBaseInsertResult> completeResults = results.getCompleteResult();
-                this.lock.lock();
-                threadNum = completeResults.size();
-                threadSignal = new CountDownLatch(threadNum);
-                executor = Executors.newFixedThreadPool(threadNum);
-                for (DataBaseInsertResult result : completeResults) {
-                    executor.execute(new ThreeRunnable<CountDownLatch, DataBaseInsertResult, Object>(threadSignal, result, entity) {
-                        @Override
-                        public void run() {
-                            try {
-                                this.getB().getDataBase().openDelete(this.getC());
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                                this.getB().setInsert(-1, e);
-                                error(this, e);
-                            } finally {
-                                this.getA().countDown();
-                            }
-                        }
-                    });
+        return list;
+    }
+
+    /**
+     * 获取顺序写入数据库列表。
+     * 按数据库Id排序，多个调用线程使用相同的写入顺序。
+     * @param excludeId 排除的数据库Id，为null时不排除。
+     * @return
+     */
+    protected List<IDataBase> getOrderDataBases(String excludeId) {
+        List<IDataBase> list = this.getWriteDataBases(excludeId);
+        list.sort(Comparator.comparing(IDataBase::getId));
+        return list;
+    }
+
+    /**
+     * 获取空闲优先写入数据库列表。
+     * 按写入列队等待数量从少到多排序。
+     * @param excludeId 排除的数据库Id，为null时不排除。
+     * @return
+     */
+    protected List<IDataBase> getIdleOrderDataBases(String excludeId) {
+        List<IDataBase> list = this.getWriteDataBases(excludeId);
+        DataBaseWriteQueue writeQueue = this.getWriteQueue();
+        list.sort(Comparator.comparingInt(writeQueue::getDepth));
+        return list;
+    }
+
+    /**
+     * 并行写入。
+     * 实体同时放入各数据库写入列队，全部数据库完成后调用完成回调。
+     * @param type 写入类型。
+     * @param entity 实体对象。
+     * @param dataBases 写入数据库列表。
+     * @param callback 每个数据库完成回调，写入失败时错误不为null。
+     * @param complete 全部数据库完成回调。
+     */
+    private void parallelWrite(DataBaseWriteQueue.WriteType type, Object entity, List<IDataBase> dataBases,
+                               BiConsumer<IDataBase, Exception> callback, Runnable complete) {
+        if (dataBases.isEmpty()) {
+            complete.run();
+            return;
+        }
+        AtomicInteger count = new AtomicInteger(dataBases.size());
+        DataBaseWriteQueue writeQueue = this.getWriteQueue();
+        for (IDataBase dataBase : dataBases) {
+            writeQueue.submit(dataBase, type, entity, (d, e) -> {
+                callback.accept(d, e);
+                if (count.decrementAndGet() == 0) {
+                    complete.run();
                 }
-            } finally {
-                this.lock.unlock();
-            }
-            //固定线程池执行完成后 将释放掉资源 退出主进程
-            executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
-            threadSignal.await(); // 等待所有子线程执行完
+            });
         }
-        //返回状态。
-        return results;
+    }
+
+    /**
+     * 顺序写入。
+     * 上一个数据库写入成功后再放入下一个数据库写入列队，写入失败时停止。
+     * 插入时只有第一个数据库生成主键，后续数据库使用已生成的主键复制插入。
+     * @param type 写入类型。
+     * @param entity 实体对象。
+     * @param dataBases 写入数据库列表。
+     * @param index 当前写入数据库位置。
+     * @param callback 每个数据库完成回调，写入失败时错误不为null。
+     * @param complete 完成回调。
+     */
+    private void orderWrite(DataBaseWriteQueue.WriteType type, Object entity, List<IDataBase> dataBases, int index,
+                            BiConsumer<IDataBase, Exception> callback, Runnable complete) {
+        if (index == dataBases.size()) {
+            complete.run();
+            return;
+        }
+        this.getWriteQueue().submit(dataBases.get(index), type, entity, (d, e) -> {
+            callback.accept(d, e);
+            if (e == null) {
+                this.orderWrite(type == DataBaseWriteQueue.WriteType.insert ? DataBaseWriteQueue.WriteType.replicate : type,
+                        entity, dataBases, index + 1, callback, complete);
+            } else {
+                complete.run();
+            }
+        });
     }
+    /**
+     * 并行插入数据。
+     * 调用线程等待全部数据库插入完成，插入失败时删除已插入的数据库数据。
+     * @param entity
+     * @return
+     * @throws InterruptedException
+     */
+    private DataBaseInsertResults parallelInsert(Object entity) throws InterruptedException {
+        return this.parallelInsert(null, null, entity);
+    }
+
     /**
      * 插入实体。
      *
@@ -909,16 +1226,58 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
         return null;
     }
 
-    private DataBaseInsertResults asyncInsert(Object entity) throws InterruptedException{
-        return null;
+    /**
+     * 异步插入数据。
+     * 实体放入各数据库写入列队后立即返回，由 {@link DataBaseInsertResults#getFuture()} 通知完成。
+     * @param entity
+     * @return
+     */
+    private DataBaseInsertResults asyncInsert(Object entity) {
+        DataBaseInsertResults results = new DataBaseInsertResults();
+        List<IDataBase> dataBases = this.getWriteDataBases(null);
+        if (dataBases.isEmpty()) {
+            results.getFuture().complete(results);
+            return results;
+        }
+        //第一个数据库插入生成主键后，其它数据库并行复制插入。
+        IDataBase first = dataBases.remove(0);
+        this.getWriteQueue().submit(first, DataBaseWriteQueue.WriteType.insert, entity, (d, e) -> {
+            this.addInsertResult(results, d, entity, e);
+            if (e == null) {
+                this.parallelWrite(DataBaseWriteQueue.WriteType.replicate, entity, dataBases,
+                        (dataBase, ex) -> this.addInsertResult(results, dataBase, entity, ex),
+                        () -> this.completeInsert(results, entity, null));
+            } else {
+                this.completeInsert(results, entity, null);
+            }
+        });
+        return results;
     }
 
+    /**
+     * 空闲优先顺序插入数据。
+     * @param entity
+     * @return
+     */
     private DataBaseInsertResults idleOrderInsert(Object entity) {
-        return null;
+        DataBaseInsertResults results = new DataBaseInsertResults();
+        this.orderWrite(DataBaseWriteQueue.WriteType.insert, entity, this.getIdleOrderDataBases(null), 0,
+                (dataBase, e) -> this.addInsertResult(results, dataBase, entity, e),
+                () -> this.completeInsert(results, entity, null));
+        return results;
     }
 
+    /**
+     * 顺序插入数据。
+     * @param entity
+     * @return
+     */
     private DataBaseInsertResults orderInsert(Object entity) {
-        return null;
+        DataBaseInsertResults results = new DataBaseInsertResults();
+        this.orderWrite(DataBaseWriteQueue.WriteType.insert, entity, this.getOrderDataBases(null), 0,
+                (dataBase, e) -> this.addInsertResult(results, dataBase, entity, e),
+                () -> this.completeInsert(results, entity, null));
+        return results;
     }
 
     /**
@@ -941,98 +1300,211 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
     }
 
     private DataBaseInsertResults currentIdleOrderInsert(IDataBase dataBase, Session session, Object entity) {
-        return null;
+        DataBaseInsertResults results = new DataBaseInsertResults();
+        if (this.currentInsert(results, dataBase, session, entity)) {
+            this.orderWrite(DataBaseWriteQueue.WriteType.replicate, entity, this.getIdleOrderDataBases(dataBase.getId()), 0,
+                    (d, e) -> this.addInsertResult(results, d, entity, e),
+                    () -> this.completeInsert(results, entity, dataBase));
+        }
+        return results;
     }
 
     private DataBaseInsertResults currentOrderInsert(IDataBase dataBase, Session session, Object entity) {
-        return null;
+        DataBaseInsertResults results = new DataBaseInsertResults();
+        if (this.currentInsert(results, dataBase, session, entity)) {
+            this.orderWrite(DataBaseWriteQueue.WriteType.replicate, entity, this.getOrderDataBases(dataBase.getId()), 0,
+                    (d, e) -> this.addInsertResult(results, d, entity, e),
+                    () -> this.completeInsert(results, entity, dataBase));
+        }
+        return results;
     }
 
     private DataBaseInsertResults currentParallelInsert(IDataBase currentDataBase, Session currentSession, Object entity) throws InterruptedException{
+        return this.parallelInsert(currentDataBase, currentSession, entity);
+    }
+
+    /**
+     * 并行插入数据。
+     * 调用线程先在主数据库插入生成主键，其它数据库在复制线程池并行复制插入实体副本。
+     * @param currentDataBase 当前线程数据库，为null时全部数据库打开会话插入。
+     * @param currentSession 当前线程会话。
+     * @param entity
+     * @return
+     * @throws InterruptedException
+     */
+    private DataBaseInsertResults parallelInsert(IDataBase currentDataBase, Session currentSession, Object entity) throws InterruptedException {
         DataBaseInsertResults results = new DataBaseInsertResults();
-        CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
-        int threadNum = 0;
-        try {
-            this.lock.lock();
-            //获取可写入数据库数量。
-            threadNum = this.getEnableOrWriteCount();
-            threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
-            for (IDataBase dataBase : this.map.values()) {
-                if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
-                    executor.execute(new SixRunnable<CountDownLatch, IDataBase, DataBaseInsertResults, Object, IDataBase, Session>(threadSignal, dataBase, results, entity, currentDataBase, currentSession) {
-                        @Override
-                        public void run() {
-                            try {
-                                if(this.getB().getId().equals(this.getE().getId())){
-                                    DataUtil.currentInsert(this.getE(), this.getF(), this.getD());
-                                }else{
-                                    this.getB().openInsert(this.getD());
-                                }
-                                this.getC().getResults().add(new DataBaseInsertResult(this.getB(), 0));
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                                this.getC().getResults().add(new DataBaseInsertResult(this.getB(), -1, e));
-                                error(this, e);
-                            } finally {
-                                this.getA().countDown();
-                            }
-                        }
-                    });
-                }
+        //获取可写入数据库。
+        List<IDataBase> dataBases = this.getWriteDataBases(currentDataBase == null ? null : currentDataBase.getId());
+        //主数据库插入生成主键。
+        if (currentDataBase != null) {
+            if (!this.currentInsert(results, currentDataBase, currentSession, entity)) {
+                return results;
             }
-        } finally {
-            //解锁数据库控制器。
-            this.lock.unlock();
-        }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
-        threadSignal.await(); // 等待所有子线程执行完
-        //验证是否正常完成。
-        for (DataBaseInsertResult insertResult : results.getResults())
-            if (insertResult.getInsert() == -1 || insertResult.getError() != null) {
+        } else if (!dataBases.isEmpty()) {
+            IDataBase first = dataBases.remove(0);
+            try {
+                first.openInsert(entity);
+                results.getResults().add(new DataBaseInsertResult(first, 0));
+            } catch (Exception e) {
+                results.getResults().add(new DataBaseInsertResult(first, -1, e));
+                this.error(first, entity, e);
                 results.setComplete(false);
-                break;
+                results.getFuture().complete(results);
+                return results;
             }
+        }
+        //其它数据库复制插入。
+        CountDownLatch threadSignal = new CountDownLatch(dataBases.size());
+        Executor executor = this.getReplicationExecutor();
+        for (IDataBase dataBase : dataBases) {
+            executor.execute(() -> {
+                try {
+                    DataUtil.openReplicate(dataBase, entity);
+                    results.getResults().add(new DataBaseInsertResult(dataBase, 0));
+                } catch (Exception e) {
+                    results.getResults().add(new DataBaseInsertResult(dataBase, -1, e));
+                    this.error(dataBase, entity, e);
+                } finally {
+                    threadSignal.countDown();
+                }
+            });
+        }
+        threadSignal.await(); // 等待所有数据库执行完
+        //验证是否正常完成。
+        this.checkInsertComplete(results);
         //验证是否全部数据库都完成插入。
         if (!results.isComplete()) {
-            //添加失败删除。
-            try {
-                List<DataBaseInsertResult> completeResults = results.getCompleteResult();
-                this.lock.lock();
-                threadNum = completeResults.size();
-                threadSignal = new CountDownLatch(threadNum);
-                executor = Executors.newFixedThreadPool(threadNum);
-                for (DataBaseInsertResult result : completeResults) {
-                    executor.execute(new ThreeRunnable<CountDownLatch, DataBaseInsertResult, Object>(threadSignal, result, entity) {
-                        @Override
-                        public void run() {
-                            try {
-                                this.getB().getDataBase().openDelete(this.getC());
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                                this.getB().setInsert(-1, e);
-                                error(this, e);
-                            } finally {
-                                this.getA().countDown();
-                            }
-                        }
-                    });
+            //添加失败删除，当前线程数据库由调用方事务处理。
+            List<DataBaseInsertResult> completeResults = new ArrayList<>();
+            for (DataBaseInsertResult result : results.getCompleteResult()) {
+                if (currentDataBase == null || !result.getDataBase().getId().equals(currentDataBase.getId())) {
+                    completeResults.add(result);
                 }
-            } finally {
-                this.lock.unlock();
             }
-            //固定线程池执行完成后 将释放掉资源 退出主进程
-            executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
-            threadSignal.await(); // 等待所有子线程执行完
+            CountDownLatch deleteSignal = new CountDownLatch(completeResults.size());
+            for (DataBaseInsertResult result : completeResults) {
+                executor.execute(() -> {
+                    try {
+                        result.getDataBase().openDelete(entity);
+                    } catch (Exception e) {
+                        result.setInsert(-1, e);
+                        this.error(result.getDataBase(), entity, e);
+                    } finally {
+                        deleteSignal.countDown();
+                    }
+                });
+            }
+            deleteSignal.await(); // 等待所有数据库执行完
         }
+        results.getFuture().complete(results);
         //返回状态。
         return results;
     }
 
     private DataBaseInsertResults currentAsyncInsert(IDataBase dataBase, Session session, Object entity) {
-        return null;
+        DataBaseInsertResults results = new DataBaseInsertResults();
+        if (this.currentInsert(results, dataBase, session, entity)) {
+            this.parallelWrite(DataBaseWriteQueue.WriteType.replicate, entity, this.getWriteDataBases(dataBase.getId()),
+                    (d, e) -> this.addInsertResult(results, d, entity, e),
+                    () -> this.completeInsert(results, entity, dataBase));
+        }
+        return results;
+    }
+
+    /**
+     * 当前线程会话插入数据。
+     * @param results 插入返回。
+     * @param dataBase 当前线程数据库。
+     * @param session 当前线程会话。
+     * @param entity
+     * @return 返回是否插入成功，失败时完成插入返回。
+     */
+    private boolean currentInsert(DataBaseInsertResults results, IDataBase dataBase, Session session, Object entity) {
+        try {
+            DataUtil.currentInsert(dataBase, session, entity);
+            results.getResults().add(new DataBaseInsertResult(dataBase, 0));
+            return true;
+        } catch (Exception e) {
+            results.getResults().add(new DataBaseInsertResult(dataBase, -1, e));
+            this.error(dataBase, entity, e);
+            results.setComplete(false);
+            results.getFuture().complete(results);
+            return false;
+        }
+    }
+
+    /**
+     * 添加插入返回。
+     * @param results 插入返回。
+     * @param dataBase 数据库。
+     * @param entity
+     * @param e 错误，成功为null。
+     */
+    private void addInsertResult(DataBaseInsertResults results, IDataBase dataBase, Object entity, Exception e) {
+        if (e == null) {
+            results.getResults().add(new DataBaseInsertResult(dataBase, 0));
+        } else {
+            results.getResults().add(new DataBaseInsertResult(dataBase, -1, e));
+            this.error(dataBase, entity, e);
+        }
+    }
+
+    /**
+     * 验证插入是否全部完成。
+     * @param results 插入返回。
+     */
+    private void checkInsertComplete(DataBaseInsertResults results) {
+        synchronized (results.getResults()) {
+            for (DataBaseInsertResult insertResult : results.getResults()) {
+                if (insertResult.getInsert() == -1 || insertResult.getError() != null) {
+                    results.setComplete(false);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 完成插入。
+     * 有数据库插入失败时，通过写入列队删除已插入数据库的数据后完成。
+     * @param results 插入返回。
+     * @param entity
+     * @param currentDataBase 当前线程数据库，由调用方事务处理，不删除。
+     */
+    private void completeInsert(DataBaseInsertResults results, Object entity, IDataBase currentDataBase) {
+        this.checkInsertComplete(results);
+        if (results.isComplete()) {
+            results.getFuture().complete(results);
+            return;
+        }
+        //添加失败删除。
+        List<DataBaseInsertResult> completeResults = new ArrayList<>();
+        for (DataBaseInsertResult result : results.getCompleteResult()) {
+            if (currentDataBase == null || !result.getDataBase().getId().equals(currentDataBase.getId())) {
+                completeResults.add(result);
+            }
+        }
+        if (completeResults.isEmpty()) {
+            results.getFuture().complete(results);
+            return;
+        }
+        List<IDataBase> dataBases = new ArrayList<>(completeResults.size());
+        for (DataBaseInsertResult result : completeResults) {
+            dataBases.add(result.getDataBase());
+        }
+        this.parallelWrite(DataBaseWriteQueue.WriteType.delete, entity, dataBases,
+                (dataBase, e) -> {
+                    if (e != null) {
+                        for (DataBaseInsertResult result : completeResults) {
+                            if (result.getDataBase() == dataBase) {
+                                result.setInsert(-1, e);
+                            }
+                        }
+                        this.error(dataBase, entity, e);
+                    }
+                },
+                () -> results.getFuture().complete(results));
     }
 
     /**
@@ -1110,12 +1582,30 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
         return null;
     }
 
+    /**
+     * 空闲优先顺序更新。
+     * @param entity
+     * @return
+     */
     private DataBaseUpdateResults idleOrderUpdate(Object entity) {
-        return null;
+        DataBaseUpdateResults results = new DataBaseUpdateResults();
+        this.orderWrite(DataBaseWriteQueue.WriteType.update, entity, this.getIdleOrderDataBases(null), 0,
+                (dataBase, e) -> this.addUpdateResult(results, dataBase, entity, e),
+                () -> this.completeUpdate(results));
+        return results;
     }
 
+    /**
+     * 顺序更新。
+     * @param entity
+     * @return
+     */
     private DataBaseUpdateResults orderUpdate(Object entity) {
-        return null;
+        DataBaseUpdateResults results = new DataBaseUpdateResults();
+        this.orderWrite(DataBaseWriteQueue.WriteType.update, entity, this.getOrderDataBases(null), 0,
+                (dataBase, e) -> this.addUpdateResult(results, dataBase, entity, e),
+                () -> this.completeUpdate(results));
+        return results;
     }
 
     /**
@@ -1125,58 +1615,76 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
      * @throws InterruptedException
      */
     private DataBaseUpdateResults parallelUpdate(Object entity) throws InterruptedException {
-        CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        return this.parallelUpdate(null, null, entity);
+    }
+
+    /**
+     * 并行更新。
+     * @param currentDataBase 当前线程数据库，为null时全部数据库打开会话更新。
+     * @param currentSession 当前线程会话。
+     * @param entity
+     * @return
+     * @throws InterruptedException
+     */
+    private DataBaseUpdateResults parallelUpdate(IDataBase currentDataBase, Session currentSession, Object entity) throws InterruptedException {
         DataBaseUpdateResults results = new DataBaseUpdateResults();
-        try {
-            this.lock.lock();
-            int threadNum = this.getEnableOrWriteCount();
-            threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
-            for (IDataBase dataBase : this.map.values()) {
-                if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
-                    executor.execute(new FourRunnable<CountDownLatch, IDataBase, DataBaseUpdateResults, Object>(threadSignal, dataBase, results, entity) {
-                        @Override
-                        public void run() {
-                            try {
-                                this.getB().openUpdate(this.getD());
-                                this.getC().getResults().add(new DataBaseUpdateResult(this.getB(), 0));
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                                this.getC().getResults().add(new DataBaseUpdateResult(this.getB(), -1, e));
-                                error(this, e);
-                            } finally {
-                                this.getA().countDown();
-                            }
-                        }
-                    });
-                }
+        List<IDataBase> dataBases = this.getWriteDataBases(currentDataBase == null ? null : currentDataBase.getId());
+        //当前线程会话只在调用线程使用。
+        if (currentDataBase != null) {
+            try {
+                DataUtil.currentUpdate(currentDataBase, currentSession, entity);
+                results.getResults().add(new DataBaseUpdateResult(currentDataBase, 0));
+            } catch (Exception e) {
+                results.getResults().add(new DataBaseUpdateResult(currentDataBase, -1, e));
+                this.error(currentDataBase, entity, e);
             }
-        } finally {
-            //解锁数据库控制器。
-            this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
-        threadSignal.await(); // 等待所有子线程执行完
+        CountDownLatch threadSignal = new CountDownLatch(dataBases.size());
+        Executor executor = this.getReplicationExecutor();
+        for (IDataBase dataBase : dataBases) {
+            executor.execute(() -> {
+                try {
+                    //每个数据库更新独立的实体副本。
+                    dataBase.openUpdate(DataUtil.copyEntity(dataBase, entity));
+                    results.getResults().add(new DataBaseUpdateResult(dataBase, 0));
+                } catch (Exception e) {
+                    results.getResults().add(new DataBaseUpdateResult(dataBase, -1, e));
+                    this.error(dataBase, entity, e);
+                } finally {
+                    threadSignal.countDown();
+                }
+            });
+        }
+        threadSignal.await(); // 等待所有数据库执行完
+        this.completeUpdate(results);
         return results;
     }
 
+    /**
+     * 异步更新。
+     * 实体放入各数据库写入列队后立即返回，由 {@link DataBaseUpdateResults#getFuture()} 通知完成。
+     * @param entity
+     * @return
+     */
     private DataBaseUpdateResults asyncUpdate(Object entity) {
-        return null;
+        DataBaseUpdateResults results = new DataBaseUpdateResults();
+        this.parallelWrite(DataBaseWriteQueue.WriteType.update, entity, this.getWriteDataBases(null),
+                (dataBase, e) -> this.addUpdateResult(results, dataBase, entity, e),
+                () -> this.completeUpdate(results));
+        return results;
     }
     private <T> DataBaseUpdateResults asyncCriteriaUpdate(CriteriaUpdate<T> criteriaUpdate){
         return null;
     }
     private <T> DataBaseUpdateResults parallelCriteriaUpdate(CriteriaUpdate<T> criteriaUpdate) throws InterruptedException{
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         DataBaseUpdateResults results = new DataBaseUpdateResults();
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
                     executor.execute(new FourRunnable<CountDownLatch, IDataBase, DataBaseUpdateResults, CriteriaUpdate<T>>(threadSignal, dataBase, results, criteriaUpdate) {
@@ -1199,8 +1707,6 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         threadSignal.await(); // 等待所有子线程执行完
         return results;
     }
@@ -1261,13 +1767,13 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
 
     private <T> DataBaseUpdateResults parallelCriteriaUpdate(IDataBase currentDataBase, Session currentSession, CriteriaUpdate<T> criteriaUpdate) throws InterruptedException {
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         DataBaseUpdateResults results = new DataBaseUpdateResults();
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
                     executor.execute(new SixRunnable<CountDownLatch, IDataBase, DataBaseUpdateResults, CriteriaUpdate<T>, IDataBase, Session>(threadSignal, dataBase, results, criteriaUpdate, currentDataBase, currentSession) {
@@ -1294,8 +1800,6 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         threadSignal.await(); // 等待所有子线程执行完
         return results;
     }
@@ -1334,13 +1838,13 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
 
     private <T> DataBaseUpdateResults parallelCriteriaUpdate(IDataBase currentDataBase, Session currentSession, Class<T> entity, HashMap<String, Object> update)throws InterruptedException  {
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         DataBaseUpdateResults results = new DataBaseUpdateResults();
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
                     executor.execute(new SixRunnable<CountDownLatch, IDataBase, DataBaseUpdateResults, Two<Class<T>, HashMap<String, Object>>, IDataBase, Session>(threadSignal, dataBase, results, new Two<>(entity, update), currentDataBase, currentSession) {
@@ -1367,8 +1871,6 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         threadSignal.await(); // 等待所有子线程执行完
         return results;
     }
@@ -1397,57 +1899,90 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
     }
 
     private DataBaseUpdateResults currentIdleOrderUpdate(IDataBase currentDataBase, Session currentSession, Object entity) {
-        return null;
+        DataBaseUpdateResults results = new DataBaseUpdateResults();
+        if (this.currentUpdate(results, currentDataBase, currentSession, entity)) {
+            this.orderWrite(DataBaseWriteQueue.WriteType.update, entity, this.getIdleOrderDataBases(currentDataBase.getId()), 0,
+                    (d, e) -> this.addUpdateResult(results, d, entity, e),
+                    () -> this.completeUpdate(results));
+        }
+        return results;
     }
 
     private DataBaseUpdateResults currentOrderUpdate(IDataBase currentDataBase, Session currentSession, Object entity) {
-        return null;
+        DataBaseUpdateResults results = new DataBaseUpdateResults();
+        if (this.currentUpdate(results, currentDataBase, currentSession, entity)) {
+            this.orderWrite(DataBaseWriteQueue.WriteType.update, entity, this.getOrderDataBases(currentDataBase.getId()), 0,
+                    (d, e) -> this.addUpdateResult(results, d, entity, e),
+                    () -> this.completeUpdate(results));
+        }
+        return results;
     }
 
     private DataBaseUpdateResults currentParallelUpdate(IDataBase currentDataBase, Session currentSession, Object entity) throws InterruptedException{
-        CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        return this.parallelUpdate(currentDataBase, currentSession, entity);
+    }
+
+    private DataBaseUpdateResults currentAsyncUpdate(IDataBase currentDataBase, Session currentSession, Object entity) {
         DataBaseUpdateResults results = new DataBaseUpdateResults();
-        try {
-            this.lock.lock();
-            int threadNum = this.getEnableOrWriteCount();
-            threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
-            for (IDataBase dataBase : this.map.values()) {
-                if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
-                    executor.execute(new SixRunnable<CountDownLatch, IDataBase, DataBaseUpdateResults, Object, IDataBase, Session>(threadSignal, dataBase, results, entity, currentDataBase, currentSession) {
-                        @Override
-                        public void run() {
-                            try {
-                                if (this.getB().getId().equals(this.getE().getId())) {
-                                    DataUtil.currentUpdate(this.getE(),this.getF() , this.getD());
-                                } else {
-                                    this.getB().openUpdate(this.getD());
-                                }
-                                this.getC().getResults().add(new DataBaseUpdateResult(this.getB(), 0));
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                                this.getC().getResults().add(new DataBaseUpdateResult(this.getB(), -1, e));
-                                error(this, e);
-                            } finally {
-                                this.getA().countDown();
-                            }
-                        }
-                    });
-                }
-            }
-        } finally {
-            //解锁数据库控制器。
-            this.lock.unlock();
+        if (this.currentUpdate(results, currentDataBase, currentSession, entity)) {
+            this.parallelWrite(DataBaseWriteQueue.WriteType.update, entity, this.getWriteDataBases(currentDataBase.getId()),
+                    (d, e) -> this.addUpdateResult(results, d, entity, e),
+                    () -> this.completeUpdate(results));
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
-        threadSignal.await(); // 等待所有子线程执行完
         return results;
     }
 
-    private DataBaseUpdateResults currentAsyncUpdate(IDataBase currentDataBase, Session currentSession, Object entity) {
-        return null;
+    /**
+     * 当前线程会话更新数据。
+     * @param results 更新返回。
+     * @param dataBase 当前线程数据库。
+     * @param session 当前线程会话。
+     * @param entity
+     * @return 返回是否更新成功，失败时完成更新返回。
+     */
+    private boolean currentUpdate(DataBaseUpdateResults results, IDataBase dataBase, Session session, Object entity) {
+        try {
+            DataUtil.currentUpdate(dataBase, session, entity);
+            results.getResults().add(new DataBaseUpdateResult(dataBase, 0));
+            return true;
+        } catch (Exception e) {
+            results.getResults().add(new DataBaseUpdateResult(dataBase, -1, e));
+            this.error(dataBase, entity, e);
+            this.completeUpdate(results);
+            return false;
+        }
+    }
+
+    /**
+     * 添加更新返回。
+     * @param results 更新返回。
+     * @param dataBase 数据库。
+     * @param entity
+     * @param e 错误，成功为null。
+     */
+    private void addUpdateResult(DataBaseUpdateResults results, IDataBase dataBase, Object entity, Exception e) {
+        if (e == null) {
+            results.getResults().add(new DataBaseUpdateResult(dataBase, 0));
+        } else {
+            results.getResults().add(new DataBaseUpdateResult(dataBase, -1, e));
+            this.error(dataBase, entity, e);
+        }
+    }
+
+    /**
+     * 完成更新。
+     * @param results 更新返回。
+     */
+    private void completeUpdate(DataBaseUpdateResults results) {
+        synchronized (results.getResults()) {
+            for (DataBaseUpdateResult result : results.getResults()) {
+                if (result.getError() != null) {
+                    results.setComplete(false);
+                    break;
+                }
+            }
+        }
+        results.getFuture().complete(results);
     }
 
     /**
@@ -1551,13 +2086,13 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
 
     private <T> DataBaseDeleteResults openParallelDelete(Class<T> entity, Object id) throws InterruptedException {
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         DataBaseDeleteResults results = new DataBaseDeleteResults();
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
                     executor.execute(new FiveRunnable<CountDownLatch, IDataBase, DataBaseDeleteResults, Class<T>, Object>(threadSignal, dataBase, results, entity, id) {
@@ -1579,8 +2114,6 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         threadSignal.await(); // 等待所有子线程执行完
         //返回更新数据库总行数。
         return results;
@@ -1623,13 +2156,13 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
 
     private <T> DataBaseDeleteResults currentParallelDelete(IDataBase currentDataBase, Session currentSession, Class<T> entity, Object id) throws InterruptedException{
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         DataBaseDeleteResults results = new DataBaseDeleteResults();
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
                     executor.execute(new SevenRunnable<CountDownLatch, IDataBase, DataBaseDeleteResults, Class<T>, Object, IDataBase, Session>(threadSignal, dataBase, results, entity, id, currentDataBase, currentSession) {
@@ -1655,8 +2188,6 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         threadSignal.await(); // 等待所有子线程执行完
         //返回更新数据库总行数。
         return results;
@@ -1704,12 +2235,12 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
     private DataBaseDeleteResults openParallelDelete(Object entity) throws InterruptedException {
         DataBaseDeleteResults results = new DataBaseDeleteResults();
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
                     executor.execute(new FourRunnable<CountDownLatch, IDataBase, DataBaseDeleteResults, Object>(threadSignal, dataBase, results, entity) {
@@ -1733,8 +2264,6 @@ public class DataBaseController implements IDataBaseController, AutoCloseable, I
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         threadSignal.await(); // 等待所有子线程执
         return results;
     }
@@ -1767,12 +2296,12 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
     private  <T>  DataBaseDeleteResults openParallelDelete(CriteriaDelete<T> criteria) throws InterruptedException {
         DataBaseDeleteResults results = new DataBaseDeleteResults();
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
                     executor.execute(new FourRunnable<CountDownLatch, IDataBase, DataBaseDeleteResults, CriteriaDelete<T>>(threadSignal, dataBase, results, criteria) {
@@ -1795,8 +2324,6 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         threadSignal.await(); // 等待所有子线程执
         return results;
     }
@@ -1838,7 +2365,7 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
      *
      * @return
      */
-    public synchronized Session getCurrentSession() {
+    public Session getCurrentSession() {
         //返回当前线程会话对象。
         return  this. getCurrentDataBase().getCurrentSession();
     }
@@ -1846,11 +2373,13 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
      * 打开当前线程数据库。
      * @return
      */
-    public synchronized IDataBase getCurrentDataBase() {
-        if (this.currentDataBase.get() == null) {
-            this.currentDataBase.set(this.openDataBase());
+    public IDataBase getCurrentDataBase() {
+        IDataBase dataBase = this.currentDataBase.get();
+        if (dataBase == null) {
+            dataBase = this.openDataBase();
+            this.currentDataBase.set(dataBase);
         }
-        return this.currentDataBase.get();
+        return dataBase;
     }
     /**
      * 开打数据位置。
@@ -1919,12 +2448,12 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
         //锁定数据库控制器。
         DataBaseUpdateResults results = new DataBaseUpdateResults();
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 if (!dataBase.isClose()) {
                     executor.execute(new SixRunnable<CountDownLatch, IDataBase, DataBaseUpdateResults, Class<?>, String, Object>(threadSignal, dataBase, results, entity, name, value) {
@@ -1949,8 +2478,6 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         threadSignal.await(); // 等待所有子线程执行完
         //返回更新数据库总行数。
         return results;
@@ -1962,101 +2489,53 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
 
     /**
      * 获取当前线程正常与只读数据库。
+     * 线程数据库仍为正常或只读状态时继续使用，否则按路由策略重新选择。
      * @return
      */
     public IDataBase getCurrentEnableOrReadDataBase() {
-        this.lock.lock();
-        try {
-            //获取线程数据库。
-            IDataBase dataBase = currentDataBase.get();
-            //声明选择数据库。
-            IDataBase selectDataBase = null;
-            //遍历数据库。
-            for (Map.Entry<String, IDataBase> entry : this.map.entrySet()) {
-                //验证正常与只读状态数据库。
-                if (entry.getValue().getStatus() == DataBaseStatus.enable || entry.getValue().getStatus() == DataBaseStatus.read && !entry.getValue().isClose()) {
-                    //返回找到的数据库。
-                    selectDataBase = entry.getValue();
-                }
-            }
-            //验证线程数据库与选中数据库是否同等。
-            if (!dataBase.getId().equals(selectDataBase.getId())) {
-                //数据不同等重置线程数据库。
-                this.currentDataBase.remove();
-                this.currentDataBase.set(selectDataBase);
-            }
-            //返回线程数据库。
-            return this.currentDataBase.get();
-        } finally {
-            this.lock.unlock();
+        //获取线程数据库。
+        IDataBase dataBase = this.currentDataBase.get();
+        if (dataBase != null && isRoutable(dataBase, DataBaseStatus.enable, DataBaseStatus.read)) {
+            return dataBase;
         }
+        //数据不同等重置线程数据库。
+        dataBase = this.route(DataBaseStatus.enable, DataBaseStatus.read);
+        if (dataBase == null) {
+            this.currentDataBase.remove();
+        } else {
+            this.currentDataBase.set(dataBase);
+        }
+        //返回线程数据库。
+        return dataBase;
     }
     /**
      * 打开正常与只写数据库。
      * @return
      */
     public IDataBase openEnableOrWriteDataBase() {
-        this.lock.lock();
-        try {
-            for (Map.Entry<String, IDataBase> entry : this.map.entrySet()) {
-                if (entry.getValue().getStatus() == DataBaseStatus.enable || entry.getValue().getStatus() == DataBaseStatus.write && !entry.getValue().isClose()) {
-                    return entry.getValue();
-                }
-            }
-        } finally {
-            this.lock.unlock();
-        }
-        return null;
+        return this.route(DataBaseStatus.enable, DataBaseStatus.write);
     }
+    /**
+     * 打开正常与只读数据库。
+     * @return
+     */
     public IDataBase openEnableOrReadDataBase() {
-        this.lock.lock();
-        try {
-            for (Map.Entry<String, IDataBase> entry : this.map.entrySet()) {
-                if (entry.getValue().getStatus() == DataBaseStatus.enable || entry.getValue().getStatus() == DataBaseStatus.read && !entry.getValue().isClose()) {
-                    return entry.getValue();
-                }
-            }
-        } finally {
-            this.lock.unlock();
-        }
-        return null;
+        return this.route(DataBaseStatus.enable, DataBaseStatus.read);
     }
+    /**
+     * 打开指定状态数据库。
+     * @param statuses 数据库状态列表。
+     * @return
+     */
     public IDataBase openDataBase(DataBaseStatus[] statuses) {
-        this.lock.lock();
-        try {
-            List<Map.Entry<String, IDataBase>> list = new ArrayList<>();
-            for (DataBaseStatus status : statuses) {
-                for (Map.Entry<String, IDataBase> entry : this.map.entrySet()) {
-                    if (entry.getValue().getStatus() == status && !entry.getValue().isClose()) {
-                        list.add(entry);
-                    }
-                }
-            }
-            //获取指定操作类型的数据库列表。
-            for (Map.Entry<String, IDataBase> entry : list) {
-
-            }
-        } finally {
-            this.lock.unlock();
-        }
-        return null;
+        return this.route(statuses);
     }
     /**
      * 打开最空闲数据库。
      * @return
      */
     public IDataBase openDataBase() {
-        this.lock.lock();
-        try {
-            for (Map.Entry<String, IDataBase> entry : this.map.entrySet()) {
-                if(entry.getValue().getStatus() == DataBaseStatus.enable && !entry.getValue().isClose()){
-                    return entry.getValue();
-                }
-            }
-        } finally {
-            this.lock.unlock();
-        }
-        return null;
+        return this.route(DataBaseStatus.enable);
     }
     /**
      * 当前线程数据库。
@@ -2121,12 +2600,12 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
     private <T> DataBaseDeleteResults parallelDelete(Class<T> entity, String[] names, Object[] values) throws InterruptedException{
         DataBaseDeleteResults results = new DataBaseDeleteResults();
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 executor.execute(new SixRunnable<CountDownLatch, IDataBase, DataBaseDeleteResults, Class<T>, String[], Object[]>(threadSignal, dataBase, results, entity, names, values) {
                     @Override
@@ -2147,8 +2626,6 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         threadSignal.await(); // 等待所有子线程执行完
         //返回更新数据库总行数。
         return results;
@@ -2338,12 +2815,12 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
         //锁定数据库控制器。
         DataBaseUpdateResults results = new DataBaseUpdateResults();
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         try {
             this.lock.lock();
             int threadNum = this.map.size();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 if (!dataBase.isClose()) {
                     executor.execute(new OneRunnable<Five<CountDownLatch, IDataBase, DataBaseUpdateResults, Class<T>, HashMap<String, Object>>>(new Five<>(threadSignal, dataBase, results, entity, update)) {
@@ -2395,8 +2872,6 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
             this.lock.unlock();
         }
         threadSignal.await(); // 等待所有子线程执行完
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         //返回更新数据库总行数。
         return results;
     }
@@ -2510,12 +2985,12 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
     private <T> DataBaseDeleteResults parallelDelete(Class<T> entity) throws InterruptedException {
         DataBaseDeleteResults results = new DataBaseDeleteResults();
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 executor.execute(new FourRunnable<CountDownLatch, IDataBase, DataBaseDeleteResults, Class<T>>(threadSignal, dataBase, results, entity) {
                     @Override
@@ -2536,8 +3011,6 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         threadSignal.await(); // 等待所有子线程执行完
         //返回更新数据库总行数。
         return results;
@@ -2593,12 +3066,12 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
     private <T> DataBaseUpdateResults parallelUpdate(Class<T> entity, String[] names, Object[] values) throws InterruptedException {
         DataBaseUpdateResults results = new DataBaseUpdateResults();
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 executor.execute(new SixRunnable<CountDownLatch, IDataBase, DataBaseUpdateResults, Class<T>, String[], Object[]>(threadSignal, dataBase, results, entity, names, values) {
                     @Override
@@ -2619,8 +3092,6 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任
         threadSignal.await(); // 等待所有子线程执行完务
         //返回更新数据库总行数。
         return results;
@@ -2665,12 +3136,12 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
     private <T> DataBaseUpdateResults parallelUpdate(Class<T> entity, Object id, String[] names, Object[] values)throws InterruptedException {
         DataBaseUpdateResults results = new DataBaseUpdateResults();
         CountDownLatch threadSignal =  null;
-        ExecutorService executor = null;
+        Executor executor = null;
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
              threadSignal = new CountDownLatch(threadNum);
-             executor = Executors.newFixedThreadPool(threadNum);
+             executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
                     executor.execute(new SevenRunnable<CountDownLatch, IDataBase, DataBaseUpdateResults, Class<T>, Object, String[], Object[]>(threadSignal, dataBase, results, entity, id, names, values) {
@@ -2693,8 +3164,6 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         threadSignal.await(); // 等待所有子线程执行完
         //返回更新数据库总行数。
         return results;
@@ -2735,12 +3204,12 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
     private <T> DataBaseDeleteResults openParallelDelete(Class<T> entity, List<Object> arrays) throws InterruptedException{
         DataBaseDeleteResults results = new DataBaseDeleteResults();
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
              threadSignal = new CountDownLatch(threadNum);
-             executor = Executors.newFixedThreadPool(threadNum);
+             executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 executor.execute(new FiveRunnable<CountDownLatch, IDataBase, DataBaseDeleteResults, Class<T>, List<Object>>(threadSignal, dataBase, results, entity, arrays) {
                     @Override
@@ -2761,8 +3230,6 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
             //解锁数据库控制器。
             this.lock.unlock();
         }
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         threadSignal.await(); // 等待所有子线程执行完
         //返回更新数据库总行数。
         return results;
@@ -2829,13 +3296,13 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
 
     private <T> DataBaseUpdateResults openParallelUpdate(Class<T> entity, Object id, String name, Object value) throws InterruptedException {
         CountDownLatch threadSignal = null;
-        ExecutorService executor = null;
+        Executor executor = null;
         DataBaseUpdateResults results = new DataBaseUpdateResults();
         try {
             this.lock.lock();
             int threadNum = this.getEnableOrWriteCount();
             threadSignal = new CountDownLatch(threadNum);
-            executor = Executors.newFixedThreadPool(threadNum);
+            executor = this.getReplicationExecutor();
             for (IDataBase dataBase : this.map.values()) {
                 if (dataBase.getStatus() == DataBaseStatus.enable || dataBase.getStatus() == DataBaseStatus.write && !dataBase.isClose()) {
                     executor.execute(new SevenRunnable<CountDownLatch, IDataBase, DataBaseUpdateResults, Class<T>, Object, String, Object>(threadSignal, dataBase, results, entity, id, name, value) {
@@ -2860,8 +3327,6 @@ private  <T>  DataBaseDeleteResults openAsyncDelete(CriteriaDelete<T> criteria){
             this.lock.unlock();
         }
         threadSignal.await(); // 等待所有子线程执行完
-        //固定线程池执行完成后 将释放掉资源 退出主进程
-        executor.shutdown();//并不是终止线程的运行，而是禁止在这个Executor中添加新的任务
         //返回更新数据库总行数。
         return results;
     }
@@ -0,0 +1,128 @@
+package ghost.framework.data;
+
+import ghost.framework.context.metrics.Histogram;
+import ghost.framework.data.core.DataBaseOperation;
+import ghost.framework.data.core.DataBaseOperationStats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:数据库操作计数器。
+ * 执行中与完成数量使用分段累加器，延迟记录到 {@link Histogram}，累加与记录不加锁。
+ * 延迟按同一线程的累加与减配对记录，在其它线程减的累加不记录延迟，也不会阻止当前线程后续记录。
+ * @Date: 2020/6/18:20:10
+ */
+final class DataBaseOperationCounter {
+    /**
+     * 每个线程最多保留的未配对开始时间数量。
+     * 超过时丢弃最早的开始时间，避免在其它线程减的累加一直占用。
+     */
+    private static final int MAX_DEPTH = 16;
+    /**
+     * 操作类型。
+     */
+    private final DataBaseOperation operation;
+    /**
+     * 执行中数量。
+     */
+    private final LongAdder inFlight = new LongAdder();
+    /**
+     * 完成数量。
+     */
+    private final LongAdder completed = new LongAdder();
+    /**
+     * 延迟直方图，单位纳秒。
+     */
+    private final Histogram latency;
+    /**
+     * 最近延迟指数加权平均值。
+     * 并发写入时可能丢失个别样本，只用于路由参考。
+     */
+    private volatile long recent;
+    /**
+     * 当前线程未配对的开始时间栈，首位为栈深度。
+     */
+    private final ThreadLocal<long[]> current = ThreadLocal.withInitial(() -> new long[MAX_DEPTH + 1]);
+
+    DataBaseOperationCounter(DataBaseOperation operation) {
+        this.operation = operation;
+        this.latency = new Histogram("database." + operation.name() + ".latency");
+    }
+
+    /**
+     * 累加执行中数量。
+     */
+    void plus() {
+        this.inFlight.increment();
+        long[] c = this.current.get();
+        int depth = (int) c[0];
+        if (depth == MAX_DEPTH) {
+            //丢弃最早的开始时间
+            System.arraycopy(c, 2, c, 1, MAX_DEPTH - 1);
+            depth--;
+        }
+        c[++depth] = System.nanoTime();
+        c[0] = depth;
+    }
+
+    /**
+     * 减执行中数量并记录完成。
+     */
+    void reduce() {
+        this.inFlight.decrement();
+        this.completed.increment();
+        long[] c = this.current.get();
+        int depth = (int) c[0];
+        if (depth > 0) {
+            c[0] = depth - 1;
+            this.record(System.nanoTime() - c[depth]);
+        }
+    }
+
+    /**
+     * 记录延迟。
+     *
+     * @param latency 单位纳秒。
+     */
+    private void record(long latency) {
+        if (latency < 0) {
+            latency = 0;
+        }
+        this.latency.record(latency);
+        //指数加权平均，新样本权重1/8。
+        long r = this.recent;
+        this.recent = r == 0 ? latency : r + (latency - r) / 8;
+    }
+
+    /**
+     * 获取执行中数量。
+     *
+     * @return
+     */
+    long getInFlight() {
+        return this.inFlight.sum();
+    }
+
+    /**
+     * 获取最近延迟指数加权平均值。
+     *
+     * @return 单位纳秒，未有样本返回0。
+     */
+    long getRecent() {
+        return this.recent;
+    }
+
+    /**
+     * 创建统计快照。
+     *
+     * @return
+     */
+    DataBaseOperationStats snapshot() {
+        long count = this.latency.getCount();
+        return new DataBaseOperationStats(this.operation, this.inFlight.sum(), this.completed.sum(),
+                count, count == 0 ? 0 : this.latency.getSum() / count, this.recent,
+                this.latency.getPercentile(0.5), this.latency.getPercentile(0.99), this.latency.getMax());
+    }
+}
@@ -37,7 +37,7 @@ public class DataBaseProperties implements IDataBaseProperties, IGetObjectId, IG
     /**
      * 数据库状态。
      */
-    private DataBaseStatus status = DataBaseStatus.disabled;
+    private volatile DataBaseStatus status = DataBaseStatus.disabled;
 
     /**
      * 获取数据库状态。
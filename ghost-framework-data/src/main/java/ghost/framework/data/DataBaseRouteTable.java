@@ -0,0 +1,120 @@
+package ghost.framework.data;
+
+import ghost.framework.data.core.DataBaseStatus;
+import ghost.framework.data.core.IDataBase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:数据库路由表。
+ * 按数据库状态分组的不可变数据库数组，数据库添加、删除或状态改变时重新创建整个路由表，
+ * 查询线程读取路由表不加锁。
+ * @Date: 2020/6/18:16:10
+ */
+final class DataBaseRouteTable {
+    /**
+     * 空数据库数组。
+     */
+    private static final IDataBase[] EMPTY_DATABASES = new IDataBase[0];
+    /**
+     * 空路由表。
+     */
+    static final DataBaseRouteTable EMPTY = new DataBaseRouteTable(new EnumMap<>(DataBaseStatus.class), EMPTY_DATABASES, EMPTY_DATABASES);
+    /**
+     * 状态数据库数组。
+     */
+    private final Map<DataBaseStatus, IDataBase[]> statusMap;
+    /**
+     * 正常与只读数据库数组。
+     */
+    private final IDataBase[] enableOrRead;
+    /**
+     * 正常与只写数据库数组。
+     */
+    private final IDataBase[] enableOrWrite;
+
+    private DataBaseRouteTable(Map<DataBaseStatus, IDataBase[]> statusMap, IDataBase[] enableOrRead, IDataBase[] enableOrWrite) {
+        this.statusMap = statusMap;
+        this.enableOrRead = enableOrRead;
+        this.enableOrWrite = enableOrWrite;
+    }
+
+    /**
+     * 创建路由表。
+     * 已关闭的数据库不加入路由表。
+     *
+     * @param dataBases 数据库列表。
+     * @return
+     */
+    static DataBaseRouteTable build(Collection<IDataBase> dataBases) {
+        Map<DataBaseStatus, List<IDataBase>> lists = new EnumMap<>(DataBaseStatus.class);
+        for (IDataBase dataBase : dataBases) {
+            if (!dataBase.isClose() && dataBase.getStatus() != null) {
+                lists.computeIfAbsent(dataBase.getStatus(), k -> new ArrayList<>()).add(dataBase);
+            }
+        }
+        Map<DataBaseStatus, IDataBase[]> statusMap = new EnumMap<>(DataBaseStatus.class);
+        for (Map.Entry<DataBaseStatus, List<IDataBase>> entry : lists.entrySet()) {
+            statusMap.put(entry.getKey(), entry.getValue().toArray(EMPTY_DATABASES));
+        }
+        return new DataBaseRouteTable(statusMap,
+                concat(statusMap, DataBaseStatus.enable, DataBaseStatus.read),
+                concat(statusMap, DataBaseStatus.enable, DataBaseStatus.write));
+    }
+
+    /**
+     * 合并多个状态数据库数组。
+     *
+     * @param statusMap 状态数据库数组。
+     * @param statuses  状态列表。
+     * @return
+     */
+    private static IDataBase[] concat(Map<DataBaseStatus, IDataBase[]> statusMap, DataBaseStatus... statuses) {
+        if (statuses.length == 1) {
+            return statusMap.getOrDefault(statuses[0], EMPTY_DATABASES);
+        }
+        List<IDataBase> list = new ArrayList<>();
+        for (DataBaseStatus status : statuses) {
+            for (IDataBase dataBase : statusMap.getOrDefault(status, EMPTY_DATABASES)) {
+                if (!list.contains(dataBase)) {
+                    list.add(dataBase);
+                }
+            }
+        }
+        return list.toArray(EMPTY_DATABASES);
+    }
+
+    /**
+     * 获取指定状态数据库数组。
+     *
+     * @param statuses 状态列表。
+     * @return
+     */
+    IDataBase[] get(DataBaseStatus... statuses) {
+        return concat(this.statusMap, statuses);
+    }
+
+    /**
+     * 获取正常与只读数据库数组。
+     *
+     * @return
+     */
+    IDataBase[] getEnableOrRead() {
+        return enableOrRead;
+    }
+
+    /**
+     * 获取正常与只写数据库数组。
+     *
+     * @return
+     */
+    IDataBase[] getEnableOrWrite() {
+        return enableOrWrite;
+    }
+}
@@ -0,0 +1,356 @@
+package ghost.framework.data;
+
+import ghost.framework.data.core.IDataBase;
+import ghost.framework.data.core.util.DataUtil;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.ReplicationMode;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:数据库写入列队。
+ * 每个数据库一个有序列队，同一个数据库的写入按提交顺序执行。
+ * 列队在复制线程池中批量写入，每批使用一个会话与事务，事务失败时逐个重试以确定失败的实体。
+ * 只有 {@link WriteType#insert} 写入调用方的实体对象并生成主键，复制插入与更新写入实体副本，
+ * 同一个实体对象不会同时关联多个数据库会话。
+ * @Date: 2020/6/18:14:10
+ */
+final class DataBaseWriteQueue {
+    private final Log logger = LogFactory.getLog(DataBaseWriteQueue.class);
+
+    /**
+     * 写入类型。
+     */
+    enum WriteType {
+        /**
+         * 插入实体并生成主键。
+         */
+        insert,
+        /**
+         * 使用已生成的主键插入实体副本。
+         */
+        replicate,
+        update,
+        delete
+    }
+
+    /**
+     * 写入任务。
+     */
+    private static final class WriteTask {
+        private final WriteType type;
+        private final Object entity;
+        /**
+         * 完成回调，写入失败时错误不为null。
+         */
+        private final BiConsumer<IDataBase, Exception> callback;
+
+        private WriteTask(WriteType type, Object entity, BiConsumer<IDataBase, Exception> callback) {
+            this.type = type;
+            this.entity = entity;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * 数据库写入列队。
+     */
+    private final class Lane implements Runnable {
+        private final IDataBase dataBase;
+        private final Queue<WriteTask> queue = new ConcurrentLinkedQueue<>();
+        /**
+         * 等待写入数量。
+         */
+        private final AtomicInteger depth = new AtomicInteger();
+        /**
+         * 是否已提交写入任务。
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        /**
+         * 是否已删除。
+         * 删除后不再写入，正在写入的批次完成后停止。
+         */
+        private volatile boolean removed;
+
+        private Lane(IDataBase dataBase) {
+            this.dataBase = dataBase;
+        }
+
+        private void offer(WriteTask task) {
+            this.depth.incrementAndGet();
+            this.queue.offer(task);
+            //删除列队后放入的任务以错误完成。
+            if (this.removed) {
+                this.clear();
+                return;
+            }
+            this.schedule();
+        }
+
+        private void schedule() {
+            if (this.scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        /**
+         * 循环写入直到列队为空。
+         * 写入期间提交的任务在同一次执行中继续写入，不重新提交到线程池，
+         * 线程池使用调用线程执行策略时不会递归执行。
+         * 列队删除后停止写入，未写入的任务由 {@link #clear()} 以错误完成。
+         */
+        @Override
+        public void run() {
+            do {
+                try {
+                    List<WriteTask> batch;
+                    while (!this.removed && !(batch = this.poll()).isEmpty()) {
+                        this.depth.addAndGet(-batch.size());
+                        write(this.dataBase, batch);
+                    }
+                } finally {
+                    this.scheduled.set(false);
+                }
+                //释放执行标记后有新任务时重新获取执行标记继续写入。
+            } while (!this.removed && !this.queue.isEmpty() && this.scheduled.compareAndSet(false, true));
+        }
+
+        /**
+         * 未写入的任务以错误完成。
+         */
+        private void clear() {
+            WriteTask task;
+            while ((task = this.queue.poll()) != null) {
+                this.depth.decrementAndGet();
+                complete(task, this.dataBase, new IllegalStateException("database " + this.dataBase.getId() + " removed"));
+            }
+        }
+
+        /**
+         * 获取一批写入任务。
+         *
+         * @return
+         */
+        private List<WriteTask> poll() {
+            List<WriteTask> batch = new ArrayList<>(batchSize);
+            WriteTask task;
+            while (batch.size() < batchSize && (task = this.queue.poll()) != null) {
+                batch.add(task);
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * @param executor  复制线程池。
+     * @param batchSize 每批写入数量。
+     * @param active    判断数据库是否仍在控制器中，已删除的数据库不再创建写入列队。
+     */
+    DataBaseWriteQueue(Executor executor, int batchSize, Predicate<String> active) {
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.active = active;
+    }
+
+    /**
+     * 复制线程池。
+     */
+    private final Executor executor;
+    /**
+     * 每批写入数量。
+     */
+    private final int batchSize;
+    /**
+     * 判断数据库是否仍在控制器中。
+     */
+    private final Predicate<String> active;
+    /**
+     * 数据库写入列队，键为数据库Id。
+     */
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * 提交写入。
+     *
+     * @param dataBase 数据库。
+     * @param type     写入类型。
+     * @param entity   实体对象。
+     * @param callback 完成回调，写入失败时错误不为null。
+     */
+    void submit(IDataBase dataBase, WriteType type, Object entity, BiConsumer<IDataBase, Exception> callback) {
+        WriteTask task = new WriteTask(type, entity, callback);
+        //在创建列队时判断数据库状态，与删除列队互斥，删除后不会重新创建列队。
+        Lane lane = this.lanes.computeIfAbsent(dataBase.getId(), k -> this.active.test(k) ? new Lane(dataBase) : null);
+        if (lane == null) {
+            complete(task, dataBase, new IllegalStateException("database " + dataBase.getId() + " removed"));
+            return;
+        }
+        lane.offer(task);
+    }
+
+    /**
+     * 获取数据库等待写入数量。
+     *
+     * @param dataBase 数据库。
+     * @return
+     */
+    int getDepth(IDataBase dataBase) {
+        Lane lane = this.lanes.get(dataBase.getId());
+        return lane == null ? 0 : lane.depth.get();
+    }
+
+    /**
+     * 删除数据库写入列队。
+     * 列队中未写入的任务以错误完成，正在写入的批次完成后停止写入。
+     * 需要先从控制器删除数据库，删除后提交的写入不再创建列队。
+     *
+     * @param id 数据库Id。
+     */
+    void remove(String id) {
+        Lane lane = this.lanes.remove(id);
+        if (lane == null) {
+            return;
+        }
+        lane.removed = true;
+        lane.clear();
+    }
+
+    /**
+     * 批量写入。
+     *
+     * @param dataBase 数据库。
+     * @param batch    写入任务列表。
+     */
+    private void write(IDataBase dataBase, List<WriteTask> batch) {
+        Exception error = this.writeTransaction(dataBase, batch);
+        if (error == null) {
+            for (WriteTask task : batch) {
+                complete(task, dataBase, null);
+            }
+            return;
+        }
+        if (batch.size() == 1) {
+            complete(batch.get(0), dataBase, error);
+            return;
+        }
+        //批量事务失败，逐个写入确定失败的实体。
+        for (WriteTask task : batch) {
+            List<WriteTask> one = new ArrayList<>(1);
+            one.add(task);
+            complete(task, dataBase, this.writeTransaction(dataBase, one));
+        }
+    }
+
+    /**
+     * 在一个事务中写入。
+     *
+     * @param dataBase 数据库。
+     * @param batch    写入任务列表。
+     * @return 返回错误，成功返回null。
+     */
+    private Exception writeTransaction(IDataBase dataBase, List<WriteTask> batch) {
+        for (WriteTask task : batch) {
+            plus(dataBase, task.type);
+        }
+        Session session = null;
+        Transaction transaction = null;
+        try {
+            session = dataBase.openSession();
+            transaction = session.beginTransaction();
+            for (WriteTask task : batch) {
+                switch (task.type) {
+                    case insert:
+                        session.save(task.entity);
+                        break;
+                    case replicate:
+                        session.replicate(DataUtil.copyEntity(dataBase, task.entity), ReplicationMode.EXCEPTION);
+                        break;
+                    case update:
+                        session.saveOrUpdate(DataUtil.copyEntity(dataBase, task.entity));
+                        break;
+                    default:
+                        session.delete(task.entity);
+                        break;
+                }
+            }
+            transaction.commit();
+            return null;
+        } catch (Exception e) {
+            if (transaction != null) {
+                try {
+                    transaction.rollback();
+                } catch (Exception ex) {
+                    e.addSuppressed(ex);
+                }
+            }
+            return e;
+        } finally {
+            if (session != null && session.isOpen()) {
+                session.close();
+            }
+            for (WriteTask task : batch) {
+                reduce(dataBase, task.type);
+            }
+        }
+    }
+
+    /**
+     * 完成写入任务。
+     *
+     * @param task     写入任务。
+     * @param dataBase 数据库。
+     * @param error    错误，成功为null。
+     */
+    private void complete(WriteTask task, IDataBase dataBase, Exception error) {
+        try {
+            task.callback.accept(dataBase, error);
+        } catch (Exception e) {
+            this.logger.error(e.getMessage(), e);
+        }
+    }
+
+    private static void plus(IDataBase dataBase, WriteType type) {
+        switch (type) {
+            case insert:
+            case replicate:
+                dataBase.plusInsert();
+                break;
+            case update:
+                dataBase.plusUpdate();
+                break;
+            default:
+                dataBase.plusDelete();
+                break;
+        }
+    }
+
+    private static void reduce(IDataBase dataBase, WriteType type) {
+        switch (type) {
+            case insert:
+            case replicate:
+                dataBase.reduceInsert();
+                break;
+            case update:
+                dataBase.reduceUpdate();
+                break;
+            default:
+                dataBase.reduceDelete();
+                break;
+        }
+    }
+}
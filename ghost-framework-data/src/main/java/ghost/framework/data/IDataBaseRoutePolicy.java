@@ -0,0 +1,38 @@
+package ghost.framework.data;
+
+import ghost.framework.data.core.DataBaseRouteMode;
+import ghost.framework.data.core.IDataBase;
+
+/**
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:数据库读取路由策略接口。
+ * 从路由表同一状态的数据库中选择一个，选择在查询线程执行，不可加锁。
+ * @Date: 2020/6/18:16:20
+ */
+public interface IDataBaseRoutePolicy {
+    /**
+     * 选择数据库。
+     *
+     * @param dataBases 可选数据库数组，不为空数组，调用方不可修改。
+     * @return 返回选中的数据库。
+     */
+    IDataBase select(IDataBase[] dataBases);
+
+    /**
+     * 创建路由模式策略。
+     *
+     * @param mode 路由模式。
+     * @return
+     */
+    static IDataBaseRoutePolicy of(DataBaseRouteMode mode) {
+        switch (mode) {
+            case leastInFlight:
+                return new LeastInFlightRoutePolicy();
+            case latencyWeighted:
+                return new LatencyWeightedRoutePolicy();
+            default:
+                return new RoundRobinRoutePolicy();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ghost.framework.data;
+
+import ghost.framework.data.core.IDataBase;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToLongFunction;
+
+/**
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:延迟加权读取路由策略。
+ * 按 {@link DataBase#getSelectLatency()} 倒数加权随机选择数据库，延迟越低被选中的机会越大。
+ * 未有读取延迟的数据库按最低延迟计算，使新加入的数据库可以获得读取。
+ * @Date: 2020/6/18:16:35
+ */
+public final class LatencyWeightedRoutePolicy implements IDataBaseRoutePolicy {
+    /**
+     * 获取数据库读取延迟。
+     */
+    private final ToLongFunction<IDataBase> latency;
+
+    public LatencyWeightedRoutePolicy() {
+        this(dataBase -> dataBase instanceof DataBase ? ((DataBase) dataBase).getSelectLatency() : 0);
+    }
+
+    /**
+     * @param latency 获取数据库读取延迟，未有读取延迟返回0。
+     */
+    LatencyWeightedRoutePolicy(ToLongFunction<IDataBase> latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public IDataBase select(IDataBase[] dataBases) {
+        if (dataBases.length == 1) {
+            return dataBases[0];
+        }
+        long[] latencies = new long[dataBases.length];
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < dataBases.length; i++) {
+            long latency = this.latency.applyAsLong(dataBases[i]);
+            latencies[i] = latency;
+            if (latency > 0 && latency < min) {
+                min = latency;
+            }
+        }
+        if (min == Long.MAX_VALUE) {
+            //全部数据库未有读取延迟。
+            return dataBases[ThreadLocalRandom.current().nextInt(dataBases.length)];
+        }
+        double[] weights = new double[dataBases.length];
+        double total = 0;
+        for (int i = 0; i < dataBases.length; i++) {
+            weights[i] = 1.0 / (latencies[i] > 0 ? latencies[i] : min);
+            total += weights[i];
+        }
+        double r = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < dataBases.length; i++) {
+            r -= weights[i];
+            if (r < 0) {
+                return dataBases[i];
+            }
+        }
+        return dataBases[dataBases.length - 1];
+    }
+}
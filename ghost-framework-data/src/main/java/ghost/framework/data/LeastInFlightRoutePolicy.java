@@ -0,0 +1,57 @@
+package ghost.framework.data;
+
+import ghost.framework.data.core.IDataBase;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:最少执行中读取路由策略。
+ * 选择 {@link DataBase#getCounterSelect()} 最小的数据库，计数相同时轮询开始位置避免总是选中第一个数据库。
+ * @Date: 2020/6/18:16:30
+ */
+public final class LeastInFlightRoutePolicy implements IDataBaseRoutePolicy {
+    /**
+     * 轮询开始位置。
+     */
+    private final AtomicInteger position = new AtomicInteger();
+    /**
+     * 获取数据库执行中读取数量。
+     */
+    private final ToIntFunction<IDataBase> inFlight;
+
+    public LeastInFlightRoutePolicy() {
+        this(dataBase -> dataBase instanceof DataBase ? ((DataBase) dataBase).getCounterSelect() : 0);
+    }
+
+    /**
+     * @param inFlight 获取数据库执行中读取数量。
+     */
+    LeastInFlightRoutePolicy(ToIntFunction<IDataBase> inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    @Override
+    public IDataBase select(IDataBase[] dataBases) {
+        if (dataBases.length == 1) {
+            return dataBases[0];
+        }
+        int start = (this.position.getAndIncrement() & Integer.MAX_VALUE) % dataBases.length;
+        IDataBase select = null;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < dataBases.length; i++) {
+            IDataBase dataBase = dataBases[(start + i) % dataBases.length];
+            int inFlight = this.inFlight.applyAsInt(dataBase);
+            if (inFlight < min) {
+                min = inFlight;
+                select = dataBase;
+                if (inFlight == 0) {
+                    break;
+                }
+            }
+        }
+        return select;
+    }
+}
@@ -0,0 +1,27 @@
+package ghost.framework.data;
+
+import ghost.framework.data.core.IDataBase;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:轮询读取路由策略。
+ * @Date: 2020/6/18:16:25
+ */
+public final class RoundRobinRoutePolicy implements IDataBaseRoutePolicy {
+    /**
+     * 轮询位置。
+     */
+    private final AtomicInteger position = new AtomicInteger();
+
+    @Override
+    public IDataBase select(IDataBase[] dataBases) {
+        if (dataBases.length == 1) {
+            return dataBases[0];
+        }
+        //位置溢出为负数时取正数余数。
+        return dataBases[(this.position.getAndIncrement() & Integer.MAX_VALUE) % dataBases.length];
+    }
+}
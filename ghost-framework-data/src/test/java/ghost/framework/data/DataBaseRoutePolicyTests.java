@@ -0,0 +1,147 @@
+package ghost.framework.data;
+
+import ghost.framework.data.core.DataBaseRouteMode;
+import ghost.framework.data.core.DataBaseStatus;
+import ghost.framework.data.core.IDataBase;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link IDataBaseRoutePolicy} 路由策略单元测试。
+ * @Date: 2020/6/18:17:20
+ */
+public class DataBaseRoutePolicyTests {
+    private static IDataBase[] dataBases(int count) {
+        IDataBase[] dataBases = new IDataBase[count];
+        for (int i = 0; i < count; i++) {
+            dataBases[i] = DataBaseRouteTableTests.dataBase("db" + i, DataBaseStatus.enable, false);
+        }
+        return dataBases;
+    }
+
+    /**
+     * 统计每个数据库选中次数。
+     *
+     * @param policy    路由策略。
+     * @param dataBases 可选数据库数组。
+     * @param count     选择次数。
+     * @return
+     */
+    private static Map<IDataBase, Integer> select(IDataBaseRoutePolicy policy, IDataBase[] dataBases, int count) {
+        Map<IDataBase, Integer> map = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            map.merge(policy.select(dataBases), 1, Integer::sum);
+        }
+        return map;
+    }
+
+    @Test
+    public void ofRouteMode() {
+        assertThat(IDataBaseRoutePolicy.of(DataBaseRouteMode.roundRobin)).isInstanceOf(RoundRobinRoutePolicy.class);
+        assertThat(IDataBaseRoutePolicy.of(DataBaseRouteMode.leastInFlight)).isInstanceOf(LeastInFlightRoutePolicy.class);
+        assertThat(IDataBaseRoutePolicy.of(DataBaseRouteMode.latencyWeighted)).isInstanceOf(LatencyWeightedRoutePolicy.class);
+    }
+
+    @Test
+    public void singleDataBase() {
+        IDataBase[] dataBases = dataBases(1);
+        for (IDataBaseRoutePolicy policy : new IDataBaseRoutePolicy[]{new RoundRobinRoutePolicy(), new LeastInFlightRoutePolicy(), new LatencyWeightedRoutePolicy()}) {
+            assertThat(policy.select(dataBases)).isSameAs(dataBases[0]);
+        }
+    }
+
+    @Test
+    public void roundRobinCycles() {
+        IDataBase[] dataBases = dataBases(3);
+        RoundRobinRoutePolicy policy = new RoundRobinRoutePolicy();
+        List<IDataBase> list = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            list.add(policy.select(dataBases));
+        }
+        assertThat(list).containsExactly(dataBases[0], dataBases[1], dataBases[2], dataBases[0], dataBases[1], dataBases[2]);
+    }
+
+    @Test
+    public void roundRobinPositionOverflow() throws Exception {
+        IDataBase[] dataBases = dataBases(3);
+        RoundRobinRoutePolicy policy = new RoundRobinRoutePolicy();
+        Field field = RoundRobinRoutePolicy.class.getDeclaredField("position");
+        field.setAccessible(true);
+        ((AtomicInteger) field.get(policy)).set(Integer.MAX_VALUE - 1);
+        //位置溢出为负数后仍然返回有效数据库
+        for (int i = 0; i < 6; i++) {
+            assertThat(policy.select(dataBases)).isNotNull();
+        }
+    }
+
+    @Test
+    public void leastInFlightSelectsMinimum() {
+        IDataBase[] dataBases = dataBases(3);
+        Map<IDataBase, Integer> inFlight = new HashMap<>();
+        inFlight.put(dataBases[0], 5);
+        inFlight.put(dataBases[1], 1);
+        inFlight.put(dataBases[2], 3);
+        LeastInFlightRoutePolicy policy = new LeastInFlightRoutePolicy(inFlight::get);
+        assertThat(select(policy, dataBases, 10)).containsOnlyKeys(dataBases[1]);
+    }
+
+    @Test
+    public void leastInFlightRotatesTies() {
+        IDataBase[] dataBases = dataBases(3);
+        Map<IDataBase, Integer> inFlight = new HashMap<>();
+        inFlight.put(dataBases[0], 2);
+        inFlight.put(dataBases[1], 2);
+        inFlight.put(dataBases[2], 2);
+        LeastInFlightRoutePolicy policy = new LeastInFlightRoutePolicy(inFlight::get);
+        //计数相同时不总是选中第一个数据库
+        Map<IDataBase, Integer> map = select(policy, dataBases, 30);
+        assertThat(map).containsEntry(dataBases[0], 10);
+        assertThat(map).containsEntry(dataBases[1], 10);
+        assertThat(map).containsEntry(dataBases[2], 10);
+    }
+
+    @Test
+    public void latencyWeightedPrefersLowLatency() {
+        IDataBase[] dataBases = dataBases(2);
+        Map<IDataBase, Long> latency = new HashMap<>();
+        latency.put(dataBases[0], 1000L);
+        latency.put(dataBases[1], 3000L);
+        LatencyWeightedRoutePolicy policy = new LatencyWeightedRoutePolicy(latency::get);
+        Map<IDataBase, Integer> map = select(policy, dataBases, 40000);
+        //选中次数与延迟成反比，期望 30000:10000
+        assertThat(map.get(dataBases[0])).isBetween(28000, 32000);
+        assertThat(map.get(dataBases[1])).isBetween(8000, 12000);
+    }
+
+    @Test
+    public void latencyWeightedNewDataBaseUsesMinimum() {
+        IDataBase[] dataBases = dataBases(3);
+        Map<IDataBase, Long> latency = new HashMap<>();
+        latency.put(dataBases[0], 1000L);
+        latency.put(dataBases[1], 1000000L);
+        //未有读取延迟的数据库按最低延迟计算
+        latency.put(dataBases[2], 0L);
+        LatencyWeightedRoutePolicy policy = new LatencyWeightedRoutePolicy(latency::get);
+        Map<IDataBase, Integer> map = select(policy, dataBases, 20000);
+        assertThat(map.get(dataBases[0])).isBetween(9000, 11000);
+        assertThat(map.get(dataBases[2])).isBetween(9000, 11000);
+        assertThat(map.getOrDefault(dataBases[1], 0)).isLessThan(100);
+    }
+
+    @Test
+    public void latencyWeightedWithoutLatencySelectsAll() {
+        IDataBase[] dataBases = dataBases(3);
+        LatencyWeightedRoutePolicy policy = new LatencyWeightedRoutePolicy(dataBase -> 0);
+        assertThat(select(policy, dataBases, 3000)).containsOnlyKeys(dataBases[0], dataBases[1], dataBases[2]);
+    }
+}
@@ -0,0 +1,95 @@
+package ghost.framework.data;
+
+import ghost.framework.data.core.DataBaseStatus;
+import ghost.framework.data.core.IDataBase;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link DataBaseRouteTable} 单元测试。
+ * @Date: 2020/6/18:17:05
+ */
+public class DataBaseRouteTableTests {
+    /**
+     * 创建测试数据库。
+     *
+     * @param id     数据库Id。
+     * @param status 数据库状态。
+     * @param close  是否已关闭。
+     * @return
+     */
+    static IDataBase dataBase(String id, DataBaseStatus status, boolean close) {
+        return (IDataBase) Proxy.newProxyInstance(IDataBase.class.getClassLoader(), new Class<?>[]{IDataBase.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getId":
+                            return id;
+                        case "getStatus":
+                            return status;
+                        case "isClose":
+                            return close;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return id;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void groupsByStatus() {
+        IDataBase enable = dataBase("enable", DataBaseStatus.enable, false);
+        IDataBase read = dataBase("read", DataBaseStatus.read, false);
+        IDataBase write = dataBase("write", DataBaseStatus.write, false);
+        IDataBase disabled = dataBase("disabled", DataBaseStatus.disabled, false);
+        DataBaseRouteTable table = DataBaseRouteTable.build(Arrays.asList(read, enable, write, disabled));
+        assertThat(table.get(DataBaseStatus.read)).containsExactly(read);
+        assertThat(table.get(DataBaseStatus.disabled)).containsExactly(disabled);
+        assertThat(table.get(DataBaseStatus.synchronize)).isEmpty();
+        //多个状态按状态参数顺序合并
+        assertThat(table.get(DataBaseStatus.write, DataBaseStatus.read)).containsExactly(write, read);
+        assertThat(table.getEnableOrRead()).containsExactly(enable, read);
+        assertThat(table.getEnableOrWrite()).containsExactly(enable, write);
+    }
+
+    @Test
+    public void keepsAddOrderWithinStatus() {
+        IDataBase first = dataBase("first", DataBaseStatus.enable, false);
+        IDataBase second = dataBase("second", DataBaseStatus.enable, false);
+        IDataBase third = dataBase("third", DataBaseStatus.enable, false);
+        DataBaseRouteTable table = DataBaseRouteTable.build(Arrays.asList(first, second, third));
+        assertThat(table.get(DataBaseStatus.enable)).containsExactly(first, second, third);
+        assertThat(table.getEnableOrRead()).containsExactly(first, second, third);
+    }
+
+    @Test
+    public void skipsClosedDataBases() {
+        IDataBase open = dataBase("open", DataBaseStatus.enable, false);
+        IDataBase closed = dataBase("closed", DataBaseStatus.enable, true);
+        IDataBase noStatus = dataBase("noStatus", null, false);
+        DataBaseRouteTable table = DataBaseRouteTable.build(Arrays.asList(open, closed, noStatus));
+        assertThat(table.get(DataBaseStatus.enable)).containsExactly(open);
+        assertThat(table.getEnableOrWrite()).containsExactly(open);
+    }
+
+    @Test
+    public void emptyTable() {
+        assertThat(DataBaseRouteTable.EMPTY.getEnableOrRead()).isEmpty();
+        assertThat(DataBaseRouteTable.EMPTY.getEnableOrWrite()).isEmpty();
+        assertThat(DataBaseRouteTable.EMPTY.get(DataBaseStatus.enable, DataBaseStatus.read)).isEmpty();
+        DataBaseRouteTable table = DataBaseRouteTable.build(Collections.emptyList());
+        assertThat(table.getEnableOrRead()).isEmpty();
+        assertThat(table.get(DataBaseStatus.write)).isEmpty();
+    }
+}
@@ -0,0 +1,238 @@
+package ghost.framework.data;
+
+import ghost.framework.data.core.IDataBase;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link DataBaseWriteQueue} 单元测试。
+ * @Date: 2020/6/18:16:20
+ */
+public class DataBaseWriteQueueTests {
+    /**
+     * 测试数据库。
+     * 记录每个事务提交的实体，{@code fail} 匹配的实体写入时抛出错误。
+     */
+    private static final class TestDataBase {
+        private final List<Object> committed = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger transactions = new AtomicInteger();
+        private final IDataBase dataBase;
+
+        private TestDataBase(String id, Predicate<Object> fail) {
+            this.dataBase = (IDataBase) Proxy.newProxyInstance(IDataBase.class.getClassLoader(), new Class<?>[]{IDataBase.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getId":
+                                return id;
+                            case "openSession":
+                                return this.session(fail);
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == args[0];
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private Session session(Predicate<Object> fail) {
+            List<Object> pending = new ArrayList<>();
+            boolean[] open = {true};
+            Transaction transaction = (Transaction) Proxy.newProxyInstance(Transaction.class.getClassLoader(), new Class<?>[]{Transaction.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("commit")) {
+                            this.transactions.incrementAndGet();
+                            this.committed.addAll(pending);
+                        }
+                        return null;
+                    });
+            return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "beginTransaction":
+                                return transaction;
+                            case "save":
+                            case "delete":
+                                if (fail.test(args[0])) {
+                                    throw new IllegalStateException("fail " + args[0]);
+                                }
+                                pending.add(args[0]);
+                                return null;
+                            case "isOpen":
+                                return open[0];
+                            case "close":
+                                open[0] = false;
+                                return null;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void callerRunsDoesNotRecurse() {
+        TestDataBase dataBase = new TestDataBase("a", o -> false);
+        //调用线程直接执行，等同线程池列队已满时的调用线程执行策略
+        DataBaseWriteQueue queue = new DataBaseWriteQueue(Runnable::run, 1, id -> true);
+        int count = 50000;
+        AtomicInteger completed = new AtomicInteger();
+        //每个写入完成后提交下一个写入
+        Runnable[] next = new Runnable[1];
+        next[0] = () -> queue.submit(dataBase.dataBase, DataBaseWriteQueue.WriteType.insert, completed.get(), (d, e) -> {
+            assertThat(e).isNull();
+            if (completed.incrementAndGet() < count) {
+                next[0].run();
+            }
+        });
+        next[0].run();
+        assertThat(completed.get()).isEqualTo(count);
+        assertThat(dataBase.committed).hasSize(count);
+        assertThat(queue.getDepth(dataBase.dataBase)).isEqualTo(0);
+    }
+
+    @Test
+    public void keepsSubmitOrderAndBatches() throws InterruptedException {
+        TestDataBase dataBase = new TestDataBase("a", o -> false);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            DataBaseWriteQueue queue = new DataBaseWriteQueue(executor, 10, id -> true);
+            int count = 1000;
+            CountDownLatch latch = new CountDownLatch(count);
+            for (int i = 0; i < count; i++) {
+                queue.submit(dataBase.dataBase, DataBaseWriteQueue.WriteType.insert, i, (d, e) -> latch.countDown());
+            }
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+            List<Object> expected = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                expected.add(i);
+            }
+            assertThat(dataBase.committed).isEqualTo(expected);
+            //每批最多10个实体
+            assertThat(dataBase.transactions.get()).isGreaterThanOrEqualTo(count / 10);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedBatchRetriesEachEntity() {
+        TestDataBase dataBase = new TestDataBase("a", o -> o.equals(2));
+        List<Runnable> pending = new ArrayList<>();
+        DataBaseWriteQueue queue = new DataBaseWriteQueue(pending::add, 10, id -> true);
+        List<Object> failed = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 5; i++) {
+            int value = i;
+            queue.submit(dataBase.dataBase, DataBaseWriteQueue.WriteType.insert, value, (d, e) -> {
+                if (e != null) {
+                    failed.add(value);
+                }
+            });
+        }
+        //同一个列队只提交一次写入任务
+        assertThat(pending).hasSize(1);
+        pending.get(0).run();
+        assertThat(failed).containsExactly(2);
+        //批量事务失败后逐个写入
+        assertThat(dataBase.transactions.get()).isEqualTo(4);
+        assertThat(dataBase.committed).containsExactlyInAnyOrder(0, 1, 3, 4);
+    }
+
+    @Test
+    public void removeFailsQueuedTasks() {
+        TestDataBase dataBase = new TestDataBase("a", o -> false);
+        List<Runnable> pending = new ArrayList<>();
+        //不执行的线程池，任务保留在列队中
+        DataBaseWriteQueue queue = new DataBaseWriteQueue(pending::add, 10, id -> true);
+        List<Exception> errors = new ArrayList<>();
+        queue.submit(dataBase.dataBase, DataBaseWriteQueue.WriteType.insert, 1, (d, e) -> errors.add(e));
+        queue.submit(dataBase.dataBase, DataBaseWriteQueue.WriteType.insert, 2, (d, e) -> errors.add(e));
+        assertThat(queue.getDepth(dataBase.dataBase)).isEqualTo(2);
+        queue.remove("a");
+        assertThat(errors).hasSize(2);
+        assertThat(errors.get(0)).isInstanceOf(IllegalStateException.class);
+        assertThat(dataBase.committed).isEmpty();
+        //已提交的写入任务不再写入
+        pending.get(0).run();
+        assertThat(dataBase.transactions.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void removedDataBaseDoesNotCreateLane() {
+        TestDataBase dataBase = new TestDataBase("a", o -> false);
+        List<Runnable> pending = new ArrayList<>();
+        //数据库已从控制器删除
+        DataBaseWriteQueue queue = new DataBaseWriteQueue(pending::add, 10, id -> false);
+        List<Exception> errors = new ArrayList<>();
+        queue.submit(dataBase.dataBase, DataBaseWriteQueue.WriteType.insert, 1, (d, e) -> errors.add(e));
+        assertThat(errors).hasSize(1);
+        assertThat(errors.get(0)).isInstanceOf(IllegalStateException.class);
+        assertThat(pending).isEmpty();
+        assertThat(queue.getDepth(dataBase.dataBase)).isEqualTo(0);
+    }
+
+    @Test
+    public void removeDuringWriteStopsLane() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TestDataBase dataBase = new TestDataBase("a", o -> {
+            //第一个实体写入时等待删除列队
+            if (o.equals(0)) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return false;
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AtomicBoolean active = new AtomicBoolean(true);
+            DataBaseWriteQueue queue = new DataBaseWriteQueue(executor, 1, id -> active.get());
+            List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch latch = new CountDownLatch(3);
+            for (int i = 0; i < 2; i++) {
+                queue.submit(dataBase.dataBase, DataBaseWriteQueue.WriteType.insert, i, (d, e) -> {
+                    errors.add(e);
+                    latch.countDown();
+                });
+            }
+            assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+            //先从控制器删除数据库再删除列队
+            active.set(false);
+            queue.remove("a");
+            release.countDown();
+            //删除后提交的写入以错误完成
+            queue.submit(dataBase.dataBase, DataBaseWriteQueue.WriteType.insert, 2, (d, e) -> {
+                errors.add(e);
+                latch.countDown();
+            });
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+            //正在写入的批次完成，未写入的任务不再写入
+            assertThat(dataBase.committed).containsExactly(0);
+            assertThat(errors).hasSize(3);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -54,6 +54,8 @@ import ghost.framework.context.annotation.IAnnotationRootExecutionChain;
 import ghost.framework.context.application.*;
 import ghost.framework.context.application.event.IEventPublisherContainer;
 import ghost.framework.context.base.ApplicationHome;
+import ghost.framework.context.bootstrap.BootstrapTimeline;
+import ghost.framework.context.metrics.MeterRegistry;
 import ghost.framework.context.converter.*;
 import ghost.framework.core.converter.json.DefaultJsonConverterContainer;
 import ghost.framework.context.environment.IEnvironment;
@@ -99,7 +101,6 @@ import ghost.framework.maven.MavenRepositoryServer;
 import ghost.framework.thread.task.TaskExecutorBuilder;
 import ghost.framework.util.AlternativeJdkIdGenerator;
 import ghost.framework.util.FileUtil;
-import ghost.framework.util.StopWatch;
 import ghost.framework.util.StringUtils;
 import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.ClassFileVersion;
@@ -261,9 +262,13 @@ public final class Application extends ApplicationBase implements IApplication,
      */
     protected IApplication init(String[] args) {
         this.log.info("init->Start");
-        StopWatch watch = new StopWatch();
+        //启动时间线
+        BootstrapTimeline timeline = new BootstrapTimeline();
+        BootstrapTimeline.Step step = timeline.begin(this.getName(), "init");
         try {
-            watch.start("init");
+            this.addBean(timeline);
+            //度量注册表，记录绑定构建、模块加载与请求处理耗时
+            this.addBean(new MeterRegistry());
             //绑定全局注释依赖链
             IAnnotationRootExecutionChain annotationExecutionChainMap = this.addBean(AnnotationRootExecutionChain.class);
             //基础配置注释
@@ -506,9 +511,19 @@ public final class Application extends ApplicationBase implements IApplication,
                 }
             }));
             //优先加载应用依赖包，因为加载应用插件时可能需要应用注释包，所有应用的maven包引用必须在初始化插件之前加载
-            this.getBean(IMavenApplicationDependencyLoader.class).loader(new MavenLoaderEventTargetHandle(this, this.getRootClass()));
+            BootstrapTimeline.Step dependencyStep = timeline.begin(this.getName(), "dependency");
+            try {
+                this.getBean(IMavenApplicationDependencyLoader.class).loader(new MavenLoaderEventTargetHandle(this, this.getRootClass()));
+            } finally {
+                dependencyStep.end();
+            }
             //加载应用插件
-            this.initPlugins();
+            BootstrapTimeline.Step pluginsStep = timeline.begin(this.getName(), "plugins");
+            try {
+                this.initPlugins();
+            } finally {
+                pluginsStep.end();
+            }
             //初始化完成
             this.initialize = true;
             //执行启动类注释处理
@@ -523,8 +538,8 @@ public final class Application extends ApplicationBase implements IApplication,
                 this.log.error(e.getMessage());
             }
         } finally {
-            watch.stop();
-            this.log.info(watch.prettyPrint());
+            step.end();
+            this.log.info(timeline.prettyPrint());
         }
         this.log.info("init->End");
         return this;
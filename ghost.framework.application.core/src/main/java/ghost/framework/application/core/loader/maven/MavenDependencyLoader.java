@@ -14,6 +14,7 @@ import org.apache.commons.logging.LogFactory;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @Author: 郭树灿{guo-w541}
@@ -32,6 +33,21 @@ public class MavenDependencyLoader implements IMavenDependencyLoader {
     }
     private IApplication app;
     private Log log = LogFactory.getLog(MavenDependencyLoader.class);
+    /**
+     * 包解析锁地图，键为包坐标
+     * 同一个包的解析串行执行，不同包并行解析
+     */
+    private final Map<String, Object> artifactLocks = new ConcurrentHashMap<>();
+
+    /**
+     * 获取包解析锁
+     *
+     * @param artifact 包
+     * @return
+     */
+    private Object getArtifactLock(FileArtifact artifact) {
+        return this.artifactLocks.computeIfAbsent(artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getVersion(), k -> new Object());
+    }
 
     /**
      * 带验证依赖包是否需要下载接口下载包列表
@@ -41,42 +57,48 @@ public class MavenDependencyLoader implements IMavenDependencyLoader {
      */
     @Override
     public List<FileArtifact> loader(FileArtifact artifact, VerifyDownloadCallback downloadCallback) {
-        try {
-            return Booter.getDependencyNodeDownloadURLArtifactList(
-                    this.app.getMavenLocalRepositoryFile(),//maven目录
-                    Booter.getRemoteRepositoryList(app.getMavenRepositoryContainer()),//maven远程仓库列表
-                    artifact, downloadCallback);
-        } catch (Exception e) {
-            throw new MavenDependencyLoaderException(artifact.toString(), e);
+        synchronized (this.getArtifactLock(artifact)) {
+            try {
+                return Booter.getDependencyNodeDownloadURLArtifactList(
+                        this.app.getMavenLocalRepositoryFile(),//maven目录
+                        Booter.getRemoteRepositoryList(app.getMavenRepositoryContainer()),//maven远程仓库列表
+                        artifact, downloadCallback);
+            } catch (Exception e) {
+                throw new MavenDependencyLoaderException(artifact.toString(), e);
+            }
         }
     }
 
     /**
      * 加载包依赖
+     * 每次解析创建独立的maven会话，只锁定当前包，不同插件依赖可以并行解析
      *
      * @param artifact 需要加载依赖的包
      * @return
      */
     @Override
-    public synchronized List<FileArtifact> loader(FileArtifact artifact) {
-        try {
-            return Booter.getDependencyNodeDownloadURLArtifactList(
-                    this.app.getMavenLocalRepositoryFile(),//maven目录
-                    Booter.getRemoteRepositoryList(app.getMavenRepositoryContainer()),//maven远程仓库列表
-                    artifact);
+    public List<FileArtifact> loader(FileArtifact artifact) {
+        synchronized (this.getArtifactLock(artifact)) {
+            try {
+                return Booter.getDependencyNodeDownloadURLArtifactList(
+                        this.app.getMavenLocalRepositoryFile(),//maven目录
+                        Booter.getRemoteRepositoryList(app.getMavenRepositoryContainer()),//maven远程仓库列表
+                        artifact);
 
-        } catch (Exception e) {
-            throw new MavenDependencyLoaderException(artifact.toString(), e);
+            } catch (Exception e) {
+                throw new MavenDependencyLoaderException(artifact.toString(), e);
+            }
         }
     }
     /**
      * 加载包依赖
+     * 每个包使用与 {@link #loader(FileArtifact)} 相同的包解析锁
      *
      * @param artifacts 需要加载依赖的包列表
      * @return
      */
     @Override
-    public synchronized Map<FileArtifact, List<FileArtifact>> loader(List<FileArtifact> artifacts) {
+    public Map<FileArtifact, List<FileArtifact>> loader(List<FileArtifact> artifacts) {
         //声明包加载依赖地图
         Map<FileArtifact, List<FileArtifact>> map = new HashMap<>();
         //遍历要加载的依赖
@@ -4,8 +4,10 @@ import ghost.framework.beans.annotation.constructor.Constructor;
 import ghost.framework.beans.annotation.injection.Autowired;
 import ghost.framework.beans.annotation.invoke.Loader;
 import ghost.framework.beans.annotation.stereotype.Component;
+import ghost.framework.bus.BusPublishMetrics;
 import ghost.framework.bus.BusStatus;
 import ghost.framework.bus.IBusClient;
+import ghost.framework.bus.MessageEvent;
 import ghost.framework.bus.SubConstant;
 import ghost.framework.context.environment.IEnvironment;
 import ghost.framework.context.utils.AssemblyUtil;
@@ -14,6 +16,7 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import org.apache.commons.io.IOUtils;
@@ -22,6 +25,10 @@ import org.apache.commons.logging.LogFactory;
 
 import javax.net.ssl.SSLEngine;
 import java.io.*;
+import java.nio.channels.ClosedChannelException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * package: ghost.framework.bus.client.plugin
@@ -75,6 +82,92 @@ public class BusClient implements IBusClient {
         return env;
     }
 
+    /**
+     * 获取env整数值
+     *
+     * @param key          键
+     * @param defaultValue 未设置时的默认值
+     * @return
+     */
+    int getInt(String key, int defaultValue) {
+        return this.env != null && this.env.containsKey(key) ? this.env.getInt(key) : defaultValue;
+    }
+
+    /**
+     * 当前连接的批量发布处理
+     * 由 {@link SubClientInitializer} 初始化连接时设置
+     */
+    volatile SubClientPublisher publisher;
+
+    /**
+     * 发布消息
+     *
+     * @param event 消息事件
+     * @return 返回消息写入完成的 {@link CompletableFuture}
+     */
+    @Override
+    public CompletableFuture<Void> publish(MessageEvent event) {
+        SubClientPublisher publisher = this.publisher;
+        if (publisher == null) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(new ClosedChannelException());
+            return future;
+        }
+        return publisher.publish(event);
+    }
+
+    /**
+     * 已订阅的主题
+     * 连接完成时由 {@link SubClientHandler} 重新订阅，重新连接后服务器端保持原有订阅
+     */
+    private final Set<String> topics = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 订阅主题
+     * 未连接时记录主题，连接完成后订阅
+     *
+     * @param topic 主题
+     * @return 返回订阅消息写入完成的 {@link CompletableFuture}
+     */
+    @Override
+    public CompletableFuture<Void> subscribe(String topic) {
+        this.topics.add(topic);
+        return IBusClient.super.subscribe(topic);
+    }
+
+    /**
+     * 取消订阅主题
+     *
+     * @param topic 主题
+     * @return 返回取消订阅消息写入完成的 {@link CompletableFuture}
+     */
+    @Override
+    public CompletableFuture<Void> unsubscribe(String topic) {
+        this.topics.remove(topic);
+        return IBusClient.super.unsubscribe(topic);
+    }
+
+    /**
+     * 重新订阅已订阅的主题
+     * 由 {@link SubClientHandler} 在连接完成时调用
+     */
+    void resubscribe() {
+        for (String topic : this.topics) {
+            IBusClient.super.subscribe(topic);
+        }
+    }
+
+    /**
+     * 获取当前连接的发布统计
+     *
+     * @return
+     */
+    @Override
+    public BusPublishMetrics getPublishMetrics() {
+        SubClientPublisher publisher = this.publisher;
+        return publisher == null ? null : publisher.getMetrics();
+    }
+
     // 首先，netty通过ServerBootstrap启动服务端
     private Bootstrap client;
     //第1步 定义线程组，处理读写和链接事件，没有了accept事件
@@ -235,6 +328,10 @@ public class BusClient implements IBusClient {
                         this.client.option(ChannelOption.SO_KEEPALIVE, this.env.getBoolean(SubConstant.Environment.NIO_KEEPALIVE));
                     }
                 }
+                //写入缓冲水位，高于高水位时暂停批量发布
+                this.client.option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                        this.getInt(SubConstant.Environment.NIO_WRITE_BUFFER_LOW_WATER_MARK, SubConstant.Nio.DEFAULT_WRITE_BUFFER_LOW_WATER_MARK),
+                        this.getInt(SubConstant.Environment.NIO_WRITE_BUFFER_HIGH_WATER_MARK, SubConstant.Nio.DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK)));
                 //第2步 绑定客户端通道
                 this.client.channel(NioSocketChannel.class);
                 //第3步 给NIoSocketChannel初始化handler， 处理读写事件
@@ -1,28 +1,31 @@
-//package ghost.framework.bus.client.plugin;
-//
-//import io.netty.buffer.ByteBuf;
-//import io.netty.channel.ChannelHandlerContext;
-//import io.netty.handler.codec.MessageToMessageDecoder;
-//
-//import java.util.List;
-//
-///**
-// * package: ghost.framework.bus.client.plugin
-// *
-// * @Author: 郭树灿{gsc-e590}
-// * @link: 手机:13715848993, QQ 27048384
-// * @Description:消息事件解码器
-// * @Date: 2020/6/13:9:32
-// */
-//final class BusClientToMessageDecoder extends MessageToMessageDecoder<ByteBuf> {
-//    private BusClient busClient;
-//
-//    BusClientToMessageDecoder(BusClient busClient) {
-//        this.busClient = busClient;
-//    }
-//
-//    @Override
-//    protected void decode(ChannelHandlerContext channelHandlerContext, ByteBuf messageEvent, List<Object> list) throws Exception {
-//
-//    }
-//}
\ No newline at end of file
+package ghost.framework.bus.client.plugin;
+
+import ghost.framework.bus.ConnectionCompleteMessage;
+import ghost.framework.bus.MessageEvent;
+import ghost.framework.bus.MessageEventCodec;
+import ghost.framework.bus.netty.MessageFrameDecoder;
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * package: ghost.framework.bus.client.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:客户端消息解码器
+ * 收到 {@link ConnectionCompleteMessage} 时按服务器端类型同步连接的类型注册表
+ * @Date: 2020/6/13:9:37
+ */
+final class BusClientToMessageDecoder extends MessageFrameDecoder {
+    BusClientToMessageDecoder(MessageEventCodec codec, int maxFrameLength) {
+        super(codec, maxFrameLength);
+    }
+
+    @Override
+    protected Object decoded(ChannelHandlerContext ctx, MessageEvent event) {
+        //同步服务器端类型
+        if (event instanceof ConnectionCompleteMessage && ((ConnectionCompleteMessage) event).getTypes() != null) {
+            this.getCodec().getRegistry().negotiate(((ConnectionCompleteMessage) event).getTypes(), this.getClass().getClassLoader());
+        }
+        return event;
+    }
+}
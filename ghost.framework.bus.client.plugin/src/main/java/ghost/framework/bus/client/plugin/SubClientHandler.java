@@ -1,9 +1,12 @@
 package ghost.framework.bus.client.plugin;
 
 import ghost.framework.bus.ConnectionCompleteMessage;
+import ghost.framework.bus.SubscribeErrorMessage;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.timeout.IdleStateEvent;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 /**
  * package: ghost.framework.bus.client.plugin
@@ -14,6 +17,13 @@ import io.netty.handler.timeout.IdleStateEvent;
  * @Date: 2020/6/13:3:05
  */
 public class SubClientHandler  extends ChannelInboundHandlerAdapter {
+    private Log log = LogFactory.getLog(SubClientHandler.class);
+    private BusClient busClient;
+
+    public SubClientHandler(BusClient busClient) {
+        this.busClient = busClient;
+    }
+
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         if(msg instanceof IdleStateEvent){
@@ -22,6 +32,12 @@ public class SubClientHandler  extends ChannelInboundHandlerAdapter {
         if (msg instanceof ConnectionCompleteMessage) {
             ConnectionCompleteMessage msg1 = (ConnectionCompleteMessage) msg;
             System.out.println("服务器端返回的数据:" + msg1.getSource().toString());
+            //连接完成后重新订阅主题
+            this.busClient.resubscribe();
+        }
+        if (msg instanceof SubscribeErrorMessage) {
+            //服务器端拒绝订阅的主题
+            this.log.error("订阅主题错误:" + ((SubscribeErrorMessage) msg).getError());
         }
 //        AttributeKey<String> key = AttributeKey.valueOf("ServerData");
 //        ctx.channel().attr(key).set("客户端处理完毕");
@@ -1,11 +1,10 @@
 package ghost.framework.bus.client.plugin;
 
+import ghost.framework.bus.MessageEventCodec;
+import ghost.framework.bus.MessageTypeRegistry;
 import ghost.framework.bus.SubConstant;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.serialization.ClassResolvers;
-import io.netty.handler.codec.serialization.ObjectDecoder;
-import io.netty.handler.codec.serialization.ObjectEncoder;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.timeout.IdleStateHandler;
 import org.apache.commons.logging.Log;
@@ -68,13 +67,19 @@ public class SubClientInitializer extends ChannelInitializer<SocketChannel> {
             //有ssl容器做ssl处理
             socketChannel.pipeline().addLast("ssl", new SslHandler(this.busClient.sslEngine));
         }
-        socketChannel.pipeline().addLast("ObjectDecoder", new ObjectDecoder(ClassResolvers.cacheDisabled(
-                this.getClass().getClassLoader()
-        )));
-        socketChannel.pipeline().addLast("ObjectEncoder", new ObjectEncoder());
-//        socketChannel.pipeline().addLast("MessageEventEncoder", new BusClientToMessageEncoder(this.busClient));
-//        socketChannel.pipeline().addLast("MessageEventDecoder", new BusClientToMessageDecoder(this.busClient));
+        //消息帧编解码器，每个连接独立协商类型注册表
+        MessageEventCodec codec = new MessageEventCodec(new MessageTypeRegistry(), this.getClass().getClassLoader());
+        int maxFrameLength = this.busClient.getInt(SubConstant.Environment.NIO_MAX_FRAME_LENGTH, SubConstant.Nio.DEFAULT_MAX_FRAME_LENGTH);
+        socketChannel.pipeline().addLast("MessageEventDecoder", new BusClientToMessageDecoder(codec, maxFrameLength));
+        socketChannel.pipeline().addLast("MessageEventEncoder", new BusClientToMessageEncoder(codec));
+        //批量发布处理
+        SubClientPublisher publisher = new SubClientPublisher(
+                this.busClient.getInt(SubConstant.Environment.NIO_PUBLISH_BATCH_SIZE, SubConstant.Nio.DEFAULT_PUBLISH_BATCH_SIZE),
+                this.busClient.getInt(SubConstant.Environment.NIO_PUBLISH_LINGER_MILLIS, SubConstant.Nio.DEFAULT_PUBLISH_LINGER_MILLIS),
+                this.busClient.getInt(SubConstant.Environment.NIO_PUBLISH_MAX_PENDING, SubConstant.Nio.DEFAULT_PUBLISH_MAX_PENDING));
+        socketChannel.pipeline().addLast("MessageEventPublisher", publisher);
+        this.busClient.publisher = publisher;
         //找到他的管道 增加他的handler
-        socketChannel.pipeline().addLast(new SubClientHandler());
+        socketChannel.pipeline().addLast(new SubClientHandler(this.busClient));
     }
 }
\ No newline at end of file
@@ -0,0 +1,222 @@
+package ghost.framework.bus.client.plugin;
+
+import ghost.framework.bus.BusPublishMetrics;
+import ghost.framework.bus.MessageEvent;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * package: ghost.framework.bus.client.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:客户端批量发布处理
+ * 发布线程只把消息放入无锁列队，写入在通道事件循环中执行
+ * 列队达到批量大小时立即写入，否则等待发布等待时间后写入，每批消息只刷新一次通道
+ * 通道不可写时暂停写入，通道恢复可写时继续写入列队中的消息
+ * {@link BusClient#publish(MessageEvent)}
+ * @Date: 2020/6/15:9:35
+ */
+final class SubClientPublisher extends ChannelInboundHandlerAdapter {
+    /**
+     * 等待发送消息
+     */
+    private static final class Pending {
+        private final MessageEvent event;
+        private final CompletableFuture<Void> future;
+
+        private Pending(MessageEvent event, CompletableFuture<Void> future) {
+            this.event = event;
+            this.future = future;
+        }
+    }
+
+    SubClientPublisher(int batchSize, long lingerMillis, int maxPending) {
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * 发布批量大小
+     */
+    private final int batchSize;
+    /**
+     * 发布等待时间
+     * 单位毫秒
+     */
+    private final long lingerMillis;
+    /**
+     * 发布等待发送列队上限
+     */
+    private final int maxPending;
+    /**
+     * 等待发送列队
+     */
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * 发布统计
+     */
+    private final BusPublishMetrics metrics = new BusPublishMetrics();
+    /**
+     * 是否已提交立即写入任务
+     */
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    /**
+     * 是否已提交等待写入任务
+     */
+    private final AtomicBoolean lingerScheduled = new AtomicBoolean();
+    /**
+     * 立即写入任务
+     */
+    private final Runnable drainTask = () -> {
+        this.drainScheduled.set(false);
+        this.drain();
+    };
+    /**
+     * 等待写入任务
+     */
+    private final Runnable lingerTask = () -> {
+        this.lingerScheduled.set(false);
+        this.drain();
+    };
+    /**
+     * 连接通道
+     */
+    private volatile Channel channel;
+
+    /**
+     * 获取发布统计
+     *
+     * @return
+     */
+    BusPublishMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 发布消息
+     *
+     * @param event 消息事件
+     * @return 返回消息写入完成的 {@link CompletableFuture}
+     */
+    CompletableFuture<Void> publish(MessageEvent event) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Channel channel = this.channel;
+        if (channel == null || !channel.isActive()) {
+            future.completeExceptionally(new ClosedChannelException());
+            return future;
+        }
+        //判断等待发送列队上限
+        int depth = this.metrics.incrementQueueDepth();
+        if (depth > this.maxPending) {
+            this.metrics.decrementQueueDepth();
+            this.metrics.recordRejected();
+            future.completeExceptionally(new RejectedExecutionException("bus publish queue full > " + this.maxPending));
+            return future;
+        }
+        this.queue.offer(new Pending(event, future));
+        if (depth >= this.batchSize || this.lingerMillis <= 0) {
+            //达到批量大小立即写入
+            if (this.drainScheduled.compareAndSet(false, true)) {
+                channel.eventLoop().execute(this.drainTask);
+            }
+        } else if (this.lingerScheduled.compareAndSet(false, true)) {
+            //等待批量
+            channel.eventLoop().schedule(this.lingerTask, this.lingerMillis, TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * 批量写入列队消息
+     * 在通道事件循环中执行
+     */
+    private void drain() {
+        Channel channel = this.channel;
+        if (channel == null || !channel.isActive()) {
+            this.failAll(new ClosedChannelException());
+            return;
+        }
+        while (channel.isWritable()) {
+            int size = 0;
+            Pending pending;
+            while (size < this.batchSize && (pending = this.queue.poll()) != null) {
+                this.metrics.decrementQueueDepth();
+                ChannelFuture writeFuture = channel.write(pending.event);
+                writeFuture.addListener(new WriteListener(pending.future));
+                size++;
+            }
+            if (size == 0) {
+                return;
+            }
+            channel.flush();
+            this.metrics.recordBatch(size);
+        }
+    }
+
+    /**
+     * 写入完成监听
+     */
+    private static final class WriteListener implements ChannelFutureListener {
+        private final CompletableFuture<Void> future;
+
+        private WriteListener(CompletableFuture<Void> future) {
+            this.future = future;
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture channelFuture) {
+            if (channelFuture.isSuccess()) {
+                this.future.complete(null);
+            } else {
+                this.future.completeExceptionally(channelFuture.cause());
+            }
+        }
+    }
+
+    /**
+     * 列队消息全部失败
+     *
+     * @param cause 失败原因
+     */
+    private void failAll(Throwable cause) {
+        Pending pending;
+        while ((pending = this.queue.poll()) != null) {
+            this.metrics.decrementQueueDepth();
+            pending.future.completeExceptionally(cause);
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        this.channel = ctx.channel();
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        //恢复可写时继续写入
+        if (ctx.channel().isWritable()) {
+            this.drain();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        this.failAll(new ClosedChannelException());
+        super.channelInactive(ctx);
+    }
+}
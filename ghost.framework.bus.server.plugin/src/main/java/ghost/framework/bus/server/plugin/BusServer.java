@@ -6,6 +6,9 @@ import ghost.framework.beans.annotation.invoke.Loader;
 import ghost.framework.beans.annotation.stereotype.Component;
 import ghost.framework.bus.BusStatus;
 import ghost.framework.bus.IBusServer;
+import ghost.framework.bus.MessageEvent;
+import ghost.framework.bus.MessageEventCodec;
+import ghost.framework.bus.MessageTypeRegistry;
 import ghost.framework.bus.SubConstant;
 import ghost.framework.context.environment.IEnvironment;
 import ghost.framework.context.io.ResourceBytes;
@@ -93,6 +96,43 @@ public class BusServer implements IBusServer {
         return env;
     }
 
+    /**
+     * 消息类型注册表
+     * 连接完成时下发给客户端协商类型编号
+     */
+    protected MessageTypeRegistry typeRegistry = new MessageTypeRegistry();
+
+    /**
+     * 获取消息类型注册表
+     * 注册的消息类型编码时只写入类型编号，需要在客户端连接前注册
+     *
+     * @return
+     */
+    public MessageTypeRegistry getTypeRegistry() {
+        return typeRegistry;
+    }
+
+    /**
+     * 注册消息类型
+     *
+     * @param c 消息类型
+     * @return 返回类型编号
+     */
+    @Override
+    public int registerMessageType(Class<? extends MessageEvent> c) {
+        return this.typeRegistry.register(c);
+    }
+
+    /**
+     * 消息编解码器
+     * 全部连接共用类型注册表与类型缓存
+     */
+    protected MessageEventCodec codec = new MessageEventCodec(this.typeRegistry, BusServer.class.getClassLoader());
+    /**
+     * 主题订阅索引
+     */
+    protected TopicSubscriptionIndex subscriptionIndex = new TopicSubscriptionIndex();
+
     /**
      * NioEventLoopGroup是用来处理IO操作的多线程事件循环器
      */
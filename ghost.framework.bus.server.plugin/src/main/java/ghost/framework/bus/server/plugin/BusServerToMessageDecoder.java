@@ -1,28 +1,18 @@
-//package ghost.framework.bus.server.plugin;
-//
-//import io.netty.buffer.ByteBuf;
-//import io.netty.channel.ChannelHandlerContext;
-//import io.netty.handler.codec.MessageToMessageDecoder;
-//
-//import java.util.List;
-//
-///**
-// * package: ghost.framework.bus.server.plugin
-// *
-// * @Author: 郭树灿{gsc-e590}
-// * @link: 手机:13715848993, QQ 27048384
-// * @Description:
-// * @Date: 2020/6/13:9:37
-// */
-// final class BusServerToMessageDecoder extends MessageToMessageDecoder<ByteBuf> {
-//    BusServerToMessageDecoder(BusServer busServer) {
-//        this.busServer = busServer;
-//    }
-//
-//    private BusServer busServer;
-//
-//    @Override
-//    protected void decode(ChannelHandlerContext channelHandlerContext, ByteBuf messageEvent, List<Object> list) throws Exception {
-//
-//    }
-//}
+package ghost.framework.bus.server.plugin;
+
+import ghost.framework.bus.netty.MessageFrameDecoder;
+
+/**
+ * package: ghost.framework.bus.server.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:服务器端消息解码器
+ * 使用服务器的消息编解码器
+ * @Date: 2020/6/13:9:37
+ */
+final class BusServerToMessageDecoder extends MessageFrameDecoder {
+    BusServerToMessageDecoder(BusServer busServer, int maxFrameLength) {
+        super(busServer.codec, maxFrameLength);
+    }
+}
@@ -1,7 +1,13 @@
 package ghost.framework.bus.server.plugin;
 
 import ghost.framework.bus.ConnectionCompleteMessage;
-import ghost.framework.bus.IBusServer;
+import ghost.framework.bus.SubscribeErrorMessage;
+import ghost.framework.bus.SubscribeMessage;
+import ghost.framework.bus.TopicMessage;
+import ghost.framework.bus.UnsubscribeMessage;
+import ghost.framework.bus.netty.MessageFrameEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.util.ReferenceCountUtil;
@@ -9,6 +15,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.net.InetAddress;
+import java.util.Set;
 /**
  * package: ghost.framework.bus
  *
@@ -18,9 +25,9 @@ import java.net.InetAddress;
  * @Date: 2020/6/12:20:34
  */
 final class SubServerHandler extends ChannelInboundHandlerAdapter {
-    private IBusServer busServer;
+    private BusServer busServer;
 
-    public SubServerHandler(IBusServer busServer) {
+    public SubServerHandler(BusServer busServer) {
         this.busServer = busServer;
     }
 
@@ -28,6 +35,35 @@ final class SubServerHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        //主题订阅
+        if (msg instanceof SubscribeMessage) {
+            //消息源不是主题字符串时返回错误
+            Object topic = ((SubscribeMessage) msg).getSource();
+            if (!(topic instanceof String)) {
+                ctx.writeAndFlush(new SubscribeErrorMessage("invalid topic " + topic));
+                return;
+            }
+            try {
+                this.busServer.subscriptionIndex.subscribe((String) topic, ctx.channel());
+            } catch (IllegalArgumentException e) {
+                //无效主题返回错误，不关闭连接
+                ctx.writeAndFlush(new SubscribeErrorMessage(e.getMessage()));
+            }
+            return;
+        }
+        //取消主题订阅
+        if (msg instanceof UnsubscribeMessage) {
+            Object topic = ((UnsubscribeMessage) msg).getSource();
+            if (topic instanceof String) {
+                this.busServer.subscriptionIndex.unsubscribe((String) topic, ctx.channel());
+            }
+            return;
+        }
+        //主题消息转发
+        if (msg instanceof TopicMessage) {
+            this.fanOut(ctx, (TopicMessage) msg);
+            return;
+        }
         try {
             super.channelRead(ctx, msg);
 //            ByteBuf in = (ByteBuf) msg;
@@ -43,6 +79,46 @@ final class SubServerHandler extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /**
+     * 转发主题消息
+     * 消息只编码一次，每个订阅连接写入共用内容的 {@link ByteBuf#retainedDuplicate()}
+     *
+     * @param ctx     发布连接上下文
+     * @param message 主题消息
+     * @throws Exception
+     */
+    private void fanOut(ChannelHandlerContext ctx, TopicMessage message) throws Exception {
+        //没有主题的消息丢弃，不关闭连接
+        if (message.getTopic() == null || message.getTopic().isEmpty()) {
+            this.log.warn("丢弃没有主题的消息:" + ctx.channel().remoteAddress());
+            return;
+        }
+        Set<Channel> channels = this.busServer.subscriptionIndex.match(message.getTopic());
+        //不转发给发布连接
+        channels.remove(ctx.channel());
+        if (channels.isEmpty()) {
+            return;
+        }
+        ByteBuf frame = ctx.alloc().buffer();
+        try {
+            MessageFrameEncoder.encodeFrame(this.busServer.codec, message, frame);
+            for (Channel channel : channels) {
+                if (channel.isActive()) {
+                    channel.writeAndFlush(frame.retainedDuplicate(), channel.voidPromise());
+                }
+            }
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        //删除连接的全部订阅
+        this.busServer.subscriptionIndex.unsubscribeAll(ctx.channel());
+        super.channelInactive(ctx);
+    }
+
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         System.out.println(evt.toString());
@@ -63,7 +139,7 @@ final class SubServerHandler extends ChannelInboundHandlerAdapter {
         //System.out.println("连接的客户端地址:" + ctx.channel().remoteAddress());
         log.debug("连接的客户端地址:" + ctx.channel().remoteAddress());
         log.debug("连接的客户端ID:" + ctx.channel().id());
-        ctx.writeAndFlush(new ConnectionCompleteMessage("client" + InetAddress.getLocalHost().getHostName() + "success connected！ \n"));
+        ctx.writeAndFlush(new ConnectionCompleteMessage("client" + InetAddress.getLocalHost().getHostName() + "success connected！ \n", this.busServer.getTypeRegistry().getTypeNames()));
 //        System.out.println("connection");
         //StaticVar.ctxList.add(ctx);
         //StaticVar.chc = ctx;
@@ -3,9 +3,6 @@ package ghost.framework.bus.server.plugin;
 import ghost.framework.bus.SubConstant;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.serialization.ClassResolvers;
-import io.netty.handler.codec.serialization.ObjectDecoder;
-import io.netty.handler.codec.serialization.ObjectEncoder;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.timeout.IdleStateHandler;
 import org.apache.commons.logging.Log;
@@ -74,12 +71,11 @@ final class SubServerInitializer extends ChannelInitializer<SocketChannel> {
             //有ssl容器做ssl处理
             socketChannel.pipeline().addLast("ssl", new SslHandler(this.busServer.sslEngine));
         }
-        socketChannel.pipeline().addLast("ObjectDecoder", new ObjectDecoder(ClassResolvers.cacheDisabled(
-                this.getClass().getClassLoader()
-        )));
-        socketChannel.pipeline().addLast("ObjectEncoder", new ObjectEncoder());
-//        socketChannel.pipeline().addLast("MessageEventEncoder", new BusServerToMessageEncoder(this.busServer));
-//        socketChannel.pipeline().addLast("MessageEventDecoder", new BusServerToMessageDecoder(this.busServer));
+        //消息帧编解码器
+        int maxFrameLength = this.busServer.env != null && this.busServer.env.containsKey(SubConstant.Environment.NIO_MAX_FRAME_LENGTH) ?
+                this.busServer.env.getInt(SubConstant.Environment.NIO_MAX_FRAME_LENGTH) : SubConstant.Nio.DEFAULT_MAX_FRAME_LENGTH;
+        socketChannel.pipeline().addLast("MessageEventDecoder", new BusServerToMessageDecoder(this.busServer, maxFrameLength));
+        socketChannel.pipeline().addLast("MessageEventEncoder", new BusServerToMessageEncoder(this.busServer));
         // 自定义处理类
         socketChannel.pipeline().addLast(new SubServerHandler(this.busServer));
     }
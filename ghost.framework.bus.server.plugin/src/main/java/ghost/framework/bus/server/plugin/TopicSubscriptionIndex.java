@@ -0,0 +1,195 @@
+package ghost.framework.bus.server.plugin;
+
+import io.netty.channel.Channel;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * package: ghost.framework.bus.server.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:主题订阅索引
+ * 主题以 . 分隔建立前缀树，* 匹配一级，# 在末尾匹配零或多级
+ * 订阅与取消订阅加锁修改前缀树，取消订阅时删除空节点，匹配不加锁，匹配时只遍历主题相关的节点
+ * @Date: 2020/6/16:9:30
+ */
+final class TopicSubscriptionIndex {
+    /**
+     * 单级通配符
+     */
+    static final String SINGLE_WILDCARD = "*";
+    /**
+     * 多级通配符
+     */
+    static final String MULTI_WILDCARD = "#";
+
+    /**
+     * 主题节点
+     */
+    private static final class Node {
+        /**
+         * 下级节点
+         */
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+        /**
+         * 订阅该节点主题的连接
+         */
+        private final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * 根节点
+     */
+    private final Node root = new Node();
+    /**
+     * 连接订阅的主题
+     * 连接关闭时删除连接的全部订阅
+     */
+    private final Map<Channel, Set<String>> channelTopics = new ConcurrentHashMap<>();
+
+    /**
+     * 拆分主题
+     *
+     * @param topic 主题
+     * @return
+     */
+    private static String[] split(String topic) {
+        List<String> list = new ArrayList<>();
+        int start = 0;
+        int i;
+        while ((i = topic.indexOf('.', start)) != -1) {
+            list.add(topic.substring(start, i));
+            start = i + 1;
+        }
+        list.add(topic.substring(start));
+        return list.toArray(new String[0]);
+    }
+
+    /**
+     * 订阅主题
+     *
+     * @param topic   主题
+     * @param channel 订阅连接
+     * @throws IllegalArgumentException 无效主题
+     */
+    synchronized void subscribe(String topic, Channel channel) {
+        if (topic == null || topic.isEmpty()) {
+            throw new IllegalArgumentException("topic is empty");
+        }
+        String[] segments = split(topic);
+        for (int i = 0; i < segments.length - 1; i++) {
+            if (MULTI_WILDCARD.equals(segments[i])) {
+                throw new IllegalArgumentException(topic + " # wildcard must be last");
+            }
+        }
+        Node node = this.root;
+        for (String segment : segments) {
+            node = node.children.computeIfAbsent(segment, k -> new Node());
+        }
+        node.channels.add(channel);
+        this.channelTopics.computeIfAbsent(channel, k -> ConcurrentHashMap.newKeySet()).add(topic);
+    }
+
+    /**
+     * 取消订阅主题
+     *
+     * @param topic   主题
+     * @param channel 订阅连接
+     */
+    synchronized void unsubscribe(String topic, Channel channel) {
+        if (topic == null) {
+            return;
+        }
+        String[] segments = split(topic);
+        Node[] path = new Node[segments.length + 1];
+        path[0] = this.root;
+        for (int i = 0; i < segments.length; i++) {
+            path[i + 1] = path[i].children.get(segments[i]);
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        path[segments.length].channels.remove(channel);
+        //从末级向上删除没有订阅与下级的节点
+        for (int i = segments.length; i > 0; i--) {
+            Node node = path[i];
+            if (!node.channels.isEmpty() || !node.children.isEmpty()) {
+                break;
+            }
+            path[i - 1].children.remove(segments[i - 1], node);
+        }
+        Set<String> topics = this.channelTopics.get(channel);
+        if (topics != null) {
+            topics.remove(topic);
+        }
+    }
+
+    /**
+     * 判断前缀树是否为空
+     *
+     * @return
+     */
+    boolean isEmpty() {
+        return this.root.children.isEmpty() && this.root.channels.isEmpty();
+    }
+
+    /**
+     * 删除连接的全部订阅
+     *
+     * @param channel 订阅连接
+     */
+    synchronized void unsubscribeAll(Channel channel) {
+        Set<String> topics = this.channelTopics.remove(channel);
+        if (topics == null) {
+            return;
+        }
+        for (String topic : topics) {
+            this.unsubscribe(topic, channel);
+        }
+    }
+
+    /**
+     * 匹配主题订阅连接
+     *
+     * @param topic 发布的主题
+     * @return 返回不重复的订阅连接，主题为空时返回空列表
+     */
+    Set<Channel> match(String topic) {
+        Set<Channel> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (topic == null || topic.isEmpty()) {
+            return result;
+        }
+        this.match(this.root, split(topic), 0, result);
+        return result;
+    }
+
+    /**
+     * 匹配主题订阅连接
+     *
+     * @param node     当前节点
+     * @param segments 主题分级
+     * @param index    当前分级位置
+     * @param result   匹配的订阅连接
+     */
+    private void match(Node node, String[] segments, int index, Set<Channel> result) {
+        //多级通配符匹配剩余全部分级
+        Node multi = node.children.get(MULTI_WILDCARD);
+        if (multi != null) {
+            result.addAll(multi.channels);
+        }
+        if (index == segments.length) {
+            result.addAll(node.channels);
+            return;
+        }
+        Node child = node.children.get(segments[index]);
+        if (child != null) {
+            this.match(child, segments, index + 1, result);
+        }
+        Node single = node.children.get(SINGLE_WILDCARD);
+        if (single != null) {
+            this.match(single, segments, index + 1, result);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ghost.framework.bus.server.plugin;
+
+import io.netty.channel.Channel;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.bus.server.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link TopicSubscriptionIndex} 单元测试
+ * @Date: 2020/6/16:10:12
+ */
+public class TopicSubscriptionIndexTests {
+    /**
+     * 创建测试连接
+     * 只使用连接的对象标识
+     *
+     * @return
+     */
+    private static Channel channel() {
+        return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "channel@" + Integer.toHexString(System.identityHashCode(proxy));
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void match() {
+        TopicSubscriptionIndex index = new TopicSubscriptionIndex();
+        Channel exact = channel();
+        Channel single = channel();
+        Channel multi = channel();
+        index.subscribe("a.b.c", exact);
+        index.subscribe("a.*.c", single);
+        index.subscribe("a.#", multi);
+        assertThat(index.match("a.b.c")).containsExactlyInAnyOrder(exact, single, multi);
+        assertThat(index.match("a.x.c")).containsExactlyInAnyOrder(single, multi);
+        //多级通配符匹配零级
+        assertThat(index.match("a")).containsExactlyInAnyOrder(multi);
+        assertThat(index.match("b.b.c")).isEmpty();
+    }
+
+    @Test
+    public void invalidTopic() {
+        TopicSubscriptionIndex index = new TopicSubscriptionIndex();
+        assertThatThrownBy(() -> index.subscribe("a.#.c", channel())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.subscribe("", channel())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.subscribe(null, channel())).isInstanceOf(IllegalArgumentException.class);
+        assertThat(index.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void emptyTopicMatchesNothing() {
+        TopicSubscriptionIndex index = new TopicSubscriptionIndex();
+        Channel channel = channel();
+        index.subscribe("#", channel);
+        //没有主题的消息不匹配任何订阅
+        assertThat(index.match(null)).isEmpty();
+        assertThat(index.match("")).isEmpty();
+        index.unsubscribe(null, channel);
+        assertThat(index.match("a")).containsExactlyInAnyOrder(channel);
+    }
+
+    @Test
+    public void unsubscribePrunesEmptyNodes() {
+        TopicSubscriptionIndex index = new TopicSubscriptionIndex();
+        Channel first = channel();
+        Channel second = channel();
+        index.subscribe("a.b.c", first);
+        index.subscribe("a.b", second);
+        index.unsubscribe("a.b.c", first);
+        assertThat(index.match("a.b.c")).isEmpty();
+        assertThat(index.match("a.b")).containsExactlyInAnyOrder(second);
+        index.unsubscribe("a.b", second);
+        assertThat(index.isEmpty()).isTrue();
+        //未订阅的主题
+        index.unsubscribe("x.y", first);
+        assertThat(index.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void unsubscribeAll() {
+        TopicSubscriptionIndex index = new TopicSubscriptionIndex();
+        Channel first = channel();
+        Channel second = channel();
+        index.subscribe("a.b", first);
+        index.subscribe("c.*", first);
+        index.subscribe("a.b", second);
+        index.unsubscribeAll(first);
+        assertThat(index.match("a.b")).containsExactlyInAnyOrder(second);
+        assertThat(index.match("c.d")).isEmpty();
+        index.unsubscribeAll(second);
+        assertThat(index.isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,142 @@
+package ghost.framework.bus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * package: ghost.framework.bus
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:总线发布统计
+ * 每个连接一个统计对象，记录等待发送列队深度与批量写入大小
+ * {@link IBusClient#getPublishMetrics()}
+ * @Date: 2020/6/15:9:20
+ */
+public final class BusPublishMetrics {
+    /**
+     * 等待发送列队深度
+     */
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    /**
+     * 批量写入次数
+     */
+    private final LongAdder batchCount = new LongAdder();
+    /**
+     * 已写入消息数量
+     */
+    private final LongAdder messageCount = new LongAdder();
+    /**
+     * 列队已满拒绝的消息数量
+     */
+    private final LongAdder rejectedCount = new LongAdder();
+    /**
+     * 最大批量写入大小
+     */
+    private final AtomicInteger maxBatchSize = new AtomicInteger();
+
+    /**
+     * 增加列队深度
+     *
+     * @return 返回增加后的列队深度
+     */
+    public int incrementQueueDepth() {
+        return this.queueDepth.incrementAndGet();
+    }
+
+    /**
+     * 减少列队深度
+     */
+    public void decrementQueueDepth() {
+        this.queueDepth.decrementAndGet();
+    }
+
+    /**
+     * 记录拒绝消息
+     */
+    public void recordRejected() {
+        this.rejectedCount.increment();
+    }
+
+    /**
+     * 记录批量写入
+     *
+     * @param size 批量写入消息数量
+     */
+    public void recordBatch(int size) {
+        this.batchCount.increment();
+        this.messageCount.add(size);
+        int max;
+        while (size > (max = this.maxBatchSize.get())) {
+            if (this.maxBatchSize.compareAndSet(max, size)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 获取等待发送列队深度
+     *
+     * @return
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * 获取批量写入次数
+     *
+     * @return
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * 获取已写入消息数量
+     *
+     * @return
+     */
+    public long getMessageCount() {
+        return messageCount.sum();
+    }
+
+    /**
+     * 获取列队已满拒绝的消息数量
+     *
+     * @return
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * 获取最大批量写入大小
+     *
+     * @return
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    /**
+     * 获取平均批量写入大小
+     *
+     * @return
+     */
+    public double getAverageBatchSize() {
+        long batches = this.batchCount.sum();
+        return batches == 0 ? 0 : (double) this.messageCount.sum() / batches;
+    }
+
+    @Override
+    public String toString() {
+        return "BusPublishMetrics{" +
+                "queueDepth=" + queueDepth.get() +
+                ", batchCount=" + batchCount.sum() +
+                ", messageCount=" + messageCount.sum() +
+                ", rejectedCount=" + rejectedCount.sum() +
+                ", maxBatchSize=" + maxBatchSize.get() +
+                '}';
+    }
+}
@@ -20,4 +20,30 @@ public class ConnectionCompleteMessage extends MessageEvent{
     public ConnectionCompleteMessage(Object source) {
         super(source);
     }
+
+    /**
+     * 服务器端消息类型名称
+     * {@link MessageTypeRegistry#getTypeNames()}
+     */
+    private String[] types;
+
+    /**
+     * 获取服务器端消息类型注册表
+     *
+     * @return
+     */
+    public String[] getTypes() {
+        return types;
+    }
+
+    /**
+     * 初始化连接完成消息事件
+     *
+     * @param source 消息源
+     * @param types  服务器端消息类型注册表
+     */
+    public ConnectionCompleteMessage(Object source, String[] types) {
+        super(source);
+        this.types = types;
+    }
 }
@@ -2,6 +2,8 @@ package ghost.framework.bus;
 
 import ghost.framework.context.environment.IEnvironment;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * package: ghost.framework.bus.content
  *
@@ -35,4 +37,54 @@ public interface IBusClient extends AutoCloseable {
      * @return
      */
     IEnvironment getEnv();
+
+    /**
+     * 发布消息
+     * 消息进入连接的发送列队，达到批量大小或等待时间后合并写入并刷新通道
+     * 通道不可写时暂停写入，等待发送列队超过上限时返回失败的 {@link CompletableFuture}
+     *
+     * @param event 消息事件
+     * @return 返回消息写入完成的 {@link CompletableFuture}
+     */
+    CompletableFuture<Void> publish(MessageEvent event);
+
+    /**
+     * 获取当前连接的发布统计
+     *
+     * @return 未连接时返回null
+     */
+    BusPublishMetrics getPublishMetrics();
+
+    /**
+     * 订阅主题
+     * 主题以 . 分隔，* 匹配一级，# 在末尾匹配零或多级
+     *
+     * @param topic 主题
+     * @return 返回订阅消息写入完成的 {@link CompletableFuture}
+     */
+    default CompletableFuture<Void> subscribe(String topic) {
+        return this.publish(new SubscribeMessage(topic));
+    }
+
+    /**
+     * 取消订阅主题
+     *
+     * @param topic 主题
+     * @return 返回取消订阅消息写入完成的 {@link CompletableFuture}
+     */
+    default CompletableFuture<Void> unsubscribe(String topic) {
+        return this.publish(new UnsubscribeMessage(topic));
+    }
+
+    /**
+     * 发布主题消息
+     * 服务器端只转发给订阅匹配的连接
+     *
+     * @param topic  主题
+     * @param source 消息源
+     * @return 返回消息写入完成的 {@link CompletableFuture}
+     */
+    default CompletableFuture<Void> publish(String topic, Object source) {
+        return this.publish(new TopicMessage(topic, source));
+    }
 }
\ No newline at end of file
@@ -35,4 +35,15 @@ public interface IBusServer extends AutoCloseable{
      * @return
      */
     IEnvironment getEnv();
+
+    /**
+     * 注册消息类型
+     * 注册的消息类型编码时只写入类型编号，客户端连接时协商类型编号，
+     * 注册前已经连接的客户端发送该类型时仍然使用java序列化编码
+     *
+     * @param c 消息类型
+     * @return 返回类型编号
+     * @throws IllegalArgumentException 类型没有 (Object source) 构建函数、声明了不支持编码的实例字段或类型编号冲突
+     */
+    int registerMessageType(Class<? extends MessageEvent> c);
 }
@@ -0,0 +1,286 @@
+package ghost.framework.bus;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * package: ghost.framework.bus
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:消息事件二进制编解码器
+ * 消息格式为 [类型编号][消息内容]，帧长度前缀由通道编码器写入
+ * 注册类型只写入类型编号与带类型标记的消息源，常用消息源类型直接写入二进制值
+ * 未注册的消息类型与未知的消息源类型使用java序列化，反序列化时缓存解析的类型
+ * {@link MessageTypeRegistry}
+ * @Date: 2020/6/14:10:32
+ */
+public final class MessageEventCodec {
+    /**
+     * 消息源类型标记
+     */
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte BYTES = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte SERIALIZABLE = 7;
+    /**
+     * 消息类型注册表
+     */
+    private final MessageTypeRegistry registry;
+    /**
+     * 反序列化类加载器
+     */
+    private final ClassLoader classLoader;
+    /**
+     * 反序列化类型缓存
+     */
+    private final Map<String, Class<?>> classCache = new ConcurrentHashMap<>();
+
+    /**
+     * 初始化消息事件二进制编解码器
+     *
+     * @param registry    消息类型注册表
+     * @param classLoader 反序列化类加载器
+     */
+    public MessageEventCodec(MessageTypeRegistry registry, ClassLoader classLoader) {
+        this.registry = registry;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * 获取消息类型注册表
+     *
+     * @return
+     */
+    public MessageTypeRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * 编码消息
+     *
+     * @param event 消息事件
+     * @param out   输出流
+     * @param <O>   输出流类型
+     * @throws IOException
+     */
+    public <O extends OutputStream & DataOutput> void encode(MessageEvent event, O out) throws IOException {
+        int id = this.registry.getId(event.getClass());
+        out.writeInt(id);
+        if (id == MessageTypeRegistry.SERIALIZABLE_TYPE) {
+            this.writeObject(event, out);
+            return;
+        }
+        this.writeValue(event.getSource(), out);
+        //连接完成消息写入类型注册表
+        if (event instanceof ConnectionCompleteMessage) {
+            String[] types = ((ConnectionCompleteMessage) event).getTypes();
+            if (types == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(types.length);
+                for (String type : types) {
+                    writeString(type, out);
+                }
+            }
+        }
+        //主题消息写入主题
+        if (event instanceof TopicMessage) {
+            this.writeValue(((TopicMessage) event).getTopic(), out);
+        }
+    }
+
+    /**
+     * 解码消息
+     *
+     * @param in  输入流
+     * @param <I> 输入流类型
+     * @return 返回消息事件
+     * @throws IOException
+     */
+    public <I extends InputStream & DataInput> MessageEvent decode(I in) throws IOException {
+        int id = in.readInt();
+        if (id == MessageTypeRegistry.SERIALIZABLE_TYPE) {
+            return (MessageEvent) this.readObject(in);
+        }
+        Object source = this.readValue(in);
+        if (this.registry.getType(id) == ConnectionCompleteMessage.class) {
+            int length = in.readInt();
+            String[] types = null;
+            if (length >= 0) {
+                types = new String[length];
+                for (int i = 0; i < length; i++) {
+                    types[i] = readString(in);
+                }
+            }
+            return new ConnectionCompleteMessage(source, types);
+        }
+        if (this.registry.getType(id) == TopicMessage.class) {
+            return new TopicMessage((String) this.readValue(in), source);
+        }
+        try {
+            return this.registry.newInstance(id, source);
+        } catch (ReflectiveOperationException e) {
+            throw new InvalidObjectException(e.getMessage());
+        }
+    }
+
+    /**
+     * 写入带类型标记的值
+     *
+     * @param value 值
+     * @param out   输出流
+     * @throws IOException
+     */
+    private <O extends OutputStream & DataOutput> void writeValue(Object value, O out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString((String) value, out);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else {
+            out.writeByte(SERIALIZABLE);
+            this.writeObject(value, out);
+        }
+    }
+
+    /**
+     * 读取带类型标记的值
+     *
+     * @param in 输入流
+     * @return
+     * @throws IOException
+     */
+    private <I extends InputStream & DataInput> Object readValue(I in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case BOOLEAN:
+                return in.readBoolean();
+            case BYTES:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return bytes;
+            case DOUBLE:
+                return in.readDouble();
+            case SERIALIZABLE:
+                return this.readObject(in);
+            default:
+                throw new StreamCorruptedException("unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * 写入字符串
+     * 使用长度前缀的UTF-8编码，不受 {@link DataOutput#writeUTF(String)} 长度限制
+     *
+     * @param s   字符串
+     * @param out 输出流
+     * @throws IOException
+     */
+    private static void writeString(String s, DataOutput out) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 读取字符串
+     *
+     * @param in 输入流
+     * @return
+     * @throws IOException
+     */
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * java序列化写入对象
+     * 写入长度前缀，读取时不会越过对象内容读取后续字段
+     *
+     * @param o   对象
+     * @param out 输出流
+     * @throws IOException
+     */
+    private void writeObject(Object o, DataOutput out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+            stream.writeObject(o);
+        }
+        out.writeInt(bytes.size());
+        out.write(bytes.toByteArray());
+    }
+
+    /**
+     * java序列化读取对象
+     *
+     * @param in 输入流
+     * @return
+     * @throws IOException
+     */
+    private Object readObject(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                return MessageEventCodec.this.resolveClass(desc);
+            }
+        }) {
+            return stream.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new InvalidClassException(e.getMessage());
+        }
+    }
+
+    /**
+     * 解析类型
+     * 缓存解析结果，避免每个消息重复加载类型
+     *
+     * @param desc 序列化类型描述
+     * @return
+     * @throws ClassNotFoundException
+     */
+    private Class<?> resolveClass(ObjectStreamClass desc) throws ClassNotFoundException {
+        String name = desc.getName();
+        Class<?> c = this.classCache.get(name);
+        if (c == null) {
+            c = Class.forName(name, false, this.classLoader);
+            this.classCache.put(name, c);
+        }
+        return c;
+    }
+}
@@ -0,0 +1,25 @@
+package ghost.framework.bus;
+
+import java.lang.annotation.*;
+
+/**
+ * package: ghost.framework.bus
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:消息类型编号注释
+ * 指定 {@link MessageTypeRegistry} 使用的类型编号，未指定时使用类型名称计算编号
+ * 类型名称编号冲突时使用此注释指定编号
+ * @Date: 2020/6/14:9:52
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface MessageTypeId {
+    /**
+     * 类型编号，必须大于0
+     *
+     * @return
+     */
+    int value();
+}
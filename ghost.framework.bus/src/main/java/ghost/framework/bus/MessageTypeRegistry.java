@@ -0,0 +1,240 @@
+package ghost.framework.bus;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * package: ghost.framework.bus
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:消息类型注册表
+ * 为 {@link MessageEvent} 类型分配紧凑的类型编号，编码时只写入类型编号
+ * 类型编号由 {@link MessageTypeId} 指定或由类型名称计算，与注册顺序无关，各节点同一类型编号一致
+ * 服务器端注册的类型名称由 {@link ConnectionCompleteMessage#getTypes()} 下发给客户端，
+ * 客户端使用 {@link MessageTypeRegistry#negotiate(String[], ClassLoader)} 只保留服务器端可以解码的类型
+ * 注册的类型需要有 (Object source) 构建函数，并且消息状态全部保存在 {@link MessageEvent#getSource()} 中，
+ * 子类声明的实例字段不会被编码，注册时直接报错
+ * 读取不加锁，注册时复制更新
+ * @Date: 2020/6/14:10:05
+ */
+public final class MessageTypeRegistry {
+    /**
+     * 未注册类型编号
+     * 未注册类型使用java序列化编码
+     */
+    public static final int SERIALIZABLE_TYPE = 0;
+    /**
+     * 类型地图，键为类型编号
+     */
+    private volatile Map<Integer, Class<?>> types = Collections.emptyMap();
+    /**
+     * 类型构建函数地图，键为类型编号
+     */
+    private volatile Map<Integer, Constructor<?>> constructors = Collections.emptyMap();
+    /**
+     * 类型编号地图
+     */
+    private volatile Map<Class<?>, Integer> idMap = Collections.emptyMap();
+
+    /**
+     * 初始化消息类型注册表
+     * 内置注册 {@link MessageEvent}、{@link ConnectionCompleteMessage} 与主题订阅类型
+     */
+    public MessageTypeRegistry() {
+        this.registerBuiltin();
+    }
+
+    /**
+     * 注册内置类型
+     * {@link ConnectionCompleteMessage} 与 {@link TopicMessage} 的字段由 {@link MessageEventCodec} 单独编码
+     */
+    private void registerBuiltin() {
+        this.append(MessageEvent.class, constructor(MessageEvent.class));
+        this.append(ConnectionCompleteMessage.class, constructor(ConnectionCompleteMessage.class));
+        this.append(SubscribeMessage.class, constructor(SubscribeMessage.class));
+        this.append(UnsubscribeMessage.class, constructor(UnsubscribeMessage.class));
+        this.append(SubscribeErrorMessage.class, constructor(SubscribeErrorMessage.class));
+        this.append(TopicMessage.class, constructor(TopicMessage.class));
+    }
+
+    /**
+     * 注册消息类型
+     *
+     * @param c 消息类型
+     * @return 返回类型编号
+     * @throws IllegalArgumentException 类型没有 (Object source) 构建函数、声明了不支持编码的实例字段或类型编号冲突
+     */
+    public synchronized int register(Class<? extends MessageEvent> c) {
+        Integer id = this.idMap.get(c);
+        if (id != null) {
+            return id;
+        }
+        checkFields(c);
+        return this.append(c, constructor(c));
+    }
+
+    /**
+     * 获取类型的 (Object source) 构建函数
+     *
+     * @param c 消息类型
+     * @return
+     */
+    private static Constructor<?> constructor(Class<?> c) {
+        try {
+            return c.getConstructor(Object.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(c.getName() + " not (Object source) constructor error", e);
+        }
+    }
+
+    /**
+     * 检查类型字段
+     * 编码只写入消息源，{@link MessageEvent} 子类声明的实例字段会在传输中丢失
+     *
+     * @param c 消息类型
+     */
+    private static void checkFields(Class<?> c) {
+        for (Class<?> k = c; k != null && k != MessageEvent.class; k = k.getSuperclass()) {
+            for (Field field : k.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                    throw new IllegalArgumentException(c.getName() + " field " + k.getName() + "." + field.getName() +
+                            " not supported error, message state must be kept in the source");
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取类型编号
+     * 优先使用 {@link MessageTypeId} 指定的编号，否则使用类型名称计算编号
+     *
+     * @param c 消息类型
+     * @return
+     */
+    private static int typeId(Class<?> c) {
+        MessageTypeId annotation = c.getAnnotation(MessageTypeId.class);
+        if (annotation != null) {
+            if (annotation.value() <= SERIALIZABLE_TYPE) {
+                throw new IllegalArgumentException(c.getName() + " @MessageTypeId(" + annotation.value() + ") must be greater than 0 error");
+            }
+            return annotation.value();
+        }
+        int id = c.getName().hashCode() & Integer.MAX_VALUE;
+        return id == SERIALIZABLE_TYPE ? 1 : id;
+    }
+
+    /**
+     * 添加类型
+     *
+     * @param c           消息类型
+     * @param constructor 消息类型构建函数
+     * @return 返回类型编号
+     */
+    private int append(Class<?> c, Constructor<?> constructor) {
+        int id = typeId(c);
+        Class<?> registered = this.types.get(id);
+        if (registered != null) {
+            throw new IllegalArgumentException(c.getName() + " type id " + id + " already used by " + registered.getName() +
+                    ", use @" + MessageTypeId.class.getSimpleName() + " error");
+        }
+        Map<Integer, Class<?>> types = new HashMap<>(this.types);
+        Map<Integer, Constructor<?>> constructors = new HashMap<>(this.constructors);
+        Map<Class<?>, Integer> idMap = new IdentityHashMap<>(this.idMap);
+        types.put(id, c);
+        constructors.put(id, constructor);
+        idMap.put(c, id);
+        this.constructors = constructors;
+        this.types = types;
+        this.idMap = idMap;
+        return id;
+    }
+
+    /**
+     * 协商类型
+     * 客户端收到服务器端 {@link ConnectionCompleteMessage} 后只保留服务器端注册的类型，
+     * 类型编号与服务器端计算规则一致，本地无法加载的类型忽略，其它本地类型编码使用java序列化
+     *
+     * @param names  服务器端类型名称数组
+     * @param loader 加载类型的类加载器
+     */
+    public synchronized void negotiate(String[] names, ClassLoader loader) {
+        this.types = Collections.emptyMap();
+        this.constructors = Collections.emptyMap();
+        this.idMap = Collections.emptyMap();
+        this.registerBuiltin();
+        for (String name : names) {
+            if (name == null || name.isEmpty()) {
+                continue;
+            }
+            Class<?> c;
+            try {
+                c = Class.forName(name, false, loader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                continue;
+            }
+            if (MessageEvent.class.isAssignableFrom(c) && !this.idMap.containsKey(c)) {
+                this.append(c, constructor(c));
+            }
+        }
+    }
+
+    /**
+     * 获取类型编号
+     *
+     * @param c 消息类型
+     * @return 返回类型编号，未注册类型返回 {@link MessageTypeRegistry#SERIALIZABLE_TYPE}
+     */
+    public int getId(Class<?> c) {
+        Integer id = this.idMap.get(c);
+        return id == null ? SERIALIZABLE_TYPE : id;
+    }
+
+    /**
+     * 获取类型
+     *
+     * @param id 类型编号
+     * @return 返回类型，无效编号返回null
+     */
+    public Class<?> getType(int id) {
+        return this.types.get(id);
+    }
+
+    /**
+     * 构建消息
+     *
+     * @param id     类型编号
+     * @param source 消息源
+     * @return
+     * @throws ReflectiveOperationException
+     */
+    public MessageEvent newInstance(int id, Object source) throws ReflectiveOperationException {
+        Constructor<?> constructor = this.constructors.get(id);
+        if (constructor == null) {
+            throw new ClassNotFoundException("message type id " + id);
+        }
+        return (MessageEvent) constructor.newInstance(source);
+    }
+
+    /**
+     * 获取类型名称数组
+     * 下发给客户端协商使用
+     *
+     * @return
+     */
+    public String[] getTypeNames() {
+        Map<Integer, Class<?>> types = this.types;
+        String[] names = new String[types.size()];
+        int i = 0;
+        for (Class<?> c : types.values()) {
+            names[i++] = c.getName();
+        }
+        return names;
+    }
+}
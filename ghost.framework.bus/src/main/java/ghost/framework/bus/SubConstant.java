@@ -80,6 +80,39 @@ public final class SubConstant {
          * 会发生剩余的数据，造成了数据的不确定性，使用SO_LINGER可以阻塞close()的调用时间，直到数据完全发送
          */
         public static final boolean DEFAULT_LINGER = true;
+        /**
+         * 默认最大消息帧长度
+         * 单位字节
+         */
+        public static final int DEFAULT_MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+        /**
+         * 默认发布批量大小
+         * 等待发送列队达到批量大小时立即合并写入
+         */
+        public static final int DEFAULT_PUBLISH_BATCH_SIZE = 64;
+        /**
+         * 默认发布等待时间
+         * 等待发送列队未达到批量大小时最长等待时间后写入，小于等于0时立即写入
+         * 单位毫秒
+         */
+        public static final int DEFAULT_PUBLISH_LINGER_MILLIS = 2;
+        /**
+         * 默认发布等待发送列队上限
+         * 超过上限时拒绝发布
+         */
+        public static final int DEFAULT_PUBLISH_MAX_PENDING = 64 * 1024;
+        /**
+         * 默认写入缓冲低水位
+         * 通道写入缓冲低于低水位时恢复可写
+         * 单位字节
+         */
+        public static final int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 32 * 1024;
+        /**
+         * 默认写入缓冲高水位
+         * 通道写入缓冲高于高水位时不可写，暂停发布写入
+         * 单位字节
+         */
+        public static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 64 * 1024;
     }
 
     /**
@@ -185,5 +218,33 @@ public final class SubConstant {
          * 保持连接
          */
         public static final String NIO_KEEPALIVE = "ghost.framework.bus.nio.keepalive";
+        /**
+         * 最大消息帧长度
+         * 单位字节
+         */
+        public static final String NIO_MAX_FRAME_LENGTH = "ghost.framework.bus.nio.max.frame.length";
+        /**
+         * 发布批量大小
+         */
+        public static final String NIO_PUBLISH_BATCH_SIZE = "ghost.framework.bus.nio.publish.batch.size";
+        /**
+         * 发布等待时间
+         * 单位毫秒
+         */
+        public static final String NIO_PUBLISH_LINGER_MILLIS = "ghost.framework.bus.nio.publish.linger.millis";
+        /**
+         * 发布等待发送列队上限
+         */
+        public static final String NIO_PUBLISH_MAX_PENDING = "ghost.framework.bus.nio.publish.max.pending";
+        /**
+         * 写入缓冲低水位
+         * 单位字节
+         */
+        public static final String NIO_WRITE_BUFFER_LOW_WATER_MARK = "ghost.framework.bus.nio.write.buffer.low.water.mark";
+        /**
+         * 写入缓冲高水位
+         * 单位字节
+         */
+        public static final String NIO_WRITE_BUFFER_HIGH_WATER_MARK = "ghost.framework.bus.nio.write.buffer.high.water.mark";
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package ghost.framework.bus;
+
+/**
+ * package: ghost.framework.bus
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:订阅主题错误消息事件
+ * 服务器端拒绝无效主题时返回，连接保持打开
+ * 消息源为错误描述
+ * {@link SubscribeMessage}
+ * @Date: 2020/6/16:9:16
+ */
+public class SubscribeErrorMessage extends MessageEvent {
+    private static final long serialVersionUID = -6407752513834640821L;
+
+    /**
+     * 初始化订阅主题错误消息事件
+     *
+     * @param source 错误描述
+     */
+    public SubscribeErrorMessage(Object source) {
+        super(source);
+    }
+
+    /**
+     * 获取错误描述
+     *
+     * @return
+     */
+    public String getError() {
+        return (String) this.getSource();
+    }
+}
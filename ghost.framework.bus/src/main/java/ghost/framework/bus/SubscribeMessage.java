@@ -0,0 +1,33 @@
+package ghost.framework.bus;
+
+/**
+ * package: ghost.framework.bus
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:订阅主题消息事件
+ * 消息源为订阅的主题，主题以 . 分隔，* 匹配一级，# 在末尾匹配零或多级
+ * {@link TopicMessage}
+ * @Date: 2020/6/16:9:12
+ */
+public class SubscribeMessage extends MessageEvent {
+    private static final long serialVersionUID = 2907467826468337015L;
+
+    /**
+     * 初始化订阅主题消息事件
+     *
+     * @param source 订阅的主题
+     */
+    public SubscribeMessage(Object source) {
+        super(source);
+    }
+
+    /**
+     * 获取订阅的主题
+     *
+     * @return
+     */
+    public String getTopic() {
+        return (String) this.getSource();
+    }
+}
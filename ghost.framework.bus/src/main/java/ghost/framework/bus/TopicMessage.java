@@ -0,0 +1,49 @@
+package ghost.framework.bus;
+
+/**
+ * package: ghost.framework.bus
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:主题消息事件
+ * 服务器端按主题转发给订阅匹配的连接，不转发给发布的连接
+ * {@link SubscribeMessage}
+ * @Date: 2020/6/16:9:16
+ */
+public class TopicMessage extends MessageEvent {
+    private static final long serialVersionUID = 5281735569240373170L;
+
+    /**
+     * 初始化主题消息事件
+     *
+     * @param source 消息源
+     */
+    public TopicMessage(Object source) {
+        super(source);
+    }
+
+    /**
+     * 初始化主题消息事件
+     *
+     * @param topic  主题
+     * @param source 消息源
+     */
+    public TopicMessage(String topic, Object source) {
+        super(source);
+        this.topic = topic;
+    }
+
+    /**
+     * 主题
+     */
+    private String topic;
+
+    /**
+     * 获取主题
+     *
+     * @return
+     */
+    public String getTopic() {
+        return topic;
+    }
+}
@@ -0,0 +1,32 @@
+package ghost.framework.bus;
+
+/**
+ * package: ghost.framework.bus
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:取消订阅主题消息事件
+ * 消息源为取消订阅的主题，与 {@link SubscribeMessage} 订阅的主题一致
+ * @Date: 2020/6/16:9:14
+ */
+public class UnsubscribeMessage extends MessageEvent {
+    private static final long serialVersionUID = -3364931727470126164L;
+
+    /**
+     * 初始化取消订阅主题消息事件
+     *
+     * @param source 取消订阅的主题
+     */
+    public UnsubscribeMessage(Object source) {
+        super(source);
+    }
+
+    /**
+     * 获取取消订阅的主题
+     *
+     * @return
+     */
+    public String getTopic() {
+        return (String) this.getSource();
+    }
+}
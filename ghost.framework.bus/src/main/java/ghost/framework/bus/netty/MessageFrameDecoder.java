@@ -0,0 +1,70 @@
+package ghost.framework.bus.netty;
+
+import ghost.framework.bus.MessageEvent;
+import ghost.framework.bus.MessageEventCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+
+/**
+ * package: ghost.framework.bus.netty
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:消息帧解码器
+ * 按4字节帧长度拆分消息帧，使用 {@link MessageEventCodec} 解码，客户端与服务器端共用
+ * @Date: 2020/6/13:9:37
+ */
+public class MessageFrameDecoder extends LengthFieldBasedFrameDecoder {
+    /**
+     * 消息编解码器
+     */
+    private final MessageEventCodec codec;
+
+    /**
+     * 初始化消息帧解码器
+     *
+     * @param codec          消息编解码器
+     * @param maxFrameLength 最大帧长度
+     */
+    public MessageFrameDecoder(MessageEventCodec codec, int maxFrameLength) {
+        super(maxFrameLength, 0, 4, 0, 4);
+        this.codec = codec;
+    }
+
+    /**
+     * 获取消息编解码器
+     *
+     * @return
+     */
+    protected MessageEventCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        ByteBuf frame = (ByteBuf) super.decode(ctx, in);
+        if (frame == null) {
+            return null;
+        }
+        MessageEvent event;
+        try (ByteBufInputStream stream = new ByteBufInputStream(frame)) {
+            event = this.codec.decode(stream);
+        } finally {
+            frame.release();
+        }
+        return this.decoded(ctx, event);
+    }
+
+    /**
+     * 消息解码完成
+     *
+     * @param ctx   通道上下文
+     * @param event 消息事件
+     * @return 返回传递给后续处理器的消息
+     */
+    protected Object decoded(ChannelHandlerContext ctx, MessageEvent event) {
+        return event;
+    }
+}
@@ -0,0 +1,63 @@
+package ghost.framework.bus.netty;
+
+import ghost.framework.bus.MessageEvent;
+import ghost.framework.bus.MessageEventCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+import java.io.IOException;
+
+/**
+ * package: ghost.framework.bus.netty
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:消息帧编码器
+ * 消息帧格式为 [4字节帧长度][{@link MessageEventCodec} 编码内容]，客户端与服务器端共用
+ * @Date: 2020/6/13:9:37
+ */
+public class MessageFrameEncoder extends MessageToByteEncoder<MessageEvent> {
+    /**
+     * 帧长度占位
+     */
+    private static final byte[] LENGTH_PLACEHOLDER = new byte[4];
+    /**
+     * 消息编解码器
+     */
+    private final MessageEventCodec codec;
+
+    /**
+     * 初始化消息帧编码器
+     *
+     * @param codec 消息编解码器
+     */
+    public MessageFrameEncoder(MessageEventCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext channelHandlerContext, MessageEvent messageEvent, ByteBuf out) throws Exception {
+        encodeFrame(this.codec, messageEvent, out);
+    }
+
+    /**
+     * 编码消息帧
+     * 主题转发时只编码一次，各订阅连接共用编码后的消息帧
+     *
+     * @param codec        消息编解码器
+     * @param messageEvent 消息事件
+     * @param out          输出缓冲
+     * @throws IOException
+     */
+    public static void encodeFrame(MessageEventCodec codec, MessageEvent messageEvent, ByteBuf out) throws IOException {
+        int start = out.writerIndex();
+        out.writeBytes(LENGTH_PLACEHOLDER);
+        try (ByteBufOutputStream stream = new ByteBufOutputStream(out)) {
+            codec.encode(messageEvent, stream);
+        }
+        //回写帧长度
+        out.setInt(start, out.writerIndex() - start - 4);
+    }
+}
@@ -97,4 +97,30 @@ public final class ApplicationConstant {
          */
         public static final String REPOSITORY_URLS = PREFIX + ".maven.repository.urls";
     }
+
+    /**
+     * 启动键
+     */
+    public final class Bootstrap {
+        /**
+         * 启动并行线程数键，值为整数，默认为处理器数量
+         * 插件依赖解析等无相互依赖的启动任务使用此并行数
+         */
+        public static final String PARALLELISM = PREFIX + ".bootstrap.parallelism";
+    }
+
+    /**
+     * 度量键
+     */
+    public final class Metrics {
+        /**
+         * 度量文本访问令牌键
+         * 设置后请求需要在 {@link #TOKEN_HEADER} 请求头中提供相同令牌，未设置时只允许本机地址访问
+         */
+        public static final String TOKEN = PREFIX + ".metrics.token";
+        /**
+         * 度量文本访问令牌请求头
+         */
+        public static final String TOKEN_HEADER = "X-Metrics-Token";
+    }
 }
\ No newline at end of file
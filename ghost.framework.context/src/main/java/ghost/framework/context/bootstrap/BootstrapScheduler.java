@@ -0,0 +1,171 @@
+package ghost.framework.context.bootstrap;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * package: ghost.framework.context.bootstrap
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:启动调度器
+ * 按任务依赖关系建立有向无环图，在有界线程池中并行执行无相互依赖的任务，
+ * 任务在其依赖任务全部完成后才开始执行
+ * {@link BootstrapScheduler#order(Map)} 按依赖关系排序，相同层级保持添加顺序，用于需要在同一线程按确定顺序执行的阶段
+ * @Date: 2020/6/17:9:20
+ * @param <K> 任务键类型
+ */
+public final class BootstrapScheduler<K> {
+    /**
+     * 线程池并行数
+     */
+    private final int parallelism;
+    /**
+     * 线程名称前缀
+     */
+    private final String threadName;
+    /**
+     * 任务地图，保持添加顺序
+     */
+    private final Map<K, Task> tasks = new LinkedHashMap<>();
+
+    /**
+     * 调度任务
+     */
+    private final class Task {
+        private final Collection<K> depends;
+        private final Runnable runnable;
+
+        private Task(Collection<K> depends, Runnable runnable) {
+            this.depends = depends;
+            this.runnable = runnable;
+        }
+    }
+
+    /**
+     * 初始化启动调度器
+     *
+     * @param parallelism 线程池并行数
+     * @param threadName  线程名称前缀
+     */
+    public BootstrapScheduler(int parallelism, String threadName) {
+        this.parallelism = Math.max(1, parallelism);
+        this.threadName = threadName;
+    }
+
+    /**
+     * 添加任务
+     *
+     * @param key      任务键
+     * @param depends  依赖任务键，未添加的依赖任务键忽略
+     * @param runnable 任务
+     */
+    public void add(K key, Collection<K> depends, Runnable runnable) {
+        this.tasks.put(key, new Task(depends == null ? Collections.emptyList() : depends, runnable));
+    }
+
+    /**
+     * 执行全部任务
+     * 等待全部任务完成，任务错误时抛出第一个错误
+     *
+     * @throws ExecutionException
+     * @throws InterruptedException
+     */
+    public void run() throws ExecutionException, InterruptedException {
+        if (this.tasks.isEmpty()) {
+            return;
+        }
+        //单任务或单线程时在当前线程按依赖顺序执行
+        if (this.tasks.size() == 1 || this.parallelism == 1) {
+            Map<K, Collection<K>> graph = new LinkedHashMap<>();
+            for (Map.Entry<K, Task> entry : this.tasks.entrySet()) {
+                graph.put(entry.getKey(), entry.getValue().depends);
+            }
+            for (K key : order(graph)) {
+                this.tasks.get(key).runnable.run();
+            }
+            return;
+        }
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.parallelism, this.tasks.size()), r -> {
+            Thread thread = new Thread(r, this.threadName + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<K, CompletableFuture<Void>> futures = new HashMap<>();
+            Map<K, Collection<K>> graph = new LinkedHashMap<>();
+            for (Map.Entry<K, Task> entry : this.tasks.entrySet()) {
+                graph.put(entry.getKey(), entry.getValue().depends);
+            }
+            //按依赖顺序创建任务，依赖任务完成后提交到线程池
+            for (K key : order(graph)) {
+                Task task = this.tasks.get(key);
+                List<CompletableFuture<Void>> depends = new ArrayList<>();
+                for (K depend : task.depends) {
+                    CompletableFuture<Void> future = futures.get(depend);
+                    if (future != null) {
+                        depends.add(future);
+                    }
+                }
+                futures.put(key, CompletableFuture.allOf(depends.toArray(new CompletableFuture[0])).thenRunAsync(task.runnable, executor));
+            }
+            try {
+                CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).get();
+            } catch (ExecutionException e) {
+                //展开依赖任务错误
+                Throwable cause = e.getCause();
+                while (cause instanceof CompletionException && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                throw new ExecutionException(cause);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 按依赖关系排序
+     * 依赖在前，没有相互依赖的键保持地图顺序，循环依赖的键按地图顺序追加在最后
+     *
+     * @param graph 依赖地图，值为键的依赖键，不在地图中的依赖键忽略
+     * @param <K>   键类型
+     * @return 返回排序后的键列表
+     */
+    public static <K> List<K> order(Map<K, ? extends Collection<K>> graph) {
+        List<K> list = new ArrayList<>(graph.size());
+        Set<K> done = new HashSet<>();
+        boolean changed = true;
+        while (changed && list.size() < graph.size()) {
+            changed = false;
+            for (Map.Entry<K, ? extends Collection<K>> entry : graph.entrySet()) {
+                if (done.contains(entry.getKey())) {
+                    continue;
+                }
+                boolean ready = true;
+                for (K depend : entry.getValue()) {
+                    if (!depend.equals(entry.getKey()) && graph.containsKey(depend) && !done.contains(depend)) {
+                        ready = false;
+                        break;
+                    }
+                }
+                if (ready) {
+                    done.add(entry.getKey());
+                    list.add(entry.getKey());
+                    changed = true;
+                    //重新从头遍历，保证没有依赖关系的键保持地图顺序
+                    break;
+                }
+            }
+        }
+        //循环依赖
+        for (K key : graph.keySet()) {
+            if (!done.contains(key)) {
+                list.add(key);
+            }
+        }
+        return list;
+    }
+}
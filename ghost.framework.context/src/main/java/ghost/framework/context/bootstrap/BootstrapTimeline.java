@@ -0,0 +1,146 @@
+package ghost.framework.context.bootstrap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * package: ghost.framework.context.bootstrap
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:启动时间线
+ * 记录应用、模块与插件各启动阶段的开始时间、耗时与执行线程，多线程并行记录
+ * 应用启动时绑定到应用容器，启动完成后输出 {@link BootstrapTimeline#prettyPrint()}
+ * @Date: 2020/6/17:9:10
+ */
+public final class BootstrapTimeline {
+    /**
+     * 时间线开始时间
+     * 单位纳秒
+     */
+    private final long origin = System.nanoTime();
+    /**
+     * 阶段列表
+     */
+    private final ConcurrentLinkedQueue<Step> steps = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 启动阶段
+     */
+    public final class Step {
+        /**
+         * 名称，应用、模块或插件名称
+         */
+        private final String name;
+        /**
+         * 阶段
+         */
+        private final String phase;
+        /**
+         * 执行线程名称
+         */
+        private final String thread;
+        /**
+         * 开始时间
+         * 单位纳秒
+         */
+        private final long start;
+        /**
+         * 结束时间
+         * 单位纳秒，未结束为0
+         */
+        private volatile long end;
+
+        private Step(String name, String phase) {
+            this.name = name;
+            this.phase = phase;
+            this.thread = Thread.currentThread().getName();
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * 结束阶段
+         */
+        public void end() {
+            if (this.end == 0) {
+                this.end = System.nanoTime();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getPhase() {
+            return phase;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        /**
+         * 获取相对时间线开始的开始时间
+         *
+         * @return 单位毫秒
+         */
+        public long getStartMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(this.start - origin);
+        }
+
+        /**
+         * 获取耗时
+         *
+         * @return 单位毫秒，未结束返回-1
+         */
+        public long getTimeMillis() {
+            long end = this.end;
+            return end == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(end - this.start);
+        }
+    }
+
+    /**
+     * 开始阶段
+     *
+     * @param name  名称
+     * @param phase 阶段
+     * @return 返回阶段，阶段完成时调用 {@link Step#end()}
+     */
+    public Step begin(String name, String phase) {
+        Step step = new Step(name, phase);
+        this.steps.add(step);
+        return step;
+    }
+
+    /**
+     * 获取按开始时间排序的阶段列表
+     *
+     * @return
+     */
+    public List<Step> getSteps() {
+        List<Step> list = new ArrayList<>(this.steps);
+        list.sort(Comparator.comparingLong(s -> s.start));
+        return list;
+    }
+
+    /**
+     * 格式化输出时间线
+     *
+     * @return
+     */
+    public String prettyPrint() {
+        StringBuilder sb = new StringBuilder("BootstrapTimeline: running time = ")
+                .append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.origin)).append(" ms\n");
+        sb.append("---------------------------------------------------------------------\n");
+        sb.append(String.format("%10s %10s  %-12s %-20s %s%n", "start ms", "time ms", "phase", "thread", "name"));
+        sb.append("---------------------------------------------------------------------\n");
+        for (Step step : this.getSteps()) {
+            sb.append(String.format("%10d %10d  %-12s %-20s %s%n",
+                    step.getStartMillis(), step.getTimeMillis(), step.phase, step.thread, step.name));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * package: ghost.framework.context.bootstrap
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:启动调度包
+ * @Date: 2020/6/17:9:05
+ */
+package ghost.framework.context.bootstrap;
@@ -4,7 +4,14 @@ import ghost.framework.context.asm.ParameterUtils;
 import ghost.framework.context.parameter.NameParameter;
 import ghost.framework.util.Assert;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -75,6 +82,122 @@ public abstract class MethodTarget {
         return parameters;
     }
 
+    /**
+     * 函数调用句柄
+     * 首次调用时创建，绑定目标对象并展开数组参数，类型为 (Object[])Object
+     * 句柄只由本对象引用，模块卸载时随本对象一起释放
+     */
+    private volatile MethodHandle methodHandle;
+
+    /**
+     * 获取函数调用句柄
+     *
+     * @return
+     * @throws IllegalAccessException
+     */
+    private MethodHandle getMethodHandle() throws IllegalAccessException {
+        MethodHandle handle = this.methodHandle;
+        if (handle == null) {
+            handle = MethodHandles.lookup().unreflect(this.method).asFixedArity();
+            //非静态函数绑定目标对象
+            if (!Modifier.isStatic(this.method.getModifiers())) {
+                handle = handle.bindTo(this.target);
+            }
+            handle = handle.asSpreader(Object[].class, this.method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            this.methodHandle = handle;
+        }
+        return handle;
+    }
+
+    /**
+     * 调用函数
+     * 使用函数调用句柄代替 {@link Method#invoke(Object, Object...)}，与反射调用一样
+     * 参数数量或类型不匹配时抛出 {@link IllegalArgumentException}，函数本身抛出的错误包装为 {@link InvocationTargetException}
+     *
+     * @param parameters 函数调用参数，如果函数没有参数侧为null
+     * @return 函数返回对象，无返回类型函数返回null
+     * @throws IllegalAccessException
+     * @throws IllegalArgumentException
+     * @throws InvocationTargetException
+     */
+    protected Object invokeMethod(Object[] parameters) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+        MethodHandle handle = this.getMethodHandle();
+        //调用前核对参数，句柄调用时不再产生参数转换错误
+        this.checkParameters(parameters);
+        try {
+            return (Object) handle.invokeExact(parameters);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * 核对调用参数
+     * 与反射调用规则一致，基础类型参数只允许拆箱与拓宽转换
+     *
+     * @param parameters 函数调用参数
+     * @throws IllegalArgumentException
+     */
+    private void checkParameters(Object[] parameters) throws IllegalArgumentException {
+        Class<?>[] types = this.parameterTypes;
+        int length = parameters == null ? 0 : parameters.length;
+        if (length != types.length) {
+            throw new IllegalArgumentException("wrong number of arguments");
+        }
+        for (int i = 0; i < length; i++) {
+            Object parameter = parameters[i];
+            Class<?> type = types[i];
+            if (type.isPrimitive()) {
+                if (parameter == null || !isPrimitiveAssignable(type, parameter.getClass())) {
+                    throw new IllegalArgumentException("argument type mismatch");
+                }
+            } else if (parameter != null && !type.isInstance(parameter)) {
+                throw new IllegalArgumentException("argument type mismatch");
+            }
+        }
+    }
+
+    /**
+     * 判断包装类型是否可以拆箱后拓宽为基础类型
+     *
+     * @param type    基础类型
+     * @param wrapper 参数类型
+     * @return
+     */
+    private static boolean isPrimitiveAssignable(Class<?> type, Class<?> wrapper) {
+        if (type == boolean.class) {
+            return wrapper == Boolean.class;
+        }
+        if (wrapper == Boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return wrapper == Character.class;
+        }
+        if (wrapper == Character.class) {
+            return type == int.class || type == long.class || type == float.class || type == double.class;
+        }
+        int from = WIDENING_ORDER.indexOf(wrapper);
+        int to = WIDENING_ORDER_PRIMITIVE.indexOf(type);
+        return from != -1 && to != -1 && from <= to;
+    }
+
+    /**
+     * 数字包装类型拓宽顺序
+     */
+    private static final List<Class<?>> WIDENING_ORDER = Arrays.asList(
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class);
+    /**
+     * 数字基础类型拓宽顺序
+     */
+    private static final List<Class<?>> WIDENING_ORDER_PRIMITIVE = Arrays.asList(
+            byte.class, short.class, int.class, long.class, float.class, double.class);
+    /**
+     * 函数参数类型
+     */
+    private final Class<?>[] parameterTypes;
+
     /***
      * 初始化请求函数对象
      * @param method         函数对象
@@ -85,6 +208,7 @@ public abstract class MethodTarget {
         this.target = target;
         this.method = method;
         this.method.setAccessible(true);
+        this.parameterTypes = this.method.getParameterTypes();
         //创建带名称的数组参数
         this.parameters = ParameterUtils.getParameters(this.method);
     }
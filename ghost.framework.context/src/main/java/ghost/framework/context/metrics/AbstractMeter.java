@@ -0,0 +1,52 @@
+package ghost.framework.context.metrics;
+
+import java.util.Map;
+
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:度量基础类
+ * @Date: 2020/6/18:9:25
+ */
+abstract class AbstractMeter implements IMeter {
+    /**
+     * 名称
+     */
+    private final String name;
+    /**
+     * 标签
+     */
+    private final Map<String, String> tags;
+    /**
+     * 编号
+     */
+    private final String id;
+
+    AbstractMeter(String name, Map<String, String> tags, String id) {
+        this.name = name;
+        this.tags = tags;
+        this.id = id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,34 @@
+package ghost.framework.context.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:计数器
+ * 使用 {@link LongAdder} 计数，多线程计数不争用同一个变量
+ * @Date: 2020/6/18:9:28
+ */
+public final class Counter extends AbstractMeter implements ICounter {
+    /**
+     * 计数
+     */
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name, Map<String, String> tags, String id) {
+        super(name, tags, id);
+    }
+
+    @Override
+    public void add(long amount) {
+        this.count.add(amount);
+    }
+
+    @Override
+    public long getCount() {
+        return this.count.sum();
+    }
+}
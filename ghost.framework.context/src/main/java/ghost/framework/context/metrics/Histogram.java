@@ -0,0 +1,150 @@
+package ghost.framework.context.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:直方图
+ * 每个2的幂区间分为8个分布桶，小于8的值每个值一个分布桶，百分位误差不超过12.5%
+ * 记录只更新分布桶、数量与合计，最大值只在超过当前最大值时比较交换
+ * @Date: 2020/6/18:9:30
+ */
+public final class Histogram extends AbstractMeter implements IHistogram {
+    /**
+     * 每个2的幂区间分布桶位数
+     */
+    private static final int SUB_BITS = 3;
+    /**
+     * 每个2的幂区间分布桶数量
+     */
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    /**
+     * 分布桶数量
+     */
+    private static final int BUCKET_COUNT = (64 - SUB_BITS + 1) * SUB_COUNT;
+    /**
+     * 分布桶
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    /**
+     * 记录数量
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * 记录值合计
+     */
+    private final LongAdder sum = new LongAdder();
+    /**
+     * 最大记录值
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram(String name, Map<String, String> tags, String id) {
+        super(name, tags, id);
+    }
+
+    /**
+     * 初始化独立直方图
+     * 不注册到 {@link IMeterRegistry}，供模块内部统计使用
+     *
+     * @param name 名称
+     */
+    public Histogram(String name) {
+        this(name, Collections.emptyMap(), name);
+    }
+
+    /**
+     * 获取值所在分布桶位置
+     *
+     * @param value 非负值
+     * @return
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * 获取分布桶下限
+     *
+     * @param index 分布桶位置
+     * @return
+     */
+    static long bucketLowerBound(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        long sub = index % SUB_COUNT;
+        return (SUB_COUNT + sub) << (exponent - SUB_BITS);
+    }
+
+    @Override
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        this.buckets.incrementAndGet(bucketIndex(value));
+        this.count.increment();
+        this.sum.add(value);
+        long current;
+        while (value > (current = this.max.get())) {
+            if (this.max.compareAndSet(current, value)) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    @Override
+    public long getSum() {
+        return this.sum.sum();
+    }
+
+    @Override
+    public long getMax() {
+        return this.max.get();
+    }
+
+    @Override
+    public long getPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = this.buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.min(Math.max(percentile, 0), 1) * total);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                //返回分布桶上限，不超过最大记录值
+                long upper = i + 1 < BUCKET_COUNT ? bucketLowerBound(i + 1) - 1 : Long.MAX_VALUE;
+                return Math.min(upper, this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+}
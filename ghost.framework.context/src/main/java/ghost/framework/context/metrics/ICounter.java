@@ -0,0 +1,37 @@
+package ghost.framework.context.metrics;
+
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:计数器接口
+ * @Date: 2020/6/18:9:12
+ */
+public interface ICounter extends IMeter {
+    /**
+     * 计数加一
+     */
+    default void increment() {
+        this.add(1);
+    }
+
+    /**
+     * 计数增加
+     *
+     * @param amount 增加数量
+     */
+    void add(long amount);
+
+    /**
+     * 获取计数
+     *
+     * @return
+     */
+    long getCount();
+
+    @Override
+    default MeterType getType() {
+        return MeterType.Counter;
+    }
+}
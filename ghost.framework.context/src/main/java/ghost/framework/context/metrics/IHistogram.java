@@ -0,0 +1,54 @@
+package ghost.framework.context.metrics;
+
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:直方图接口
+ * 记录非负值的分布
+ * @Date: 2020/6/18:9:14
+ */
+public interface IHistogram extends IMeter {
+    /**
+     * 记录值
+     *
+     * @param value 记录值，负值按0记录
+     */
+    void record(long value);
+
+    /**
+     * 获取记录数量
+     *
+     * @return
+     */
+    long getCount();
+
+    /**
+     * 获取记录值合计
+     *
+     * @return
+     */
+    long getSum();
+
+    /**
+     * 获取最大记录值
+     *
+     * @return
+     */
+    long getMax();
+
+    /**
+     * 获取百分位值
+     * 返回值所在分布桶的上限，误差不超过12.5%
+     *
+     * @param percentile 百分位，0到1之间
+     * @return
+     */
+    long getPercentile(double percentile);
+
+    @Override
+    default MeterType getType() {
+        return MeterType.Histogram;
+    }
+}
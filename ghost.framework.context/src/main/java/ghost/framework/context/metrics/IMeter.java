@@ -0,0 +1,43 @@
+package ghost.framework.context.metrics;
+
+import java.util.Map;
+
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:度量接口
+ * @Date: 2020/6/18:9:10
+ */
+public interface IMeter {
+    /**
+     * 获取度量名称
+     *
+     * @return
+     */
+    String getName();
+
+    /**
+     * 获取度量标签
+     * 如路由、模块名称
+     *
+     * @return
+     */
+    Map<String, String> getTags();
+
+    /**
+     * 获取度量编号
+     * 由名称与标签组成，格式为 name{key=value,...}
+     *
+     * @return
+     */
+    String getId();
+
+    /**
+     * 获取度量类型
+     *
+     * @return
+     */
+    MeterType getType();
+}
@@ -0,0 +1,66 @@
+package ghost.framework.context.metrics;
+
+import java.util.Collection;
+
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:度量注册表接口
+ * 相同名称与标签返回同一个度量对象，调用方应缓存热路径使用的度量对象
+ * 应用初始化时绑定默认实现 {@link MeterRegistry}
+ * @Date: 2020/6/18:9:20
+ */
+public interface IMeterRegistry {
+    /**
+     * 获取或创建计数器
+     *
+     * @param name 名称
+     * @param tags 标签，键值交替
+     * @return
+     */
+    ICounter counter(String name, String... tags);
+
+    /**
+     * 获取或创建计时器
+     *
+     * @param name 名称
+     * @param tags 标签，键值交替
+     * @return
+     */
+    ITimer timer(String name, String... tags);
+
+    /**
+     * 获取或创建直方图
+     *
+     * @param name 名称
+     * @param tags 标签，键值交替
+     * @return
+     */
+    IHistogram histogram(String name, String... tags);
+
+    /**
+     * 获取度量
+     *
+     * @param id 度量编号 {@link IMeter#getId()}
+     * @return 返回度量，不存在返回null
+     */
+    IMeter getMeter(String id);
+
+    /**
+     * 删除度量
+     * 度量对象不再导出，持有度量对象的调用方仍可记录
+     *
+     * @param id 度量编号 {@link IMeter#getId()}
+     * @return 返回是否删除
+     */
+    boolean remove(String id);
+
+    /**
+     * 获取全部度量
+     *
+     * @return
+     */
+    Collection<IMeter> getMeters();
+}
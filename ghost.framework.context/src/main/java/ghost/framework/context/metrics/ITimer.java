@@ -0,0 +1,77 @@
+package ghost.framework.context.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:计时器接口
+ * 使用方式：long start = System.nanoTime(); ... timer.recordNanos(System.nanoTime() - start);
+ * @Date: 2020/6/18:9:16
+ */
+public interface ITimer extends IMeter {
+    /**
+     * 记录耗时
+     *
+     * @param nanos 耗时，单位纳秒
+     */
+    void recordNanos(long nanos);
+
+    /**
+     * 记录耗时
+     *
+     * @param time 耗时
+     * @param unit 耗时单位
+     */
+    default void record(long time, TimeUnit unit) {
+        this.recordNanos(unit.toNanos(time));
+    }
+
+    /**
+     * 记录从开始时间到现在的耗时
+     *
+     * @param startNanos 开始时间，{@link System#nanoTime()}
+     */
+    default void recordSince(long startNanos) {
+        this.recordNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 获取记录次数
+     *
+     * @return
+     */
+    long getCount();
+
+    /**
+     * 获取耗时合计
+     *
+     * @param unit 耗时单位
+     * @return
+     */
+    double getTotalTime(TimeUnit unit);
+
+    /**
+     * 获取最大耗时
+     *
+     * @param unit 耗时单位
+     * @return
+     */
+    double getMax(TimeUnit unit);
+
+    /**
+     * 获取百分位耗时
+     *
+     * @param percentile 百分位，0到1之间
+     * @param unit       耗时单位
+     * @return
+     */
+    double getPercentile(double percentile, TimeUnit unit);
+
+    @Override
+    default MeterType getType() {
+        return MeterType.Timer;
+    }
+}
@@ -0,0 +1,112 @@
+package ghost.framework.context.metrics;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:度量注册表
+ * 已存在的度量直接读取，创建度量时使用 {@link ConcurrentMap#computeIfAbsent(Object, java.util.function.Function)}
+ * @Date: 2020/6/18:9:45
+ */
+public final class MeterRegistry implements IMeterRegistry {
+    /**
+     * 度量地图
+     * 键为度量编号
+     */
+    private final ConcurrentMap<String, IMeter> meters = new ConcurrentHashMap<>();
+
+    @Override
+    public ICounter counter(String name, String... tags) {
+        return (ICounter) this.getOrCreate(MeterType.Counter, name, tags);
+    }
+
+    @Override
+    public ITimer timer(String name, String... tags) {
+        return (ITimer) this.getOrCreate(MeterType.Timer, name, tags);
+    }
+
+    @Override
+    public IHistogram histogram(String name, String... tags) {
+        return (IHistogram) this.getOrCreate(MeterType.Histogram, name, tags);
+    }
+
+    @Override
+    public IMeter getMeter(String id) {
+        return this.meters.get(id);
+    }
+
+    @Override
+    public boolean remove(String id) {
+        return this.meters.remove(id) != null;
+    }
+
+    @Override
+    public Collection<IMeter> getMeters() {
+        List<IMeter> list = new ArrayList<>(this.meters.values());
+        list.sort(Comparator.comparing(IMeter::getId));
+        return list;
+    }
+
+    /**
+     * 获取或创建度量
+     *
+     * @param type 度量类型
+     * @param name 名称
+     * @param tags 标签，键值交替
+     * @return
+     */
+    private IMeter getOrCreate(MeterType type, String name, String[] tags) {
+        if (tags.length % 2 != 0) {
+            throw new IllegalArgumentException(name + " tags must be key value pairs");
+        }
+        String id = id(name, tags);
+        IMeter meter = this.meters.get(id);
+        if (meter == null) {
+            meter = this.meters.computeIfAbsent(id, k -> {
+                Map<String, String> map = new LinkedHashMap<>();
+                for (int i = 0; i < tags.length; i += 2) {
+                    map.put(tags[i], tags[i + 1]);
+                }
+                map = Collections.unmodifiableMap(map);
+                switch (type) {
+                    case Counter:
+                        return new Counter(name, map, k);
+                    case Timer:
+                        return new Timer(name, map, k);
+                    default:
+                        return new Histogram(name, map, k);
+                }
+            });
+        }
+        if (meter.getType() != type) {
+            throw new IllegalArgumentException(id + " is " + meter.getType() + " not " + type);
+        }
+        return meter;
+    }
+
+    /**
+     * 构建度量编号
+     *
+     * @param name 名称
+     * @param tags 标签，键值交替
+     * @return
+     */
+    private static String id(String name, String[] tags) {
+        if (tags.length == 0) {
+            return name;
+        }
+        StringBuilder builder = new StringBuilder(name).append('{');
+        for (int i = 0; i < tags.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(tags[i]).append('=').append(tags[i + 1]);
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,81 @@
+package ghost.framework.context.metrics;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:度量文本格式
+ * 每行一个度量，格式为 id type key=value ...，计时器单位为毫秒
+ * @Date: 2020/6/18:9:55
+ */
+public final class MeterTextFormat {
+    private MeterTextFormat() {
+    }
+
+    /**
+     * 写入度量文本
+     *
+     * @param registry 度量注册表
+     * @param out      输出
+     * @throws IOException
+     */
+    public static void write(IMeterRegistry registry, Appendable out) throws IOException {
+        for (IMeter meter : registry.getMeters()) {
+            out.append(meter.getId()).append(' ').append(meter.getType().name());
+            switch (meter.getType()) {
+                case Counter:
+                    out.append(" count=").append(Long.toString(((ICounter) meter).getCount()));
+                    break;
+                case Timer:
+                    ITimer timer = (ITimer) meter;
+                    out.append(" count=").append(Long.toString(timer.getCount()))
+                            .append(" total_ms=").append(format(timer.getTotalTime(TimeUnit.MILLISECONDS)))
+                            .append(" max_ms=").append(format(timer.getMax(TimeUnit.MILLISECONDS)))
+                            .append(" p50_ms=").append(format(timer.getPercentile(0.5, TimeUnit.MILLISECONDS)))
+                            .append(" p99_ms=").append(format(timer.getPercentile(0.99, TimeUnit.MILLISECONDS)));
+                    break;
+                default:
+                    IHistogram histogram = (IHistogram) meter;
+                    out.append(" count=").append(Long.toString(histogram.getCount()))
+                            .append(" sum=").append(Long.toString(histogram.getSum()))
+                            .append(" max=").append(Long.toString(histogram.getMax()))
+                            .append(" p50=").append(Long.toString(histogram.getPercentile(0.5)))
+                            .append(" p99=").append(Long.toString(histogram.getPercentile(0.99)));
+                    break;
+            }
+            out.append('\n');
+        }
+    }
+
+    /**
+     * 格式化毫秒值
+     *
+     * @param value 毫秒值
+     * @return
+     */
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * 获取度量文本
+     *
+     * @param registry 度量注册表
+     * @return
+     */
+    public static String toString(IMeterRegistry registry) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            write(registry, builder);
+        } catch (IOException e) {
+            //StringBuilder不会抛出错误
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+}
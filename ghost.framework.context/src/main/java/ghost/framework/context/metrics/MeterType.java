@@ -0,0 +1,24 @@
+package ghost.framework.context.metrics;
+
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:度量类型
+ * @Date: 2020/6/18:9:08
+ */
+public enum MeterType {
+    /**
+     * 计数器
+     */
+    Counter,
+    /**
+     * 计时器
+     */
+    Timer,
+    /**
+     * 直方图
+     */
+    Histogram
+}
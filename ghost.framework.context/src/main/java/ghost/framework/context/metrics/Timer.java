@@ -0,0 +1,62 @@
+package ghost.framework.context.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:计时器
+ * 以纳秒记录到 {@link Histogram}
+ * @Date: 2020/6/18:9:40
+ */
+public final class Timer extends AbstractMeter implements ITimer {
+    /**
+     * 耗时直方图
+     * 单位纳秒
+     */
+    private final Histogram histogram;
+
+    Timer(String name, Map<String, String> tags, String id) {
+        super(name, tags, id);
+        this.histogram = new Histogram(name, tags, id);
+    }
+
+    @Override
+    public void recordNanos(long nanos) {
+        this.histogram.record(nanos);
+    }
+
+    @Override
+    public long getCount() {
+        return this.histogram.getCount();
+    }
+
+    @Override
+    public double getTotalTime(TimeUnit unit) {
+        return toUnit(this.histogram.getSum(), unit);
+    }
+
+    @Override
+    public double getMax(TimeUnit unit) {
+        return toUnit(this.histogram.getMax(), unit);
+    }
+
+    @Override
+    public double getPercentile(double percentile, TimeUnit unit) {
+        return toUnit(this.histogram.getPercentile(percentile), unit);
+    }
+
+    /**
+     * 纳秒转换为指定单位
+     *
+     * @param nanos 纳秒
+     * @param unit  单位
+     * @return
+     */
+    private static double toUnit(long nanos, TimeUnit unit) {
+        return (double) nanos / unit.toNanos(1);
+    }
+}
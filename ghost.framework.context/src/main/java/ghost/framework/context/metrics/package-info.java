@@ -0,0 +1,10 @@
+/**
+ * package: ghost.framework.context.metrics
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:度量统计包
+ * 计数器、计时器与直方图，记录不加锁
+ * @Date: 2020/6/18:9:05
+ */
+package ghost.framework.context.metrics;
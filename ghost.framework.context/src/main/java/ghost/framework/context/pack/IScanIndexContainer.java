@@ -0,0 +1,30 @@
+package ghost.framework.context.pack;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * package: ghost.framework.context.pack
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:包扫描索引容器接口
+ * @Date: 2020/6/17:10:05
+ */
+public interface IScanIndexContainer {
+    /**
+     * 获取包扫描索引
+     * 索引不存在或包索引键改变时重建索引
+     *
+     * @param loader 解析注释使用的类加载器
+     * @param file   jar包文件
+     * @return 返回包扫描索引，不是jar包文件时返回null
+     * @throws IOException
+     */
+    ScanIndex getIndex(ClassLoader loader, File file) throws IOException;
+
+    /**
+     * 删除内存中的索引缓存
+     */
+    void clear();
+}
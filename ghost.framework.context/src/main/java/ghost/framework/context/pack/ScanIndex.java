@@ -0,0 +1,140 @@
+package ghost.framework.context.pack;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * package: ghost.framework.context.pack
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:包扫描索引
+ * 保存包中包类型（package-info）的注释类型名称，按包索引键保存在maven本地仓库中
+ * 启动时读取索引代替打开包加载全部包类型，包索引键改变时重建索引
+ * 包索引键为maven校验文件中的SHA-1值，没有有效校验文件时为包路径、长度与修改时间的SHA-1值，不是包内容的校验码
+ * 索引只包含包类型解析 {@link IPackageClassResolve} 使用的注释类型名称，不保存注释参数与绑定函数，
+ * 注释参数与绑定函数在加载类型后读取
+ * {@link IScanIndexContainer}
+ * {@link IPackageClassResolve}
+ * @Date: 2020/6/17:10:12
+ */
+public final class ScanIndex implements Serializable {
+    private static final long serialVersionUID = 3306587710362917422L;
+    /**
+     * 索引格式版本
+     * 索引格式改变时修改版本，旧版本索引自动重建
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * 包类型索引
+     */
+    public static final class ClassEntry implements Serializable {
+        private static final long serialVersionUID = -2716434985432171270L;
+        /**
+         * 包类型名称
+         */
+        private final String className;
+        /**
+         * 注释类型名称列表
+         */
+        private final List<String> annotationTypes;
+
+        public ClassEntry(String className, List<String> annotationTypes) {
+            this.className = className;
+            this.annotationTypes = annotationTypes;
+        }
+
+        /**
+         * 获取包类型名称
+         *
+         * @return
+         */
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * 获取注释类型名称列表
+         *
+         * @return
+         */
+        public List<String> getAnnotationTypes() {
+            return annotationTypes;
+        }
+
+        /**
+         * 判断是否有注释
+         *
+         * @param annotationName 注释类型名称
+         * @return
+         */
+        public boolean hasAnnotation(String annotationName) {
+            return this.annotationTypes.contains(annotationName);
+        }
+    }
+
+    /**
+     * 索引格式版本
+     * 在构造函数中赋值，读取索引时返回索引文件中保存的版本
+     */
+    private final int version;
+    /**
+     * 包索引键
+     */
+    private final String key;
+    /**
+     * 包类型索引列表
+     */
+    private final List<ClassEntry> entries;
+
+    public ScanIndex(String key, List<ClassEntry> entries) {
+        this.version = VERSION;
+        this.key = key;
+        this.entries = entries;
+    }
+
+    /**
+     * 获取索引格式版本
+     *
+     * @return
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * 获取包索引键
+     *
+     * @return
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 获取包类型索引列表
+     *
+     * @return
+     */
+    public List<ClassEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * 获取有指定注释的包类型名称
+     *
+     * @param annotationName 注释类型名称
+     * @return
+     */
+    public List<String> getAnnotatedClassNames(String annotationName) {
+        List<String> list = new ArrayList<>();
+        for (ClassEntry entry : this.entries) {
+            if (entry.hasAnnotation(annotationName)) {
+                list.add(entry.getClassName());
+            }
+        }
+        return list;
+    }
+}
@@ -1,9 +1,12 @@
 package ghost.framework.core.base;
 
+import ghost.framework.beans.BeanException;
 import ghost.framework.beans.annotation.constraints.NotNull;
 import ghost.framework.beans.annotation.constraints.Nullable;
 import ghost.framework.beans.application.event.AbstractApplicationEvent;
 import ghost.framework.beans.maven.IGetArtifacts;
+import ghost.framework.context.metrics.IMeterRegistry;
+import ghost.framework.context.metrics.ITimer;
 import ghost.framework.context.IGetName;
 import ghost.framework.context.application.ApplicationConstant;
 import ghost.framework.context.application.IApplication;
@@ -38,6 +41,7 @@ import ghost.framework.context.plugin.IPluginContainer;
 import ghost.framework.context.utils.AssemblyUtil;
 import ghost.framework.core.application.event.*;
 import ghost.framework.core.bean.BeanDefinition;
+import ghost.framework.core.bean.BeanDefinitionIndex;
 import ghost.framework.core.bean.factory.ClassAnnotationBeanFactoryContainer;
 import ghost.framework.core.bean.factory.ClassBeanFactoryContainer;
 import ghost.framework.core.bean.factory.ClassBeanTargetHandle;
@@ -98,6 +102,7 @@ import ghost.framework.core.locale.L10nContainer;
 import ghost.framework.core.locale.L10nDomainContainer;
 import ghost.framework.core.pack.ClassResolve;
 import ghost.framework.core.pack.PackageClassResolve;
+import ghost.framework.core.pack.ScanIndexContainer;
 import ghost.framework.core.plugin.PluginContainer;
 import ghost.framework.core.proxy.cglib.CglibInstanceClassException;
 import ghost.framework.core.proxy.cglib.CglibInstanceConstructorException;
@@ -217,6 +222,7 @@ public abstract class ApplicationBase
     public void close() throws Exception {
         synchronized (beanMap) {
             beanMap.clear();
+            beanIndex.clear();
         }
     }
 
@@ -224,6 +230,11 @@ public abstract class ApplicationBase
      * 绑定地图
      */
     private Map<String, IBeanDefinition> beanMap = new LinkedHashMap<>();
+    /**
+     * 绑定定义索引
+     * 与绑定地图同步写入，按名称与类型查找绑定定义时不锁定绑定地图
+     */
+    private final BeanDefinitionIndex beanIndex = new BeanDefinitionIndex();
 
     /**
      * 获取绑定地图
@@ -423,6 +434,8 @@ public abstract class ApplicationBase
             this.addBean(PluginContainer.class);
             //
             this.addBean(ClassResolve.class);
+            //包扫描索引容器
+            this.addBean(ScanIndexContainer.class);
             this.addBean(PackageClassResolve.class);
             //绑定插件加载器
             this.addBean(MavenPluginLoader.class);
@@ -543,10 +556,9 @@ public abstract class ApplicationBase
     public boolean isAutoBean() {
         //判断获取是否自动绑定
         IEnvironment env = null;
-        synchronized (this.getBeanMap()) {
-            if (this.getBeanMap().containsKey(IApplicationEnvironment.class.getName())) {
-                env = (IEnvironment) this.getBeanMap().get(IApplicationEnvironment.class.getName()).getObject();
-            }
+        IBeanDefinition definition = this.beanIndex.get(IApplicationEnvironment.class.getName());
+        if (definition != null) {
+            env = (IEnvironment) definition.getObject();
         }
         if (env != null && env.containsKey(ApplicationConstant.Bean.AUTO_BEAN)) {
             return env.getBoolean(ApplicationConstant.Bean.AUTO_BEAN);
@@ -576,6 +588,107 @@ public abstract class ApplicationBase
      * @return
      */
     protected <T> T internalAddBean(String name, Class<?> c, Object[] parameters) {
+        //记录绑定构建耗时
+        ITimer timer = this.getBeanCreateTimer();
+        BeanCreateFrame frame = BeanCreateFrame.enter();
+        try {
+            return this.internalCreateBean(name, c, parameters);
+        } finally {
+            long self = frame.exit();
+            if (timer != null) {
+                timer.recordNanos(self);
+            }
+        }
+    }
+
+    /**
+     * 绑定构建计时帧
+     * 构建绑定时会嵌套构建依赖的绑定，计时器只记录每个绑定自身的构建耗时，
+     * 嵌套绑定的耗时从外层绑定中扣除，同一段时间不会重复记录
+     */
+    private static final class BeanCreateFrame {
+        /**
+         * 当前线程构建中的绑定计时帧
+         */
+        private static final ThreadLocal<BeanCreateFrame> CURRENT = new ThreadLocal<>();
+        /**
+         * 外层计时帧
+         */
+        private final BeanCreateFrame parent;
+        /**
+         * 开始时间
+         */
+        private final long start = System.nanoTime();
+        /**
+         * 嵌套绑定构建耗时
+         */
+        private long nested;
+
+        private BeanCreateFrame(BeanCreateFrame parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * 开始构建绑定
+         *
+         * @return
+         */
+        static BeanCreateFrame enter() {
+            BeanCreateFrame frame = new BeanCreateFrame(CURRENT.get());
+            CURRENT.set(frame);
+            return frame;
+        }
+
+        /**
+         * 结束构建绑定
+         *
+         * @return 返回绑定自身构建耗时
+         */
+        long exit() {
+            long elapsed = System.nanoTime() - this.start;
+            if (this.parent == null) {
+                CURRENT.remove();
+            } else {
+                this.parent.nested += elapsed;
+                CURRENT.set(this.parent);
+            }
+            return elapsed - this.nested;
+        }
+    }
+
+    /**
+     * 绑定构建计时器
+     * 度量注册表绑定后创建
+     */
+    private volatile ITimer beanCreateTimer;
+
+    /**
+     * 获取绑定构建计时器
+     *
+     * @return 返回绑定构建计时器，度量注册表未绑定时返回null
+     */
+    private ITimer getBeanCreateTimer() {
+        ITimer timer = this.beanCreateTimer;
+        if (timer == null) {
+            IMeterRegistry registry = this.getApp().getNullableBean(IMeterRegistry.class);
+            if (registry != null) {
+                timer = registry.timer("bean.create", "module", this.getName());
+                this.beanCreateTimer = timer;
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * 构建绑定对象
+     *
+     * @param name
+     * @param c
+     * @param parameters
+     * @param <T>
+     * @return
+     */
+    private <T> T internalCreateBean(String name, Class<?> c, Object[] parameters) {
         //类型注释处理
         //获取事件监听工厂容器接口
         IClassAnnotationBeanTargetHandle<ICoreInterface, Class<?>, T, String, Object> annotationBeanTargetHandle = this.classAnnotationBeanAchieve(name, c, parameters);
@@ -883,10 +996,13 @@ public abstract class ApplicationBase
                 //判断模块添加
                 if (definition.getObject() instanceof IModule) {
                     //添加绑定模块
-                    this.beanMap.put(((IGetName) definition.getObject()).getName(), definition);
+                    String name = ((IGetName) definition.getObject()).getName();
+                    this.beanMap.put(name, definition);
+                    this.beanIndex.put(name, definition);
                     //判断绑定插件
                 } else {
                     this.beanMap.put(definition.getName(), definition);
+                    this.beanIndex.put(definition.getName(), definition);
                 }
             }
             //获取绑定事件容器
@@ -935,7 +1051,16 @@ public abstract class ApplicationBase
     @Override
     public IBeanDefinition getBeanDefinition(@NotNull String name) {
         Assert.notNullOrEmpty(name, "getBeanDefinition null name error");
-        return BeanUtil.getBeanDefinition(this.beanMap, name, (ClassLoader) this.getClassLoader());
+        IBeanDefinition definition = this.beanIndex.get(name);
+        if (definition != null) {
+            return definition;
+        }
+        //如果是类型名称时获取该类型继承的绑定对象
+        try {
+            return this.beanIndex.get(Class.forName(name, false, (ClassLoader) this.getClassLoader()));
+        } catch (ClassNotFoundException e) {
+            throw new BeanException(e.getMessage(), e);
+        }
     }
 
     /**
@@ -952,14 +1077,22 @@ public abstract class ApplicationBase
 //        }
         if (c.isInterface()) {
             //判断是否跨类加载器获取绑定对象
-            return BeanUtil.getInterfaceBeanDefinition(this.beanMap, c);
+            return this.beanIndex.get(c);
 //            if (c.getClassLoader().equals(this.getClass().getClassLoader())) {
 //                return BeanUtil.getInterfaceBeanDefinition(this.beanMap, c);
 //            } else {
 //                return BeanUtil.getInterfaceBeanDefinition(this.beanMap, this.forName(c.getName()));
 //            }
         }
-        return BeanUtil.getBeanDefinition(this.beanMap, c.getName(), (ClassLoader) this.getClassLoader());
+        IBeanDefinition definition = this.beanIndex.get(c.getName());
+        if (definition == null) {
+            definition = this.beanIndex.get(c);
+        }
+        if (definition == null && c.getClassLoader() != (ClassLoader) this.getClassLoader()) {
+            //跨类加载器时使用本类加载器的类型获取
+            return this.getBeanDefinition(c.getName());
+        }
+        return definition;
     }
 
     /**
@@ -986,6 +1119,7 @@ public abstract class ApplicationBase
         //锁定同步
         synchronized (this.beanMap) {
             this.beanMap.remove(definition.getName());
+            this.beanIndex.remove(definition.getName());
         }
         //卸载前事件
         this.getBean(IOperatingBeanEventFactoryContainer.class).unloader(new OperatingBeanEventTargetHandle(this, definition));
@@ -1074,7 +1208,7 @@ public abstract class ApplicationBase
     @Override
     public boolean containsBean(@NotNull Class<?> c) {
         Assert.notNull(c, "beanContains null class error");
-        return BeanUtil.beanContains(this.beanMap, c);
+        return this.beanIndex.contains(c) || this.beanIndex.contains(c.getName());
     }
 
     /**
@@ -1084,7 +1218,7 @@ public abstract class ApplicationBase
     @Override
     public boolean containsBean(@NotNull String name) {
         Assert.notNullOrEmpty(name, "beanContains null name error");
-        return BeanUtil.beanContains(this.beanMap, name);
+        return this.beanIndex.contains(name);
     }
 
     /**
@@ -1094,7 +1228,7 @@ public abstract class ApplicationBase
     @Override
     public boolean containsBean(@NotNull Object obj) {
         Assert.notNull(obj, "beanContains null object error");
-        return BeanUtil.beanContains(this.beanMap, obj);
+        return this.containsBean(obj.getClass());
     }
 
     /**
@@ -1109,14 +1243,11 @@ public abstract class ApplicationBase
         try {
             //判断是否自动绑定类型
             if (this.isAutoBean()) {
-                IBeanDefinition definition = null;
-                synchronized (this.beanMap) {
-                    definition = this.getBeanDefinition(c);
-                }
+                IBeanDefinition definition = this.getBeanDefinition(c);
                 if (definition == null) {
                     return this.addBean(c);
                 }
-                return (T) this.getBeanDefinition(c).getObject();
+                return (T) definition.getObject();
             }
             return (T) this.getBeanDefinition(c).getObject();
         } catch (NullPointerException e) {
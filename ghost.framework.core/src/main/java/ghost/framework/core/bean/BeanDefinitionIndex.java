@@ -0,0 +1,221 @@
+package ghost.framework.core.bean;
+
+import ghost.framework.beans.annotation.constraints.NotNull;
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.context.bean.IBeanDefinition;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * package: ghost.framework.core.bean
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:绑定定义索引
+ * 按绑定名称与绑定对象的类型、所有父类与接口建立索引，读取不加锁
+ * 同类型多个绑定定义时按绑定添加顺序返回第一个，与原 {@link java.util.LinkedHashMap} 遍历顺序一致
+ * 写入由调用方在绑定地图锁内调用
+ * @Date: 2020/6/2:10:12
+ */
+public final class BeanDefinitionIndex {
+    /**
+     * 名称索引
+     */
+    private final Map<String, Entry> nameMap = new ConcurrentHashMap<>();
+    /**
+     * 类型索引
+     * 值为按添加序号排序的绑定定义
+     */
+    private final Map<Class<?>, ConcurrentSkipListMap<Long, IBeanDefinition>> typeMap = new ConcurrentHashMap<>();
+    /**
+     * 添加序号
+     */
+    private long sequence;
+
+    /**
+     * 索引项
+     */
+    private static final class Entry {
+        private final long sequence;
+        private final IBeanDefinition definition;
+
+        private Entry(long sequence, IBeanDefinition definition) {
+            this.sequence = sequence;
+            this.definition = definition;
+        }
+    }
+
+    /**
+     * 添加索引
+     * 同名称替换时保留原添加序号
+     *
+     * @param name       绑定名称
+     * @param definition 绑定定义
+     */
+    public synchronized void put(@NotNull String name, @NotNull IBeanDefinition definition) {
+        Entry old = this.nameMap.get(name);
+        long seq;
+        if (old == null) {
+            seq = this.sequence++;
+        } else {
+            seq = old.sequence;
+            this.removeType(old);
+        }
+        Entry entry = new Entry(seq, definition);
+        Object o = definition.getObject();
+        if (o != null) {
+            //索引类型与所有父类
+            for (Class<?> c = o.getClass(); c != null; c = c.getSuperclass()) {
+                this.putType(c, entry);
+                //索引接口
+                this.putInterfaces(c, entry);
+            }
+        }
+        this.nameMap.put(name, entry);
+    }
+
+    /**
+     * 索引接口与父接口
+     *
+     * @param c     类型
+     * @param entry 索引项
+     */
+    private void putInterfaces(Class<?> c, Entry entry) {
+        for (Class<?> i : c.getInterfaces()) {
+            this.putType(i, entry);
+            this.putInterfaces(i, entry);
+        }
+    }
+
+    /**
+     * 添加类型索引
+     *
+     * @param c     类型
+     * @param entry 索引项
+     */
+    private void putType(Class<?> c, Entry entry) {
+        this.typeMap.computeIfAbsent(c, k -> new ConcurrentSkipListMap<>()).put(entry.sequence, entry.definition);
+    }
+
+    /**
+     * 删除索引
+     *
+     * @param name 绑定名称
+     * @return 返回删除的绑定定义
+     */
+    @Nullable
+    public synchronized IBeanDefinition remove(@NotNull String name) {
+        Entry entry = this.nameMap.remove(name);
+        if (entry == null) {
+            return null;
+        }
+        this.removeType(entry);
+        return entry.definition;
+    }
+
+    /**
+     * 删除类型索引
+     *
+     * @param entry 索引项
+     */
+    private void removeType(Entry entry) {
+        Object o = entry.definition.getObject();
+        if (o == null) {
+            return;
+        }
+        for (Class<?> c = o.getClass(); c != null; c = c.getSuperclass()) {
+            this.removeType(c, entry);
+            this.removeInterfaces(c, entry);
+        }
+    }
+
+    /**
+     * 删除接口索引
+     *
+     * @param c     类型
+     * @param entry 索引项
+     */
+    private void removeInterfaces(Class<?> c, Entry entry) {
+        for (Class<?> i : c.getInterfaces()) {
+            this.removeType(i, entry);
+            this.removeInterfaces(i, entry);
+        }
+    }
+
+    /**
+     * 删除类型索引
+     * 类型下无绑定定义时删除类型键，卸载模块后不再引用模块类型
+     *
+     * @param c     类型
+     * @param entry 索引项
+     */
+    private void removeType(Class<?> c, Entry entry) {
+        ConcurrentSkipListMap<Long, IBeanDefinition> map = this.typeMap.get(c);
+        if (map == null) {
+            return;
+        }
+        map.remove(entry.sequence);
+        if (map.isEmpty()) {
+            this.typeMap.remove(c);
+        }
+    }
+
+    /**
+     * 清除索引
+     */
+    public synchronized void clear() {
+        this.nameMap.clear();
+        this.typeMap.clear();
+    }
+
+    /**
+     * 使用绑定名称获取绑定定义
+     *
+     * @param name 绑定名称
+     * @return
+     */
+    @Nullable
+    public IBeanDefinition get(@NotNull String name) {
+        Entry entry = this.nameMap.get(name);
+        return entry == null ? null : entry.definition;
+    }
+
+    /**
+     * 使用类型获取绑定定义
+     * 返回绑定对象类型、父类或接口为该类型的第一个绑定定义
+     *
+     * @param c 类型
+     * @return
+     */
+    @Nullable
+    public IBeanDefinition get(@NotNull Class<?> c) {
+        ConcurrentSkipListMap<Long, IBeanDefinition> map = this.typeMap.get(c);
+        if (map == null) {
+            return null;
+        }
+        Map.Entry<Long, IBeanDefinition> entry = map.firstEntry();
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * 判断绑定名称是否存在
+     *
+     * @param name 绑定名称
+     * @return
+     */
+    public boolean contains(@NotNull String name) {
+        return this.nameMap.containsKey(name);
+    }
+
+    /**
+     * 判断类型是否存在绑定定义
+     *
+     * @param c 类型
+     * @return
+     */
+    public boolean contains(@NotNull Class<?> c) {
+        return this.get(c) != null;
+    }
+}
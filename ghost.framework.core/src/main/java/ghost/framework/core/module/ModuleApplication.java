@@ -16,6 +16,9 @@ import ghost.framework.beans.application.event.GenericApplicationEvent;
 import ghost.framework.context.application.event.IEventPublisherContainer;
 import ghost.framework.context.assembly.IClassLoader;
 import ghost.framework.context.base.ApplicationHome;
+import ghost.framework.context.bean.IBeanDefinition;
+import ghost.framework.context.bootstrap.BootstrapTimeline;
+import ghost.framework.context.metrics.IMeterRegistry;
 import ghost.framework.context.environment.IEnvironment;
 import ghost.framework.context.maven.IMavenPluginLoader;
 import ghost.framework.context.module.IModule;
@@ -35,7 +38,6 @@ import ghost.framework.core.module.environment.ModuleEnvironment;
 import ghost.framework.core.module.main.ModuleMainContainer;
 import ghost.framework.maven.FileArtifact;
 import ghost.framework.util.ReflectUtil;
-import ghost.framework.util.StopWatch;
 import ghost.framework.util.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -142,9 +144,11 @@ public final class ModuleApplication extends ApplicationBase implements IModule
     @Invoke
     public void init() {
         this.log.info("init->Start");
-        StopWatch watch = new StopWatch();
+        //记录模块启动时间线
+        BootstrapTimeline timeline = this.app.getNullableBean(BootstrapTimeline.class);
+        BootstrapTimeline.Step step = timeline == null ? null : timeline.begin(this.getName(), "module");
+        long start = System.nanoTime();
         try {
-            watch.start("init");
             //
             this.addBean(this.app);
             //初始化绑定模块日志
@@ -186,8 +190,15 @@ public final class ModuleApplication extends ApplicationBase implements IModule
                 this.log.error(e.getMessage());
             }
         } finally {
-            watch.stop();
-            this.log.info(watch.prettyPrint());
+            if (step != null) {
+                step.end();
+                this.log.info(this.getName() + " init " + step.getTimeMillis() + " ms");
+            }
+            //记录模块加载耗时
+            IMeterRegistry registry = this.app.getNullableBean(IMeterRegistry.class);
+            if (registry != null) {
+                registry.timer("module.load", "module", this.getName()).recordSince(start);
+            }
             //有加载线程通知对象时发出线程通知
             this.threadNotification.countDown();
         }
@@ -218,10 +229,10 @@ public final class ModuleApplication extends ApplicationBase implements IModule
     public boolean isAutoBean() {
         //判断获取是否自动绑定
         IEnvironment env = null;
-        synchronized (this.getBeanMap()) {
-            if (this.getBeanMap().containsKey(ModuleEnvironment.class.getName())) {
-                env = (IEnvironment) this.getBeanMap().get(ModuleEnvironment.class.getName()).getObject();
-            }
+        //只查找一次，避免判断存在后被并发删除
+        IBeanDefinition definition = this.getBeanDefinition(ModuleEnvironment.class.getName());
+        if (definition != null) {
+            env = (IEnvironment) definition.getObject();
         }
         if (env != null && env.containsKey(ModuleConstant.Bean.AUTO_BEAN)) {
             return env.getBoolean(ModuleConstant.Bean.AUTO_BEAN);
@@ -1,23 +1,70 @@
 package ghost.framework.core.pack;
 
+import ghost.framework.beans.annotation.injection.Autowired;
 import ghost.framework.beans.annotation.stereotype.Component;
+import ghost.framework.context.application.IApplication;
 import ghost.framework.context.pack.IPackageClassResolve;
+import ghost.framework.context.pack.IScanIndexContainer;
+import ghost.framework.context.pack.ScanIndex;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.io.File;
+import java.lang.annotation.Annotation;
+
 /**
  * package: ghost.framework.packageclassresolve.plugin
  *
  * @Author: 郭树灿{gsc-e590}
  * @link: 手机:13715848993, QQ 27048384
  * @Description:包类型解析类
+ * 有包扫描索引时只加载索引中有指定注释的包类型，不再打开包加载全部包类型
  * @Date: 2020/8/1:18:07
  */
 @Component
 public class PackageClassResolve implements IPackageClassResolve {
     private final Log log = LogFactory.getLog(PackageClassResolve.class);
+    /**
+     * 应用接口
+     */
+    private final IApplication app;
+
+    public PackageClassResolve(@Autowired IApplication app) {
+        this.app = app;
+    }
+
     @Override
     public Log getLog() {
         return log;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Class<?> getPackageAnnotationClass(ClassLoader loader, File path, Class<? extends Annotation> annotation) {
+        IScanIndexContainer container = this.app.getNullableBean(IScanIndexContainer.class);
+        if (container != null) {
+            try {
+                ScanIndex index = container.getIndex(loader, path);
+                if (index != null) {
+                    //索引只包含有注释的包类型
+                    for (String className : index.getAnnotatedClassNames(annotation.getName())) {
+                        Class<?> c = loader.loadClass(className);
+                        //验证是否为模块包
+                        if (c.isAnnotationPresent(annotation)) {
+                            return c;
+                        }
+                    }
+                    return null;
+                }
+            } catch (Exception e) {
+                if (this.log.isDebugEnabled()) {
+                    e.printStackTrace();
+                    this.log.debug(e.getMessage());
+                } else {
+                    this.log.error(e.getMessage());
+                }
+            }
+        }
+        //没有索引时扫描包
+        return IPackageClassResolve.super.getPackageAnnotationClass(loader, path, annotation);
+    }
+}
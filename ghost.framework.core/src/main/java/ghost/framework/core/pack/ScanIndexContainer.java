@@ -0,0 +1,320 @@
+package ghost.framework.core.pack;
+
+import ghost.framework.beans.annotation.injection.Autowired;
+import ghost.framework.beans.annotation.stereotype.Component;
+import ghost.framework.context.application.IApplication;
+import ghost.framework.context.core.type.AnnotationMetadata;
+import ghost.framework.context.core.type.classreading.MetadataReader;
+import ghost.framework.context.core.type.classreading.SimpleMetadataReaderFactory;
+import ghost.framework.context.io.ByteArrayResource;
+import ghost.framework.context.pack.IScanIndexContainer;
+import ghost.framework.context.pack.ScanIndex;
+import ghost.framework.util.ReflectUtil;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * package: ghost.framework.core.pack
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:包扫描索引容器
+ * 索引文件保存在maven本地仓库 {@link ScanIndexContainer#INDEX_DIRECTORY} 目录，文件名为包索引键
+ * 包索引键使用maven仓库中jar包旁的 .sha1 校验文件，没有校验文件或校验文件早于jar包时使用包路径、长度与修改时间，
+ * 启动时不读取jar包内容计算校验码，包改变时包索引键改变自动重建索引
+ * 索引只保存包类型（package-info）的注释类型名称，建立索引时只解析包类型，不解析包中其它类型
+ * 内存缓存以包路径、长度与修改时间为键，不读取包内容计算校验码，包内容改变但长度与修改时间不变时使用缓存的索引
+ * 读取的索引版本或包索引键不一致时重建索引
+ * @Date: 2020/6/17:10:20
+ */
+@Component
+public class ScanIndexContainer implements IScanIndexContainer {
+    private final Log log = LogFactory.getLog(ScanIndexContainer.class);
+    /**
+     * 索引目录名称
+     */
+    public static final String INDEX_DIRECTORY = ".ghost-scan-index";
+    /**
+     * 索引文件扩展名
+     */
+    private static final String INDEX_EXTENSION = ".idx";
+    /**
+     * maven校验文件扩展名
+     */
+    private static final String SHA1_EXTENSION = ".sha1";
+    /**
+     * 应用接口
+     */
+    private final IApplication app;
+    /**
+     * 内存索引缓存
+     */
+    private final Map<String, ScanIndex> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 初始化包扫描索引容器
+     *
+     * @param app 应用接口
+     */
+    public ScanIndexContainer(@Autowired IApplication app) {
+        this.app = app;
+    }
+
+    @Override
+    public ScanIndex getIndex(ClassLoader loader, File file) throws IOException {
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        String key = file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+        ScanIndex index = this.cache.get(key);
+        if (index != null) {
+            return index;
+        }
+        String indexKey = indexKey(file);
+        File indexFile = this.getIndexFile(indexKey);
+        //读取已保存的索引
+        if (indexFile != null && indexFile.isFile()) {
+            index = this.read(indexFile, indexKey);
+        }
+        //索引不存在或无效时重建索引
+        if (index == null) {
+            index = this.build(loader, file, indexKey);
+            if (indexFile != null) {
+                this.write(indexFile, index);
+            }
+        }
+        this.cache.put(key, index);
+        return index;
+    }
+
+    @Override
+    public void clear() {
+        this.cache.clear();
+    }
+
+    /**
+     * 获取索引文件
+     *
+     * @param indexKey 包索引键
+     * @return 返回索引文件，maven本地仓库未初始化时返回null
+     */
+    private File getIndexFile(String indexKey) {
+        File repository;
+        try {
+            repository = this.app.getMavenLocalRepositoryFile();
+        } catch (Exception e) {
+            repository = null;
+        }
+        if (repository == null) {
+            return null;
+        }
+        return new File(new File(repository, INDEX_DIRECTORY), indexKey + INDEX_EXTENSION);
+    }
+
+    /**
+     * 获取包索引键
+     * 不读取jar包内容
+     *
+     * @param file 包文件
+     * @return 返回maven校验文件中的SHA-1值，没有有效校验文件时返回包路径、长度与修改时间的SHA-1值
+     * @throws IOException
+     */
+    static String indexKey(File file) throws IOException {
+        File sha1 = new File(file.getPath() + SHA1_EXTENSION);
+        if (sha1.isFile() && sha1.lastModified() >= file.lastModified()) {
+            String value = readSha1(sha1);
+            if (value != null) {
+                return value + "-" + file.length();
+            }
+        }
+        return sha1Hex((file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 读取maven校验文件
+     * 校验文件内容为SHA-1值，后面可能有文件名
+     *
+     * @param sha1 校验文件
+     * @return 返回SHA-1值，内容无效时返回null
+     * @throws IOException
+     */
+    private static String readSha1(File sha1) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(sha1), StandardCharsets.US_ASCII))) {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            line = line.trim();
+            int i = line.indexOf(' ');
+            if (i != -1) {
+                line = line.substring(0, i);
+            }
+            if (line.length() != 40) {
+                return null;
+            }
+            for (int c = 0; c < line.length(); c++) {
+                if (Character.digit(line.charAt(c), 16) == -1) {
+                    return null;
+                }
+            }
+            return line.toLowerCase();
+        }
+    }
+
+    /**
+     * 计算SHA-1值
+     *
+     * @param bytes 内容
+     * @return
+     * @throws IOException
+     */
+    private static String sha1Hex(byte[] bytes) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (byte b : digest.digest(bytes)) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 读取索引文件
+     *
+     * @param indexFile 索引文件
+     * @param indexKey  包索引键
+     * @return 返回索引，索引无效时返回null
+     */
+    private ScanIndex read(File indexFile, String indexKey) {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(indexFile))) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                return Class.forName(desc.getName(), false, ScanIndex.class.getClassLoader());
+            }
+        }) {
+            Object o = in.readObject();
+            if (o instanceof ScanIndex) {
+                ScanIndex index = (ScanIndex) o;
+                if (index.getVersion() == ScanIndex.VERSION && indexKey.equals(index.getKey())) {
+                    return index;
+                }
+            }
+        } catch (Exception e) {
+            if (this.log.isDebugEnabled()) {
+                e.printStackTrace();
+                this.log.debug(e.getMessage());
+            } else {
+                this.log.warn("invalid scan index " + indexFile.getPath() + ":" + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 写入索引文件
+     * 先写入临时文件再改名，并发启动时不会读取到不完整的索引
+     *
+     * @param indexFile 索引文件
+     * @param index     索引
+     */
+    private void write(File indexFile, ScanIndex index) {
+        File dir = indexFile.getParentFile();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        File tmp = new File(dir, indexFile.getName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeObject(index);
+            }
+            if (!tmp.renameTo(indexFile)) {
+                //其它进程已经写入相同索引
+                tmp.delete();
+            }
+        } catch (Exception e) {
+            tmp.delete();
+            if (this.log.isDebugEnabled()) {
+                e.printStackTrace();
+                this.log.debug(e.getMessage());
+            } else {
+                this.log.error(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 扫描包建立索引
+     * 只读取与解析包类型，不加载类型
+     *
+     * @param loader   解析注释使用的类加载器
+     * @param file     包文件
+     * @param indexKey 包索引键
+     * @return
+     * @throws IOException
+     */
+    private ScanIndex build(ClassLoader loader, File file, String indexKey) throws IOException {
+        List<ScanIndex.ClassEntry> entries = new ArrayList<>();
+        SimpleMetadataReaderFactory factory = new SimpleMetadataReaderFactory(loader);
+        try (JarFile jar = new JarFile(file)) {
+            Enumeration<JarEntry> es = jar.entries();
+            while (es.hasMoreElements()) {
+                JarEntry jarEntry = es.nextElement();
+                String name = jarEntry.getName();
+                if (jarEntry.isDirectory() || !name.endsWith(ReflectUtil.PackageInfoClass)) {
+                    continue;
+                }
+                byte[] bytes;
+                try (InputStream in = jar.getInputStream(jarEntry)) {
+                    bytes = readAll(in);
+                }
+                try {
+                    MetadataReader reader = factory.getMetadataReader(new ByteArrayResource(bytes, name));
+                    AnnotationMetadata metadata = reader.getAnnotationMetadata();
+                    Set<String> types = metadata.getAnnotationTypes();
+                    if (!types.isEmpty()) {
+                        entries.add(new ScanIndex.ClassEntry(metadata.getClassName(), new ArrayList<>(types)));
+                    }
+                } catch (Exception | LinkageError e) {
+                    //无法解析的类型不加入索引
+                    if (this.log.isDebugEnabled()) {
+                        this.log.debug(name + ":" + e.getMessage());
+                    }
+                }
+            }
+        }
+        if (this.log.isDebugEnabled()) {
+            this.log.debug("build scan index " + file.getPath() + " " + entries.size() + " packages");
+        }
+        return new ScanIndex(indexKey, entries);
+    }
+
+    /**
+     * 读取流全部内容
+     *
+     * @param in 输入流
+     * @return
+     * @throws IOException
+     */
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
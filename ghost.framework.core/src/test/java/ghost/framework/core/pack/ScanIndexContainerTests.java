@@ -0,0 +1,125 @@
+package ghost.framework.core.pack;
+
+import ghost.framework.context.application.IApplication;
+import ghost.framework.context.pack.ScanIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.core.pack
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link ScanIndexContainer} 单元测试
+ * @Date: 2020/6/17:11:05
+ */
+public class ScanIndexContainerTests {
+    /**
+     * 测试包注释名称
+     */
+    private static final String ANNOTATION = "test.Annotation";
+    private File repository;
+    private File jar;
+
+    @BeforeEach
+    public void init() throws IOException {
+        this.repository = Files.createTempDirectory("scan-index").toFile();
+        this.jar = new File(this.repository, "test.jar");
+        //空包建立的索引没有包类型
+        new JarOutputStream(new FileOutputStream(this.jar)).close();
+    }
+
+    @AfterEach
+    public void close() {
+        delete(this.repository);
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                delete(f);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * 创建只提供maven本地仓库的应用接口
+     *
+     * @return
+     */
+    private ScanIndexContainer container() {
+        IApplication app = (IApplication) Proxy.newProxyInstance(IApplication.class.getClassLoader(), new Class<?>[]{IApplication.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getMavenLocalRepositoryFile")) {
+                        return this.repository;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new ScanIndexContainer(app);
+    }
+
+    /**
+     * 写入索引文件
+     * 索引中的包类型不在测试包中，读取的索引有该包类型，重建的索引没有包类型
+     *
+     * @param key     包索引键
+     * @param version 索引格式版本
+     * @throws Exception
+     */
+    private void writeIndex(String key, int version) throws Exception {
+        List<ScanIndex.ClassEntry> entries = new ArrayList<>();
+        entries.add(new ScanIndex.ClassEntry("test.package-info", Collections.singletonList(ANNOTATION)));
+        ScanIndex index = new ScanIndex(key, entries);
+        Field field = ScanIndex.class.getDeclaredField("version");
+        field.setAccessible(true);
+        field.setInt(index, version);
+        File file = new File(new File(this.repository, ScanIndexContainer.INDEX_DIRECTORY), ScanIndexContainer.indexKey(this.jar) + ".idx");
+        file.getParentFile().mkdirs();
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+            out.writeObject(index);
+        }
+    }
+
+    @Test
+    public void readsSavedIndex() throws Exception {
+        this.writeIndex(ScanIndexContainer.indexKey(this.jar), ScanIndex.VERSION);
+        ScanIndex index = this.container().getIndex(getClass().getClassLoader(), this.jar);
+        assertThat(index.getAnnotatedClassNames(ANNOTATION)).containsExactly("test.package-info");
+    }
+
+    @Test
+    public void rebuildsIndexWithOtherVersion() throws Exception {
+        this.writeIndex(ScanIndexContainer.indexKey(this.jar), ScanIndex.VERSION - 1);
+        ScanIndex index = this.container().getIndex(getClass().getClassLoader(), this.jar);
+        assertThat(index.getVersion()).isEqualTo(ScanIndex.VERSION);
+        assertThat(index.getEntries()).isEmpty();
+        //重建的索引已经写入索引文件
+        index = this.container().getIndex(getClass().getClassLoader(), this.jar);
+        assertThat(index.getEntries()).isEmpty();
+    }
+
+    @Test
+    public void rebuildsIndexWithOtherKey() throws Exception {
+        this.writeIndex("other", ScanIndex.VERSION);
+        ScanIndex index = this.container().getIndex(getClass().getClassLoader(), this.jar);
+        assertThat(index.getKey()).isEqualTo(ScanIndexContainer.indexKey(this.jar));
+        assertThat(index.getEntries()).isEmpty();
+    }
+}
@@ -0,0 +1,148 @@
+package ghost.framework.data.cache.transaction;
+
+/**
+ * package: ghost.framework.data.cache.transaction
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:访问频率草图
+ * 4位计数的Count-Min草图，每个long保存16个计数，计数最大15
+ * 累加次数达到采样数量时全部计数减半，使旧的访问频率逐渐老化
+ * 计数表按缓存条目数量确定大小，按权重限制的缓存在条目数量增长时扩大计数表
+ * 调用方在缓存维护锁内访问，不需要线程安全
+ * @Date: 2020/6/19:10:10
+ */
+final class FrequencySketch {
+    /**
+     * 哈希种子
+     */
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    /**
+     * 每个long计数减半掩码
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+    /**
+     * 计数表
+     */
+    private long[] table;
+    /**
+     * 计数表位置掩码
+     */
+    private int tableMask;
+    /**
+     * 采样数量
+     */
+    private int sampleSize;
+    /**
+     * 当前累加次数
+     */
+    private int size;
+
+    /**
+     * 初始化访问频率草图
+     *
+     * @param expectedSize 预计缓存条目数量
+     */
+    FrequencySketch(long expectedSize) {
+        this.ensureCapacity(expectedSize);
+    }
+
+    /**
+     * 确保计数表可以容纳指定条目数量
+     * 计数表扩大时清除已有计数
+     *
+     * @param expectedSize 预计缓存条目数量
+     */
+    void ensureCapacity(long expectedSize) {
+        int capacity = (int) Math.min(Math.max(expectedSize, 16), 1 << 30);
+        if (this.table != null && this.table.length >= capacity) {
+            return;
+        }
+        this.table = new long[ceilingPowerOfTwo(capacity)];
+        this.tableMask = this.table.length - 1;
+        //按long计算避免大容量时溢出
+        this.sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+        this.size = 0;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << -Integer.numberOfLeadingZeros(x - 1);
+    }
+
+    /**
+     * 获取访问频率
+     *
+     * @param hash 键哈希值
+     * @return 返回0至15
+     */
+    int frequency(int hash) {
+        int h = spread(hash);
+        int start = (h & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = this.indexOf(h, i);
+            int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 累加访问频率
+     *
+     * @param hash 键哈希值
+     */
+    void increment(int hash) {
+        int h = spread(hash);
+        int start = (h & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= this.incrementAt(this.indexOf(h, i), start + i);
+        }
+        if (added && ++this.size == this.sampleSize) {
+            this.reset();
+        }
+    }
+
+    /**
+     * 累加计数表指定位置计数
+     *
+     * @param i 计数表位置
+     * @param j long内计数位置
+     * @return 返回是否累加，计数已为最大值时返回false
+     */
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = 0xfL << offset;
+        if ((this.table[i] & mask) != mask) {
+            this.table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 全部计数减半
+     */
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < this.table.length; i++) {
+            count += Long.bitCount(this.table[i] & 0x1111111111111111L);
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+        this.size = (this.size >>> 1) - (count >>> 2);
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += hash >>> 32;
+        return ((int) hash) & this.tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
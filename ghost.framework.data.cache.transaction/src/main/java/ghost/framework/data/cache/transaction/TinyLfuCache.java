@@ -0,0 +1,672 @@
+package ghost.framework.data.cache.transaction;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * package: ghost.framework.data.cache.transaction
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:W-TinyLFU本地缓存
+ * 按条目数量或权重限制容量，新条目先进入窗口LRU，窗口溢出后进入试用区，
+ * 试用区再次访问晋升保护区，容量超出时按 {@link FrequencySketch} 访问频率比较候选与淘汰条目决定是否接纳
+ * 读取不加锁，访问记录写入分段有损读取缓冲区，由维护锁批量处理；写入在维护锁内更新淘汰列队
+ * 条目可指定过期时间，过期条目在读取时删除
+ * 可通过 {@link SimpleCacheManager#setCaches(java.util.Collection)} 注册
+ * @Date: 2020/6/19:10:30
+ */
+public class TinyLfuCache extends AbstractValueAdaptingCache {
+    /**
+     * 条目权重计算接口
+     */
+    @FunctionalInterface
+    public interface Weigher {
+        /**
+         * 计算条目权重
+         *
+         * @param key   键
+         * @param value 存储值
+         * @return 返回非负权重
+         */
+        int weigh(Object key, Object value);
+    }
+
+    /**
+     * 条目所在列队
+     */
+    private static final int NONE = 0;
+    private static final int WINDOW = 1;
+    private static final int PROBATION = 2;
+    private static final int PROTECTED = 3;
+    /**
+     * 读取缓冲区大小
+     */
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    /**
+     * 读取缓冲区处理阈值
+     */
+    private static final int READ_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+    /**
+     * 缓存条目
+     */
+    private static final class Node {
+        private final Object key;
+        private final int hash;
+        private final Object value;
+        private final int weight;
+        /**
+         * 过期时间，单位纳秒，0为不过期
+         */
+        private final long expireAt;
+        /**
+         * 是否已删除或替换
+         */
+        private volatile boolean retired;
+        /**
+         * 所在列队，维护锁内访问
+         */
+        private int queue;
+        private Node prev;
+        private Node next;
+
+        private Node(Object key, Object value, int weight, long expireAt) {
+            this.key = key;
+            this.hash = key.hashCode();
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired() {
+            return this.expireAt != 0 && this.expireAt - System.nanoTime() <= 0;
+        }
+    }
+
+    /**
+     * 访问顺序列队
+     * 头部最久未访问，维护锁内访问
+     */
+    private static final class AccessOrderDeque {
+        private Node first;
+        private Node last;
+
+        private void addLast(Node node) {
+            node.prev = this.last;
+            node.next = null;
+            if (this.last == null) {
+                this.first = node;
+            } else {
+                this.last.next = node;
+            }
+            this.last = node;
+        }
+
+        private void remove(Node node) {
+            if (node.prev == null) {
+                this.first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                this.last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        private void moveToLast(Node node) {
+            if (this.last != node) {
+                this.remove(node);
+                this.addLast(node);
+            }
+        }
+
+        private Node pollFirst() {
+            Node node = this.first;
+            if (node != null) {
+                this.remove(node);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * 读取缓冲区分段
+     */
+    private static final class ReadBuffer {
+        private final AtomicReferenceArray<Node> buffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+    }
+
+    private final String name;
+    /**
+     * 缓存条目
+     */
+    private final ConcurrentHashMap<Object, Node> store = new ConcurrentHashMap<>();
+    /**
+     * 最大权重
+     */
+    private final long maximumWeight;
+    /**
+     * 条目权重计算，为null时每个条目权重为1
+     */
+    @Nullable
+    private final Weigher weigher;
+    /**
+     * 写入后过期时间，单位纳秒，0为不过期
+     */
+    private final long expireAfterWriteNanos;
+    /**
+     * 维护锁
+     */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessOrderDeque window = new AccessOrderDeque();
+    private final AccessOrderDeque probation = new AccessOrderDeque();
+    private final AccessOrderDeque protectedDeque = new AccessOrderDeque();
+    /**
+     * 窗口最大权重，最大权重的1%
+     */
+    private final long windowMaximum;
+    /**
+     * 保护区最大权重，主区域的80%
+     */
+    private final long protectedMaximum;
+    /**
+     * 维护锁内更新的权重
+     */
+    private long windowWeight;
+    private long protectedWeight;
+    private long totalWeight;
+    /**
+     * 读取缓冲区
+     */
+    private final ReadBuffer[] readBuffers;
+    /**
+     * 写入缓冲区
+     */
+    private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    /**
+     * 统计
+     */
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * 初始化按条目数量限制的缓存
+     *
+     * @param name        缓存名称
+     * @param maximumSize 最大条目数量
+     */
+    public TinyLfuCache(String name, long maximumSize) {
+        this(name, maximumSize, null, null, true);
+    }
+
+    /**
+     * 初始化缓存
+     *
+     * @param name             缓存名称
+     * @param maximumWeight    最大权重，未指定权重计算时为最大条目数量
+     * @param weigher          条目权重计算，为null时每个条目权重为1
+     * @param expireAfterWrite 写入后过期时间，为null时不过期
+     * @param allowNullValues  是否允许null值
+     */
+    public TinyLfuCache(String name, long maximumWeight, @Nullable Weigher weigher,
+                        @Nullable Duration expireAfterWrite, boolean allowNullValues) {
+        super(allowNullValues);
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive");
+        }
+        this.name = name;
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = expireAfterWrite == null ? 0 : expireAfterWrite.toNanos();
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (long) ((maximumWeight - this.windowMaximum) * 0.8);
+        //按权重限制时条目数量未知，访问频率草图随条目数量扩大
+        this.sketch = new FrequencySketch(weigher == null ? maximumWeight : 0);
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.readBuffers = new ReadBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.readBuffers[i] = new ReadBuffer();
+        }
+    }
+
+    @Override
+    public final String getName() {
+        return this.name;
+    }
+
+    @Override
+    public final Object getNativeCache() {
+        return this.store;
+    }
+
+    @Override
+    @Nullable
+    protected Object lookup(Object key) {
+        Node node = this.store.get(key);
+        if (node == null) {
+            this.missCount.increment();
+            return null;
+        }
+        if (node.isExpired()) {
+            this.missCount.increment();
+            if (this.store.remove(key, node)) {
+                this.afterRemove(node);
+            }
+            return null;
+        }
+        this.hitCount.increment();
+        this.afterRead(node);
+        return node.value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = this.lookup(key);
+        if (value != null) {
+            return (T) this.fromStoreValue(value);
+        }
+        Node[] replaced = new Node[1];
+        Node[] created = new Node[1];
+        Node node = this.store.compute(key, (k, old) -> {
+            if (old != null && !old.isExpired()) {
+                return old;
+            }
+            Object loaded;
+            try {
+                loaded = valueLoader.call();
+            } catch (Throwable ex) {
+                throw new ValueRetrievalException(k, valueLoader, ex);
+            }
+            replaced[0] = old;
+            created[0] = this.newNode(k, this.toStoreValue(loaded), this.expireAfterWriteNanos);
+            return created[0];
+        });
+        if (created[0] != null) {
+            this.afterWrite(created[0], replaced[0]);
+        }
+        return (T) this.fromStoreValue(node.value);
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        this.put(key, value, null);
+    }
+
+    /**
+     * 写入指定过期时间的条目
+     *
+     * @param key   键
+     * @param value 值
+     * @param ttl   过期时间，为null时使用缓存写入后过期时间
+     */
+    public void put(Object key, @Nullable Object value, @Nullable Duration ttl) {
+        Node node = this.newNode(key, this.toStoreValue(value), ttl == null ? this.expireAfterWriteNanos : ttl.toNanos());
+        this.afterWrite(node, this.store.put(key, node));
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        Object storeValue = this.toStoreValue(value);
+        for (; ; ) {
+            Node existing = this.store.get(key);
+            if (existing != null && !existing.isExpired()) {
+                this.afterRead(existing);
+                return this.toValueWrapper(existing.value);
+            }
+            Node node = this.newNode(key, storeValue, this.expireAfterWriteNanos);
+            if (existing == null ? this.store.putIfAbsent(key, node) == null : this.store.replace(key, existing, node)) {
+                this.afterWrite(node, existing);
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        this.evictIfPresent(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        Node node = this.store.remove(key);
+        if (node == null) {
+            return false;
+        }
+        this.afterRemove(node);
+        return true;
+    }
+
+    /**
+     * 清除全部条目
+     * 逐个删除并在维护锁内移出淘汰列队，清除期间并发写入的条目由写入缓冲区继续记录
+     */
+    @Override
+    public void clear() {
+        this.evictionLock.lock();
+        try {
+            this.drainReadBuffers(false);
+            for (Node node : this.store.values()) {
+                if (this.store.remove(node.key, node)) {
+                    node.retired = true;
+                    this.onRemove(node);
+                }
+            }
+            this.maintenance();
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean notEmpty = !this.store.isEmpty();
+        this.clear();
+        return notEmpty;
+    }
+
+    /**
+     * 删除全部过期条目
+     */
+    public void cleanUp() {
+        for (Node node : this.store.values()) {
+            if (node.isExpired() && this.store.remove(node.key, node)) {
+                node.retired = true;
+                this.writeBuffer.add(() -> this.onRemove(node));
+            }
+        }
+        this.evictionLock.lock();
+        try {
+            this.maintenance();
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    private Node newNode(Object key, Object storeValue, long ttlNanos) {
+        int weight = this.weigher == null ? 1 : this.weigher.weigh(key, storeValue);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Cache '" + this.name + "' weigher returned negative weight for key " + key);
+        }
+        return new Node(key, storeValue, weight, ttlNanos > 0 ? Math.max(1, System.nanoTime() + ttlNanos) : 0);
+    }
+
+    /**
+     * 记录读取访问
+     * 缓冲区已满时丢弃访问记录，只影响淘汰精度
+     *
+     * @param node 条目
+     */
+    private void afterRead(Node node) {
+        ReadBuffer buffer = this.readBuffers[(int) Thread.currentThread().getId() & (this.readBuffers.length - 1)];
+        long write = buffer.writeCounter.get();
+        long pending = write - buffer.readCounter;
+        if (pending < READ_BUFFER_SIZE && buffer.writeCounter.compareAndSet(write, write + 1)) {
+            buffer.buffer.lazySet((int) (write & READ_BUFFER_MASK), node);
+            if (pending + 1 < READ_DRAIN_THRESHOLD) {
+                return;
+            }
+        }
+        if (this.evictionLock.tryLock()) {
+            try {
+                this.maintenance();
+            } finally {
+                this.evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 记录删除
+     *
+     * @param node 已从缓存删除的条目
+     */
+    private void afterRemove(Node node) {
+        node.retired = true;
+        this.writeBuffer.add(() -> this.onRemove(node));
+        if (this.evictionLock.tryLock()) {
+            try {
+                this.maintenance();
+            } finally {
+                this.evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 记录写入
+     * 写入在维护锁内完成，保证返回时缓存不超出最大权重
+     *
+     * @param added    新条目
+     * @param replaced 被替换的条目，可为null
+     */
+    private void afterWrite(Node added, @Nullable Node replaced) {
+        if (replaced != null) {
+            replaced.retired = true;
+            this.writeBuffer.add(() -> this.onRemove(replaced));
+        }
+        this.writeBuffer.add(() -> this.onAdd(added));
+        this.evictionLock.lock();
+        try {
+            this.maintenance();
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 维护淘汰列队，在维护锁内调用
+     */
+    private void maintenance() {
+        this.drainReadBuffers(true);
+        Runnable task;
+        while ((task = this.writeBuffer.poll()) != null) {
+            task.run();
+        }
+        this.evictEntries();
+    }
+
+    private void drainReadBuffers(boolean apply) {
+        for (ReadBuffer buffer : this.readBuffers) {
+            long read = buffer.readCounter;
+            long write = buffer.writeCounter.get();
+            for (; read < write; read++) {
+                int index = (int) (read & READ_BUFFER_MASK);
+                Node node = buffer.buffer.get(index);
+                if (node == null) {
+                    //写入线程未完成写入，下次处理
+                    break;
+                }
+                buffer.buffer.lazySet(index, null);
+                if (apply) {
+                    this.onAccess(node);
+                }
+            }
+            buffer.readCounter = read;
+        }
+    }
+
+    private void onAdd(Node node) {
+        if (node.retired || node.queue != NONE) {
+            return;
+        }
+        if (this.weigher != null) {
+            this.sketch.ensureCapacity(this.store.size());
+        }
+        this.sketch.increment(node.hash);
+        node.queue = WINDOW;
+        this.window.addLast(node);
+        this.windowWeight += node.weight;
+        this.totalWeight += node.weight;
+    }
+
+    private void onRemove(Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                this.window.remove(node);
+                this.windowWeight -= node.weight;
+                break;
+            case PROBATION:
+                this.probation.remove(node);
+                break;
+            case PROTECTED:
+                this.protectedDeque.remove(node);
+                this.protectedWeight -= node.weight;
+                break;
+            default:
+                return;
+        }
+        node.queue = NONE;
+        this.totalWeight -= node.weight;
+    }
+
+    private void onAccess(Node node) {
+        if (node.retired) {
+            return;
+        }
+        switch (node.queue) {
+            case WINDOW:
+                this.sketch.increment(node.hash);
+                this.window.moveToLast(node);
+                break;
+            case PROBATION:
+                //试用区再次访问晋升保护区
+                this.sketch.increment(node.hash);
+                this.probation.remove(node);
+                node.queue = PROTECTED;
+                this.protectedDeque.addLast(node);
+                this.protectedWeight += node.weight;
+                while (this.protectedWeight > this.protectedMaximum) {
+                    Node demoted = this.protectedDeque.pollFirst();
+                    if (demoted == null) {
+                        break;
+                    }
+                    this.protectedWeight -= demoted.weight;
+                    demoted.queue = PROBATION;
+                    this.probation.addLast(demoted);
+                }
+                break;
+            case PROTECTED:
+                this.sketch.increment(node.hash);
+                this.protectedDeque.moveToLast(node);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 淘汰条目
+     * 窗口溢出的条目移入试用区尾部作为候选，容量超出时候选与试用区头部条目比较访问频率，淘汰频率低的条目
+     */
+    private void evictEntries() {
+        while (this.windowWeight > this.windowMaximum) {
+            Node node = this.window.pollFirst();
+            if (node == null) {
+                break;
+            }
+            this.windowWeight -= node.weight;
+            node.queue = PROBATION;
+            this.probation.addLast(node);
+        }
+        while (this.totalWeight > this.maximumWeight) {
+            Node victim = this.probation.first;
+            Node candidate = this.probation.last;
+            if (victim == null) {
+                victim = this.protectedDeque.first != null ? this.protectedDeque.first : this.window.first;
+                if (victim == null) {
+                    break;
+                }
+                this.evictNode(victim);
+            } else if (victim == candidate) {
+                this.evictNode(victim);
+            } else if (this.sketch.frequency(candidate.hash) > this.sketch.frequency(victim.hash)) {
+                this.evictNode(victim);
+            } else {
+                this.evictNode(candidate);
+            }
+        }
+    }
+
+    private void evictNode(Node node) {
+        this.onRemove(node);
+        node.retired = true;
+        if (this.store.remove(node.key, node)) {
+            this.evictionCount.increment();
+        }
+    }
+
+    /**
+     * 获取命中数量
+     *
+     * @return
+     */
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    /**
+     * 获取未命中数量
+     *
+     * @return
+     */
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    /**
+     * 获取容量淘汰数量
+     *
+     * @return
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.sum();
+    }
+
+    /**
+     * 获取命中率
+     *
+     * @return 未有读取返回1
+     */
+    public double getHitRate() {
+        long hit = this.getHitCount();
+        long total = hit + this.getMissCount();
+        return total == 0 ? 1.0 : (double) hit / total;
+    }
+
+    /**
+     * 获取当前条目数量
+     *
+     * @return
+     */
+    public long getEstimatedSize() {
+        return this.store.size();
+    }
+
+    @Override
+    public String toString() {
+        return "TinyLfuCache{name=" + this.name + ", size=" + this.store.size() + ", hit=" + this.getHitCount()
+                + ", miss=" + this.getMissCount() + ", eviction=" + this.getEvictionCount() + "}";
+    }
+}
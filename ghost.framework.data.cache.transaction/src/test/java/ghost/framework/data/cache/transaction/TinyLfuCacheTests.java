@@ -0,0 +1,178 @@
+package ghost.framework.data.cache.transaction;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.data.cache.transaction
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link TinyLfuCache} 单元测试
+ * @Date: 2020/6/19:16:20
+ */
+public class TinyLfuCacheTests {
+    @Test
+    public void sizeBound() {
+        TinyLfuCache cache = new TinyLfuCache("size", 100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "v" + i);
+            assertThat(cache.getEstimatedSize()).isLessThanOrEqualTo(100L);
+        }
+        assertThat(cache.getEvictionCount()).isEqualTo(900L);
+    }
+
+    @Test
+    public void frequentEntriesSurviveScan() {
+        TinyLfuCache cache = new TinyLfuCache("scan", 100);
+        for (int i = 0; i < 10; i++) {
+            cache.put("hot" + i, i);
+        }
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 10; i++) {
+                assertThat(cache.get("hot" + i)).isNotNull();
+            }
+        }
+        //只访问一次的条目不能挤出高频条目
+        for (int i = 0; i < 1000; i++) {
+            cache.put("cold" + i, i);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get("hot" + i)).isNotNull();
+        }
+        assertThat(cache.getEstimatedSize()).isLessThanOrEqualTo(100L);
+    }
+
+    @Test
+    public void weightBound() {
+        TinyLfuCache cache = new TinyLfuCache("weight", 100, (key, value) -> ((String) value).length(), null, true);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i % 2 == 0 ? "0123456789" : "01234");
+            assertThat(weight(cache)).isLessThanOrEqualTo(100);
+        }
+        //超过最大权重的条目不保留
+        cache.put("heavy", new String(new char[200]));
+        assertThat(cache.get("heavy")).isNull();
+        assertThat(weight(cache)).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    public void weightedSketchSizedByEntries() {
+        //按权重限制时访问频率草图不按最大权重分配
+        TinyLfuCache cache = new TinyLfuCache("large", Long.MAX_VALUE, (key, value) -> 1, null, true);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+        assertThat(cache.getEstimatedSize()).isEqualTo(1000L);
+    }
+
+    @Test
+    public void concurrentAccessKeepsBound() throws Exception {
+        TinyLfuCache cache = new TinyLfuCache("concurrent", 64);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        run(8, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(256);
+                if (random.nextBoolean()) {
+                    cache.put(key, "v" + key);
+                } else {
+                    Object value = cache.get(key, () -> "v" + key);
+                    if (!("v" + key).equals(value)) {
+                        error.compareAndSet(null, new AssertionError(key + "=" + value));
+                    }
+                }
+            }
+        });
+        assertThat(error.get()).isNull();
+        assertThat(cache.getEstimatedSize()).isLessThanOrEqualTo(64L);
+        for (Map.Entry<?, ?> entry : store(cache).entrySet()) {
+            assertThat(cache.get(entry.getKey()).get()).isEqualTo("v" + entry.getKey());
+        }
+    }
+
+    @Test
+    public void concurrentPutDuringClearKeepsBound() throws Exception {
+        TinyLfuCache cache = new TinyLfuCache("clear", 32);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread clearer = new Thread(() -> {
+            while (running.get()) {
+                cache.clear();
+            }
+        });
+        clearer.start();
+        try {
+            run(4, () -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 20000; i++) {
+                    cache.put(random.nextInt(1000), i);
+                }
+            });
+        } finally {
+            running.set(false);
+            clearer.join();
+        }
+        //清除期间写入的条目仍然参与淘汰
+        for (int i = 1000; i < 2000; i++) {
+            cache.put(i, i);
+        }
+        assertThat(cache.getEstimatedSize()).isLessThanOrEqualTo(32L);
+        cache.clear();
+        assertThat(cache.getEstimatedSize()).isZero();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, ?> store(TinyLfuCache cache) {
+        return (ConcurrentHashMap<Object, ?>) cache.getNativeCache();
+    }
+
+    private static int weight(TinyLfuCache cache) {
+        int weight = 0;
+        for (Object key : store(cache).keySet()) {
+            Cache.ValueWrapper wrapper = cache.get(key);
+            if (wrapper != null) {
+                weight += ((String) wrapper.get()).length();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * 多线程同时执行
+     *
+     * @param threads 线程数量
+     * @param task    任务
+     * @throws InterruptedException
+     */
+    private static void run(int threads, Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> list = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run();
+            });
+            thread.start();
+            list.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : list) {
+            thread.join();
+        }
+    }
+}
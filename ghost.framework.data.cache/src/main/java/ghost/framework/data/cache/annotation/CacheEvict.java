@@ -0,0 +1,54 @@
+package ghost.framework.data.cache.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * package: ghost.framework.data.cache.annotation
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:删除缓存注释
+ * 默认在方法成功返回后删除，方法抛出错误时不删除
+ * @Date: 2020/6/30:9:16
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface CacheEvict {
+    /**
+     * 缓存名称列表
+     *
+     * @return
+     */
+    String[] value();
+
+    /**
+     * 缓存键表达式
+     * 参考 {@link Cacheable#key()}
+     *
+     * @return
+     */
+    String key() default "";
+
+    /**
+     * 删除条件表达式，为false时不删除
+     *
+     * @return
+     */
+    String condition() default "";
+
+    /**
+     * 是否清除缓存全部条目
+     *
+     * @return
+     */
+    boolean allEntries() default false;
+
+    /**
+     * 是否在调用方法前删除
+     *
+     * @return
+     */
+    boolean beforeInvocation() default false;
+}
@@ -0,0 +1,47 @@
+package ghost.framework.data.cache.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * package: ghost.framework.data.cache.annotation
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:方法结果更新缓存注释
+ * 始终调用方法，并将结果写入缓存
+ * @Date: 2020/6/30:9:14
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface CachePut {
+    /**
+     * 缓存名称列表
+     *
+     * @return
+     */
+    String[] value();
+
+    /**
+     * 缓存键表达式
+     * 参考 {@link Cacheable#key()}
+     *
+     * @return
+     */
+    String key() default "";
+
+    /**
+     * 缓存条件表达式，为false时不写入缓存
+     *
+     * @return
+     */
+    String condition() default "";
+
+    /**
+     * 不缓存结果条件表达式，可使用 #result
+     *
+     * @return
+     */
+    String unless() default "";
+}
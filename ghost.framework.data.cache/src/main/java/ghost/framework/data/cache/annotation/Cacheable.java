@@ -0,0 +1,67 @@
+package ghost.framework.data.cache.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * package: ghost.framework.data.cache.annotation
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:方法结果缓存注释
+ * 缓存命中时不调用方法直接返回缓存值，未命中时调用方法并缓存结果
+ * 方法返回 {@link java.util.concurrent.CompletionStage} 时缓存完成后的值
+ * @Date: 2020/6/30:9:12
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface Cacheable {
+    /**
+     * 缓存名称列表
+     * 按顺序查找，第一个命中的缓存值返回，结果写入全部缓存
+     *
+     * @return
+     */
+    String[] value();
+
+    /**
+     * 缓存键表达式
+     * 可使用 #参数名、#p0、#a0 与根对象 method、methodName、args、target、targetClass
+     * 为空时使用 {@link ghost.framework.data.cache.interceptor.KeyGenerator} 生成键
+     *
+     * @return
+     */
+    String key() default "";
+
+    /**
+     * 缓存条件表达式，为false时不使用缓存
+     *
+     * @return
+     */
+    String condition() default "";
+
+    /**
+     * 不缓存结果条件表达式，可使用 #result
+     *
+     * @return
+     */
+    String unless() default "";
+
+    /**
+     * 是否合并同一个键的并发加载
+     * 同一个键同时只调用一次方法，其它调用等待并共用结果
+     *
+     * @return
+     */
+    boolean sync() default true;
+
+    /**
+     * 提前刷新时间，单位毫秒
+     * 缓存值写入超过该时间后命中时仍返回缓存值，并在刷新线程池重新调用方法更新缓存
+     * 0为不提前刷新
+     *
+     * @return
+     */
+    long refreshAfter() default 0;
+}
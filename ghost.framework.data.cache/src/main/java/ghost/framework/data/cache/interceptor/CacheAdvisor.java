@@ -0,0 +1,34 @@
+package ghost.framework.data.cache.interceptor;
+
+import ghost.framework.aop.support.StaticMethodMatcherPointcutAdvisor;
+
+import java.lang.reflect.Method;
+
+/**
+ * package: ghost.framework.data.cache.interceptor
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:方法缓存切面
+ * 匹配带缓存注释的方法，注册到自动代理后由 {@link CacheInterceptor} 处理
+ * @Date: 2020/6/30:10:30
+ */
+public class CacheAdvisor extends StaticMethodMatcherPointcutAdvisor {
+    private static final long serialVersionUID = -2650728193566414726L;
+    private final CacheInterceptor interceptor;
+
+    /**
+     * 初始化方法缓存切面
+     *
+     * @param interceptor 方法缓存拦截器
+     */
+    public CacheAdvisor(CacheInterceptor interceptor) {
+        super(interceptor);
+        this.interceptor = interceptor;
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+        return this.interceptor.getOperations(method, targetClass).length > 0;
+    }
+}
@@ -0,0 +1,88 @@
+package ghost.framework.data.cache.interceptor;
+
+import ghost.framework.context.DefaultParameterNameDiscoverer;
+import ghost.framework.context.ParameterNameDiscoverer;
+import ghost.framework.expression.Expression;
+import ghost.framework.expression.spel.standard.SpelExpressionParser;
+import ghost.framework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * package: ghost.framework.data.cache.interceptor
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:缓存表达式计算
+ * 表达式与方法参数名称解析后缓存，调用时只创建计算上下文
+ * @Date: 2020/6/30:9:38
+ */
+final class CacheExpressionEvaluator {
+    /**
+     * 方法结果变量名称
+     */
+    static final String RESULT_VARIABLE = "result";
+    private static final String[] NO_NAMES = new String[0];
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    /**
+     * 已解析表达式，键为表达式文本
+     */
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+    /**
+     * 方法参数名称
+     */
+    private final Map<Method, String[]> parameterNames = new ConcurrentHashMap<>();
+
+    /**
+     * 创建计算上下文
+     * 参数可使用 #参数名、#p0 与 #a0 引用
+     *
+     * @param method      方法
+     * @param args        调用参数
+     * @param target      目标对象
+     * @param targetClass 目标类型
+     * @return
+     */
+    StandardEvaluationContext createContext(Method method, Object[] args, Object target, Class<?> targetClass) {
+        StandardEvaluationContext context = new StandardEvaluationContext(
+                new CacheExpressionRootObject(method, args, target, targetClass));
+        String[] names = this.parameterNames.computeIfAbsent(method, m -> {
+            String[] n = this.parameterNameDiscoverer.getParameterNames(m);
+            return n == null ? NO_NAMES : n;
+        });
+        for (int i = 0; i < args.length; i++) {
+            context.setVariable("p" + i, args[i]);
+            context.setVariable("a" + i, args[i]);
+            if (i < names.length) {
+                context.setVariable(names[i], args[i]);
+            }
+        }
+        return context;
+    }
+
+    /**
+     * 计算表达式
+     *
+     * @param expression 表达式文本
+     * @param context    计算上下文
+     * @return
+     */
+    Object getValue(String expression, StandardEvaluationContext context) {
+        return this.expressions.computeIfAbsent(expression, this.parser::parseExpression).getValue(context);
+    }
+
+    /**
+     * 计算条件表达式
+     *
+     * @param expression 表达式文本
+     * @param context    计算上下文
+     * @return
+     */
+    boolean isTrue(String expression, StandardEvaluationContext context) {
+        return Boolean.TRUE.equals(this.expressions.computeIfAbsent(expression, this.parser::parseExpression)
+                .getValue(context, Boolean.class));
+    }
+}
@@ -0,0 +1,45 @@
+package ghost.framework.data.cache.interceptor;
+
+import java.lang.reflect.Method;
+
+/**
+ * package: ghost.framework.data.cache.interceptor
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:缓存表达式根对象
+ * @Date: 2020/6/30:9:35
+ */
+public final class CacheExpressionRootObject {
+    private final Method method;
+    private final Object[] args;
+    private final Object target;
+    private final Class<?> targetClass;
+
+    CacheExpressionRootObject(Method method, Object[] args, Object target, Class<?> targetClass) {
+        this.method = method;
+        this.args = args;
+        this.target = target;
+        this.targetClass = targetClass;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public String getMethodName() {
+        return method.getName();
+    }
+
+    public Object[] getArgs() {
+        return args;
+    }
+
+    public Object getTarget() {
+        return target;
+    }
+
+    public Class<?> getTargetClass() {
+        return targetClass;
+    }
+}
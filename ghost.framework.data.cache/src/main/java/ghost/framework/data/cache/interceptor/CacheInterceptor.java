@@ -0,0 +1,609 @@
+package ghost.framework.data.cache.interceptor;
+
+import ghost.framework.aop.ProxyMethodInvocation;
+import ghost.framework.aop.support.AopUtils;
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.context.core.MethodClassKey;
+import ghost.framework.data.cache.transaction.Cache;
+import ghost.framework.data.cache.transaction.CacheManager;
+import ghost.framework.data.cache.transaction.TinyLfuCache;
+import ghost.framework.expression.spel.support.StandardEvaluationContext;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * package: ghost.framework.data.cache.interceptor
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:方法缓存拦截器
+ * 处理 {@link ghost.framework.data.cache.annotation.Cacheable}、
+ * {@link ghost.framework.data.cache.annotation.CachePut} 与 {@link ghost.framework.data.cache.annotation.CacheEvict} 注释
+ * 同一个缓存键的并发加载合并为一次方法调用，其它调用等待并共用结果
+ * 启用提前刷新的缓存值过期前在刷新线程池重新加载，调用方不等待
+ * 提前刷新的写入时间保存在拦截器内的有界本地缓存，缓存值保持方法原值，不影响其它读取方与序列化
+ * 方法返回 {@link CompletableFuture} 或 {@link CompletionStage} 时缓存完成后的值
+ * @Date: 2020/6/30:9:50
+ */
+public class CacheInterceptor implements MethodInterceptor {
+    private final Log logger = LogFactory.getLog(CacheInterceptor.class);
+    /**
+     * 提前刷新写入时间最大记录数量
+     */
+    private static final long WRITE_TIMES_MAXIMUM_SIZE = 10000;
+
+    /**
+     * 加载中的缓存键
+     */
+    private static final class FlightKey {
+        private final String cacheName;
+        private final Object key;
+        private final int hashCode;
+
+        private FlightKey(String cacheName, Object key) {
+            this.cacheName = cacheName;
+            this.key = key;
+            this.hashCode = cacheName.hashCode() * 31 + (key == null ? 0 : key.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FlightKey)) {
+                return false;
+            }
+            FlightKey that = (FlightKey) o;
+            return this.hashCode == that.hashCode && this.cacheName.equals(that.cacheName) &&
+                    (this.key == null ? that.key == null : this.key.equals(that.key));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * 加载中的结果
+     */
+    private static final class Flight extends CompletableFuture<Object> {
+        /**
+         * 加载线程，异步加载为null
+         */
+        private final Thread owner;
+
+        private Flight(Thread owner) {
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * 方法调用上下文
+     * 计算上下文在第一次计算表达式时创建
+     */
+    private final class OperationContext {
+        private final MethodInvocation invocation;
+        private final Method method;
+        private final Object[] args;
+        private final Object target;
+        private final Class<?> targetClass;
+        private StandardEvaluationContext evaluationContext;
+
+        private OperationContext(MethodInvocation invocation, Object target, Class<?> targetClass) {
+            this.invocation = invocation;
+            this.method = invocation.getMethod();
+            this.args = invocation.getArguments();
+            this.target = target;
+            this.targetClass = targetClass;
+        }
+
+        private StandardEvaluationContext getEvaluationContext() {
+            if (this.evaluationContext == null) {
+                this.evaluationContext = evaluator.createContext(this.method, this.args, this.target, this.targetClass);
+            }
+            return this.evaluationContext;
+        }
+
+        private boolean isConditionPassing(CacheOperation operation) {
+            return operation.condition.isEmpty() || evaluator.isTrue(operation.condition, this.getEvaluationContext());
+        }
+
+        private boolean isUnless(CacheOperation operation, Object result) {
+            if (operation.unless.isEmpty()) {
+                return false;
+            }
+            StandardEvaluationContext context = this.getEvaluationContext();
+            context.setVariable(CacheExpressionEvaluator.RESULT_VARIABLE, result);
+            return evaluator.isTrue(operation.unless, context);
+        }
+
+        private Object generateKey(CacheOperation operation) {
+            if (operation.key.isEmpty()) {
+                return keyGenerator.generate(this.target, this.method, this.args);
+            }
+            return evaluator.getValue(operation.key, this.getEvaluationContext());
+        }
+    }
+
+    /**
+     * 缓存管理器
+     */
+    private CacheManager cacheManager;
+    /**
+     * 缓存键生成
+     */
+    private KeyGenerator keyGenerator = new SimpleKeyGenerator();
+    /**
+     * 提前刷新线程池
+     */
+    private Executor refreshExecutor = ForkJoinPool.commonPool();
+    private final CacheExpressionEvaluator evaluator = new CacheExpressionEvaluator();
+    /**
+     * 方法缓存操作
+     */
+    private final Map<MethodClassKey, CacheOperation[]> operations = new ConcurrentHashMap<>();
+    /**
+     * 加载中的缓存键
+     */
+    private final Map<FlightKey, Flight> flights = new ConcurrentHashMap<>();
+    /**
+     * 提前刷新缓存值写入时间，单位毫秒
+     * 按第一个缓存名称与缓存键记录，记录被淘汰或由其它节点写入时从首次命中开始计算
+     */
+    private final TinyLfuCache writeTimes = new TinyLfuCache("refreshAhead", WRITE_TIMES_MAXIMUM_SIZE);
+
+    public CacheInterceptor() {
+    }
+
+    public CacheInterceptor(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public CacheManager getCacheManager() {
+        return cacheManager;
+    }
+
+    public void setCacheManager(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public KeyGenerator getKeyGenerator() {
+        return keyGenerator;
+    }
+
+    public void setKeyGenerator(KeyGenerator keyGenerator) {
+        if (keyGenerator == null) {
+            throw new IllegalArgumentException("keyGenerator");
+        }
+        this.keyGenerator = keyGenerator;
+    }
+
+    public Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    public void setRefreshExecutor(Executor refreshExecutor) {
+        if (refreshExecutor == null) {
+            throw new IllegalArgumentException("refreshExecutor");
+        }
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * 获取方法缓存操作
+     *
+     * @param method      调用方法
+     * @param targetClass 目标类型
+     * @return 返回缓存操作，没有缓存注释返回空数组
+     */
+    CacheOperation[] getOperations(Method method, @Nullable Class<?> targetClass) {
+        return this.operations.computeIfAbsent(new MethodClassKey(method, targetClass), k -> {
+            CacheOperation[] ops = CacheOperation.parse(AopUtils.getMostSpecificMethod(method, targetClass));
+            if (ops.length == 0 && targetClass != null) {
+                //实现类没有注释时使用接口方法注释
+                ops = CacheOperation.parse(method);
+            }
+            return ops;
+        });
+    }
+
+    @Override
+    @Nullable
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object target = invocation.getThis();
+        Class<?> targetClass = target == null ? null : AopUtils.getTargetClass(target);
+        CacheOperation[] ops = this.getOperations(invocation.getMethod(), targetClass);
+        if (ops.length == 0 || this.cacheManager == null) {
+            return invocation.proceed();
+        }
+        OperationContext context = new OperationContext(invocation, target, targetClass);
+        boolean async = isAsync(context.method);
+        CacheOperation cacheable = null;
+        for (CacheOperation op : ops) {
+            if (op.kind == CacheOperation.Kind.cacheable) {
+                cacheable = op;
+            } else if (op.kind == CacheOperation.Kind.evict && op.beforeInvocation) {
+                this.evict(context, op);
+            }
+        }
+        Object result;
+        if (cacheable != null && context.isConditionPassing(cacheable)) {
+            Object key = context.generateKey(cacheable);
+            result = async ? this.cacheableAsync(context, cacheable, key) : this.cacheable(context, cacheable, key);
+        } else {
+            result = invocation.proceed();
+        }
+        if (async) {
+            if (result instanceof CompletionStage && hasAfterInvocation(ops)) {
+                //声明返回CompletableFuture时结果也是CompletableFuture，whenComplete返回相同类型
+                return ((CompletionStage<?>) result).whenComplete((value, error) -> {
+                    if (error == null) {
+                        this.afterInvocation(context, ops, value);
+                    }
+                });
+            }
+            return result;
+        }
+        this.afterInvocation(context, ops, result);
+        return result;
+    }
+
+    /**
+     * 是否异步方法
+     *
+     * @param method 方法
+     * @return
+     */
+    private static boolean isAsync(Method method) {
+        Class<?> type = method.getReturnType();
+        return type == CompletableFuture.class || type == CompletionStage.class;
+    }
+
+    /**
+     * 是否有方法返回后处理的缓存操作
+     *
+     * @param ops 缓存操作
+     * @return
+     */
+    private static boolean hasAfterInvocation(CacheOperation[] ops) {
+        for (CacheOperation op : ops) {
+            if (op.kind == CacheOperation.Kind.put || (op.kind == CacheOperation.Kind.evict && !op.beforeInvocation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 处理方法返回后的写入与删除缓存
+     *
+     * @param context 调用上下文
+     * @param ops     缓存操作
+     * @param result  方法结果
+     */
+    private void afterInvocation(OperationContext context, CacheOperation[] ops, Object result) {
+        for (CacheOperation op : ops) {
+            if (op.kind == CacheOperation.Kind.put) {
+                if (context.isConditionPassing(op)) {
+                    this.store(context, op, context.generateKey(op), result);
+                }
+            } else if (op.kind == CacheOperation.Kind.evict && !op.beforeInvocation) {
+                this.evict(context, op);
+            }
+        }
+    }
+
+    /**
+     * 同步方法缓存
+     *
+     * @param context 调用上下文
+     * @param op      缓存操作
+     * @param key     缓存键
+     * @return
+     * @throws Throwable
+     */
+    private Object cacheable(OperationContext context, CacheOperation op, Object key) throws Throwable {
+        Cache.ValueWrapper wrapper = this.find(op, key);
+        if (wrapper != null) {
+            return this.unwrap(context, op, key, wrapper);
+        }
+        if (!op.sync) {
+            return this.load(context, op, key);
+        }
+        FlightKey flightKey = new FlightKey(op.cacheNames[0], key);
+        Flight flight = new Flight(Thread.currentThread());
+        Flight existing = this.flights.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            if (existing.owner == Thread.currentThread()) {
+                //同一线程递归加载同一个键不等待自己
+                return this.load(context, op, key);
+            }
+            return await(existing);
+        }
+        try {
+            //取得加载权后重新查找，前一次加载可能刚写入缓存
+            wrapper = this.find(op, key);
+            Object value = wrapper != null ? this.unwrap(context, op, key, wrapper) : this.load(context, op, key);
+            flight.complete(value);
+            return value;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.flights.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * 异步方法缓存
+     * 合并加载时等待的调用返回共用结果的新实例，取消不影响其它调用
+     *
+     * @param context 调用上下文
+     * @param op      缓存操作
+     * @param key     缓存键
+     * @return
+     * @throws Throwable
+     */
+    private Object cacheableAsync(OperationContext context, CacheOperation op, Object key) throws Throwable {
+        Cache.ValueWrapper wrapper = this.find(op, key);
+        if (wrapper != null) {
+            return CompletableFuture.completedFuture(this.unwrap(context, op, key, wrapper));
+        }
+        if (!op.sync) {
+            Object result = context.invocation.proceed();
+            if (result instanceof CompletionStage) {
+                return ((CompletionStage<?>) result).whenComplete((value, error) -> {
+                    if (error == null) {
+                        this.store(context, op, key, value);
+                    }
+                });
+            }
+            return result;
+        }
+        FlightKey flightKey = new FlightKey(op.cacheNames[0], key);
+        Flight flight = new Flight(null);
+        Flight existing = this.flights.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            return existing.thenApply(Function.identity());
+        }
+        Object result;
+        try {
+            result = context.invocation.proceed();
+        } catch (Throwable e) {
+            this.flights.remove(flightKey, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        if (!(result instanceof CompletionStage)) {
+            this.flights.remove(flightKey, flight);
+            flight.complete(null);
+            return result;
+        }
+        this.completeAsync(context, op, key, flightKey, flight, (CompletionStage<?>) result);
+        return flight.thenApply(Function.identity());
+    }
+
+    /**
+     * 异步结果完成后写入缓存并完成加载
+     *
+     * @param context   调用上下文
+     * @param op        缓存操作
+     * @param key       缓存键
+     * @param flightKey 加载键
+     * @param flight    加载结果
+     * @param stage     方法返回的异步结果
+     */
+    private void completeAsync(OperationContext context, CacheOperation op, Object key,
+                               FlightKey flightKey, Flight flight, CompletionStage<?> stage) {
+        stage.whenComplete((value, error) -> {
+            try {
+                if (error == null) {
+                    this.store(context, op, key, value);
+                }
+            } catch (RuntimeException e) {
+                this.logger.warn("cache " + op.cacheNames[0] + " store failed", e);
+            } finally {
+                this.flights.remove(flightKey, flight);
+                if (error == null) {
+                    flight.complete(value);
+                } else {
+                    flight.completeExceptionally(error);
+                }
+            }
+        });
+    }
+
+    /**
+     * 调用方法并写入缓存
+     *
+     * @param context 调用上下文
+     * @param op      缓存操作
+     * @param key     缓存键
+     * @return
+     * @throws Throwable
+     */
+    private Object load(OperationContext context, CacheOperation op, Object key) throws Throwable {
+        Object value = context.invocation.proceed();
+        this.store(context, op, key, value);
+        return value;
+    }
+
+    /**
+     * 按顺序在缓存中查找
+     *
+     * @param op  缓存操作
+     * @param key 缓存键
+     * @return 返回第一个命中的缓存值，未命中返回null
+     */
+    private Cache.ValueWrapper find(CacheOperation op, Object key) {
+        for (String name : op.cacheNames) {
+            Cache.ValueWrapper wrapper = this.getCache(name).get(key);
+            if (wrapper != null) {
+                return wrapper;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 拆出缓存值，需要提前刷新时提交刷新
+     *
+     * @param context 调用上下文
+     * @param op      缓存操作
+     * @param key     缓存键
+     * @param wrapper 缓存值
+     * @return
+     */
+    private Object unwrap(OperationContext context, CacheOperation op, Object key, Cache.ValueWrapper wrapper) {
+        if (op.refreshAfter > 0) {
+            FlightKey writeKey = new FlightKey(op.cacheNames[0], key);
+            Cache.ValueWrapper writeTime = this.writeTimes.get(writeKey);
+            long now = System.currentTimeMillis();
+            if (writeTime == null) {
+                this.writeTimes.putIfAbsent(writeKey, now);
+            } else if (now - (Long) writeTime.get() >= op.refreshAfter) {
+                this.refresh(context, op, key);
+            }
+        }
+        return wrapper.get();
+    }
+
+    /**
+     * 在刷新线程池重新加载缓存值
+     * 同一个键正在加载时不重复提交
+     *
+     * @param context 调用上下文
+     * @param op      缓存操作
+     * @param key     缓存键
+     */
+    private void refresh(OperationContext context, CacheOperation op, Object key) {
+        FlightKey flightKey = new FlightKey(op.cacheNames[0], key);
+        Flight flight = new Flight(null);
+        if (this.flights.putIfAbsent(flightKey, flight) != null) {
+            return;
+        }
+        //调用在其它线程执行，复制调用与上下文
+        MethodInvocation invocation = context.invocation instanceof ProxyMethodInvocation ?
+                ((ProxyMethodInvocation) context.invocation).invocableClone() : null;
+        OperationContext refreshContext = invocation == null ? null :
+                new OperationContext(invocation, context.target, context.targetClass);
+        try {
+            this.refreshExecutor.execute(() -> {
+                try {
+                    Object result = refreshContext != null ? refreshContext.invocation.proceed() :
+                            AopUtils.invokeJoinpointUsingReflection(context.target, context.method, context.args.clone());
+                    OperationContext storeContext = refreshContext != null ? refreshContext : context;
+                    if (result instanceof CompletionStage) {
+                        this.completeAsync(storeContext, op, key, flightKey, flight, (CompletionStage<?>) result);
+                        return;
+                    }
+                    this.flights.remove(flightKey, flight);
+                    this.store(storeContext, op, key, result);
+                    flight.complete(result);
+                } catch (Throwable e) {
+                    this.flights.remove(flightKey, flight);
+                    flight.completeExceptionally(e);
+                    this.logger.warn("cache " + op.cacheNames[0] + " refresh " + key + " failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.flights.remove(flightKey, flight);
+            flight.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param context 调用上下文
+     * @param op      缓存操作
+     * @param key     缓存键
+     * @param value   方法结果
+     */
+    private void store(OperationContext context, CacheOperation op, Object key, Object value) {
+        if (context.isUnless(op, value)) {
+            return;
+        }
+        for (String name : op.cacheNames) {
+            this.getCache(name).put(key, value);
+        }
+        if (op.refreshAfter > 0) {
+            this.writeTimes.put(new FlightKey(op.cacheNames[0], key), System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 删除缓存
+     *
+     * @param context 调用上下文
+     * @param op      缓存操作
+     */
+    private void evict(OperationContext context, CacheOperation op) {
+        if (!context.isConditionPassing(op)) {
+            return;
+        }
+        if (op.allEntries) {
+            for (String name : op.cacheNames) {
+                this.getCache(name).clear();
+                this.evictWriteTimes(name);
+            }
+            return;
+        }
+        Object key = context.generateKey(op);
+        for (String name : op.cacheNames) {
+            this.getCache(name).evict(key);
+            this.writeTimes.evict(new FlightKey(name, key));
+        }
+    }
+
+    /**
+     * 删除缓存的全部提前刷新写入时间
+     *
+     * @param name 缓存名称
+     */
+    private void evictWriteTimes(String name) {
+        for (Object writeKey : ((Map<?, ?>) this.writeTimes.getNativeCache()).keySet()) {
+            if (((FlightKey) writeKey).cacheName.equals(name)) {
+                this.writeTimes.evict(writeKey);
+            }
+        }
+    }
+
+    /**
+     * 获取缓存
+     *
+     * @param name 缓存名称
+     * @return
+     */
+    private Cache getCache(String name) {
+        Cache cache = this.cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("cache " + name + " not found");
+        }
+        return cache;
+    }
+
+    /**
+     * 等待其它线程加载
+     *
+     * @param flight 加载结果
+     * @return
+     * @throws Throwable
+     */
+    private static Object await(Flight flight) throws Throwable {
+        try {
+            return flight.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+}
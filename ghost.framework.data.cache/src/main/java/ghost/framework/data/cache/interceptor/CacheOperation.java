@@ -0,0 +1,92 @@
+package ghost.framework.data.cache.interceptor;
+
+import ghost.framework.data.cache.annotation.CacheEvict;
+import ghost.framework.data.cache.annotation.CachePut;
+import ghost.framework.data.cache.annotation.Cacheable;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * package: ghost.framework.data.cache.interceptor
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:方法缓存操作
+ * 方法第一次调用时由注释解析，之后按方法缓存
+ * @Date: 2020/6/30:9:30
+ */
+final class CacheOperation {
+    /**
+     * 无缓存操作
+     */
+    static final CacheOperation[] NONE = new CacheOperation[0];
+
+    /**
+     * 操作类型
+     */
+    enum Kind {
+        cacheable,
+        put,
+        evict
+    }
+
+    final Kind kind;
+    final String[] cacheNames;
+    final String key;
+    final String condition;
+    final String unless;
+    final boolean sync;
+    /**
+     * 提前刷新时间，单位毫秒，0为不提前刷新
+     */
+    final long refreshAfter;
+    final boolean allEntries;
+    final boolean beforeInvocation;
+
+    private CacheOperation(Kind kind, String[] cacheNames, String key, String condition, String unless,
+                           boolean sync, long refreshAfter, boolean allEntries, boolean beforeInvocation) {
+        if (cacheNames.length == 0) {
+            throw new IllegalStateException("cache names must not be empty");
+        }
+        if (refreshAfter < 0) {
+            throw new IllegalStateException("refreshAfter must not be negative");
+        }
+        this.kind = kind;
+        this.cacheNames = cacheNames;
+        this.key = key;
+        this.condition = condition;
+        this.unless = unless;
+        this.sync = sync;
+        this.refreshAfter = refreshAfter;
+        this.allEntries = allEntries;
+        this.beforeInvocation = beforeInvocation;
+    }
+
+    /**
+     * 解析方法缓存操作
+     *
+     * @param method 方法
+     * @return 返回缓存操作，没有缓存注释返回 {@link #NONE}
+     */
+    static CacheOperation[] parse(Method method) {
+        List<CacheOperation> list = new ArrayList<>(2);
+        CacheEvict evict = method.getAnnotation(CacheEvict.class);
+        if (evict != null) {
+            list.add(new CacheOperation(Kind.evict, evict.value(), evict.key(), evict.condition(), "",
+                    false, 0, evict.allEntries(), evict.beforeInvocation()));
+        }
+        Cacheable cacheable = method.getAnnotation(Cacheable.class);
+        if (cacheable != null) {
+            list.add(new CacheOperation(Kind.cacheable, cacheable.value(), cacheable.key(), cacheable.condition(),
+                    cacheable.unless(), cacheable.sync(), cacheable.refreshAfter(), false, false));
+        }
+        CachePut put = method.getAnnotation(CachePut.class);
+        if (put != null) {
+            list.add(new CacheOperation(Kind.put, put.value(), put.key(), put.condition(), put.unless(),
+                    false, 0, false, false));
+        }
+        return list.isEmpty() ? NONE : list.toArray(new CacheOperation[0]);
+    }
+}
@@ -0,0 +1,25 @@
+package ghost.framework.data.cache.interceptor;
+
+import java.lang.reflect.Method;
+
+/**
+ * package: ghost.framework.data.cache.interceptor
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:缓存键生成接口
+ * 注释未指定键表达式时使用
+ * @Date: 2020/6/30:9:20
+ */
+@FunctionalInterface
+public interface KeyGenerator {
+    /**
+     * 生成缓存键
+     *
+     * @param target 目标对象
+     * @param method 调用方法
+     * @param params 调用参数
+     * @return 返回缓存键
+     */
+    Object generate(Object target, Method method, Object... params);
+}
@@ -0,0 +1,61 @@
+package ghost.framework.data.cache.interceptor;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * package: ghost.framework.data.cache.interceptor
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:多参数缓存键
+ * 创建时计算哈希值，查找缓存时不重复计算
+ * @Date: 2020/6/30:9:22
+ */
+public final class SimpleKey implements Serializable {
+    private static final long serialVersionUID = -5218296217431702364L;
+    /**
+     * 无参数缓存键
+     */
+    public static final SimpleKey EMPTY = new SimpleKey();
+    /**
+     * 参数
+     */
+    private final Object[] params;
+    /**
+     * 哈希值
+     */
+    private final int hashCode;
+
+    /**
+     * 初始化多参数缓存键
+     *
+     * @param params 参数
+     */
+    public SimpleKey(Object... params) {
+        this.params = params.clone();
+        this.hashCode = Arrays.deepHashCode(this.params);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SimpleKey)) {
+            return false;
+        }
+        SimpleKey that = (SimpleKey) o;
+        return this.hashCode == that.hashCode && Arrays.deepEquals(this.params, that.params);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "SimpleKey " + Arrays.deepToString(this.params);
+    }
+}
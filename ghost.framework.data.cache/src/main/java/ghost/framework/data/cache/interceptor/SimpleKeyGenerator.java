@@ -0,0 +1,40 @@
+package ghost.framework.data.cache.interceptor;
+
+import java.lang.reflect.Method;
+
+/**
+ * package: ghost.framework.data.cache.interceptor
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:默认缓存键生成
+ * 无参数返回 {@link SimpleKey#EMPTY}，单个非数组参数直接作为键不再分配对象
+ * 基本类型参数调用时已装箱，直接使用装箱值
+ * 其它情况创建 {@link SimpleKey}
+ * @Date: 2020/6/30:9:25
+ */
+public class SimpleKeyGenerator implements KeyGenerator {
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        return generateKey(params);
+    }
+
+    /**
+     * 按参数生成缓存键
+     *
+     * @param params 参数
+     * @return 返回缓存键
+     */
+    public static Object generateKey(Object... params) {
+        if (params.length == 0) {
+            return SimpleKey.EMPTY;
+        }
+        if (params.length == 1) {
+            Object param = params[0];
+            if (param != null && !param.getClass().isArray()) {
+                return param;
+            }
+        }
+        return new SimpleKey(params);
+    }
+}
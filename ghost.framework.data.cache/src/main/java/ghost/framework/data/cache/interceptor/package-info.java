@@ -0,0 +1,9 @@
+/**
+ * package: ghost.framework.data.cache.interceptor
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:方法缓存拦截器包
+ * @Date: 2020/6/30:9:10
+ */
+package ghost.framework.data.cache.interceptor;
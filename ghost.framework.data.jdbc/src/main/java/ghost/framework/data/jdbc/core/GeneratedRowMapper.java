@@ -0,0 +1,499 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ghost.framework.data.jdbc.core;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.data.dao.InvalidDataAccessApiUsageException;
+import ghost.framework.data.dao.TypeMismatchDataAccessException;
+import ghost.framework.data.jdbc.support.JdbcUtils;
+import ghost.framework.util.ConcurrentReferenceHashMap;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.loading.MultipleParentClassLoader;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.jar.asm.Type;
+import net.bytebuddy.matcher.ElementMatchers;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link RowMapper} implementation that maps a row into a new instance of the specified
+ * mapped class with a generated mapper class.
+ *
+ * <p>The {@link ResultSetMetaData} is inspected once per result set. For every column
+ * signature of a mapped class, a {@link RowMapper} class is generated with Byte Buddy that
+ * creates the instance and reads the mapped columns by index straight into the setters or
+ * fields, with the primitive {@link ResultSet} getters for primitive and {@code String}
+ * properties so no value is boxed. Other property types are read through
+ * {@link JdbcUtils#getResultSetValue(ResultSet, int, Class)}. Generated mappers are cached
+ * per mapped class and column signature. Once {@link #MAXIMUM_GENERATED_MAPPERS} signatures
+ * of a mapped class have a generated mapper, further signatures are mapped reflectively,
+ * so queries with ad-hoc column lists cannot generate an unbounded number of classes.
+ *
+ * <p>Column names are matched to properties ignoring case, underscores and spaces, so a
+ * column {@code customer_number} maps to a {@code customerNumber} property. Columns
+ * without a matching property are ignored. The mapped class must be public with a public
+ * no-arg constructor, and only public setters and public non-final fields are mapped.
+ * SQL {@code NULL} is read as the default value of primitive properties.
+ *
+ * @param <T> the result type
+ * @see ColumnMapRowMapper
+ */
+public class GeneratedRowMapper<T> implements RowMapper<T> {
+
+	/**
+	 * Maximum number of column signatures per mapped class with a generated mapper.
+	 */
+	public static final int MAXIMUM_GENERATED_MAPPERS = 32;
+
+	/**
+	 * Generated mappers per mapped class and column signature.
+	 */
+	private static final Map<Class<?>, Map<String, RowMapper<?>>> mapperCache = new ConcurrentReferenceHashMap<>(64);
+
+	private static final AtomicInteger mapperCounter = new AtomicInteger();
+
+	private static final Map<Class<?>, String> primitiveGetters = new HashMap<>(16);
+
+	private static final Map<Class<?>, Object> primitiveDefaults = new HashMap<>(16);
+
+	static {
+		primitiveGetters.put(boolean.class, "getBoolean");
+		primitiveGetters.put(byte.class, "getByte");
+		primitiveGetters.put(short.class, "getShort");
+		primitiveGetters.put(int.class, "getInt");
+		primitiveGetters.put(long.class, "getLong");
+		primitiveGetters.put(float.class, "getFloat");
+		primitiveGetters.put(double.class, "getDouble");
+		primitiveGetters.put(String.class, "getString");
+		primitiveDefaults.put(boolean.class, false);
+		primitiveDefaults.put(byte.class, (byte) 0);
+		primitiveDefaults.put(short.class, (short) 0);
+		primitiveDefaults.put(int.class, 0);
+		primitiveDefaults.put(long.class, 0L);
+		primitiveDefaults.put(float.class, 0F);
+		primitiveDefaults.put(double.class, 0D);
+	}
+
+	private final Class<T> mappedClass;
+
+	/**
+	 * Mapped properties by normalized property name.
+	 */
+	private final Map<String, Property> properties;
+
+	/**
+	 * The generated mapper of the last result set.
+	 */
+	@Nullable
+	private volatile Shape shape;
+
+	/**
+	 * Create a new {@code GeneratedRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 * @throws InvalidDataAccessApiUsageException if the class is not public or has no
+	 * public no-arg constructor
+	 */
+	public GeneratedRowMapper(Class<T> mappedClass) {
+		if (!Modifier.isPublic(mappedClass.getModifiers()) || Modifier.isAbstract(mappedClass.getModifiers()) ||
+				mappedClass.isMemberClass() && !Modifier.isStatic(mappedClass.getModifiers())) {
+			throw new InvalidDataAccessApiUsageException(
+					"Mapped class [" + mappedClass.getName() + "] must be a public, concrete, top-level or static class");
+		}
+		try {
+			mappedClass.getConstructor();
+		}
+		catch (NoSuchMethodException ex) {
+			throw new InvalidDataAccessApiUsageException(
+					"Mapped class [" + mappedClass.getName() + "] has no public no-arg constructor", ex);
+		}
+		this.mappedClass = mappedClass;
+		this.properties = introspect(mappedClass);
+	}
+
+	/**
+	 * Static factory method to create a new {@code GeneratedRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 * @return the row mapper
+	 */
+	public static <T> GeneratedRowMapper<T> newInstance(Class<T> mappedClass) {
+		return new GeneratedRowMapper<>(mappedClass);
+	}
+
+	/**
+	 * Get the class that we are mapping to.
+	 */
+	public final Class<T> getMappedClass() {
+		return this.mappedClass;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+		Shape shape = this.shape;
+		if (shape == null || shape.resultSet.get() != rs) {
+			shape = new Shape(rs, getMapper(rs.getMetaData()));
+			this.shape = shape;
+		}
+		return (T) shape.mapper.mapRow(rs, rowNum);
+	}
+
+	/**
+	 * Read a column value of a property type that has no primitive {@link ResultSet}
+	 * getter. Called by the generated mappers.
+	 * @param rs the result set
+	 * @param index the column index
+	 * @param requiredType the property type
+	 * @return the column value, {@code null} for SQL {@code NULL}
+	 * @throws SQLException if thrown by the JDBC API
+	 */
+	@Nullable
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public static Object getColumnValue(ResultSet rs, int index, Class<?> requiredType) throws SQLException {
+		Object value = JdbcUtils.getResultSetValue(rs, index, requiredType);
+		if (value == null || requiredType.isInstance(value)) {
+			return value;
+		}
+		if (requiredType.isEnum()) {
+			if (value instanceof Number) {
+				return requiredType.getEnumConstants()[((Number) value).intValue()];
+			}
+			return Enum.valueOf((Class<? extends Enum>) requiredType, value.toString().trim());
+		}
+		throw new TypeMismatchDataAccessException("Column " + index + " value of type [" +
+				value.getClass().getName() + "] cannot be assigned to [" + requiredType.getName() + "]");
+	}
+
+	/**
+	 * Look up or generate the mapper for the columns of a result set.
+	 * @param rsmd the result set meta-data
+	 * @return the mapper
+	 * @throws SQLException if thrown by the JDBC API
+	 */
+	private RowMapper<?> getMapper(ResultSetMetaData rsmd) throws SQLException {
+		int columnCount = rsmd.getColumnCount();
+		StringBuilder signature = new StringBuilder(columnCount * 16);
+		List<Column> columns = new ArrayList<>(columnCount);
+		Set<String> mapped = new HashSet<>(columnCount);
+		for (int index = 1; index <= columnCount; index++) {
+			String name = normalize(JdbcUtils.lookupColumnName(rsmd, index));
+			signature.append(name).append(',');
+			Property property = this.properties.get(name);
+			if (property != null && mapped.add(name)) {
+				columns.add(new Column(index, property));
+			}
+		}
+		Map<String, RowMapper<?>> mappers = mapperCache.computeIfAbsent(this.mappedClass, (key) -> new ConcurrentHashMap<>());
+		RowMapper<?> mapper = mappers.get(signature.toString());
+		if (mapper != null) {
+			return mapper;
+		}
+		if (mappers.size() >= MAXIMUM_GENERATED_MAPPERS) {
+			return new ReflectiveRowMapper(this.mappedClass, columns);
+		}
+		return mappers.computeIfAbsent(signature.toString(), (key) -> generate(this.mappedClass, columns));
+	}
+
+	/**
+	 * Generate and instantiate a mapper class for the mapped columns.
+	 * @param mappedClass the mapped class
+	 * @param columns the mapped columns
+	 * @return the mapper
+	 */
+	private static RowMapper<?> generate(Class<?> mappedClass, List<Column> columns) {
+		ClassLoader classLoader = new MultipleParentClassLoader.Builder()
+				.append(mappedClass, GeneratedRowMapper.class)
+				.build();
+		try {
+			Class<?> mapperClass = new ByteBuddy()
+					.subclass(Object.class)
+					.implement(RowMapper.class)
+					.name(mappedClass.getName() + "$GeneratedRowMapper$" + mapperCounter.incrementAndGet())
+					.method(ElementMatchers.named("mapRow"))
+					.intercept(new Implementation.Simple(new MapRowAppender(mappedClass, columns)))
+					.make()
+					.load(classLoader, ClassLoadingStrategy.Default.WRAPPER)
+					.getLoaded();
+			return (RowMapper<?>) mapperClass.getConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException | RuntimeException ex) {
+			throw new InvalidDataAccessApiUsageException(
+					"Failed to generate row mapper for [" + mappedClass.getName() + "]", ex);
+		}
+	}
+
+	/**
+	 * Collect the public setters and public non-final fields of the mapped class.
+	 * @param mappedClass the mapped class
+	 * @return the properties by normalized property name
+	 */
+	private static Map<String, Property> introspect(Class<?> mappedClass) {
+		Map<String, Property> properties = new HashMap<>();
+		for (Method method : mappedClass.getMethods()) {
+			if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1 ||
+					method.getName().length() <= 3 || !method.getName().startsWith("set")) {
+				continue;
+			}
+			Class<?> type = method.getParameterTypes()[0];
+			if (isMappable(type)) {
+				properties.putIfAbsent(normalize(method.getName().substring(3)), new Property(type, method, null));
+			}
+		}
+		for (Field field : mappedClass.getFields()) {
+			int modifiers = field.getModifiers();
+			if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && isMappable(field.getType())) {
+				properties.putIfAbsent(normalize(field.getName()), new Property(field.getType(), null, field));
+			}
+		}
+		return properties;
+	}
+
+	/**
+	 * Whether the generated mapper can read and assign a value of the type: a primitive
+	 * other than {@code char}, or a public non-character class.
+	 */
+	private static boolean isMappable(Class<?> type) {
+		if (type.isPrimitive()) {
+			return type != char.class;
+		}
+		return type != Character.class && Modifier.isPublic(type.getModifiers()) &&
+				(!type.isArray() || Modifier.isPublic(type.getComponentType().getModifiers()));
+	}
+
+	/**
+	 * Normalize a column or property name: lower case without underscores and spaces.
+	 */
+	private static String normalize(String name) {
+		StringBuilder result = new StringBuilder(name.length());
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c != '_' && c != ' ') {
+				result.append(c);
+			}
+		}
+		return result.toString().toLowerCase(Locale.ROOT);
+	}
+
+
+	/**
+	 * A mapped class property.
+	 */
+	private static final class Property {
+
+		private final Class<?> type;
+
+		@Nullable
+		private final Method setter;
+
+		@Nullable
+		private final Field field;
+
+		Property(Class<?> type, @Nullable Method setter, @Nullable Field field) {
+			this.type = type;
+			this.setter = setter;
+			this.field = field;
+		}
+	}
+
+
+	/**
+	 * A column mapped to a property.
+	 */
+	private static final class Column {
+
+		private final int index;
+
+		private final Property property;
+
+		Column(int index, Property property) {
+			this.index = index;
+			this.property = property;
+		}
+	}
+
+
+	/**
+	 * The generated mapper of a result set. The result set is weakly referenced so a
+	 * long-lived row mapper does not hold on to it.
+	 */
+	private static final class Shape {
+
+		private final WeakReference<ResultSet> resultSet;
+
+		private final RowMapper<?> mapper;
+
+		Shape(ResultSet resultSet, RowMapper<?> mapper) {
+			this.resultSet = new WeakReference<>(resultSet);
+			this.mapper = mapper;
+		}
+	}
+
+
+	/**
+	 * Maps the columns of a signature without a generated mapper through reflection, with
+	 * the same column reads and the same handling of SQL {@code NULL} as a generated mapper.
+	 */
+	private static final class ReflectiveRowMapper implements RowMapper<Object> {
+
+		private final Constructor<?> constructor;
+
+		private final List<Column> columns;
+
+		ReflectiveRowMapper(Class<?> mappedClass, List<Column> columns) {
+			try {
+				this.constructor = mappedClass.getConstructor();
+			}
+			catch (NoSuchMethodException ex) {
+				throw new InvalidDataAccessApiUsageException(
+						"Mapped class [" + mappedClass.getName() + "] has no public no-arg constructor", ex);
+			}
+			this.columns = columns;
+		}
+
+		@Override
+		public Object mapRow(ResultSet rs, int rowNum) throws SQLException {
+			try {
+				Object instance = this.constructor.newInstance();
+				for (Column column : this.columns) {
+					Property property = column.property;
+					Object value;
+					if (property.type.isPrimitive()) {
+						value = JdbcUtils.getResultSetValue(rs, column.index, property.type);
+						if (value == null) {
+							value = primitiveDefaults.get(property.type);
+						}
+					}
+					else {
+						value = getColumnValue(rs, column.index, property.type);
+					}
+					if (property.setter != null) {
+						property.setter.invoke(instance, value);
+					}
+					else {
+						property.field.set(instance, value);
+					}
+				}
+				return instance;
+			}
+			catch (InvocationTargetException ex) {
+				if (ex.getTargetException() instanceof RuntimeException) {
+					throw (RuntimeException) ex.getTargetException();
+				}
+				if (ex.getTargetException() instanceof Error) {
+					throw (Error) ex.getTargetException();
+				}
+				throw new InvalidDataAccessApiUsageException(
+						"Failed to map row to [" + this.constructor.getDeclaringClass().getName() + "]", ex.getTargetException());
+			}
+			catch (ReflectiveOperationException ex) {
+				throw new InvalidDataAccessApiUsageException(
+						"Failed to map row to [" + this.constructor.getDeclaringClass().getName() + "]", ex);
+			}
+		}
+	}
+
+
+	/**
+	 * Emits {@code mapRow(ResultSet, int)}: creates the instance and assigns every mapped
+	 * column in order.
+	 */
+	private static final class MapRowAppender implements ByteCodeAppender {
+
+		private static final String RESULT_SET = Type.getInternalName(ResultSet.class);
+
+		private static final String GET_COLUMN_VALUE_DESCRIPTOR = "(Ljava/sql/ResultSet;ILjava/lang/Class;)Ljava/lang/Object;";
+
+		private final Class<?> mappedClass;
+
+		private final List<Column> columns;
+
+		MapRowAppender(Class<?> mappedClass, List<Column> columns) {
+			this.mappedClass = mappedClass;
+			this.columns = columns;
+		}
+
+		@Override
+		public Size apply(MethodVisitor mv, Implementation.Context implementationContext,
+				MethodDescription instrumentedMethod) {
+			String owner = Type.getInternalName(this.mappedClass);
+			int instance = instrumentedMethod.getStackSize();
+			mv.visitTypeInsn(Opcodes.NEW, owner);
+			mv.visitInsn(Opcodes.DUP);
+			mv.visitMethodInsn(Opcodes.INVOKESPECIAL, owner, "<init>", "()V", false);
+			mv.visitVarInsn(Opcodes.ASTORE, instance);
+			for (Column column : this.columns) {
+				Class<?> type = column.property.type;
+				mv.visitVarInsn(Opcodes.ALOAD, instance);
+				mv.visitVarInsn(Opcodes.ALOAD, 1);
+				mv.visitLdcInsn(column.index);
+				String getter = primitiveGetters.get(type);
+				if (getter != null) {
+					mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, RESULT_SET, getter,
+							"(I)" + Type.getDescriptor(type), true);
+				}
+				else {
+					mv.visitLdcInsn(Type.getType(type));
+					mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(GeneratedRowMapper.class),
+							"getColumnValue", GET_COLUMN_VALUE_DESCRIPTOR, false);
+					mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+				}
+				Method setter = column.property.setter;
+				if (setter != null) {
+					mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, owner, setter.getName(),
+							Type.getMethodDescriptor(setter), false);
+					Class<?> returnType = setter.getReturnType();
+					if (returnType == long.class || returnType == double.class) {
+						mv.visitInsn(Opcodes.POP2);
+					}
+					else if (returnType != void.class) {
+						mv.visitInsn(Opcodes.POP);
+					}
+				}
+				else {
+					Field field = column.property.field;
+					mv.visitFieldInsn(Opcodes.PUTFIELD, owner, field.getName(), Type.getDescriptor(type));
+				}
+			}
+			mv.visitVarInsn(Opcodes.ALOAD, instance);
+			mv.visitInsn(Opcodes.ARETURN);
+			// instance, result set, column index and required type, or instance and a long
+			return new Size(4, instance + 1);
+		}
+	}
+
+}
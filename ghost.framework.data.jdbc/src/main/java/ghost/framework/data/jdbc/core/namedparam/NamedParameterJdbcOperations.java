@@ -24,10 +24,12 @@ import ghost.framework.data.jdbc.core.ResultSetExtractor;
 import ghost.framework.data.jdbc.core.*;
 import ghost.framework.data.jdbc.support.KeyHolder;
 import ghost.framework.data.jdbc.support.rowset.SqlRowSet;
+import ghost.framework.data.jdbc.template.JdbcBatchWriter;
 import ghost.framework.data.jdbc.template.JdbcOperations;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Interface specifying a basic set of JDBC operations allowing the use
@@ -226,6 +228,36 @@ public interface NamedParameterJdbcOperations {
 	 */
 	<T> List<T> query(String sql, RowMapper<T> rowMapper) throws DataAccessException;
 
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list of
+	 * arguments to bind to the query, mapping each row to a Java object
+	 * via a RowMapper, and turning it into an iterable and closeable Stream.
+	 * @param sql the SQL query to execute
+	 * @param paramSource container of arguments to bind to the query
+	 * @param rowMapper object that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if the query fails
+	 * @see JdbcOperations#queryForStream(String, RowMapper, Object...)
+	 */
+	<T> Stream<T> queryForStream(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
+			throws DataAccessException;
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list of
+	 * arguments to bind to the query, mapping each row to a Java object
+	 * via a RowMapper, and turning it into an iterable and closeable Stream.
+	 * @param sql the SQL query to execute
+	 * @param paramMap map of parameters to bind to the query
+	 * (leaving it to the PreparedStatement to guess the corresponding SQL type)
+	 * @param rowMapper object that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if the query fails
+	 */
+	<T> Stream<T> queryForStream(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper)
+			throws DataAccessException;
+
 	/**
 	 * Query given SQL to create a prepared statement from SQL and a list
 	 * of arguments to bind to the query, mapping a single result row to a
@@ -509,4 +541,18 @@ public interface NamedParameterJdbcOperations {
 	 */
 	int[] batchUpdate(String sql, SqlParameterSource[] batchArgs);
 
+	/**
+	 * Open a writer that executes the supplied SQL statement in batches of
+	 * {@code chunkSize} parameter sources as they are written.
+	 * <p>The SQL is parsed and expanded once, so every parameter source has to
+	 * supply all named parameters, and collection parameters for {@code IN (:list)}
+	 * are not expanded: an {@link Iterable} value is rejected with an
+	 * {@link ghost.framework.data.dao.InvalidDataAccessApiUsageException}.
+	 * @param sql the SQL statement to execute
+	 * @param chunkSize the number of parameter sources per JDBC batch
+	 * @return the writer, needing to be closed to execute the last chunk
+	 * @see JdbcOperations#batchWriter
+	 */
+	JdbcBatchWriter<SqlParameterSource> batchWriter(String sql, int chunkSize);
+
 }
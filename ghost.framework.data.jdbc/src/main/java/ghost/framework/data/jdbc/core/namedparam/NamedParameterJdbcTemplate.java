@@ -19,9 +19,11 @@ package ghost.framework.data.jdbc.core.namedparam;
 import ghost.framework.beans.annotation.constraints.Nullable;
 import ghost.framework.data.dao.DataAccessException;
 import ghost.framework.data.dao.DataAccessUtils;
+import ghost.framework.data.dao.InvalidDataAccessApiUsageException;
 import ghost.framework.data.jdbc.core.*;
 import ghost.framework.data.jdbc.support.KeyHolder;
 import ghost.framework.data.jdbc.support.rowset.SqlRowSet;
+import ghost.framework.data.jdbc.template.JdbcBatchWriter;
 import ghost.framework.data.jdbc.template.JdbcOperations;
 import ghost.framework.data.jdbc.template.JdbcTemplate;
 import ghost.framework.util.Assert;
@@ -29,10 +31,10 @@ import ghost.framework.util.Assert;
 import javax.sql.DataSource;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Template class with a basic set of JDBC operations, allowing the use
@@ -64,17 +66,11 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	/** The JdbcTemplate we are wrapping. */
 	private final JdbcOperations classicJdbcTemplate;
 
-	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+	/** Cache of original SQL String to ParsedSql representation, possibly shared. */
+	private volatile ParsedSqlCache parsedSqlCache;
 
-	/** Cache of original SQL String to ParsedSql representation. */
-
-	private final Map<String, ParsedSql> parsedSqlCache =
-			new LinkedHashMap<String, ParsedSql>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-				@Override
-				protected boolean removeEldestEntry(Map.Entry<String, ParsedSql> eldest) {
-					return size() > getCacheLimit();
-				}
-			};
+	/** Whether {@link #parsedSqlCache} was created by and for this template only. */
+	private volatile boolean ownParsedSqlCache;
 
 
 	/**
@@ -85,6 +81,7 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	public NamedParameterJdbcTemplate(DataSource dataSource) {
 		Assert.notNull(dataSource, "DataSource must not be null");
 		this.classicJdbcTemplate = new JdbcTemplate(dataSource);
+		this.parsedSqlCache = ParsedSqlCache.forDataSource(dataSource);
 	}
 
 	/**
@@ -95,6 +92,11 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	public NamedParameterJdbcTemplate(JdbcOperations classicJdbcTemplate) {
 		Assert.notNull(classicJdbcTemplate, "JdbcTemplate must not be null");
 		this.classicJdbcTemplate = classicJdbcTemplate;
+		DataSource dataSource = (classicJdbcTemplate instanceof JdbcTemplate ?
+				((JdbcTemplate) classicJdbcTemplate).getDataSource() : null);
+		this.parsedSqlCache = (dataSource != null ?
+				ParsedSqlCache.forDataSource(dataSource) : new ParsedSqlCache(DEFAULT_CACHE_LIMIT));
+		this.ownParsedSqlCache = (dataSource == null);
 	}
 
 
@@ -122,16 +124,44 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	/**
 	 * Specify the maximum number of entries for this template's SQL cache.
 	 * Default is 256.
+	 * <p>A cache shared with other templates, such as the one shared per
+	 * {@link DataSource} or one passed to {@link #setParsedSqlCache}, is left untouched:
+	 * this template switches to a private cache with the given limit instead.
+	 * @see #setParsedSqlCache
 	 */
-	public void setCacheLimit(int cacheLimit) {
-		this.cacheLimit = cacheLimit;
+	public synchronized void setCacheLimit(int cacheLimit) {
+		if (this.ownParsedSqlCache) {
+			this.parsedSqlCache.setCacheLimit(cacheLimit);
+		}
+		else {
+			this.parsedSqlCache = new ParsedSqlCache(cacheLimit);
+			this.ownParsedSqlCache = true;
+		}
 	}
 
 	/**
 	 * Return the maximum number of entries for this template's SQL cache.
 	 */
 	public int getCacheLimit() {
-		return this.cacheLimit;
+		return this.parsedSqlCache.getCacheLimit();
+	}
+
+	/**
+	 * Specify the cache of parsed SQL statements to use, e.g. a private
+	 * {@link ParsedSqlCache} instead of the one shared per {@link DataSource}.
+	 */
+	public synchronized void setParsedSqlCache(ParsedSqlCache parsedSqlCache) {
+		Assert.notNull(parsedSqlCache, "ParsedSqlCache must not be null");
+		this.parsedSqlCache = parsedSqlCache;
+		this.ownParsedSqlCache = false;
+	}
+
+	/**
+	 * Return the cache of parsed SQL statements used by this template,
+	 * e.g. for inspecting its hit and miss counts.
+	 */
+	public ParsedSqlCache getParsedSqlCache() {
+		return this.parsedSqlCache;
 	}
 
 
@@ -217,6 +247,20 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 		return query(sql, EmptySqlParameterSource.INSTANCE, rowMapper);
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return getJdbcOperations().queryForStream(getPreparedStatementCreator(sql, paramSource), rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(sql, new MapSqlParameterSource(paramMap), rowMapper);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
@@ -367,6 +411,40 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 				});
 	}
 
+	@Override
+	public JdbcBatchWriter<SqlParameterSource> batchWriter(String sql, int chunkSize) {
+		ParsedSql parsedSql = getParsedSql(sql);
+		PreparedStatementCreatorFactory pscf =
+				getPreparedStatementCreatorFactory(parsedSql, EmptySqlParameterSource.INSTANCE);
+		return getJdbcOperations().batchWriter(pscf.getSql(), chunkSize, (ps, paramSource) -> {
+			Object[] values = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+			assertNoCollectionValues(parsedSql, values);
+			pscf.newPreparedStatementSetter(values).setValues(ps);
+		});
+	}
+
+	/**
+	 * Reject collection arguments for a statement whose SQL has been expanded once up front:
+	 * an {@code IN (:list)} argument would otherwise be bound as a single value.
+	 * @param parsedSql parsed representation of the SQL statement
+	 * @param values the argument values in parameter order
+	 * @throws InvalidDataAccessApiUsageException if an argument is an {@link Iterable}
+	 */
+	private static void assertNoCollectionValues(ParsedSql parsedSql, Object[] values) {
+		List<String> paramNames = parsedSql.getParameterNames();
+		for (int i = 0; i < values.length; i++) {
+			Object value = values[i];
+			if (value instanceof SqlParameterValue) {
+				value = ((SqlParameterValue) value).getValue();
+			}
+			if (value instanceof Iterable) {
+				throw new InvalidDataAccessApiUsageException("Collection value supplied for the SQL parameter '" +
+						paramNames.get(i) + "': batchWriter does not expand IN (:list) parameters, " +
+						"use batchUpdate instead: " + parsedSql.getOriginalSql());
+			}
+		}
+	}
+
 
 	/**
 	 * Build a {@link PreparedStatementCreator} based on the given SQL and named parameters.
@@ -410,22 +488,13 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 
 	/**
 	 * Obtain a parsed representation of the given SQL statement.
-	 * <p>The default implementation uses an LRU cache with an upper limit of 256 entries.
+	 * <p>The default implementation uses a {@link ParsedSqlCache} shared per {@link DataSource},
+	 * with an upper limit of 256 entries.
 	 * @param sql the original SQL statement
 	 * @return a representation of the parsed SQL statement
 	 */
 	protected ParsedSql getParsedSql(String sql) {
-		if (getCacheLimit() <= 0) {
-			return NamedParameterUtils.parseSqlStatement(sql);
-		}
-		synchronized (this.parsedSqlCache) {
-			ParsedSql parsedSql = this.parsedSqlCache.get(sql);
-			if (parsedSql == null) {
-				parsedSql = NamedParameterUtils.parseSqlStatement(sql);
-				this.parsedSqlCache.put(sql, parsedSql);
-			}
-			return parsedSql;
-		}
+		return this.parsedSqlCache.getParsedSql(sql);
 	}
 
 	/**
@@ -433,6 +502,7 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	 * @param parsedSql parsed representation of the given SQL statement
 	 * @param paramSource container of arguments to bind
 	 * @return the corresponding {@link PreparedStatementCreatorFactory}
+	 * (expanded SQL text and declared parameters are reused for arguments of the same shape)
 	 * @since 5.1.3
 	 * @see #getPreparedStatementCreator(String, SqlParameterSource, Consumer)
 	 * @see #getParsedSql(String)
@@ -440,9 +510,7 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	protected PreparedStatementCreatorFactory getPreparedStatementCreatorFactory(
 			ParsedSql parsedSql, SqlParameterSource paramSource) {
 
-		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
-		List<SqlParameter> declaredParameters = NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource);
-		return new PreparedStatementCreatorFactory(sqlToUse, declaredParameters);
+		return this.parsedSqlCache.getPreparedStatementCreatorFactory(parsedSql, paramSource);
 	}
 
 }
@@ -18,6 +18,8 @@ package ghost.framework.data.jdbc.core.namedparam;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Holds information about a parsed SQL statement.
@@ -40,6 +42,9 @@ public class ParsedSql {
 
 	private int totalParameterCount;
 
+	private final Map<ParsedSqlCache.ParameterShape, ParsedSqlCache.Expansion> expansions =
+			new ConcurrentHashMap<>(4);
+
 
 	/**
 	 * Create a new instance of the {@link ParsedSql} class.
@@ -133,6 +138,15 @@ public class ParsedSql {
 		return this.totalParameterCount;
 	}
 
+	/**
+	 * Return the expanded SQL variants computed for this statement so far,
+	 * keyed by parameter shape.
+	 * @see ParsedSqlCache#getPreparedStatementCreatorFactory
+	 */
+	Map<ParsedSqlCache.ParameterShape, ParsedSqlCache.Expansion> getExpansions() {
+		return this.expansions;
+	}
+
 
 	/**
 	 * Exposes the original SQL String.
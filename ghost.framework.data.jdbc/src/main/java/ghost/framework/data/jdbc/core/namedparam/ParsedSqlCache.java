@@ -0,0 +1,412 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ghost.framework.data.jdbc.core.namedparam;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.data.jdbc.core.PreparedStatementCreatorFactory;
+import ghost.framework.data.jdbc.core.SqlParameter;
+import ghost.framework.data.jdbc.core.SqlParameterValue;
+import ghost.framework.util.Assert;
+import ghost.framework.util.ConcurrentReferenceHashMap;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent, bounded cache of {@link ParsedSql} representations, together with
+ * the expanded JDBC SQL text derived from them for each distinct parameter shape
+ * (collection sizes for {@code IN (:list)} expansion plus declared SQL types).
+ *
+ * <p>Lookups are lock-free. Once the configured limit is exceeded, a single
+ * thread evicts entries in "second chance" order: entries that have been read
+ * since the last sweep are kept, all others are removed.
+ *
+ * <p>A cache instance may be shared between {@link NamedParameterJdbcTemplate}
+ * instances; see {@link #forDataSource(DataSource)}. Hit, miss and eviction
+ * counts are exposed for monitoring purposes.
+ *
+ * @see NamedParameterJdbcTemplate#getParsedSqlCache()
+ */
+public class ParsedSqlCache {
+
+	/** Default maximum number of SQL statements held by a cache: 256. */
+	public static final int DEFAULT_CACHE_LIMIT = 256;
+
+	/** Maximum number of expanded SQL variants kept per statement. */
+	static final int MAX_EXPANSIONS_PER_STATEMENT = 64;
+
+	private static final Map<DataSource, ParsedSqlCache> sharedCaches = new ConcurrentReferenceHashMap<>(16);
+
+
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>(64);
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	private final LongAdder expansionHitCount = new LongAdder();
+
+	private final LongAdder expansionMissCount = new LongAdder();
+
+	private volatile int cacheLimit;
+
+
+	/**
+	 * Create a new cache with the {@link #DEFAULT_CACHE_LIMIT default limit}.
+	 */
+	public ParsedSqlCache() {
+		this(DEFAULT_CACHE_LIMIT);
+	}
+
+	/**
+	 * Create a new cache with the given limit.
+	 * @param cacheLimit the maximum number of SQL statements to hold
+	 * (0 or less for no caching at all)
+	 */
+	public ParsedSqlCache(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
+	}
+
+
+	/**
+	 * Return the cache shared by all templates operating on the given
+	 * {@link DataSource}, creating it on first access.
+	 * @param dataSource the DataSource to obtain the shared cache for
+	 * @return the shared cache (never {@code null})
+	 */
+	public static ParsedSqlCache forDataSource(DataSource dataSource) {
+		Assert.notNull(dataSource, "DataSource must not be null");
+		ParsedSqlCache cache = sharedCaches.get(dataSource);
+		if (cache == null) {
+			cache = new ParsedSqlCache();
+			ParsedSqlCache existing = sharedCaches.putIfAbsent(dataSource, cache);
+			if (existing != null) {
+				cache = existing;
+			}
+		}
+		return cache;
+	}
+
+
+	/**
+	 * Specify the maximum number of SQL statements held by this cache.
+	 * Note that this affects all templates sharing this cache.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
+		if (cacheLimit <= 0) {
+			clear();
+		}
+		else {
+			evictIfNecessary();
+		}
+	}
+
+	/**
+	 * Return the maximum number of SQL statements held by this cache.
+	 */
+	public int getCacheLimit() {
+		return this.cacheLimit;
+	}
+
+	/**
+	 * Return the number of SQL statements currently held by this cache.
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Remove all cached statements; statistics are kept.
+	 */
+	public void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Return the number of {@link #getParsedSql} calls served from the cache.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of {@link #getParsedSql} calls which had to parse the statement.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the number of statements evicted because of the cache limit.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+	/**
+	 * Return the number of expanded SQL variants served from the cache.
+	 */
+	public long getExpansionHitCount() {
+		return this.expansionHitCount.sum();
+	}
+
+	/**
+	 * Return the number of expanded SQL variants which had to be built.
+	 */
+	public long getExpansionMissCount() {
+		return this.expansionMissCount.sum();
+	}
+
+
+	/**
+	 * Obtain a parsed representation of the given SQL statement,
+	 * parsing it on first access.
+	 * @param sql the original SQL statement
+	 * @return a representation of the parsed SQL statement
+	 */
+	public ParsedSql getParsedSql(String sql) {
+		if (this.cacheLimit <= 0) {
+			return NamedParameterUtils.parseSqlStatement(sql);
+		}
+		Entry entry = this.entries.get(sql);
+		if (entry != null) {
+			if (!entry.referenced) {
+				entry.referenced = true;
+			}
+			this.hitCount.increment();
+			return entry.parsedSql;
+		}
+		this.missCount.increment();
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		Entry existing = this.entries.putIfAbsent(sql, new Entry(parsedSql));
+		if (existing != null) {
+			return existing.parsedSql;
+		}
+		evictIfNecessary();
+		return parsedSql;
+	}
+
+	/**
+	 * Build a {@link PreparedStatementCreatorFactory} for the given parsed statement
+	 * and arguments, reusing the expanded SQL text and declared parameters computed
+	 * earlier for arguments of the same shape.
+	 * @param parsedSql parsed representation of the SQL statement
+	 * @param paramSource container of arguments to bind
+	 * @return a new {@link PreparedStatementCreatorFactory}
+	 */
+	public PreparedStatementCreatorFactory getPreparedStatementCreatorFactory(
+			ParsedSql parsedSql, SqlParameterSource paramSource) {
+
+		ParameterShape shape = (this.cacheLimit > 0 ? ParameterShape.of(parsedSql, paramSource) : null);
+		if (shape == null) {
+			return new PreparedStatementCreatorFactory(
+					NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource),
+					NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource));
+		}
+		Map<ParameterShape, Expansion> expansions = parsedSql.getExpansions();
+		Expansion expansion = expansions.get(shape);
+		if (expansion != null) {
+			this.expansionHitCount.increment();
+		}
+		else {
+			this.expansionMissCount.increment();
+			expansion = new Expansion(NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource),
+					NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource));
+			if (expansions.size() < MAX_EXPANSIONS_PER_STATEMENT) {
+				expansions.putIfAbsent(shape, expansion);
+			}
+		}
+		// The factory accepts further parameters and customization, so each caller gets its own
+		return new PreparedStatementCreatorFactory(expansion.sql, new ArrayList<>(expansion.declaredParameters));
+	}
+
+	/**
+	 * Evict statements in second-chance order until the cache is within its limit.
+	 * Only one thread sweeps at a time; concurrent callers skip the sweep.
+	 */
+	private void evictIfNecessary() {
+		int limit = this.cacheLimit;
+		if (this.entries.size() <= limit || !this.evictionLock.tryLock()) {
+			return;
+		}
+		try {
+			// Two passes at most: the first clears reference bits, the second removes
+			for (int pass = 0; pass < 2 && this.entries.size() > limit; pass++) {
+				Iterator<Map.Entry<String, Entry>> it = this.entries.entrySet().iterator();
+				while (it.hasNext() && this.entries.size() > limit) {
+					Map.Entry<String, Entry> candidate = it.next();
+					Entry entry = candidate.getValue();
+					if (entry.referenced && pass == 0) {
+						entry.referenced = false;
+					}
+					else if (this.entries.remove(candidate.getKey(), entry)) {
+						this.evictionCount.increment();
+					}
+				}
+			}
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+
+	/**
+	 * Cached statement plus its second-chance reference bit.
+	 */
+	private static final class Entry {
+
+		final ParsedSql parsedSql;
+
+		volatile boolean referenced;
+
+		Entry(ParsedSql parsedSql) {
+			this.parsedSql = parsedSql;
+		}
+	}
+
+
+	/**
+	 * Expanded JDBC SQL text and declared parameters for one parameter shape.
+	 */
+	static final class Expansion {
+
+		final String sql;
+
+		final List<SqlParameter> declaredParameters;
+
+		Expansion(String sql, List<SqlParameter> declaredParameters) {
+			this.sql = sql;
+			this.declaredParameters = Collections.unmodifiableList(declaredParameters);
+		}
+	}
+
+
+	/**
+	 * Everything about a set of arguments that influences the expanded SQL text
+	 * and the declared parameters: per parameter occurrence, the number of
+	 * {@code IN} list elements (or -1 for a scalar), the SQL type and type name.
+	 */
+	static final class ParameterShape {
+
+		private final int[] sizesAndTypes;
+
+		@Nullable
+		private final String[] typeNames;
+
+		private final int hash;
+
+		private ParameterShape(int[] sizesAndTypes, @Nullable String[] typeNames) {
+			this.sizesAndTypes = sizesAndTypes;
+			this.typeNames = typeNames;
+			this.hash = 31 * Arrays.hashCode(sizesAndTypes) + Arrays.hashCode(typeNames);
+		}
+
+		/**
+		 * Determine the shape of the given arguments, or {@code null} if they cannot
+		 * be described by a shape (tuple lists such as {@code IN ((?, ?), (?, ?))}).
+		 */
+		@Nullable
+		static ParameterShape of(ParsedSql parsedSql, SqlParameterSource paramSource) {
+			List<String> paramNames = parsedSql.getParameterNames();
+			int count = paramNames.size();
+			int[] sizesAndTypes = new int[count * 2];
+			String[] typeNames = null;
+			for (int i = 0; i < count; i++) {
+				String paramName = paramNames.get(i);
+				int size = -1;
+				if (paramSource.hasValue(paramName)) {
+					Object value = paramSource.getValue(paramName);
+					if (value instanceof SqlParameterValue) {
+						value = ((SqlParameterValue) value).getValue();
+					}
+					if (value instanceof Iterable) {
+						size = iterableSize((Iterable<?>) value);
+						if (size < 0) {
+							return null;
+						}
+					}
+				}
+				sizesAndTypes[i * 2] = size;
+				sizesAndTypes[i * 2 + 1] = paramSource.getSqlType(paramName);
+				String typeName = paramSource.getTypeName(paramName);
+				if (typeName != null) {
+					if (typeNames == null) {
+						typeNames = new String[count];
+					}
+					typeNames[i] = typeName;
+				}
+			}
+			return new ParameterShape(sizesAndTypes, typeNames);
+		}
+
+		/**
+		 * Count the elements of an {@code IN} list argument, returning -1 for tuple lists.
+		 */
+		private static int iterableSize(Iterable<?> value) {
+			boolean tuples = false;
+			int size = 0;
+			if (value instanceof List && value instanceof RandomAccess) {
+				List<?> list = (List<?>) value;
+				size = list.size();
+				for (int i = 0; i < size && !tuples; i++) {
+					tuples = list.get(i) instanceof Object[];
+				}
+			}
+			else {
+				for (Object element : value) {
+					tuples |= element instanceof Object[];
+					size++;
+				}
+			}
+			return (tuples ? -1 : size);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ParameterShape)) {
+				return false;
+			}
+			ParameterShape otherShape = (ParameterShape) other;
+			return (this.hash == otherShape.hash && Arrays.equals(this.sizesAndTypes, otherShape.sizesAndTypes) &&
+					Arrays.equals(this.typeNames, otherShape.typeNames));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+
+}
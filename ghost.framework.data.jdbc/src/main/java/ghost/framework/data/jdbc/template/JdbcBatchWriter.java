@@ -0,0 +1,329 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ghost.framework.data.jdbc.template;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.data.dao.DataAccessException;
+import ghost.framework.data.dao.UncategorizedSQLException;
+import ghost.framework.data.jdbc.core.ParameterDisposer;
+import ghost.framework.data.jdbc.core.ParameterizedPreparedStatementSetter;
+import ghost.framework.data.jdbc.datasource.DataSourceUtils;
+import ghost.framework.data.jdbc.support.JdbcUtils;
+import ghost.framework.util.Assert;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes an unbounded sequence of items with one SQL statement in JDBC batches of a fixed
+ * chunk size, so the whole input never has to be held in memory or sent as one batch.
+ *
+ * <p>Items are bound through a {@link ParameterizedPreparedStatementSetter} and the
+ * batch is executed every {@code chunkSize} items and on {@link #flush()} and
+ * {@link #close()}. With an {@link #setExecutor executor}, a chunk is executed on that
+ * executor while the next chunk is bound to a second statement on a second connection.
+ * The chunks are then written by two connections, so overlapping is meant for bulk
+ * imports outside of a transaction and each chunk commits according to the connection's
+ * auto-commit setting.
+ *
+ * <p>Obtained from {@link JdbcTemplate#batchWriter(String, int, ParameterizedPreparedStatementSetter)}.
+ * A writer is not thread-safe and must be closed to execute the last chunk and release
+ * its connections.
+ *
+ * @param <T> the item type
+ * @see JdbcTemplate#batchUpdate(String, java.util.Collection, int, ParameterizedPreparedStatementSetter)
+ */
+public class JdbcBatchWriter<T> implements AutoCloseable {
+
+	/**
+	 * Callback notified after every executed chunk.
+	 */
+	@FunctionalInterface
+	public interface ProgressListener {
+
+		/**
+		 * Called after a chunk was executed. With an executor, this is called on the
+		 * executor thread.
+		 * @param updateCounts the update counts of the chunk
+		 * @param totalRows the total number of items written so far
+		 */
+		void chunkWritten(int[] updateCounts, long totalRows);
+	}
+
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final String sql;
+
+	private final int chunkSize;
+
+	private final ParameterizedPreparedStatementSetter<T> pss;
+
+	@Nullable
+	private Executor executor;
+
+	@Nullable
+	private ProgressListener progressListener;
+
+	@SuppressWarnings("unchecked")
+	private final Lane[] lanes = new JdbcBatchWriter.Lane[2];
+
+	private int currentLane;
+
+	private final AtomicLong totalRows = new AtomicLong();
+
+	private boolean closed;
+
+
+	JdbcBatchWriter(JdbcTemplate jdbcTemplate, String sql, int chunkSize, ParameterizedPreparedStatementSetter<T> pss) {
+		Assert.hasText(sql, "SQL must not be empty");
+		Assert.isFalse(chunkSize > 0, "Chunk size must be positive");
+		Assert.notNull(pss, "ParameterizedPreparedStatementSetter must not be null");
+		this.jdbcTemplate = jdbcTemplate;
+		this.sql = sql;
+		this.chunkSize = chunkSize;
+		this.pss = pss;
+	}
+
+
+	/**
+	 * Set the executor that executes chunks while the next chunk is bound on a second
+	 * connection. Must be set before the first item is written. Default is none: every
+	 * chunk is executed by the writing thread.
+	 */
+	public void setExecutor(@Nullable Executor executor) {
+		Assert.state(this.lanes[0] == null, "Executor must be set before the first write");
+		this.executor = executor;
+	}
+
+	/**
+	 * Set the listener notified after every executed chunk.
+	 */
+	public void setProgressListener(@Nullable ProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * Return the number of items written so far, excluding items bound to a chunk that
+	 * has not been executed yet.
+	 */
+	public long getTotalRows() {
+		return this.totalRows.get();
+	}
+
+	/**
+	 * Bind an item and execute the chunk once it holds {@code chunkSize} items.
+	 * @param item the item to write
+	 * @throws DataAccessException if binding or executing fails
+	 */
+	public void write(T item) throws DataAccessException {
+		Assert.state(!this.closed, "JdbcBatchWriter is closed");
+		Lane lane = currentLane();
+		try {
+			this.pss.setValues(lane.ps, item);
+			if (!lane.batchSupported) {
+				chunkWritten(new int[] {lane.ps.executeUpdate()});
+				return;
+			}
+			lane.ps.addBatch();
+		}
+		catch (SQLException ex) {
+			throw new UncategorizedSQLException("JdbcBatchWriter", this.sql, ex);
+		}
+		if (++lane.pending >= this.chunkSize) {
+			executeChunk(lane);
+		}
+	}
+
+	/**
+	 * Write all the given items.
+	 * @param items the items to write
+	 * @throws DataAccessException if binding or executing fails
+	 */
+	public void writeAll(Iterable<? extends T> items) throws DataAccessException {
+		for (T item : items) {
+			write(item);
+		}
+	}
+
+	/**
+	 * Execute the current partial chunk and wait for all chunks in flight.
+	 * @throws DataAccessException if executing fails
+	 */
+	public void flush() throws DataAccessException {
+		Lane lane = this.lanes[this.currentLane];
+		if (lane != null && lane.pending > 0) {
+			executeChunk(lane);
+		}
+		for (Lane other : this.lanes) {
+			if (other != null) {
+				other.await();
+			}
+		}
+	}
+
+	/**
+	 * Flush the remaining items and release the statements and connections.
+	 * @throws DataAccessException if executing the remaining items fails
+	 */
+	@Override
+	public void close() throws DataAccessException {
+		if (this.closed) {
+			return;
+		}
+		try {
+			flush();
+		}
+		finally {
+			this.closed = true;
+			for (int i = 0; i < this.lanes.length; i++) {
+				Lane lane = this.lanes[i];
+				if (lane != null) {
+					lane.await0();
+					JdbcUtils.closeStatement(lane.ps);
+					DataSourceUtils.releaseConnection(lane.con, this.jdbcTemplate.getDataSource());
+					this.lanes[i] = null;
+				}
+			}
+			if (this.pss instanceof ParameterDisposer) {
+				((ParameterDisposer) this.pss).cleanupParameters();
+			}
+		}
+	}
+
+	/**
+	 * Return the lane to bind to, opening it and waiting for its chunk in flight.
+	 */
+	private Lane currentLane() {
+		Lane lane = this.lanes[this.currentLane];
+		if (lane == null) {
+			lane = new Lane();
+			this.lanes[this.currentLane] = lane;
+		}
+		else {
+			lane.await();
+		}
+		return lane;
+	}
+
+	/**
+	 * Execute the chunk of a lane, on the executor if there is one, in which case the
+	 * next chunk is bound to the other lane.
+	 */
+	private void executeChunk(Lane lane) {
+		lane.pending = 0;
+		if (this.executor == null) {
+			lane.executeBatch();
+			return;
+		}
+		lane.inFlight = CompletableFuture.runAsync(lane::executeBatch, this.executor);
+		this.currentLane ^= 1;
+	}
+
+	private void chunkWritten(int[] updateCounts) {
+		long total = this.totalRows.addAndGet(updateCounts.length);
+		ProgressListener listener = this.progressListener;
+		if (listener != null) {
+			listener.chunkWritten(updateCounts, total);
+		}
+	}
+
+
+	/**
+	 * A connection with the prepared statement bound to it.
+	 */
+	private class Lane {
+
+		private final Connection con;
+
+		private final PreparedStatement ps;
+
+		private final boolean batchSupported;
+
+		private int pending;
+
+		@Nullable
+		private CompletableFuture<Void> inFlight;
+
+		Lane() {
+			Connection con = null;
+			PreparedStatement ps = null;
+			try {
+				con = jdbcTemplate.obtainDataSource().getConnection();
+				ps = con.prepareStatement(sql);
+				jdbcTemplate.applyStatementSettings(ps);
+				this.batchSupported = JdbcUtils.supportsBatchUpdates(con);
+			}
+			catch (SQLException ex) {
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, jdbcTemplate.getDataSource());
+				throw new UncategorizedSQLException("JdbcBatchWriter", sql, ex);
+			}
+			this.con = con;
+			this.ps = ps;
+		}
+
+		void executeBatch() {
+			try {
+				int[] updateCounts = this.ps.executeBatch();
+				jdbcTemplate.handleWarnings(this.ps);
+				chunkWritten(updateCounts);
+			}
+			catch (SQLException ex) {
+				throw new UncategorizedSQLException("JdbcBatchWriter", sql, ex);
+			}
+		}
+
+		/**
+		 * Wait for the chunk in flight and rethrow its failure.
+		 */
+		void await() {
+			CompletableFuture<Void> inFlight = this.inFlight;
+			if (inFlight == null) {
+				return;
+			}
+			this.inFlight = null;
+			try {
+				inFlight.join();
+			}
+			catch (CompletionException ex) {
+				if (ex.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) ex.getCause();
+				}
+				throw ex;
+			}
+		}
+
+		/**
+		 * Wait for the chunk in flight, ignoring its failure.
+		 */
+		void await0() {
+			try {
+				await();
+			}
+			catch (RuntimeException ex) {
+				// closing after a failed flush: release the lane regardless
+			}
+		}
+	}
+
+}
@@ -35,6 +35,9 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * <b>This is the central class in the JDBC core package.</b>
@@ -587,6 +590,24 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action)
 			throws DataAccessException {
 
+		return execute(psc, action, true);
+	}
+
+	/**
+	 * Execute a JDBC data access operation on a PreparedStatement.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param action a callback that specifies the action
+	 * @param closeResources whether to close the statement and release the connection
+	 * once the action returns, {@code false} if the action hands them on to its result
+	 * (only closed in case of an exception: an {@link AutoCloseable} result that already
+	 * owns them is closed, otherwise the statement and connection are closed here)
+	 * @return a result object returned by the action, or {@code null} if none
+	 * @throws DataAccessException if there is any problem
+	 */
+	@Nullable
+	private <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action, boolean closeResources)
+			throws DataAccessException {
+
 		Assert.notNull(psc, "PreparedStatementCreator must not be null");
 		Assert.notNull(action, "Callback object must not be null");
 		if (logger.isDebugEnabled()) {
@@ -596,35 +617,71 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 
 		Connection con = null;//DataSourceUtils.getConnection(obtainDataSource());
 		PreparedStatement ps = null;
+		T result = null;
 		try {
 			con = obtainDataSource().getConnection();
 			ps = psc.createPreparedStatement(con);
 			applyStatementSettings(ps);
-			T result = action.doInPreparedStatement(ps);
+			result = action.doInPreparedStatement(ps);
 			handleWarnings(ps);
 			return result;
 		}
 		catch (SQLException ex) {
-			// Release Connection early, to avoid potential connection pool deadlock
-			// in the case when the exception translator hasn't been initialized yet.
-			if (psc instanceof ParameterDisposer) {
-				((ParameterDisposer) psc).cleanupParameters();
-			}
 			String sql = getSql(psc);
+			if (!closeResources && result instanceof AutoCloseable) {
+				closeResult(result);
+			}
+			else {
+				// Release Connection early, to avoid potential connection pool deadlock
+				// in the case when the exception translator hasn't been initialized yet.
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			}
 			psc = null;
-			JdbcUtils.closeStatement(ps);
 			ps = null;
-			DataSourceUtils.releaseConnection(con, getDataSource());
 			con = null;
 //			throw translateException("PreparedStatementCallback", sql, ex);
 			throw new UncategorizedSQLException(null, sql, ex);
 		}
+		catch (RuntimeException | Error ex) {
+			if (!closeResources) {
+				if (result instanceof AutoCloseable) {
+					closeResult(result);
+				}
+				else {
+					if (psc instanceof ParameterDisposer) {
+						((ParameterDisposer) psc).cleanupParameters();
+					}
+					JdbcUtils.closeStatement(ps);
+					DataSourceUtils.releaseConnection(con, getDataSource());
+				}
+			}
+			throw ex;
+		}
 		finally {
-			if (psc instanceof ParameterDisposer) {
-				((ParameterDisposer) psc).cleanupParameters();
+			if (closeResources) {
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
 			}
-			JdbcUtils.closeStatement(ps);
-			DataSourceUtils.releaseConnection(con, getDataSource());
+		}
+	}
+
+	/**
+	 * Close a result that owns the statement and connection of a failed operation.
+	 * @param result the result to close
+	 */
+	private void closeResult(Object result) {
+		try {
+			((AutoCloseable) result).close();
+		}
+		catch (Exception ex) {
+			logger.debug("Could not close result of failed statement", ex);
 		}
 	}
 
@@ -755,6 +812,78 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, args, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	/**
+	 * Query using a prepared statement, allowing for a PreparedStatementCreator
+	 * and a PreparedStatementSetter, mapping each row to a result object via a
+	 * RowMapper and exposing the rows as a lazily populated stream.
+	 * <p>The {@link #setFetchSize fetch size} is applied to the statement, so the
+	 * driver can stream large results. The statement and connection stay open
+	 * until the stream is closed, so it has to be closed after use, e.g. with
+	 * try-with-resources.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param pss a callback that knows how to set values on the prepared statement.
+	 * If this is {@code null}, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be closed
+	 * @throws DataAccessException if there is any problem
+	 */
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss,
+			RowMapper<T> rowMapper) throws DataAccessException {
+
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		Stream<T> result = execute(psc, ps -> {
+			ResultSet rs;
+			try {
+				if (pss != null) {
+					pss.setValues(ps);
+				}
+				rs = ps.executeQuery();
+			}
+			finally {
+				if (pss instanceof ParameterDisposer) {
+					((ParameterDisposer) pss).cleanupParameters();
+				}
+			}
+			try {
+				Connection con = ps.getConnection();
+				return StreamSupport.stream(new ResultSetSpliterator<>(rs, rowMapper), false).onClose(() -> {
+					JdbcUtils.closeResultSet(rs);
+					if (psc instanceof ParameterDisposer) {
+						((ParameterDisposer) psc).cleanupParameters();
+					}
+					JdbcUtils.closeStatement(ps);
+					DataSourceUtils.releaseConnection(con, getDataSource());
+				});
+			}
+			catch (SQLException | RuntimeException | Error ex) {
+				// execute closes the statement and connection
+				JdbcUtils.closeResultSet(rs);
+				throw ex;
+			}
+		}, false);
+		Assert.state(result != null, "No result stream");
+		return result;
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, RowMapper<T> rowMapper) throws DataAccessException {
+		return queryForStream(psc, null, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, @Nullable PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), pss, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper, @Nullable Object... args)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), newArgPreparedStatementSetter(args), rowMapper);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, Object[] args, int[] argTypes, RowMapper<T> rowMapper)
@@ -1054,6 +1183,14 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result;
 	}
 
+	@Override
+	public <T> JdbcBatchWriter<T> batchWriter(String sql, int chunkSize, ParameterizedPreparedStatementSetter<T> pss) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Opening SQL batch writer [" + sql + "] with a chunk size of " + chunkSize);
+		}
+		return new JdbcBatchWriter<>(this, sql, chunkSize, pss);
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with callable statements
@@ -1599,6 +1736,53 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+	/**
+	 * Spliterator for queryForStream adaptation of a ResultSet to a Stream.
+	 */
+	private static class ResultSetSpliterator<T> implements Spliterator<T> {
+
+		private final ResultSet rs;
+
+		private final RowMapper<T> rowMapper;
+
+		private int rowNum = 0;
+
+		public ResultSetSpliterator(ResultSet rs, RowMapper<T> rowMapper) {
+			this.rs = rs;
+			this.rowMapper = rowMapper;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			try {
+				if (this.rs.next()) {
+					action.accept(this.rowMapper.mapRow(this.rs, this.rowNum++));
+					return true;
+				}
+				return false;
+			}
+			catch (SQLException ex) {
+				throw new InvalidResultSetAccessException(ex);
+			}
+		}
+
+		@Override
+		@Nullable
+		public Spliterator<T> trySplit() {
+			return null;
+		}
+
+		@Override
+		public long estimateSize() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED;
+		}
+	}
+
 	/**
 	 * 判断表是否存在
 	 * @param tableName 表名称
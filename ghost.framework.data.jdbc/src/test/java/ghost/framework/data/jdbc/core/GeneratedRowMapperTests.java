@@ -0,0 +1,275 @@
+package ghost.framework.data.jdbc.core;
+
+import ghost.framework.data.dao.TypeMismatchDataAccessException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.data.jdbc.core
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link GeneratedRowMapper} 单元测试
+ * @Date: 2020/6/26:10:30
+ */
+public class GeneratedRowMapperTests {
+    private static final String[] COLUMNS = {"ID", "full_name", "AGE", "SCORE", "BALANCE", "STATUS", "LEVEL", "ACTIVE", "RATIO"};
+
+    @Test
+    public void mapsPrimitiveBoxedEnumFieldAndSetterProperties() throws Exception {
+        GeneratedRowMapper<Person> mapper = GeneratedRowMapper.newInstance(Person.class);
+        ResultSet rs = resultSet(COLUMNS, 7L, "Tom", 30, 95, 12.5D, "ACTIVE", "DISABLED", true, 0.5F);
+        Person person = mapper.mapRow(rs, 0);
+        assertThat(person.getId()).isEqualTo(7L);
+        assertThat(person.getFullName()).isEqualTo("Tom");
+        assertThat(person.age).isEqualTo(30);
+        assertThat(person.score).isEqualTo(95);
+        assertThat(person.getBalance()).isEqualTo(12.5D);
+        assertThat(person.getStatus()).isEqualTo(Status.ACTIVE);
+        assertThat(person.level).isEqualTo(Status.DISABLED);
+        assertThat(person.active).isTrue();
+        assertThat(person.getRatio()).isEqualTo(0.5F);
+    }
+
+    @Test
+    public void mapsNullColumns() throws Exception {
+        GeneratedRowMapper<Person> mapper = GeneratedRowMapper.newInstance(Person.class);
+        ResultSet rs = resultSet(COLUMNS, null, null, null, null, null, null, null, null, null);
+        Person person = mapper.mapRow(rs, 0);
+        //基本类型属性读取为默认值，其它类型属性读取为null
+        assertThat(person.getId()).isEqualTo(0L);
+        assertThat(person.getFullName()).isNull();
+        assertThat(person.age).isEqualTo(0);
+        assertThat(person.score).isNull();
+        assertThat(person.getBalance()).isNull();
+        assertThat(person.getStatus()).isNull();
+        assertThat(person.level).isNull();
+        assertThat(person.active).isFalse();
+        assertThat(person.getRatio()).isEqualTo(0F);
+    }
+
+    @Test
+    public void mapsEnumOrdinal() throws Exception {
+        GeneratedRowMapper<Person> mapper = GeneratedRowMapper.newInstance(Person.class);
+        Person person = mapper.mapRow(resultSet(new String[]{"STATUS", "LEVEL"}, 1, 0), 0);
+        assertThat(person.getStatus()).isEqualTo(Status.DISABLED);
+        assertThat(person.level).isEqualTo(Status.ACTIVE);
+    }
+
+    @Test
+    public void ignoresUnmappedAndDuplicateColumns() throws Exception {
+        GeneratedRowMapper<Person> mapper = GeneratedRowMapper.newInstance(Person.class);
+        Person first = mapper.mapRow(resultSet(new String[]{"AGE", "UNKNOWN", "age"}, 1, "x", 2), 0);
+        assertThat(first.age).isEqualTo(1);
+        //同一个映射器读取列不同的结果集
+        Person second = mapper.mapRow(resultSet(new String[]{"FULL_NAME"}, "Ann"), 0);
+        assertThat(second.getFullName()).isEqualTo("Ann");
+        assertThat(second.age).isEqualTo(0);
+    }
+
+    @Test
+    public void typeMismatch() {
+        GeneratedRowMapper<Token> mapper = GeneratedRowMapper.newInstance(Token.class);
+        assertThatThrownBy(() -> mapper.mapRow(resultSet(new String[]{"VALUE"}, "abc"), 0))
+                .isInstanceOf(TypeMismatchDataAccessException.class);
+    }
+
+    @Test
+    public void reflectiveMapperBeyondMaximumSignatures() throws Exception {
+        GeneratedRowMapper<Counter> mapper = GeneratedRowMapper.newInstance(Counter.class);
+        for (int i = 0; i < GeneratedRowMapper.MAXIMUM_GENERATED_MAPPERS * 2; i++) {
+            Counter counter = mapper.mapRow(resultSet(new String[]{"COUNT", "TOTAL", "NAME", "X" + i}, i, (long) i, "c" + i), 0);
+            assertThat(counter.count).isEqualTo(i);
+            assertThat(counter.getTotal()).isEqualTo(Long.valueOf(i));
+            assertThat(counter.getName()).isEqualTo("c" + i);
+            Counter nulls = mapper.mapRow(resultSet(new String[]{"COUNT", "TOTAL", "NAME", "X" + i}, null, null, null), 0);
+            assertThat(nulls.count).isEqualTo(0);
+            assertThat(nulls.getTotal()).isNull();
+            assertThat(nulls.getName()).isNull();
+        }
+        //超过上限的列签名不再生成映射类
+        assertThat(generatedMappers(Counter.class)).hasSize(GeneratedRowMapper.MAXIMUM_GENERATED_MAPPERS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, ?> generatedMappers(Class<?> mappedClass) throws Exception {
+        Field field = GeneratedRowMapper.class.getDeclaredField("mapperCache");
+        field.setAccessible(true);
+        return ((Map<Class<?>, Map<String, ?>>) field.get(null)).get(mappedClass);
+    }
+
+    /**
+     * 创建单行结果集
+     *
+     * @param columns 列名
+     * @param values  列值
+     * @return
+     */
+    private static ResultSet resultSet(String[] columns, Object... values) {
+        List<Object> row = new ArrayList<>(Arrays.asList(values));
+        boolean[] wasNull = new boolean[1];
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                GeneratedRowMapperTests.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return columns.length;
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return columns[(Integer) args[0] - 1];
+                        default:
+                            return null;
+                    }
+                });
+        return (ResultSet) Proxy.newProxyInstance(
+                GeneratedRowMapperTests.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    if ("getMetaData".equals(method.getName())) {
+                        return metaData;
+                    }
+                    if ("wasNull".equals(method.getName())) {
+                        return wasNull[0];
+                    }
+                    if (args == null || !(args[0] instanceof Integer)) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    Object value = row.get((Integer) args[0] - 1);
+                    wasNull[0] = value == null;
+                    Class<?> type = method.getReturnType();
+                    if ("getObject".equals(method.getName())) {
+                        if (args.length == 2 && value != null && !((Class<?>) args[1]).isInstance(value)) {
+                            throw new SQLFeatureNotSupportedException();
+                        }
+                        return value;
+                    }
+                    if (type == String.class) {
+                        return value == null ? null : value.toString();
+                    }
+                    if (type == boolean.class) {
+                        return value != null && (Boolean) value;
+                    }
+                    if (type.isPrimitive()) {
+                        Number number = value == null ? 0 : (Number) value;
+                        if (type == byte.class) {
+                            return number.byteValue();
+                        }
+                        if (type == short.class) {
+                            return number.shortValue();
+                        }
+                        if (type == int.class) {
+                            return number.intValue();
+                        }
+                        if (type == long.class) {
+                            return number.longValue();
+                        }
+                        if (type == float.class) {
+                            return number.floatValue();
+                        }
+                        return number.doubleValue();
+                    }
+                    if (type == BigDecimal.class) {
+                        return value;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    public enum Status {
+        ACTIVE,
+        DISABLED
+    }
+
+    public static class Person {
+        public int age;
+        public Integer score;
+        public Status level;
+        public boolean active;
+        private long id;
+        private String fullName;
+        private Double balance;
+        private Status status;
+        private float ratio;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getFullName() {
+            return fullName;
+        }
+
+        public void setFullName(String fullName) {
+            this.fullName = fullName;
+        }
+
+        public Double getBalance() {
+            return balance;
+        }
+
+        public void setBalance(Double balance) {
+            this.balance = balance;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public float getRatio() {
+            return ratio;
+        }
+
+        /**
+         * 链式设置函数，返回值需要出栈
+         */
+        public Person setRatio(float ratio) {
+            this.ratio = ratio;
+            return this;
+        }
+    }
+
+    public static class Token {
+        public UUID value;
+    }
+
+    public static class Counter {
+        public int count;
+        private Long total;
+        private String name;
+
+        public Long getTotal() {
+            return total;
+        }
+
+        public void setTotal(Long total) {
+            this.total = total;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
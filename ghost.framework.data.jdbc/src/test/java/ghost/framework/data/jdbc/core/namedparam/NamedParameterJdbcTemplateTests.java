@@ -0,0 +1,80 @@
+package ghost.framework.data.jdbc.core.namedparam;
+
+import ghost.framework.data.dao.InvalidDataAccessApiUsageException;
+import ghost.framework.data.jdbc.core.ParameterizedPreparedStatementSetter;
+import ghost.framework.data.jdbc.template.JdbcOperations;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.data.jdbc.core.namedparam
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link NamedParameterJdbcTemplate#batchWriter(String, int)} 单元测试
+ * @Date: 2020/6/27:15:10
+ */
+public class NamedParameterJdbcTemplateTests {
+    private final AtomicReference<String> sql = new AtomicReference<>();
+    private final AtomicReference<ParameterizedPreparedStatementSetter<SqlParameterSource>> setter = new AtomicReference<>();
+    private final List<Object> bound = new ArrayList<>();
+
+    /**
+     * 记录批量写入语句与参数设置的jdbc操作
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private NamedParameterJdbcTemplate template() {
+        JdbcOperations operations = (JdbcOperations) Proxy.newProxyInstance(JdbcOperations.class.getClassLoader(),
+                new Class<?>[]{JdbcOperations.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("batchWriter")) {
+                        sql.set((String) args[0]);
+                        setter.set((ParameterizedPreparedStatementSetter<SqlParameterSource>) args[2]);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new NamedParameterJdbcTemplate(operations);
+    }
+
+    private PreparedStatement preparedStatement() {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("set")) {
+                        bound.add(args[1]);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    public void batchWriterBindsScalarValues() throws Exception {
+        template().batchWriter("insert into t (a, b) values (:a, :b)", 10);
+        assertThat(sql.get()).isEqualTo("insert into t (a, b) values (?, ?)");
+        setter.get().setValues(preparedStatement(), new MapSqlParameterSource("a", 1).addValue("b", "x"));
+        assertThat(bound).containsExactly(1, "x");
+    }
+
+    @Test
+    public void batchWriterRejectsCollectionValues() {
+        template().batchWriter("delete from t where id in (:ids)", 10);
+        //语句只展开一次，集合参数不能按元素数量展开
+        assertThat(sql.get()).isEqualTo("delete from t where id in (?)");
+        assertThatThrownBy(() -> setter.get().setValues(preparedStatement(),
+                new MapSqlParameterSource("ids", Arrays.asList(1, 2))))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("'ids'");
+        assertThat(bound).isEmpty();
+    }
+}
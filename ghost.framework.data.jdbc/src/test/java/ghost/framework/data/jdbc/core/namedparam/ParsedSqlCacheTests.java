@@ -0,0 +1,145 @@
+package ghost.framework.data.jdbc.core.namedparam;
+
+import ghost.framework.data.jdbc.core.PreparedStatementCreatorFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.data.jdbc.core.namedparam
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link ParsedSqlCache} 单元测试
+ * @Date: 2020/6/27:14:20
+ */
+public class ParsedSqlCacheTests {
+    private static DataSource dataSource() {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static List<Integer> list(int size) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    @Test
+    public void cachesParsedSql() {
+        ParsedSqlCache cache = new ParsedSqlCache(4);
+        ParsedSql parsedSql = cache.getParsedSql("select * from t where id = :id");
+        assertThat(cache.getParsedSql("select * from t where id = :id")).isSameAs(parsedSql);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictsUnreferencedStatements() {
+        ParsedSqlCache cache = new ParsedSqlCache(2);
+        ParsedSql a = cache.getParsedSql("select a");
+        cache.getParsedSql("select b");
+        //读取过的语句在淘汰时保留一次
+        cache.getParsedSql("select a");
+        cache.getParsedSql("select c");
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.getParsedSql("select a")).isSameAs(a);
+        assertThat(cache.getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void setCacheLimitEvicts() {
+        ParsedSqlCache cache = new ParsedSqlCache(8);
+        for (int i = 0; i < 8; i++) {
+            cache.getParsedSql("select " + i);
+        }
+        cache.setCacheLimit(3);
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.getEvictionCount()).isEqualTo(5);
+        cache.setCacheLimit(0);
+        assertThat(cache.size()).isEqualTo(0);
+        //不缓存时每次都重新解析
+        assertThat(cache.getParsedSql("select 0")).isNotSameAs(cache.getParsedSql("select 0"));
+    }
+
+    @Test
+    public void sharedPerDataSource() {
+        DataSource dataSource = dataSource();
+        NamedParameterJdbcTemplate first = new NamedParameterJdbcTemplate(dataSource);
+        NamedParameterJdbcTemplate second = new NamedParameterJdbcTemplate(dataSource);
+        assertThat(first.getParsedSqlCache()).isSameAs(ParsedSqlCache.forDataSource(dataSource));
+        assertThat(second.getParsedSqlCache()).isSameAs(first.getParsedSqlCache());
+        assertThat(new NamedParameterJdbcTemplate(dataSource()).getParsedSqlCache()).isNotSameAs(first.getParsedSqlCache());
+        //设置上限时改用自己的缓存，不影响共享缓存
+        ParsedSqlCache shared = first.getParsedSqlCache();
+        first.setCacheLimit(10);
+        assertThat(first.getParsedSqlCache()).isNotSameAs(shared);
+        assertThat(first.getCacheLimit()).isEqualTo(10);
+        assertThat(second.getParsedSqlCache()).isSameAs(shared);
+        assertThat(shared.getCacheLimit()).isEqualTo(ParsedSqlCache.DEFAULT_CACHE_LIMIT);
+    }
+
+    @Test
+    public void reusesExpansionForSameShape() {
+        ParsedSqlCache cache = new ParsedSqlCache(4);
+        ParsedSql parsedSql = cache.getParsedSql("select * from t where id in (:ids)");
+        PreparedStatementCreatorFactory first = cache.getPreparedStatementCreatorFactory(parsedSql,
+                new MapSqlParameterSource("ids", list(3)));
+        PreparedStatementCreatorFactory second = cache.getPreparedStatementCreatorFactory(parsedSql,
+                new MapSqlParameterSource("ids", list(3)));
+        assertThat(first.getSql()).isEqualTo("select * from t where id in (?, ?, ?)");
+        assertThat(second.getSql()).isEqualTo(first.getSql());
+        assertThat(cache.getExpansionMissCount()).isEqualTo(1);
+        assertThat(cache.getExpansionHitCount()).isEqualTo(1);
+        //元素数量不同时重新展开
+        assertThat(cache.getPreparedStatementCreatorFactory(parsedSql, new MapSqlParameterSource("ids", list(1))).getSql())
+                .isEqualTo("select * from t where id in (?)");
+        assertThat(cache.getExpansionMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void capsExpansionsPerStatement() {
+        ParsedSqlCache cache = new ParsedSqlCache(4);
+        ParsedSql parsedSql = cache.getParsedSql("select * from t where id in (:ids)");
+        int count = ParsedSqlCache.MAX_EXPANSIONS_PER_STATEMENT + 8;
+        for (int size = 1; size <= count; size++) {
+            cache.getPreparedStatementCreatorFactory(parsedSql, new MapSqlParameterSource("ids", list(size)));
+        }
+        assertThat(parsedSql.getExpansions()).hasSize(ParsedSqlCache.MAX_EXPANSIONS_PER_STATEMENT);
+        //超过上限的展开不缓存，仍然返回正确的语句
+        PreparedStatementCreatorFactory factory = cache.getPreparedStatementCreatorFactory(parsedSql,
+                new MapSqlParameterSource("ids", list(count)));
+        assertThat(factory.getSql()).endsWith("?)");
+        assertThat(cache.getExpansionMissCount()).isEqualTo(count + 1);
+        assertThat(cache.getExpansionHitCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void tupleListsBypassExpansions() {
+        ParsedSqlCache cache = new ParsedSqlCache(4);
+        ParsedSql parsedSql = cache.getParsedSql("select * from t where (a, b) in (:pairs)");
+        List<Object[]> pairs = Collections.singletonList(new Object[]{1, 2});
+        assertThat(cache.getPreparedStatementCreatorFactory(parsedSql, new MapSqlParameterSource("pairs", pairs)).getSql())
+                .isEqualTo("select * from t where (a, b) in ((?, ?))");
+        assertThat(parsedSql.getExpansions()).isEmpty();
+    }
+}
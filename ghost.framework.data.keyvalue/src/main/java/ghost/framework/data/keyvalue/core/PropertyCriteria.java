@@ -0,0 +1,545 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.keyvalue.core;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.util.Assert;
+import ghost.framework.util.ObjectUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Criteria of a {@link ghost.framework.data.keyvalue.core.query.KeyValueQuery} expressed as a disjunction of
+ * conjunctions of property {@link Condition conditions}, mirroring the {@code Or}/{@code And} structure of derived
+ * query methods. Unlike {@link SpelCriteria}, every condition is compiled into a plain Java {@link Predicate} when its
+ * values are bound, and the structure can be inspected by a {@link QueryEngine} to pick an index.
+ * <p>
+ * Conditions may refer to query method parameters by index. Such criteria have to be {@link #bind(IntFunction) bound}
+ * before they can be {@link #test(Object) evaluated}; binding returns a new instance and leaves the parameterized
+ * template untouched, so it can be cached and bound again.
+ *
+ * @see ghost.framework.data.keyvalue.repository.query.PropertyQueryCreator
+ */
+public final class PropertyCriteria implements Predicate<Object> {
+
+	private static final PropertyCriteria ALL = new PropertyCriteria(Collections.emptyList(), null);
+
+	private final List<List<Condition>> orParts;
+	private final @Nullable Predicate<Object> predicate;
+
+	private PropertyCriteria(List<List<Condition>> orParts, @Nullable Predicate<Object> predicate) {
+
+		this.orParts = orParts;
+		this.predicate = predicate;
+	}
+
+	/**
+	 * Create new {@link PropertyCriteria} matching candidates that satisfy all {@link Condition conditions} of at least
+	 * one of the given {@code orParts}. No {@code orParts} at all match any candidate.
+	 *
+	 * @param orParts must not be {@literal null}.
+	 * @return never {@literal null}.
+	 */
+	public static PropertyCriteria of(List<List<Condition>> orParts) {
+
+		Assert.notNull(orParts, "Or parts must not be null!");
+
+		if (orParts.isEmpty()) {
+			return ALL;
+		}
+
+		List<List<Condition>> parts = new ArrayList<>(orParts.size());
+		for (List<Condition> andParts : orParts) {
+
+			Assert.notEmpty(andParts, "And parts must not be empty!");
+			parts.add(Collections.unmodifiableList(new ArrayList<>(andParts)));
+		}
+
+		return new PropertyCriteria(Collections.unmodifiableList(parts), null);
+	}
+
+	/**
+	 * Create new {@link PropertyCriteria} matching candidates that satisfy all given {@link Condition conditions}.
+	 *
+	 * @param conditions must not be {@literal null}.
+	 * @return never {@literal null}.
+	 */
+	public static PropertyCriteria where(Condition... conditions) {
+		return of(conditions.length == 0 ? Collections.emptyList() : Collections.singletonList(Arrays.asList(conditions)));
+	}
+
+	/**
+	 * Create new {@link PropertyCriteria} for an opaque {@link Predicate}. Such criteria cannot be used to select an
+	 * index.
+	 *
+	 * @param predicate must not be {@literal null}.
+	 * @return never {@literal null}.
+	 */
+	public static PropertyCriteria matching(Predicate<Object> predicate) {
+
+		Assert.notNull(predicate, "Predicate must not be null!");
+		return new PropertyCriteria(Collections.emptyList(), predicate);
+	}
+
+	/**
+	 * @return the {@code Or} parts, each holding {@code And} combined {@link Condition conditions}. Empty for criteria
+	 *         matching everything and for opaque criteria.
+	 */
+	public List<List<Condition>> getOrParts() {
+		return orParts;
+	}
+
+	/**
+	 * @return {@literal true} if the criteria is an opaque {@link Predicate} that cannot be inspected.
+	 */
+	public boolean isOpaque() {
+		return predicate != null;
+	}
+
+	/**
+	 * @return {@literal true} if all {@link Condition conditions} have their values bound.
+	 */
+	public boolean isBound() {
+
+		for (List<Condition> andParts : orParts) {
+			for (Condition condition : andParts) {
+				if (!condition.isBound()) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Bind the parameters referenced by {@link Condition conditions} to the values provided by the given function.
+	 * Conditions with literal values are kept as they are.
+	 *
+	 * @param parameters provides the value for a parameter index, must not be {@literal null}.
+	 * @return bound {@link PropertyCriteria}, never {@literal null}.
+	 */
+	public PropertyCriteria bind(IntFunction<Object> parameters) {
+
+		Assert.notNull(parameters, "Parameter function must not be null!");
+
+		if (!isParameterized()) {
+			return this;
+		}
+
+		List<List<Condition>> parts = new ArrayList<>(orParts.size());
+		for (List<Condition> andParts : orParts) {
+
+			List<Condition> conditions = new ArrayList<>(andParts.size());
+			for (Condition condition : andParts) {
+				conditions.add(condition.bind(parameters));
+			}
+			parts.add(Collections.unmodifiableList(conditions));
+		}
+
+		return new PropertyCriteria(Collections.unmodifiableList(parts), null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.function.Predicate#test(java.lang.Object)
+	 */
+	@Override
+	public boolean test(Object candidate) {
+
+		if (predicate != null) {
+			return predicate.test(candidate);
+		}
+
+		if (orParts.isEmpty()) {
+			return true;
+		}
+
+		for (List<Condition> andParts : orParts) {
+			if (matchesAll(andParts, candidate)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean matchesAll(List<Condition> conditions, Object candidate) {
+
+		for (Condition condition : conditions) {
+			if (!condition.test(candidate)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean isParameterized() {
+
+		for (List<Condition> andParts : orParts) {
+			for (Condition condition : andParts) {
+				if (condition.parameterIndexes != null) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Compare two property values the way SpEL relational operators do: {@literal null} is less than any other value,
+	 * numbers of different types are compared by value and everything else has to be {@link Comparable}.
+	 *
+	 * @param left can be {@literal null}.
+	 * @param right can be {@literal null}.
+	 * @return negative, zero or positive as {@code left} is less than, equal to or greater than {@code right}.
+	 * @throws IllegalArgumentException if the values cannot be compared.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static int compare(@Nullable Object left, @Nullable Object right) {
+
+		if (left == right) {
+			return 0;
+		}
+		if (left == null) {
+			return -1;
+		}
+		if (right == null) {
+			return 1;
+		}
+
+		if (left instanceof Number && right instanceof Number && left.getClass() != right.getClass()) {
+			return compareNumbers((Number) left, (Number) right);
+		}
+
+		if (left instanceof Comparable) {
+			try {
+				return ((Comparable) left).compareTo(right);
+			} catch (ClassCastException e) {
+				// fall through to exception below
+			}
+		}
+
+		throw new IllegalArgumentException(String.format("Cannot compare %s with %s!", left.getClass().getName(),
+				right.getClass().getName()));
+	}
+
+	private static int compareNumbers(Number left, Number right) {
+
+		if (isIntegral(left) && isIntegral(right)) {
+			return Long.compare(left.longValue(), right.longValue());
+		}
+
+		if (left instanceof BigDecimal || right instanceof BigDecimal || left instanceof BigInteger
+				|| right instanceof BigInteger) {
+			return toBigDecimal(left).compareTo(toBigDecimal(right));
+		}
+
+		return Double.compare(left.doubleValue(), right.doubleValue());
+	}
+
+	private static boolean isIntegral(Number number) {
+		return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
+	}
+
+	private static BigDecimal toBigDecimal(Number number) {
+
+		if (number instanceof BigDecimal) {
+			return (BigDecimal) number;
+		}
+		if (number instanceof BigInteger) {
+			return new BigDecimal((BigInteger) number);
+		}
+		if (isIntegral(number)) {
+			return BigDecimal.valueOf(number.longValue());
+		}
+		return BigDecimal.valueOf(number.doubleValue());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+
+		if (predicate != null) {
+			return predicate.toString();
+		}
+
+		return orParts.isEmpty() ? "true" : orParts.toString();
+	}
+
+	/**
+	 * Operators supported by a {@link Condition} along with the number of values they take.
+	 */
+	public enum Operator {
+
+		EQUALS(1), TRUE(0), FALSE(0), IS_NULL(0), IS_NOT_NULL(0), CONTAINS(1), STARTING_WITH(1), ENDING_WITH(1), //
+		GREATER_THAN(1), GREATER_THAN_EQUAL(1), LESS_THAN(1), LESS_THAN_EQUAL(1), BETWEEN(2), MATCHES(1), IN(1);
+
+		private final int arity;
+
+		Operator(int arity) {
+			this.arity = arity;
+		}
+
+		/**
+		 * @return the number of values the operator takes.
+		 */
+		public int getArity() {
+			return arity;
+		}
+	}
+
+	/**
+	 * A single condition on a property path. Values are either given as literals or as parameter indexes to be
+	 * {@link PropertyCriteria#bind(IntFunction) bound} later on.
+	 */
+	public static final class Condition implements Predicate<Object> {
+
+		private final PropertyPathAccessor accessor;
+		private final Operator operator;
+		private final @Nullable int[] parameterIndexes;
+		private final @Nullable Object[] values;
+		private final @Nullable Predicate<Object> valuePredicate;
+
+		private Condition(PropertyPathAccessor accessor, Operator operator, @Nullable int[] parameterIndexes,
+				@Nullable Object[] values) {
+
+			this.accessor = accessor;
+			this.operator = operator;
+			this.parameterIndexes = parameterIndexes;
+			this.values = values;
+			this.valuePredicate = values != null ? compile(operator, values) : null;
+		}
+
+		/**
+		 * Create a new {@link Condition} with literal values.
+		 *
+		 * @param path must not be {@literal null} or empty.
+		 * @param operator must not be {@literal null}.
+		 * @param values as many as the {@link Operator#getArity() operator} takes.
+		 * @return never {@literal null}.
+		 */
+		public static Condition of(String path, Operator operator, Object... values) {
+
+			Assert.notNull(operator, "Operator must not be null!");
+			Assert.isFalse(values.length == operator.getArity(),
+					() -> String.format("Operator %s takes %s value(s)!", operator, operator.getArity()));
+
+			return new Condition(PropertyPathAccessor.forPath(path), operator, null, values.clone());
+		}
+
+		/**
+		 * Create a new {@link Condition} referring to query method parameters.
+		 *
+		 * @param path must not be {@literal null} or empty.
+		 * @param operator must not be {@literal null}.
+		 * @param parameterIndexes as many as the {@link Operator#getArity() operator} takes.
+		 * @return never {@literal null}.
+		 */
+		public static Condition parameterized(String path, Operator operator, int... parameterIndexes) {
+
+			Assert.notNull(operator, "Operator must not be null!");
+			Assert.isFalse(parameterIndexes.length == operator.getArity(),
+					() -> String.format("Operator %s takes %s parameter(s)!", operator, operator.getArity()));
+
+			PropertyPathAccessor accessor = PropertyPathAccessor.forPath(path);
+
+			return parameterIndexes.length == 0 ? new Condition(accessor, operator, null, new Object[0])
+					: new Condition(accessor, operator, parameterIndexes.clone(), null);
+		}
+
+		Condition bind(IntFunction<Object> parameters) {
+
+			if (parameterIndexes == null) {
+				return this;
+			}
+
+			Object[] boundValues = new Object[parameterIndexes.length];
+			for (int i = 0; i < parameterIndexes.length; i++) {
+				boundValues[i] = parameters.apply(parameterIndexes[i]);
+			}
+
+			return new Condition(accessor, operator, parameterIndexes, boundValues);
+		}
+
+		/**
+		 * @return the property path, never {@literal null}.
+		 */
+		public String getPath() {
+			return accessor.getPath();
+		}
+
+		/**
+		 * @return the accessor for the property path, never {@literal null}.
+		 */
+		public PropertyPathAccessor getAccessor() {
+			return accessor;
+		}
+
+		/**
+		 * @return never {@literal null}.
+		 */
+		public Operator getOperator() {
+			return operator;
+		}
+
+		/**
+		 * @return {@literal true} if the values of this condition are known.
+		 */
+		public boolean isBound() {
+			return values != null;
+		}
+
+		/**
+		 * Return the bound value at the given index.
+		 *
+		 * @param index the value index.
+		 * @return can be {@literal null}.
+		 * @throws IllegalStateException if the condition is not bound.
+		 */
+		@Nullable
+		public Object getValue(int index) {
+
+			Assert.state(values != null, () -> String.format("Condition %s is not bound!", this));
+			return values[index];
+		}
+
+		/**
+		 * Return the bound values of an {@link Operator#IN} condition.
+		 *
+		 * @return never {@literal null}.
+		 * @throws IllegalStateException if the condition is not bound or not an {@link Operator#IN} condition.
+		 */
+		public Collection<?> getInValues() {
+
+			Assert.state(operator == Operator.IN, () -> String.format("Condition %s is not an IN condition!", this));
+			return toCollection(getValue(0));
+		}
+
+		/**
+		 * Evaluate the condition against the given candidate.
+		 *
+		 * @param candidate the object to read the property value from.
+		 * @return {@literal true} if the condition holds.
+		 * @throws IllegalStateException if the condition is not bound.
+		 */
+		@Override
+		public boolean test(Object candidate) {
+
+			Assert.state(valuePredicate != null, () -> String.format("Condition %s is not bound!", this));
+			return valuePredicate.test(accessor.getValue(candidate));
+		}
+
+		/**
+		 * Compile the operator and its values into a {@link Predicate} on the property value.
+		 */
+		private static Predicate<Object> compile(Operator operator, Object[] values) {
+
+			Object value = values.length > 0 ? values[0] : null;
+
+			switch (operator) {
+				case EQUALS:
+					return it -> it != null && it.equals(value);
+				case TRUE:
+					return Boolean.TRUE::equals;
+				case FALSE:
+					return Boolean.FALSE::equals;
+				case IS_NULL:
+					return it -> it == null;
+				case IS_NOT_NULL:
+					return it -> it != null;
+				case CONTAINS:
+					return it -> it instanceof CharSequence && value instanceof CharSequence
+							? it.toString().contains((CharSequence) value)
+							: it instanceof Collection && ((Collection<?>) it).contains(value);
+				case STARTING_WITH:
+					return it -> it instanceof String && value != null && ((String) it).startsWith(value.toString());
+				case ENDING_WITH:
+					return it -> it instanceof String && value != null && ((String) it).endsWith(value.toString());
+				case GREATER_THAN:
+					return it -> compare(it, value) > 0;
+				case GREATER_THAN_EQUAL:
+					return it -> compare(it, value) >= 0;
+				case LESS_THAN:
+					return it -> compare(it, value) < 0;
+				case LESS_THAN_EQUAL:
+					return it -> compare(it, value) <= 0;
+				case BETWEEN:
+					Object upper = values[1];
+					return it -> compare(it, value) > 0 && compare(it, upper) < 0;
+				case MATCHES:
+					if (value == null) {
+						return it -> false;
+					}
+					Pattern pattern = Pattern.compile(value.toString());
+					return it -> it != null && pattern.matcher(it.toString()).matches();
+				case IN:
+					Collection<?> candidates = toCollection(value);
+					return candidates::contains;
+				default:
+					throw new IllegalArgumentException(String.format("Unsupported operator %s!", operator));
+			}
+		}
+
+		/**
+		 * Turn the value of an {@link Operator#IN} condition into a {@link Collection}, hashing larger ones.
+		 */
+		private static Collection<?> toCollection(@Nullable Object value) {
+
+			Collection<?> collection;
+
+			if (value == null) {
+				collection = Collections.emptySet();
+			} else if (value instanceof Collection) {
+				collection = (Collection<?>) value;
+			} else if (ObjectUtils.isArray(value)) {
+				collection = Arrays.asList(ObjectUtils.toObjectArray(value));
+			} else {
+				collection = Collections.singleton(value);
+			}
+
+			return collection.size() > 8 && !(collection instanceof Set) ? new HashSet<>(collection) : collection;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+
+			String arguments = values != null ? Arrays.toString(values)
+					: parameterIndexes != null ? Arrays.toString(parameterIndexes) : "[]";
+			return String.format("%s %s %s", accessor.getPath(), operator, arguments);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.keyvalue.core;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.data.keyvalue.core.query.KeyValueQuery;
+import ghost.framework.expression.spel.standard.SpelExpressionParser;
+import ghost.framework.util.Assert;
+
+/**
+ * {@link CriteriaAccessor} resolving {@link PropertyCriteria}. Criteria given as SpEL (see {@link SpelCriteriaAccessor})
+ * are still supported and wrapped into an {@link PropertyCriteria#isOpaque() opaque} {@link PropertyCriteria}.
+ */
+public class PropertyCriteriaAccessor implements CriteriaAccessor<PropertyCriteria> {
+
+	private final SpelCriteriaAccessor spelCriteriaAccessor;
+
+	/**
+	 * Creates a new {@link PropertyCriteriaAccessor}.
+	 */
+	public PropertyCriteriaAccessor() {
+		this(new SpelExpressionParser());
+	}
+
+	/**
+	 * Creates a new {@link PropertyCriteriaAccessor} using the given {@link SpelExpressionParser} for SpEL criteria.
+	 *
+	 * @param parser must not be {@literal null}.
+	 */
+	public PropertyCriteriaAccessor(SpelExpressionParser parser) {
+		this.spelCriteriaAccessor = new SpelCriteriaAccessor(parser);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.keyvalue.core.CriteriaAccessor#resolve(ghost.framework.data.keyvalue.core.query.KeyValueQuery)
+	 */
+	@Nullable
+	@Override
+	public PropertyCriteria resolve(KeyValueQuery<?> query) {
+
+		if (query.getCriteria() == null) {
+			return null;
+		}
+
+		if (query.getCriteria() instanceof PropertyCriteria) {
+
+			PropertyCriteria criteria = (PropertyCriteria) query.getCriteria();
+			Assert.isFalse(criteria.isBound(), () -> String.format("Criteria %s is not bound!", criteria));
+			return criteria;
+		}
+
+		SpelCriteria spelCriteria = spelCriteriaAccessor.resolve(query);
+		return PropertyCriteria.matching(candidate -> SpelQueryEngine.evaluateExpression(spelCriteria, candidate));
+	}
+}
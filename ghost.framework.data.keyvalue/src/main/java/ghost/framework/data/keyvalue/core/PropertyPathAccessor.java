@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.keyvalue.core;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.util.Assert;
+import ghost.framework.util.ClassUtils;
+import ghost.framework.util.ConcurrentReferenceHashMap;
+import ghost.framework.util.ReflectionUtils;
+import ghost.framework.util.StringUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Null-safe reader for a dot-separated property path such as {@code address.city}. Each path segment is resolved once
+ * per concrete type to a getter (or field) reader and cached, so reading a value does not involve any expression
+ * evaluation. A {@literal null} value anywhere along the path yields {@literal null}, like the {@code ?.} navigation
+ * used by {@link SpelCriteria}.
+ */
+public final class PropertyPathAccessor {
+
+	private static final Map<String, PropertyPathAccessor> CACHE = new ConcurrentReferenceHashMap<>(64);
+
+	private final String path;
+	private final String[] segments;
+	private final List<Map<Class<?>, Function<Object, Object>>> readers;
+
+	private PropertyPathAccessor(String path) {
+
+		this.path = path;
+		this.segments = StringUtils.delimitedListToStringArray(path, ".");
+		this.readers = new ArrayList<>(segments.length);
+
+		for (int i = 0; i < segments.length; i++) {
+			this.readers.add(new ConcurrentHashMap<>(4));
+		}
+	}
+
+	/**
+	 * Obtain the (shared) {@link PropertyPathAccessor} for the given path.
+	 *
+	 * @param path must not be {@literal null} or empty.
+	 * @return never {@literal null}.
+	 */
+	public static PropertyPathAccessor forPath(String path) {
+
+		Assert.hasText(path, "Property path must not be null or empty!");
+		return CACHE.computeIfAbsent(path, PropertyPathAccessor::new);
+	}
+
+	/**
+	 * Read the property value from the given candidate.
+	 *
+	 * @param candidate can be {@literal null}.
+	 * @return the property value or {@literal null} if the candidate or any intermediate value is {@literal null}.
+	 * @throws IllegalArgumentException if a path segment cannot be resolved on the type at hand.
+	 */
+	@Nullable
+	public Object getValue(@Nullable Object candidate) {
+
+		Object current = candidate;
+
+		for (int i = 0; i < segments.length && current != null; i++) {
+
+			Object target = current;
+			int segment = i;
+			current = readers.get(i).computeIfAbsent(target.getClass(), type -> createReader(type, segments[segment]))
+					.apply(target);
+		}
+
+		return current;
+	}
+
+	/**
+	 * @return the property path, never {@literal null}.
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	private static Function<Object, Object> createReader(Class<?> type, String property) {
+
+		String capitalized = StringUtils.capitalize(property);
+		Method getter = ClassUtils.getMethodIfAvailable(type, "get" + capitalized);
+
+		if (getter == null) {
+			getter = ClassUtils.getMethodIfAvailable(type, "is" + capitalized);
+		}
+
+		if (getter != null && getter.getReturnType() != void.class) {
+
+			Method method = getter;
+			ReflectionUtils.makeAccessible(method);
+			return target -> ReflectionUtils.invokeMethod(method, target);
+		}
+
+		Field field = ReflectionUtils.findField(type, property);
+
+		if (field != null) {
+
+			ReflectionUtils.makeAccessible(field);
+			return target -> ReflectionUtils.getField(field, target);
+		}
+
+		throw new IllegalArgumentException(
+				String.format("No property '%s' found on type %s!", property, type.getName()));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return path;
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.keyvalue.core;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.data.domain.Sort;
+import ghost.framework.data.domain.Sort.Direction;
+import ghost.framework.data.domain.Sort.NullHandling;
+import ghost.framework.data.domain.Sort.Order;
+import ghost.framework.data.keyvalue.core.query.KeyValueQuery;
+
+import java.util.Comparator;
+
+/**
+ * {@link SortAccessor} handing out the {@link Sort} of a {@link KeyValueQuery} as is, so that a {@link QueryEngine} can
+ * match it against ordered indexes. {@link #comparator(Sort)} turns it into a {@link Comparator} reading properties via
+ * {@link PropertyPathAccessor}.
+ */
+public class PropertySortAccessor implements SortAccessor<Sort> {
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.keyvalue.core.SortAccessor#resolve(ghost.framework.data.keyvalue.core.query.KeyValueQuery)
+	 */
+	@Nullable
+	@Override
+	public Sort resolve(KeyValueQuery<?> query) {
+		return query.getSort().isUnsorted() ? null : query.getSort();
+	}
+
+	/**
+	 * Create a {@link Comparator} for the given {@link Sort}. Values are compared via
+	 * {@link PropertyCriteria#compare(Object, Object)}.
+	 *
+	 * @param sort must not be {@literal null}.
+	 * @return never {@literal null}.
+	 */
+	public static Comparator<Object> comparator(Sort sort) {
+
+		Comparator<Object> comparator = null;
+
+		for (Order order : sort) {
+
+			Comparator<Object> next = comparator(order);
+			comparator = comparator == null ? next : comparator.thenComparing(next);
+		}
+
+		if (comparator == null) {
+			throw new IllegalArgumentException("Sort must define at least one order!");
+		}
+
+		return comparator;
+	}
+
+	/**
+	 * Create a {@link Comparator} for a single {@link Order}.
+	 *
+	 * @param order must not be {@literal null}.
+	 * @return never {@literal null}.
+	 */
+	public static Comparator<Object> comparator(Order order) {
+
+		PropertyPathAccessor accessor = PropertyPathAccessor.forPath(order.getProperty());
+		boolean ascending = order.isAscending();
+		boolean nullsFirst = isNullsFirst(order);
+
+		return (left, right) -> {
+
+			Object leftValue = accessor.getValue(left);
+			Object rightValue = accessor.getValue(right);
+
+			if (leftValue == null || rightValue == null) {
+				return leftValue == rightValue ? 0 : (leftValue == null) == nullsFirst ? -1 : 1;
+			}
+
+			int result = PropertyCriteria.compare(leftValue, rightValue);
+			return ascending ? result : -result;
+		};
+	}
+
+	/**
+	 * Return whether {@literal null} values come first for the given {@link Order}. With
+	 * {@link NullHandling#NATIVE native} handling, {@literal null} is the smallest value.
+	 *
+	 * @param order must not be {@literal null}.
+	 * @return {@literal true} if {@literal null} values are ordered first.
+	 */
+	public static boolean isNullsFirst(Order order) {
+
+		if (NullHandling.NATIVE.equals(order.getNullHandling())) {
+			return Direction.ASC.equals(order.getDirection());
+		}
+
+		return NullHandling.NULLS_FIRST.equals(order.getNullHandling());
+	}
+}
@@ -97,7 +97,7 @@ class SpelQueryEngine extends QueryEngine<KeyValueAdapter, SpelCriteria, Compara
 		return stream.collect(Collectors.toList());
 	}
 
-	private static boolean evaluateExpression(SpelCriteria criteria, Object candidate) {
+	static boolean evaluateExpression(SpelCriteria criteria, Object candidate) {
 
 		try {
 			return criteria.getExpression().getValue(criteria.getContext(), candidate, Boolean.class);
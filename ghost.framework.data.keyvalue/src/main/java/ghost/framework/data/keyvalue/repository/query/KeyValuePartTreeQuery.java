@@ -22,6 +22,7 @@ import ghost.framework.data.domain.Pageable;
 import ghost.framework.data.domain.Sort;
 import ghost.framework.data.keyvalue.core.IterableConverter;
 import ghost.framework.data.keyvalue.core.KeyValueOperations;
+import ghost.framework.data.keyvalue.core.PropertyCriteria;
 import ghost.framework.data.keyvalue.core.SpelCriteria;
 import ghost.framework.data.keyvalue.core.query.KeyValueQuery;
 import ghost.framework.data.repository.query.*;
@@ -159,6 +160,8 @@ public class KeyValuePartTreeQuery implements RepositoryQuery {
 			EvaluationContext context = this.evaluationContextProvider.getEvaluationContext(getQueryMethod().getParameters(),
 					parameters);
 			criteria = new SpelCriteria(spelExpression, context);
+		} else if (criteria instanceof PropertyCriteria) {
+			criteria = ((PropertyCriteria) criteria).bind(accessor::getBindableValue);
 		}
 
 		KeyValueQuery<?> query = new KeyValueQuery(criteria);
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.keyvalue.repository.query;
+
+import ghost.framework.data.dao.InvalidDataAccessApiUsageException;
+import ghost.framework.data.domain.Sort;
+import ghost.framework.data.keyvalue.core.PropertyCriteria;
+import ghost.framework.data.keyvalue.core.PropertyCriteria.Condition;
+import ghost.framework.data.keyvalue.core.PropertyCriteria.Operator;
+import ghost.framework.data.keyvalue.core.query.KeyValueQuery;
+import ghost.framework.data.repository.query.ParameterAccessor;
+import ghost.framework.data.repository.query.parser.AbstractQueryCreator;
+import ghost.framework.data.repository.query.parser.Part;
+import ghost.framework.data.repository.query.parser.Part.IgnoreCaseType;
+import ghost.framework.data.repository.query.parser.PartTree;
+import ghost.framework.data.repository.query.parser.PartTree.OrPart;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * {@link AbstractQueryCreator} to create {@link PropertyCriteria} based {@link KeyValueQuery}s. Conditions refer to the
+ * query method parameters by index and get bound on execution, so the created query can be cached. Supports the same
+ * keywords as {@link SpelQueryCreator}.
+ *
+ * @see ghost.framework.data.map.MapQueryEngine
+ */
+public class PropertyQueryCreator extends AbstractQueryCreator<KeyValueQuery<PropertyCriteria>, String> {
+
+	private final PropertyCriteria criteria;
+
+	/**
+	 * Creates a new {@link PropertyQueryCreator} for the given {@link PartTree} and {@link ParameterAccessor}.
+	 *
+	 * @param tree must not be {@literal null}.
+	 * @param parameters must not be {@literal null}.
+	 */
+	public PropertyQueryCreator(PartTree tree, ParameterAccessor parameters) {
+
+		super(tree, parameters);
+
+		this.criteria = toCriteria(tree);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.repository.query.parser.AbstractQueryCreator#create(ghost.framework.data.repository.query.parser.Part, java.util.Iterator)
+	 */
+	@Override
+	protected String create(Part part, Iterator<Object> iterator) {
+		return "";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.repository.query.parser.AbstractQueryCreator#and(ghost.framework.data.repository.query.parser.Part, java.lang.Object, java.util.Iterator)
+	 */
+	@Override
+	protected String and(Part part, String base, Iterator<Object> iterator) {
+		return "";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.repository.query.parser.AbstractQueryCreator#or(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	protected String or(String base, String criteria) {
+		return "";
+	}
+
+	@Override
+	protected KeyValueQuery<PropertyCriteria> complete(String criteria, Sort sort) {
+
+		KeyValueQuery<PropertyCriteria> query = new KeyValueQuery<>(this.criteria);
+
+		if (sort.isSorted()) {
+			query.orderBy(sort);
+		}
+
+		return query;
+	}
+
+	protected PropertyCriteria toCriteria(PartTree tree) {
+
+		int parameterIndex = 0;
+		List<List<Condition>> orParts = new ArrayList<>();
+
+		for (OrPart orPart : tree) {
+
+			List<Condition> andParts = new ArrayList<>();
+
+			for (Part part : orPart) {
+
+				if (!part.shouldIgnoreCase().equals(IgnoreCaseType.NEVER)) {
+					throw new InvalidDataAccessApiUsageException("Ignore case not supported!");
+				}
+
+				Operator operator = toOperator(part);
+				int[] parameterIndexes = new int[operator.getArity()];
+
+				for (int i = 0; i < parameterIndexes.length; i++) {
+					parameterIndexes[i] = parameterIndex++;
+				}
+
+				andParts.add(Condition.parameterized(part.getProperty().toDotPath(), operator, parameterIndexes));
+			}
+
+			if (!andParts.isEmpty()) {
+				orParts.add(andParts);
+			}
+		}
+
+		return PropertyCriteria.of(orParts);
+	}
+
+	private static Operator toOperator(Part part) {
+
+		switch (part.getType()) {
+			case TRUE:
+				return Operator.TRUE;
+			case FALSE:
+				return Operator.FALSE;
+			case SIMPLE_PROPERTY:
+				return Operator.EQUALS;
+			case IS_NULL:
+				return Operator.IS_NULL;
+			case IS_NOT_NULL:
+				return Operator.IS_NOT_NULL;
+			case LIKE:
+				return Operator.CONTAINS;
+			case STARTING_WITH:
+				return Operator.STARTING_WITH;
+			case ENDING_WITH:
+				return Operator.ENDING_WITH;
+			case AFTER:
+			case GREATER_THAN:
+				return Operator.GREATER_THAN;
+			case GREATER_THAN_EQUAL:
+				return Operator.GREATER_THAN_EQUAL;
+			case BEFORE:
+			case LESS_THAN:
+				return Operator.LESS_THAN;
+			case LESS_THAN_EQUAL:
+				return Operator.LESS_THAN_EQUAL;
+			case BETWEEN:
+				return Operator.BETWEEN;
+			case REGEX:
+				return Operator.MATCHES;
+			case IN:
+				return Operator.IN;
+			case CONTAINING:
+			case NOT_CONTAINING:
+			case NEGATING_SIMPLE_PROPERTY:
+			case EXISTS:
+			default:
+				throw new InvalidDataAccessApiUsageException(String.format("Found invalid part '%s' in query",
+						part.getType()));
+		}
+	}
+}
@@ -0,0 +1,557 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.map;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.data.keyvalue.core.PropertyCriteria;
+import ghost.framework.data.keyvalue.core.PropertyCriteria.Condition;
+import ghost.framework.data.keyvalue.core.PropertyPathAccessor;
+import ghost.framework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Secondary index on a property path of the values held in a {@link MapKeyValueAdapter} key space, mapping property
+ * values to the ids of the entries holding them. Lookups answer a {@link Condition} with candidate ids; as indexes are
+ * maintained next to (not atomically with) the key space map, candidates have to be checked against the
+ * {@link Condition} again before being returned to the caller.
+ *
+ * @see MapKeyValueAdapter#addIndex(String, String, Type)
+ */
+public abstract class KeySpaceIndex {
+
+	/**
+	 * Supported index types.
+	 */
+	public enum Type {
+
+		/**
+		 * Hash index answering equality, {@literal IN}, boolean and {@literal null} conditions.
+		 */
+		HASH,
+
+		/**
+		 * Sorted index additionally answering range and prefix conditions and providing the order for sorting by the
+		 * indexed property. Property values should be {@link Comparable}.
+		 */
+		SORTED
+	}
+
+	private static final Object NULL = new Object();
+
+	private final PropertyPathAccessor accessor;
+	private final ConcurrentMap<Object, Object> slots = new ConcurrentHashMap<>();
+
+	KeySpaceIndex(String path) {
+		this.accessor = PropertyPathAccessor.forPath(path);
+	}
+
+	static KeySpaceIndex create(String path, Type type) {
+
+		Assert.notNull(type, "Index type must not be null!");
+		return type == Type.SORTED ? new SortedIndex(path) : new HashIndex(path);
+	}
+
+	/**
+	 * @return the indexed property path.
+	 */
+	public String getPath() {
+		return accessor.getPath();
+	}
+
+	/**
+	 * @return the {@link Type} of this index.
+	 */
+	public abstract Type getType();
+
+	/**
+	 * Index the given entry value under its id. The slot the id was indexed under before (if any) is kept until
+	 * {@link #release(Object, Object) released}, so that the entry can be found by either value while the key space map
+	 * is updated. Callers have to hold the lock for the id. A value the property path cannot be resolved on is indexed
+	 * like a {@literal null} property value, so that a write never fails half way through updating the indexes.
+	 *
+	 * @param id the entry id.
+	 * @param item the new entry value.
+	 * @return the previous slot to release once the key space map holds the new value, {@literal null} if none.
+	 */
+	@Nullable
+	Object add(Object id, Object item) {
+
+		Object key = slotKey(readValue(item));
+		Object previous = slots.get(id);
+
+		if (previous != null && isSameSlot(previous, key)) {
+			return null;
+		}
+
+		slots.put(id, addToSlot(key, id));
+		return previous;
+	}
+
+	/**
+	 * Drop the id from a slot returned by {@link #add(Object, Object)} unless it is still indexed there.
+	 */
+	void release(Object id, Object slot) {
+
+		Object current = slots.get(id);
+
+		if (current == null || !isSameSlot(current, slot)) {
+			removeFromSlot(slot, id);
+		}
+	}
+
+	/**
+	 * Remove the id from the index. Callers have to hold the lock for the id.
+	 */
+	void remove(Object id) {
+
+		Object slot = slots.remove(id);
+
+		if (slot != null) {
+			removeFromSlot(slot, id);
+		}
+	}
+
+	void clear() {
+
+		slots.clear();
+		clearSlots();
+	}
+
+	/**
+	 * Return the slot key for a property value.
+	 */
+	abstract Object slotKey(@Nullable Object value);
+
+	/**
+	 * Return whether both slot keys denote the same slot.
+	 */
+	abstract boolean isSameSlot(Object left, Object right);
+
+	/**
+	 * Add the id to the slot for the given key.
+	 *
+	 * @return the slot the id was actually added to.
+	 */
+	abstract Object addToSlot(Object key, Object id);
+
+	abstract void removeFromSlot(Object slot, Object id);
+
+	abstract void clearSlots();
+
+	/**
+	 * Estimate the number of ids {@link #lookup(Condition)} returns for the given {@link Condition}.
+	 *
+	 * @param condition the bound condition.
+	 * @param total the number of entries in the key space.
+	 * @return the estimate or {@literal -1} if the index cannot answer the condition.
+	 */
+	abstract long estimate(Condition condition, long total);
+
+	/**
+	 * Look up the candidate ids for the given {@link Condition}.
+	 *
+	 * @param condition the bound condition.
+	 * @return candidate ids or {@literal null} if the index cannot answer the condition.
+	 */
+	@Nullable
+	abstract Collection<Object> lookup(Condition condition);
+
+	@Nullable
+	private Object readValue(Object item) {
+
+		try {
+			return accessor.getValue(item);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private static Object maskNull(@Nullable Object value) {
+		return value == null ? NULL : value;
+	}
+
+	/**
+	 * Add the id to the bucket for the given key, creating the bucket if necessary.
+	 */
+	private static <K> void addToBucket(ConcurrentMap<K, Set<Object>> buckets, K key, Object id) {
+
+		buckets.compute(key, (it, ids) -> {
+
+			Set<Object> bucket = ids != null ? ids : ConcurrentHashMap.newKeySet();
+			bucket.add(id);
+			return bucket;
+		});
+	}
+
+	/**
+	 * Remove the id from the bucket for the given key, dropping the bucket once empty.
+	 */
+	private static <K> void removeFromBucket(ConcurrentMap<K, Set<Object>> buckets, K key, Object id) {
+
+		buckets.computeIfPresent(key, (it, ids) -> {
+
+			ids.remove(id);
+			return ids.isEmpty() ? null : ids;
+		});
+	}
+
+	private static long sizeOf(@Nullable Collection<?> ids) {
+		return ids != null ? ids.size() : 0;
+	}
+
+	/**
+	 * {@link KeySpaceIndex} based on a {@link ConcurrentHashMap}.
+	 */
+	static class HashIndex extends KeySpaceIndex {
+
+		private final ConcurrentMap<Object, Set<Object>> buckets = new ConcurrentHashMap<>();
+
+		HashIndex(String path) {
+			super(path);
+		}
+
+		@Override
+		public Type getType() {
+			return Type.HASH;
+		}
+
+		@Override
+		Object slotKey(@Nullable Object value) {
+			return maskNull(value);
+		}
+
+		@Override
+		boolean isSameSlot(Object left, Object right) {
+			return left.equals(right);
+		}
+
+		@Override
+		Object addToSlot(Object key, Object id) {
+
+			addToBucket(buckets, key, id);
+			return key;
+		}
+
+		@Override
+		void removeFromSlot(Object slot, Object id) {
+			removeFromBucket(buckets, slot, id);
+		}
+
+		@Override
+		void clearSlots() {
+			buckets.clear();
+		}
+
+		@Override
+		long estimate(Condition condition, long total) {
+
+			switch (condition.getOperator()) {
+				case EQUALS:
+					return condition.getValue(0) == null ? 0 : sizeOf(buckets.get(condition.getValue(0)));
+				case TRUE:
+					return sizeOf(buckets.get(Boolean.TRUE));
+				case FALSE:
+					return sizeOf(buckets.get(Boolean.FALSE));
+				case IS_NULL:
+					return sizeOf(buckets.get(NULL));
+				case IN:
+					long estimate = 0;
+					for (Object value : condition.getInValues()) {
+						estimate += sizeOf(buckets.get(maskNull(value)));
+					}
+					return estimate;
+				default:
+					return -1;
+			}
+		}
+
+		@Nullable
+		@Override
+		Collection<Object> lookup(Condition condition) {
+
+			switch (condition.getOperator()) {
+				case EQUALS:
+					return condition.getValue(0) == null ? Collections.emptySet() : bucket(condition.getValue(0));
+				case TRUE:
+					return bucket(Boolean.TRUE);
+				case FALSE:
+					return bucket(Boolean.FALSE);
+				case IS_NULL:
+					return bucket(NULL);
+				case IN:
+					List<Object> ids = new ArrayList<>();
+					for (Object value : condition.getInValues()) {
+						ids.addAll(bucket(maskNull(value)));
+					}
+					return ids;
+				default:
+					return null;
+			}
+		}
+
+		private Collection<Object> bucket(Object key) {
+
+			Set<Object> ids = buckets.get(key);
+			return ids != null ? ids : Collections.emptySet();
+		}
+	}
+
+	/**
+	 * {@link KeySpaceIndex} based on a {@link ConcurrentSkipListMap} ordered by
+	 * {@link PropertyCriteria#compare(Object, Object)}. {@literal null} values and values that cannot be compared to the
+	 * others are kept aside.
+	 */
+	static class SortedIndex extends KeySpaceIndex {
+
+		private static final Object UNORDERED = new Object();
+
+		private final ConcurrentSkipListMap<Object, Set<Object>> buckets = new ConcurrentSkipListMap<>(
+				PropertyCriteria::compare);
+		private final Set<Object> nulls = ConcurrentHashMap.newKeySet();
+		private final Set<Object> unordered = ConcurrentHashMap.newKeySet();
+
+		SortedIndex(String path) {
+			super(path);
+		}
+
+		@Override
+		public Type getType() {
+			return Type.SORTED;
+		}
+
+		@Override
+		Object slotKey(@Nullable Object value) {
+			return value == null ? NULL : value instanceof Comparable ? value : UNORDERED;
+		}
+
+		@Override
+		boolean isSameSlot(Object left, Object right) {
+
+			if (left == right) {
+				return true;
+			}
+
+			if (left == NULL || left == UNORDERED || right == NULL || right == UNORDERED) {
+				return false;
+			}
+
+			try {
+				return PropertyCriteria.compare(left, right) == 0;
+			} catch (IllegalArgumentException e) {
+				return false;
+			}
+		}
+
+		@Override
+		Object addToSlot(Object key, Object id) {
+
+			if (key == NULL) {
+				nulls.add(id);
+				return NULL;
+			}
+
+			if (key != UNORDERED) {
+				try {
+					addToBucket(buckets, key, id);
+					return key;
+				} catch (IllegalArgumentException e) {
+					// not comparable to the values indexed so far
+				}
+			}
+
+			unordered.add(id);
+			return UNORDERED;
+		}
+
+		@Override
+		void removeFromSlot(Object slot, Object id) {
+
+			if (slot == NULL) {
+				nulls.remove(id);
+			} else if (slot == UNORDERED) {
+				unordered.remove(id);
+			} else {
+				removeFromBucket(buckets, slot, id);
+			}
+		}
+
+		@Override
+		void clearSlots() {
+
+			buckets.clear();
+			nulls.clear();
+			unordered.clear();
+		}
+
+		@Override
+		long estimate(Condition condition, long total) {
+
+			switch (condition.getOperator()) {
+				case EQUALS:
+				case TRUE:
+				case FALSE:
+				case IS_NULL:
+				case IN:
+					Collection<Object> ids = lookup(condition);
+					return ids != null ? ids.size() : -1;
+				case GREATER_THAN:
+				case GREATER_THAN_EQUAL:
+				case LESS_THAN:
+				case LESS_THAN_EQUAL:
+					return condition.getValue(0) != null ? total / 3 : -1;
+				case BETWEEN:
+					return condition.getValue(0) != null && condition.getValue(1) != null ? total / 4 : -1;
+				case STARTING_WITH:
+					return condition.getValue(0) instanceof String ? total / 10 : -1;
+				default:
+					return -1;
+			}
+		}
+
+		@Nullable
+		@Override
+		Collection<Object> lookup(Condition condition) {
+
+			try {
+				return doLookup(condition);
+			} catch (IllegalArgumentException e) {
+				// condition value not comparable to the indexed values
+				return null;
+			}
+		}
+
+		@Nullable
+		private Collection<Object> doLookup(Condition condition) {
+
+			Object value = condition.getOperator().getArity() > 0 ? condition.getValue(0) : null;
+
+			switch (condition.getOperator()) {
+				case EQUALS:
+					return value == null ? Collections.emptySet() : withUnordered(bucket(value));
+				case TRUE:
+					return withUnordered(bucket(Boolean.TRUE));
+				case FALSE:
+					return withUnordered(bucket(Boolean.FALSE));
+				case IS_NULL:
+					return nulls;
+				case IN:
+					List<Object> ids = new ArrayList<>();
+					for (Object candidate : condition.getInValues()) {
+						if (candidate == null) {
+							ids.addAll(nulls);
+						} else {
+							ids.addAll(bucket(candidate));
+						}
+					}
+					return withUnordered(ids);
+				case GREATER_THAN:
+				case GREATER_THAN_EQUAL:
+					if (value == null) {
+						return null;
+					}
+					return flatten(buckets.tailMap(value, condition.getOperator() == PropertyCriteria.Operator.GREATER_THAN_EQUAL),
+							null);
+				case LESS_THAN:
+				case LESS_THAN_EQUAL:
+					if (value == null) {
+						return null;
+					}
+					// null compares lower than anything else
+					return flatten(buckets.headMap(value, condition.getOperator() == PropertyCriteria.Operator.LESS_THAN_EQUAL),
+							nulls);
+				case BETWEEN:
+					Object upper = condition.getValue(1);
+					if (value == null || upper == null) {
+						return null;
+					}
+					if (PropertyCriteria.compare(value, upper) >= 0) {
+						return withUnordered(Collections.emptyList());
+					}
+					return flatten(buckets.subMap(value, false, upper, false), null);
+				case STARTING_WITH:
+					if (!(value instanceof String)) {
+						return null;
+					}
+					String prefix = (String) value;
+					return flatten(buckets.subMap(prefix, true, prefix + Character.MAX_VALUE, false), null);
+				default:
+					return null;
+			}
+		}
+
+		/**
+		 * Return the ids in index order.
+		 *
+		 * @param ascending whether to iterate the values in ascending order.
+		 * @param nullsFirst whether ids of {@literal null} values come first.
+		 * @return never {@literal null}.
+		 */
+		Stream<Object> ids(boolean ascending, boolean nullsFirst) {
+
+			NavigableMap<Object, Set<Object>> ordered = ascending ? buckets : buckets.descendingMap();
+			Stream<Object> values = ordered.values().stream().flatMap(Set::stream);
+
+			Stream<Object> withNulls = nullsFirst ? Stream.concat(nulls.stream(), values)
+					: Stream.concat(values, nulls.stream());
+			return Stream.concat(withNulls, unordered.stream());
+		}
+
+		private Collection<Object> bucket(Object key) {
+
+			Set<Object> ids = buckets.get(key);
+			return ids != null ? ids : Collections.emptySet();
+		}
+
+		private Collection<Object> withUnordered(Collection<Object> ids) {
+
+			if (unordered.isEmpty()) {
+				return ids;
+			}
+
+			List<Object> result = new ArrayList<>(ids.size() + unordered.size());
+			result.addAll(ids);
+			result.addAll(unordered);
+			return result;
+		}
+
+		private Collection<Object> flatten(NavigableMap<Object, Set<Object>> range, @Nullable Set<Object> extra) {
+
+			List<Object> result = new ArrayList<>();
+
+			if (extra != null) {
+				result.addAll(extra);
+			}
+
+			for (Iterator<Set<Object>> it = range.values().iterator(); it.hasNext();) {
+				result.addAll(it.next());
+			}
+
+			result.addAll(unordered);
+			return result;
+		}
+	}
+}
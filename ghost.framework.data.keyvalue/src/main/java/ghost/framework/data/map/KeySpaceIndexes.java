@@ -0,0 +1,260 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.map;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.data.keyvalue.core.PropertyCriteria;
+import ghost.framework.data.keyvalue.core.PropertyCriteria.Condition;
+import ghost.framework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@link KeySpaceIndex indexes} declared for a single key space along with the lock stripes guarding updates. Every
+ * write to the key space goes through this class, also while no index is declared, so an index added later is populated
+ * while holding all lock stripes and cannot miss a concurrent write.
+ * Writes to an id are serialized through its lock stripe and update the indexes in two phases: the new value is indexed
+ * before the key space map is updated and the previous index slot is released afterwards. Readers do not lock; an
+ * entry being updated can be found by its previous as well as its new value, and callers re-check candidates against
+ * the actual value held by the map.
+ */
+final class KeySpaceIndexes {
+
+	private static final int LOCK_STRIPES = 64;
+
+	private final List<KeySpaceIndex> indexes = new CopyOnWriteArrayList<>();
+	private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+	KeySpaceIndexes() {
+
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Register a new index and populate it from the given key space map. Writes are blocked meanwhile.
+	 */
+	void addIndex(KeySpaceIndex index, Map<Object, Object> keySpace) {
+
+		lockAll();
+		try {
+
+			for (KeySpaceIndex existing : indexes) {
+				Assert.isFalse(!existing.getPath().equals(index.getPath()) || existing.getType() != index.getType(),
+						() -> String.format("Index of type %s for '%s' already defined!", index.getType(), index.getPath()));
+			}
+
+			for (Map.Entry<Object, Object> entry : keySpace.entrySet()) {
+				index.add(entry.getKey(), entry.getValue());
+			}
+
+			indexes.add(index);
+		} finally {
+			unlockAll();
+		}
+	}
+
+	List<KeySpaceIndex> getIndexes() {
+		return indexes;
+	}
+
+	/**
+	 * Put the item into the key space map, maintaining all indexes.
+	 */
+	@Nullable
+	Object put(Object id, Object item, Map<Object, Object> keySpace) {
+
+		ReentrantLock lock = lockFor(id);
+		lock.lock();
+		try {
+
+			// addIndex() holds all locks, so the index list is stable here
+			Object[] previousSlots = new Object[indexes.size()];
+
+			for (int i = 0; i < previousSlots.length; i++) {
+				previousSlots[i] = indexes.get(i).add(id, item);
+			}
+
+			Object previous = keySpace.put(id, item);
+
+			for (int i = 0; i < previousSlots.length; i++) {
+				if (previousSlots[i] != null) {
+					indexes.get(i).release(id, previousSlots[i]);
+				}
+			}
+
+			return previous;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Remove the entry with the given id from the key space map and all indexes.
+	 */
+	@Nullable
+	Object remove(Object id, Map<Object, Object> keySpace) {
+
+		ReentrantLock lock = lockFor(id);
+		lock.lock();
+		try {
+
+			Object previous = keySpace.remove(id);
+
+			for (KeySpaceIndex index : indexes) {
+				index.remove(id);
+			}
+
+			return previous;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Clear the key space map and all indexes. Index declarations are retained.
+	 */
+	void clear(Map<Object, Object> keySpace) {
+
+		lockAll();
+		try {
+
+			keySpace.clear();
+
+			for (KeySpaceIndex index : indexes) {
+				index.clear();
+			}
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Plan the lookup of candidate ids for the given {@link PropertyCriteria}. Each {@code Or} part has to be answered
+	 * by the index promising the fewest candidates for one of its conditions.
+	 *
+	 * @param criteria bound criteria.
+	 * @param total the number of entries in the key space.
+	 * @return candidate ids or {@literal null} if the key space has to be scanned.
+	 */
+	@Nullable
+	Collection<Object> candidates(PropertyCriteria criteria, long total) {
+
+		if (indexes.isEmpty() || criteria.isOpaque() || criteria.getOrParts().isEmpty()) {
+			return null;
+		}
+
+		List<KeySpaceIndex> chosenIndexes = new ArrayList<>(criteria.getOrParts().size());
+		List<Condition> chosenConditions = new ArrayList<>(criteria.getOrParts().size());
+		long estimate = 0;
+
+		for (List<Condition> andParts : criteria.getOrParts()) {
+
+			KeySpaceIndex bestIndex = null;
+			Condition bestCondition = null;
+			long bestEstimate = Long.MAX_VALUE;
+
+			for (Condition condition : andParts) {
+				for (KeySpaceIndex index : indexes) {
+
+					if (!index.getPath().equals(condition.getPath())) {
+						continue;
+					}
+
+					long candidateEstimate = index.estimate(condition, total);
+					if (candidateEstimate >= 0 && candidateEstimate < bestEstimate) {
+
+						bestIndex = index;
+						bestCondition = condition;
+						bestEstimate = candidateEstimate;
+					}
+				}
+			}
+
+			if (bestIndex == null) {
+				return null;
+			}
+
+			chosenIndexes.add(bestIndex);
+			chosenConditions.add(bestCondition);
+			estimate += bestEstimate;
+		}
+
+		// looking up more than half of the entries by id is not cheaper than a scan
+		if (estimate > total / 2) {
+			return null;
+		}
+
+		if (chosenIndexes.size() == 1) {
+			return chosenIndexes.get(0).lookup(chosenConditions.get(0));
+		}
+
+		Set<Object> ids = new LinkedHashSet<>();
+		for (int i = 0; i < chosenIndexes.size(); i++) {
+
+			Collection<Object> lookup = chosenIndexes.get(i).lookup(chosenConditions.get(i));
+			if (lookup == null) {
+				return null;
+			}
+			ids.addAll(lookup);
+		}
+
+		return ids;
+	}
+
+	/**
+	 * Return the sorted index for the given property path, if any.
+	 */
+	@Nullable
+	KeySpaceIndex.SortedIndex getSortedIndex(String path) {
+
+		for (KeySpaceIndex index : indexes) {
+			if (index instanceof KeySpaceIndex.SortedIndex && index.getPath().equals(path)) {
+				return (KeySpaceIndex.SortedIndex) index;
+			}
+		}
+
+		return null;
+	}
+
+	private ReentrantLock lockFor(Object id) {
+
+		int hash = id.hashCode();
+		return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+	}
+
+	private void lockAll() {
+
+		for (ReentrantLock lock : locks) {
+			lock.lock();
+		}
+	}
+
+	private void unlockAll() {
+
+		for (int i = locks.length - 1; i >= 0; i--) {
+			locks[i].unlock();
+		}
+	}
+}
@@ -15,6 +15,7 @@
  */
 package ghost.framework.data.map;
 
+import ghost.framework.beans.annotation.constraints.Nullable;
 import ghost.framework.context.CollectionFactory;
 import ghost.framework.data.keyvalue.core.AbstractKeyValueAdapter;
 import ghost.framework.data.keyvalue.core.ForwardingCloseableIterator;
@@ -29,6 +30,11 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * {@link KeyValueAdapter} implementation for {@link Map}.
+ * <p>
+ * Queries are executed by a {@link MapQueryEngine} which makes use of the {@link KeySpaceIndex indexes} declared via
+ * {@link #addIndex(String, String, KeySpaceIndex.Type)}. Indexes are only maintained for writes going through the
+ * adapter. Every key space has its {@link KeySpaceIndexes} from the first access on, so all writes are serialized with
+ * index declarations through the same lock stripes, and key space maps are cleared in place rather than dropped.
  *
  * @author Christoph Strobl
  * @author Derek Cochran
@@ -37,6 +43,7 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 	@SuppressWarnings("rawtypes") //
 	private final Class<? extends Map> keySpaceMapType;
 	private final Map<String, Map<Object, Object>> store;
+	private final Map<String, KeySpaceIndexes> indexes = new ConcurrentHashMap<>();
 
 	/**
 	 * Create new {@link MapKeyValueAdapter} using {@link ConcurrentHashMap} as backing store type.
@@ -74,6 +81,8 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 	@SuppressWarnings("rawtypes")
 	private MapKeyValueAdapter(Map<String, Map<Object, Object>> store, Class<? extends Map> keySpaceMapType) {
 
+		super(new MapQueryEngine());
+
 		Assert.notNull(store, "Store must not be null.");
 		Assert.notNull(keySpaceMapType, "Map type to be used for key spaces must not be null!");
 
@@ -91,7 +100,7 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 		Assert.notNull(id, "Cannot add item with null id.");
 		Assert.notNull(keyspace, "Cannot add item for null collection.");
 
-		return getKeySpaceMap(keyspace).put(id, item);
+		return getOrCreateKeySpaceIndexes(keyspace).put(id, item, getKeySpaceMap(keyspace));
 	}
 
 	/*
@@ -130,7 +139,8 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 	public Object delete(Object id, String keyspace) {
 
 		Assert.notNull(id, "Cannot delete item with null id.");
-		return getKeySpaceMap(keyspace).remove(id);
+
+		return getOrCreateKeySpaceIndexes(keyspace).remove(id, getKeySpaceMap(keyspace));
 	}
 
 	/*
@@ -157,7 +167,8 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 	 */
 	@Override
 	public void deleteAllOf(String keyspace) {
-		getKeySpaceMap(keyspace).clear();
+
+		getOrCreateKeySpaceIndexes(keyspace).clear(getKeySpaceMap(keyspace));
 	}
 
 	/*
@@ -166,7 +177,11 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 	 */
 	@Override
 	public void clear() {
-		store.clear();
+
+		// writers may hold on to a key space map, so it is cleared under the lock stripes instead of being dropped
+		for (Entry<String, Map<Object, Object>> entry : store.entrySet()) {
+			getOrCreateKeySpaceIndexes(entry.getKey()).clear(entry.getValue());
+		}
 	}
 
 	/*
@@ -178,6 +193,44 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 		clear();
 	}
 
+	/**
+	 * Declare an index on the given property path of the values stored in the given key space. Existing entries are
+	 * indexed right away, blocking writes to the key space meanwhile.
+	 *
+	 * @param keyspace must not be {@literal null}.
+	 * @param path the dot-separated property path, must not be {@literal null} or empty.
+	 * @param type must not be {@literal null}.
+	 */
+	public void addIndex(String keyspace, String path, KeySpaceIndex.Type type) {
+
+		Assert.notNull(keyspace, "Collection must not be null for index definition.");
+
+		KeySpaceIndex index = KeySpaceIndex.create(path, type);
+		getOrCreateKeySpaceIndexes(keyspace).addIndex(index, getKeySpaceMap(keyspace));
+	}
+
+	/**
+	 * Get the indexes declared for the given key space.
+	 *
+	 * @param keyspace must not be {@literal null}.
+	 * @return {@literal null} if the key space has not been accessed yet.
+	 */
+	@Nullable
+	KeySpaceIndexes getKeySpaceIndexes(String keyspace) {
+		return indexes.get(keyspace);
+	}
+
+	/**
+	 * Get the indexes of the given key space, registering them on first access. All writes to the key space go through
+	 * the returned instance, so a concurrent {@link #addIndex(String, String, KeySpaceIndex.Type)} cannot miss them.
+	 *
+	 * @param keyspace must not be {@literal null}.
+	 * @return never {@literal null}.
+	 */
+	private KeySpaceIndexes getOrCreateKeySpaceIndexes(String keyspace) {
+		return indexes.computeIfAbsent(keyspace, it -> new KeySpaceIndexes());
+	}
+
 	/**
 	 * Get map associated with given key space.
 	 *
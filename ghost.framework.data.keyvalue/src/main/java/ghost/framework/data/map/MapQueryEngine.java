@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.map;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.data.domain.Sort;
+import ghost.framework.data.domain.Sort.Order;
+import ghost.framework.data.keyvalue.core.PropertyCriteria;
+import ghost.framework.data.keyvalue.core.PropertyCriteriaAccessor;
+import ghost.framework.data.keyvalue.core.PropertySortAccessor;
+import ghost.framework.data.keyvalue.core.QueryEngine;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link QueryEngine} for {@link MapKeyValueAdapter} evaluating {@link PropertyCriteria}. Queries are planned against
+ * the {@link KeySpaceIndex indexes} declared for the key space:
+ * <ol>
+ * <li>If every {@code Or} part of the criteria has a condition answered by an index, only the candidate ids from the
+ * most selective index per part are looked up.</li>
+ * <li>Otherwise, if the query is sorted by a single property with a {@link KeySpaceIndex.Type#SORTED sorted} index, the
+ * key space is read in index order so that offset and limit stop the scan early.</li>
+ * <li>Otherwise the key space is scanned.</li>
+ * </ol>
+ * Candidates are always checked against the complete, compiled criteria. SpEL criteria are still accepted but always
+ * scan the key space.
+ */
+public class MapQueryEngine extends QueryEngine<MapKeyValueAdapter, PropertyCriteria, Sort> {
+
+	/**
+	 * Creates a new {@link MapQueryEngine}.
+	 */
+	public MapQueryEngine() {
+		super(new PropertyCriteriaAccessor(), new PropertySortAccessor());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.keyvalue.core.QueryEngine#execute(java.lang.Object, java.lang.Object, long, int, java.lang.String)
+	 */
+	@Override
+	public Collection<?> execute(@Nullable PropertyCriteria criteria, @Nullable Sort sort, long offset, int rows,
+			String keyspace) {
+
+		MapKeyValueAdapter adapter = getRequiredAdapter();
+		Map<Object, Object> keySpace = adapter.getKeySpaceMap(keyspace);
+		KeySpaceIndexes indexes = adapter.getKeySpaceIndexes(keyspace);
+
+		if (sort != null && sort.isUnsorted()) {
+			sort = null;
+		}
+
+		Collection<Object> candidates = candidates(indexes, criteria, keySpace);
+		KeySpaceIndex.SortedIndex orderIndex = candidates == null && sort != null && indexes != null
+				? orderedBy(indexes, sort)
+				: null;
+		Stream<Object> stream;
+
+		if (orderIndex != null) {
+
+			Order order = sort.iterator().next();
+			stream = lookup(orderIndex.ids(order.isAscending(), PropertySortAccessor.isNullsFirst(order)), keySpace);
+			sort = null;
+		} else {
+			stream = candidates != null ? lookup(candidates.stream(), keySpace) : keySpace.values().stream();
+		}
+
+		if (criteria != null) {
+			stream = stream.filter(criteria);
+		}
+		if (sort != null) {
+			stream = stream.sorted(PropertySortAccessor.comparator(sort));
+		}
+		if (offset > 0) {
+			stream = stream.skip(offset);
+		}
+		if (rows > 0) {
+			stream = stream.limit(rows);
+		}
+
+		return stream.collect(Collectors.toList());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.keyvalue.core.QueryEngine#count(java.lang.Object, java.lang.String)
+	 */
+	@Override
+	public long count(@Nullable PropertyCriteria criteria, String keyspace) {
+
+		MapKeyValueAdapter adapter = getRequiredAdapter();
+		Map<Object, Object> keySpace = adapter.getKeySpaceMap(keyspace);
+
+		if (criteria == null) {
+			return keySpace.size();
+		}
+
+		Collection<Object> candidates = candidates(adapter.getKeySpaceIndexes(keyspace), criteria, keySpace);
+		Stream<Object> stream = candidates != null ? lookup(candidates.stream(), keySpace) : keySpace.values().stream();
+
+		return stream.filter(criteria).count();
+	}
+
+	@Nullable
+	private static Collection<Object> candidates(@Nullable KeySpaceIndexes indexes, @Nullable PropertyCriteria criteria,
+			Map<Object, Object> keySpace) {
+
+		if (indexes == null || criteria == null) {
+			return null;
+		}
+
+		return indexes.candidates(criteria, keySpace.size());
+	}
+
+	/**
+	 * Return the sorted index providing the order for the given {@link Sort}, if any.
+	 */
+	@Nullable
+	private static KeySpaceIndex.SortedIndex orderedBy(KeySpaceIndexes indexes, Sort sort) {
+
+		Iterator<Order> orders = sort.iterator();
+		Order order = orders.next();
+
+		return orders.hasNext() ? null : indexes.getSortedIndex(order.getProperty());
+	}
+
+	/**
+	 * Resolve candidate ids to the values currently held by the key space, skipping removed entries. An id may be
+	 * indexed twice while its entry is being updated.
+	 */
+	private static Stream<Object> lookup(Stream<Object> ids, Map<Object, Object> keySpace) {
+		return ids.distinct().map(keySpace::get).filter(Objects::nonNull);
+	}
+}
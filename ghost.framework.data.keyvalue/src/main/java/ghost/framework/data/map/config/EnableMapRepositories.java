@@ -23,7 +23,7 @@ import ghost.framework.data.keyvalue.core.KeyValueOperations;
 import ghost.framework.data.keyvalue.core.KeyValueTemplate;
 import ghost.framework.data.keyvalue.repository.config.QueryCreatorType;
 import ghost.framework.data.keyvalue.repository.query.CachingKeyValuePartTreeQuery;
-import ghost.framework.data.keyvalue.repository.query.SpelQueryCreator;
+import ghost.framework.data.keyvalue.repository.query.PropertyQueryCreator;
 import ghost.framework.data.keyvalue.repository.support.KeyValueRepositoryFactoryBean;
 import ghost.framework.data.repository.config.DefaultRepositoryBaseClass;
 import ghost.framework.data.repository.query.QueryLookupStrategy;
@@ -45,7 +45,7 @@ import java.util.concurrent.ConcurrentHashMap;
 @Documented
 @Inherited
 //@Import(MapRepositoriesRegistrar.class)
-@QueryCreatorType(value = SpelQueryCreator.class, repositoryQueryType = CachingKeyValuePartTreeQuery.class)
+@QueryCreatorType(value = PropertyQueryCreator.class, repositoryQueryType = CachingKeyValuePartTreeQuery.class)
 public @interface EnableMapRepositories {
 
 	/**
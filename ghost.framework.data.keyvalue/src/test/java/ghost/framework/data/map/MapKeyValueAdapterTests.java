@@ -0,0 +1,264 @@
+package ghost.framework.data.map;
+
+import ghost.framework.data.domain.Sort;
+import ghost.framework.data.keyvalue.core.PropertyCriteria;
+import ghost.framework.data.keyvalue.core.PropertyCriteria.Condition;
+import ghost.framework.data.keyvalue.core.PropertyCriteria.Operator;
+import ghost.framework.data.keyvalue.core.PropertySortAccessor;
+import ghost.framework.data.keyvalue.core.query.KeyValueQuery;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.data.map
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link MapKeyValueAdapter} 索引查询与全量扫描结果对比测试
+ * @Date: 2020/6/27:14:10
+ */
+public class MapKeyValueAdapterTests {
+    private static final String KEYSPACE = "person";
+    private static final int CITIES = 40;
+    private static final int AGES = 100;
+
+    private static MapKeyValueAdapter adapter(boolean indexed) {
+        MapKeyValueAdapter adapter = new MapKeyValueAdapter();
+        if (indexed) {
+            addIndexes(adapter);
+        }
+        return adapter;
+    }
+
+    private static void addIndexes(MapKeyValueAdapter adapter) {
+        adapter.addIndex(KEYSPACE, "city", KeySpaceIndex.Type.HASH);
+        adapter.addIndex(KEYSPACE, "age", KeySpaceIndex.Type.SORTED);
+    }
+
+    private static Person person(Random random, int id) {
+        //部分城市为null
+        String city = random.nextInt(20) == 0 ? null : "city" + random.nextInt(CITIES);
+        return new Person(id, city, random.nextInt(AGES));
+    }
+
+    /**
+     * 查询条件列表，选择性足够高以使用索引
+     */
+    private static List<PropertyCriteria> criteria() {
+        List<PropertyCriteria> criteria = new ArrayList<>();
+        for (int i = 0; i < CITIES; i += 7) {
+            criteria.add(PropertyCriteria.where(Condition.of("city", Operator.EQUALS, "city" + i)));
+        }
+        criteria.add(PropertyCriteria.where(Condition.of("city", Operator.IS_NULL)));
+        criteria.add(PropertyCriteria.where(Condition.of("city", Operator.IN, Arrays.asList("city1", "city2"))));
+        for (int age = 0; age < AGES; age += 13) {
+            criteria.add(PropertyCriteria.where(Condition.of("age", Operator.BETWEEN, age, age + 3)));
+            criteria.add(PropertyCriteria.where(Condition.of("age", Operator.GREATER_THAN_EQUAL, AGES - age / 10 - 1)));
+        }
+        criteria.add(PropertyCriteria.where(Condition.of("city", Operator.EQUALS, "city3"),
+                Condition.of("age", Operator.LESS_THAN, 50)));
+        criteria.add(PropertyCriteria.of(Arrays.asList(
+                Collections.singletonList(Condition.of("city", Operator.EQUALS, "city5")),
+                Collections.singletonList(Condition.of("age", Operator.EQUALS, 42)))));
+        return criteria;
+    }
+
+    /**
+     * 全量扫描的查询结果
+     */
+    private static List<Object> scan(MapKeyValueAdapter adapter, PropertyCriteria criteria, Sort sort) {
+        return adapter.getAllOf(KEYSPACE).stream()
+                .filter(criteria)
+                .sorted(PropertySortAccessor.comparator(sort))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Object> find(MapKeyValueAdapter adapter, PropertyCriteria criteria, Sort sort) {
+        return new ArrayList<>(adapter.find(new KeyValueQuery<>(criteria).orderBy(sort), KEYSPACE));
+    }
+
+    private static void assertMatchesScan(MapKeyValueAdapter adapter) {
+        Sort sort = Sort.by("id");
+        for (PropertyCriteria criteria : criteria()) {
+            List<Object> expected = scan(adapter, criteria, sort);
+            assertThat(find(adapter, criteria, sort)).isEqualTo(expected);
+            assertThat(adapter.count(new KeyValueQuery<>(criteria), KEYSPACE)).isEqualTo((long) expected.size());
+        }
+    }
+
+    @Test
+    public void indexedQueriesMatchScan() {
+        Random random = new Random(1);
+        MapKeyValueAdapter adapter = adapter(true);
+        for (int i = 0; i < 2000; i++) {
+            adapter.put(i, person(random, i), KEYSPACE);
+        }
+        //覆盖与删除释放旧的索引位置
+        for (int i = 0; i < 1000; i++) {
+            int id = random.nextInt(2000);
+            if (random.nextBoolean()) {
+                adapter.put(id, person(random, id), KEYSPACE);
+            } else {
+                adapter.delete(id, KEYSPACE);
+            }
+        }
+        assertMatchesScan(adapter);
+        //条件由索引回答而不是全量扫描
+        PropertyCriteria byCity = PropertyCriteria.where(Condition.of("city", Operator.EQUALS, "city1"));
+        assertThat(adapter.getKeySpaceIndexes(KEYSPACE).candidates(byCity, adapter.count(KEYSPACE))).isNotNull();
+        //使用排序索引分页
+        Sort byAge = Sort.by(Sort.Direction.DESC, "age");
+        PropertyCriteria all = PropertyCriteria.of(Collections.emptyList());
+        List<Object> page = new ArrayList<>(adapter.find(new KeyValueQuery<>(all).orderBy(byAge).skip(10).limit(20), KEYSPACE));
+        List<Object> expected = scan(adapter, all, byAge).subList(10, 30);
+        assertThat(ages(page)).isEqualTo(ages(expected));
+    }
+
+    @Test
+    public void indexAddedToPopulatedKeySpaceMatchesScan() {
+        Random random = new Random(2);
+        MapKeyValueAdapter adapter = adapter(false);
+        for (int i = 0; i < 2000; i++) {
+            adapter.put(i, person(random, i), KEYSPACE);
+        }
+        addIndexes(adapter);
+        assertMatchesScan(adapter);
+    }
+
+    @Test
+    public void indexAddedDuringConcurrentWritesMatchesScan() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            MapKeyValueAdapter adapter = adapter(false);
+            AtomicBoolean running = new AtomicBoolean(true);
+            CountDownLatch started = new CountDownLatch(4);
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread writer = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    started.countDown();
+                    while (running.get()) {
+                        int id = random.nextInt(2000);
+                        if (random.nextInt(4) == 0) {
+                            adapter.delete(id, KEYSPACE);
+                        } else {
+                            adapter.put(id, person(random, id), KEYSPACE);
+                        }
+                    }
+                });
+                writer.start();
+                writers.add(writer);
+            }
+            started.await();
+            Thread.sleep(2);
+            //写入进行中声明索引，已有与新写入的条目都必须被索引
+            addIndexes(adapter);
+            Thread.sleep(2);
+            running.set(false);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            assertMatchesScan(adapter);
+        }
+    }
+
+    @Test
+    public void clearDuringConcurrentWritesMatchesScan() throws Exception {
+        MapKeyValueAdapter adapter = adapter(true);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread clearer = new Thread(() -> {
+            while (running.get()) {
+                adapter.clear();
+            }
+        });
+        clearer.start();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread writer = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 20000; i++) {
+                    int id = random.nextInt(2000);
+                    adapter.put(id, person(random, id), KEYSPACE);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        running.set(false);
+        clearer.join();
+        assertMatchesScan(adapter);
+        adapter.clear();
+        assertThat(adapter.count(KEYSPACE)).isZero();
+        assertThat(adapter.find(new KeyValueQuery<>(PropertyCriteria.where(Condition.of("city", Operator.EQUALS, "city1"))), KEYSPACE)).isEmpty();
+    }
+
+    @Test
+    public void valueWithoutIndexedPropertyIsIndexedAsNull() {
+        MapKeyValueAdapter adapter = adapter(true);
+        adapter.put(1, new Person(1, "city1", 10), KEYSPACE);
+        adapter.put(2, new Person(2, "city1", 20), KEYSPACE);
+        //没有索引属性的值按null索引，写入不会中途失败而遗留旧的索引位置
+        adapter.put(2, "other", KEYSPACE);
+        adapter.put(3, "other", KEYSPACE);
+        assertThat(adapter.count(KEYSPACE)).isEqualTo(3);
+        KeySpaceIndexes indexes = adapter.getKeySpaceIndexes(KEYSPACE);
+        assertThat(indexes.candidates(PropertyCriteria.where(Condition.of("city", Operator.EQUALS, "city1")), 100))
+                .containsExactly(1);
+        assertThat(indexes.candidates(PropertyCriteria.where(Condition.of("city", Operator.IS_NULL)), 100))
+                .containsExactlyInAnyOrder(2, 3);
+        assertThat(indexes.candidates(PropertyCriteria.where(Condition.of("age", Operator.GREATER_THAN_EQUAL, 20)), 100))
+                .isEmpty();
+        //已有条目没有索引属性时仍可声明索引
+        MapKeyValueAdapter populated = adapter(false);
+        populated.put(1, "other", KEYSPACE);
+        addIndexes(populated);
+        assertThat(populated.getKeySpaceIndexes(KEYSPACE).getIndexes()).hasSize(2);
+    }
+
+    private static List<Integer> ages(Collection<Object> people) {
+        return people.stream().map(it -> ((Person) it).getAge()).collect(Collectors.toList());
+    }
+
+    public static class Person {
+        private final int id;
+        private final String city;
+        private final int age;
+
+        public Person(int id, String city, int age) {
+            this.id = id;
+            this.city = city;
+            this.age = age;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        @Override
+        public String toString() {
+            return id + ":" + city + ":" + age;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2017-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.redis.cache;
+
+import ghost.framework.data.redis.connection.RedisClusterConnection;
+import ghost.framework.data.redis.connection.RedisClusterNode;
+import ghost.framework.data.redis.connection.RedisConnection;
+import ghost.framework.data.redis.connection.RedisSystemException;
+import ghost.framework.data.redis.connection.ReturnType;
+import ghost.framework.data.redis.connection.core.Cursor;
+import ghost.framework.data.redis.connection.core.ScanOptions;
+import ghost.framework.util.Assert;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A collection of predefined {@link BatchStrategy} implementations using {@code KEYS}, {@code SCAN} or a per-cache
+ * key set index. Keys are removed with {@code UNLINK} so Redis reclaims memory in a background thread; large batches
+ * are split into pipelined {@code UNLINK} commands. Cluster connections do not support pipelining, so their batches
+ * are removed with one {@code UNLINK} command per chunk.
+ *
+ * @see BatchStrategy
+ */
+public abstract class BatchStrategies {
+
+	/**
+	 * Maximum number of keys per {@code UNLINK} command.
+	 */
+	private static final int UNLINK_CHUNK_SIZE = 128;
+
+	private BatchStrategies() {}
+
+	/**
+	 * A {@link BatchStrategy} using a single {@code KEYS} and {@code UNLINK} command to remove all matching keys.
+	 * {@code KEYS} scans the entire keyspace of the Redis database and blocks the server until it completes, so this
+	 * is only suitable for small databases.
+	 *
+	 * @return batching strategy using {@code KEYS}.
+	 */
+	public static BatchStrategy keys() {
+		return Keys.INSTANCE;
+	}
+
+	/**
+	 * A {@link BatchStrategy} using {@code SCAN} to iterate the keyspace with the given {@code batchSize} and removing
+	 * each batch with pipelined {@code UNLINK} commands. The server is never blocked for more than one batch. On a
+	 * {@link RedisClusterConnection} the keyspace of each master node is scanned in turn.
+	 *
+	 * @param batchSize must be greater than zero.
+	 * @return batching strategy using {@code SCAN}.
+	 */
+	public static BatchStrategy scan(int batchSize) {
+
+		Assert.isFalse(batchSize > 0, "Batch size must be greater than zero!");
+
+		return new Scan(batchSize);
+	}
+
+	/**
+	 * A {@link BatchStrategy} maintaining a Redis set of all keys written to a cache. Clearing a cache removes the
+	 * indexed keys in batches of {@code batchSize} and never scans the keyspace. The {@code pattern} passed to
+	 * {@link BatchStrategy#cleanCache(RedisConnection, String, byte[])} is ignored: all keys of the named cache are
+	 * removed.
+	 * <p/>
+	 * Keys expiring through their TTL stay in the index until the next clear; removing them then is a no-op. The index
+	 * key {@code {name}~keys} uses the cache name as hash tag so the index can be renamed within its cluster slot.
+	 *
+	 * @param batchSize must be greater than zero.
+	 * @return batching strategy using a key set index.
+	 */
+	public static BatchStrategy keySetIndex(int batchSize) {
+
+		Assert.isFalse(batchSize > 0, "Batch size must be greater than zero!");
+
+		return new KeySetIndex(batchSize);
+	}
+
+	/**
+	 * Remove the given keys, splitting them into pipelined {@code UNLINK} commands of at most
+	 * {@link #UNLINK_CHUNK_SIZE} keys.
+	 *
+	 * @param connection Redis connection.
+	 * @param keys keys to remove.
+	 * @return number of removed keys.
+	 */
+	static long unlink(RedisConnection connection, List<byte[]> keys) {
+
+		if (keys.isEmpty()) {
+			return 0;
+		}
+
+		if (keys.size() <= UNLINK_CHUNK_SIZE) {
+			return Optional.ofNullable(connection.unlink(keys.toArray(new byte[0][]))).orElse(0L);
+		}
+
+		if (connection instanceof RedisClusterConnection) {
+
+			long count = 0;
+			for (int from = 0; from < keys.size(); from += UNLINK_CHUNK_SIZE) {
+				List<byte[]> chunk = keys.subList(from, Math.min(from + UNLINK_CHUNK_SIZE, keys.size()));
+				count += Optional.ofNullable(connection.unlink(chunk.toArray(new byte[0][]))).orElse(0L);
+			}
+			return count;
+		}
+
+		connection.openPipeline();
+		boolean closed = false;
+		try {
+			for (int from = 0; from < keys.size(); from += UNLINK_CHUNK_SIZE) {
+				List<byte[]> chunk = keys.subList(from, Math.min(from + UNLINK_CHUNK_SIZE, keys.size()));
+				connection.unlink(chunk.toArray(new byte[0][]));
+			}
+
+			closed = true;
+			long count = 0;
+			for (Object result : connection.closePipeline()) {
+				if (result instanceof Number) {
+					count += ((Number) result).longValue();
+				}
+			}
+			return count;
+		} finally {
+			if (!closed) {
+				connection.closePipeline();
+			}
+		}
+	}
+
+	/**
+	 * Remove the keys returned by the given {@link Cursor} in batches of {@code batchSize}. The pipeline is only
+	 * open while removing a batch, so the cursor can continue to fetch keys on the same connection.
+	 *
+	 * @param connection Redis connection.
+	 * @param cursor cursor to remove the keys of.
+	 * @param batchSize number of keys removed at once.
+	 * @return number of removed keys.
+	 */
+	static long unlink(RedisConnection connection, Cursor<byte[]> cursor, int batchSize) {
+
+		try (Cursor<byte[]> keys = cursor) {
+
+			long count = 0;
+			List<byte[]> batch = new ArrayList<>(batchSize);
+
+			while (keys.hasNext()) {
+
+				batch.add(keys.next());
+
+				if (batch.size() >= batchSize) {
+					count += unlink(connection, batch);
+					batch.clear();
+				}
+			}
+
+			return count + unlink(connection, batch);
+		} catch (IOException e) {
+			throw new RedisSystemException("Failed to close cursor", e);
+		}
+	}
+
+	/**
+	 * {@link BatchStrategy} using {@code KEYS}.
+	 */
+	static class Keys implements BatchStrategy {
+
+		static Keys INSTANCE = new Keys();
+
+		@Override
+		public long cleanCache(RedisConnection connection, String name, byte[] pattern) {
+
+			Set<byte[]> keys = Optional.ofNullable(connection.keys(pattern)).orElse(Collections.emptySet());
+
+			return unlink(connection, new ArrayList<>(keys));
+		}
+	}
+
+	/**
+	 * {@link BatchStrategy} using {@code SCAN}.
+	 */
+	static class Scan implements BatchStrategy {
+
+		private final int batchSize;
+
+		Scan(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		public long cleanCache(RedisConnection connection, String name, byte[] pattern) {
+
+			ScanOptions options = ScanOptions.scanOptions().count(batchSize)
+					.match(new String(pattern, StandardCharsets.UTF_8)).build();
+
+			if (!(connection instanceof RedisClusterConnection)) {
+				return unlink(connection, connection.scan(options), batchSize);
+			}
+
+			// SCAN is not supported across multiple nodes, scan the keyspace of each master instead
+			RedisClusterConnection clusterConnection = (RedisClusterConnection) connection;
+			long count = 0;
+			for (RedisClusterNode node : clusterConnection.clusterGetNodes()) {
+				if (node.isMaster()) {
+					count += unlink(connection, clusterConnection.scan(node, options), batchSize);
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * {@link BatchStrategy} maintaining a key set index per cache.
+	 */
+	static class KeySetIndex implements BatchStrategy {
+
+		/**
+		 * Rename the index only if it exists, a concurrent clear may already have moved it aside.
+		 */
+		private static final byte[] RENAME_IF_EXISTS = ("if redis.call('EXISTS', KEYS[1]) == 1 then "
+				+ "redis.call('RENAME', KEYS[1], KEYS[2]) return 1 end return 0").getBytes(StandardCharsets.UTF_8);
+
+		private final int batchSize;
+
+		KeySetIndex(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		public void onPut(RedisConnection connection, String name, byte[] key) {
+			connection.sAdd(createIndexKey(name), key);
+		}
+
+		@Override
+		public void onRemove(RedisConnection connection, String name, byte[] key) {
+			connection.sRem(createIndexKey(name), key);
+		}
+
+		@Override
+		public long cleanCache(RedisConnection connection, String name, byte[] pattern) {
+
+			byte[] indexKey = createIndexKey(name);
+			byte[] drainKey = ("{" + name + "}~keys~" + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+
+			// move the index aside atomically so keys written while clearing go to a fresh index
+			Long renamed = connection.eval(RENAME_IF_EXISTS, ReturnType.INTEGER, 2, indexKey, drainKey);
+			if (renamed == null || renamed == 0) {
+				return 0;
+			}
+
+			try {
+				return unlink(connection, connection.sScan(drainKey, ScanOptions.scanOptions().count(batchSize).build()),
+						batchSize);
+			} finally {
+				connection.unlink(drainKey);
+			}
+		}
+
+		private static byte[] createIndexKey(String name) {
+			return ("{" + name + "}~keys").getBytes(StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.redis.cache;
+
+import ghost.framework.data.redis.connection.RedisConnection;
+
+/**
+ * A {@link BatchStrategy} to be used with {@link RedisCacheWriter}.
+ * <p/>
+ * Mainly used to clear the cache. A strategy may additionally track the keys written to a cache through the
+ * {@link #onPut(RedisConnection, String, byte[])} and {@link #onRemove(RedisConnection, String, byte[])} callbacks
+ * so that clearing a cache does not need to look keys up by pattern.
+ * <p/>
+ * Predefined strategies using the {@link BatchStrategies#keys() KEYS} command, the
+ * {@link BatchStrategies#scan(int) SCAN} command or a {@link BatchStrategies#keySetIndex(int) key set index} are
+ * available in {@link BatchStrategies}.
+ *
+ * @see BatchStrategies
+ */
+public interface BatchStrategy {
+
+	/**
+	 * Remove all keys of the cache {@code name} following the given pattern.
+	 *
+	 * @param connection Redis connection, must not be {@literal null}.
+	 * @param name The cache name, must not be {@literal null}.
+	 * @param pattern The pattern for the keys to remove, must not be {@literal null}.
+	 * @return number of removed keys.
+	 */
+	long cleanCache(RedisConnection connection, String name, byte[] pattern);
+
+	/**
+	 * Callback after a key has been written to the cache {@code name}.
+	 *
+	 * @param connection Redis connection, must not be {@literal null}.
+	 * @param name The cache name, must not be {@literal null}.
+	 * @param key The written key, must not be {@literal null}.
+	 */
+	default void onPut(RedisConnection connection, String name, byte[] key) {}
+
+	/**
+	 * Callback after a key has been removed from the cache {@code name}.
+	 *
+	 * @param connection Redis connection, must not be {@literal null}.
+	 * @param name The cache name, must not be {@literal null}.
+	 * @param key The removed key, must not be {@literal null}.
+	 */
+	default void onRemove(RedisConnection connection, String name, byte[] key) {}
+}
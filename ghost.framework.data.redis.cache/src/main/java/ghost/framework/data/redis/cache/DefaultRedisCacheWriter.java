@@ -25,8 +25,7 @@ import ghost.framework.util.Assert;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Collections;
-import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -42,6 +41,10 @@ import java.util.function.Function;
  * operations spanning multiple Redis interactions like {@code putIfAbsent}. The {@literal locking} counterpart prevents
  * command overlap by setting an explicit lock key and checking against presence of this key which leads to additional
  * requests and potential command wait times.
+ * <p>
+ * {@link #clean(String, byte[])} delegates to a {@link BatchStrategy}, by default {@link BatchStrategies#scan(int)
+ * SCAN} in batches of {@value #DEFAULT_BATCH_SIZE} keys, scanning each master node in {@literal cluster}
+ * environments, and optionally runs on a background {@link Executor}.
  *
  * @author Christoph Strobl
  * @author Mark Paluch
@@ -49,8 +52,12 @@ import java.util.function.Function;
  */
 class DefaultRedisCacheWriter implements RedisCacheWriter {
 
+	static final int DEFAULT_BATCH_SIZE = 1000;
+
 	private final RedisConnectionFactory connectionFactory;
 	private final Duration sleepTime;
+	private final BatchStrategy batchStrategy;
+	private final @Nullable Executor cleanExecutor;
 
 	/**
 	 * @param connectionFactory must not be {@literal null}.
@@ -65,12 +72,27 @@ class DefaultRedisCacheWriter implements RedisCacheWriter {
 	 *          to disable locking.
 	 */
 	DefaultRedisCacheWriter(RedisConnectionFactory connectionFactory, Duration sleepTime) {
+		this(connectionFactory, sleepTime, BatchStrategies.scan(DEFAULT_BATCH_SIZE), null);
+	}
+
+	/**
+	 * @param connectionFactory must not be {@literal null}.
+	 * @param sleepTime sleep time between lock request attempts. Must not be {@literal null}. Use {@link Duration#ZERO}
+	 *          to disable locking.
+	 * @param batchStrategy strategy used to clean caches. Must not be {@literal null}.
+	 * @param cleanExecutor executor to clean caches in the background. {@literal null} to clean in the calling thread.
+	 */
+	DefaultRedisCacheWriter(RedisConnectionFactory connectionFactory, Duration sleepTime, BatchStrategy batchStrategy,
+			@Nullable Executor cleanExecutor) {
 
 		Assert.notNull(connectionFactory, "ConnectionFactory must not be null!");
 		Assert.notNull(sleepTime, "SleepTime must not be null!");
+		Assert.notNull(batchStrategy, "BatchStrategy must not be null!");
 
 		this.connectionFactory = connectionFactory;
 		this.sleepTime = sleepTime;
+		this.batchStrategy = batchStrategy;
+		this.cleanExecutor = cleanExecutor;
 	}
 
 	/*
@@ -92,6 +114,8 @@ class DefaultRedisCacheWriter implements RedisCacheWriter {
 				connection.set(key, value);
 			}
 
+			batchStrategy.onPut(connection, name, key);
+
 			return "OK";
 		});
 	}
@@ -109,6 +133,25 @@ class DefaultRedisCacheWriter implements RedisCacheWriter {
 		return execute(name, connection -> connection.get(key));
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.redis.cache.RedisCacheWriter#getTtl(java.lang.String, byte[])
+	 */
+	@Override
+	public Duration getTtl(String name, byte[] key) {
+
+		Assert.notNull(name, "Name must not be null!");
+		Assert.notNull(key, "Key must not be null!");
+
+		Long ttl = execute(name, connection -> connection.pTtl(key));
+
+		// -2 the key does not exist, -1 the key does not expire
+		if (ttl == null || ttl == -1) {
+			return null;
+		}
+		return ttl < 0 ? Duration.ZERO : Duration.ofMillis(ttl);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see ghost.framework.data.redis.cache.RedisCacheWriter#putIfAbsent(java.lang.String, byte[], byte[], java.time.Duration)
@@ -132,6 +175,8 @@ class DefaultRedisCacheWriter implements RedisCacheWriter {
 					if (shouldExpireWithin(ttl)) {
 						connection.pExpire(key, ttl.toMillis());
 					}
+
+					batchStrategy.onPut(connection, name, key);
 					return null;
 				}
 
@@ -155,7 +200,13 @@ class DefaultRedisCacheWriter implements RedisCacheWriter {
 		Assert.notNull(name, "Name must not be null!");
 		Assert.notNull(key, "Key must not be null!");
 
-		execute(name, connection -> connection.del(key));
+		execute(name, connection -> {
+
+			connection.del(key);
+			batchStrategy.onRemove(connection, name, key);
+
+			return "OK";
+		});
 	}
 
 	/*
@@ -168,6 +219,44 @@ class DefaultRedisCacheWriter implements RedisCacheWriter {
 		Assert.notNull(name, "Name must not be null!");
 		Assert.notNull(pattern, "Pattern must not be null!");
 
+		if (cleanExecutor != null) {
+			cleanExecutor.execute(() -> doClean(name, pattern));
+			return;
+		}
+
+		doClean(name, pattern);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.redis.cache.RedisCacheWriter#clean(java.lang.String, byte[], java.lang.Runnable)
+	 */
+	@Override
+	public void clean(String name, byte[] pattern, Runnable callback) {
+
+		Assert.notNull(name, "Name must not be null!");
+		Assert.notNull(pattern, "Pattern must not be null!");
+		Assert.notNull(callback, "Callback must not be null!");
+
+		if (cleanExecutor != null) {
+			cleanExecutor.execute(() -> doClean(name, pattern, callback));
+			return;
+		}
+
+		doClean(name, pattern, callback);
+	}
+
+	private void doClean(String name, byte[] pattern, Runnable callback) {
+
+		try {
+			doClean(name, pattern);
+		} finally {
+			callback.run();
+		}
+	}
+
+	private void doClean(String name, byte[] pattern) {
+
 		execute(name, connection -> {
 
 			boolean wasLocked = false;
@@ -179,12 +268,7 @@ class DefaultRedisCacheWriter implements RedisCacheWriter {
 					wasLocked = true;
 				}
 
-				byte[][] keys = Optional.ofNullable(connection.keys(pattern)).orElse(Collections.emptySet())
-						.toArray(new byte[0][]);
-
-				if (keys.length > 0) {
-					connection.del(keys);
-				}
+				batchStrategy.cleanCache(connection, name, pattern);
 			} finally {
 
 				if (wasLocked && isLockingCacheWriter()) {
@@ -226,6 +310,19 @@ class DefaultRedisCacheWriter implements RedisCacheWriter {
 		return connection.exists(createCacheLockKey(name));
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.redis.cache.RedisCacheWriter#publish(byte[], byte[])
+	 */
+	@Override
+	public void publish(byte[] channel, byte[] message) {
+
+		Assert.notNull(channel, "Channel must not be null!");
+		Assert.notNull(message, "Message must not be null!");
+
+		executeLockFree(connection -> connection.publish(channel, message));
+	}
+
 	/**
 	 * @return {@literal true} if {@link RedisCacheWriter} uses locks.
 	 */
@@ -0,0 +1,281 @@
+package ghost.framework.data.redis.cache;
+
+import com.sun.istack.internal.Nullable;
+import ghost.framework.data.cache.transaction.TinyLfuCache;
+import ghost.framework.data.redis.connection.Message;
+import ghost.framework.data.redis.connection.MessageListener;
+import ghost.framework.data.redis.listener.ChannelTopic;
+import ghost.framework.data.redis.listener.RedisMessageListenerContainer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * package: ghost.framework.data.redis.cache
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:带本地近端缓存的redis缓存
+ * 读取先查本地 {@link TinyLfuCache}，未命中再读redis并填充本地缓存
+ * 写入、删除与清除时删除本地条目，并在缓存频道发布失效消息通知其它节点删除本地条目
+ * 本地条目按键分段记录版本，读redis期间键失效时不保留填充的旧值
+ * redis条目有过期时间时，本地条目过期时间不超过redis剩余过期时间
+ * 清除缓存在redis清除完成后再清除本地并发布清除消息，后台清除期间其它节点不会从未清除的redis读回旧值
+ * @Date: 2020/6/28:10:20
+ */
+public class NearRedisCache extends RedisCache implements MessageListener {
+    private final Log logger = LogFactory.getLog(NearRedisCache.class);
+    /**
+     * 失效消息频道前缀，频道为前缀加缓存名称
+     */
+    public static final String CHANNEL_PREFIX = "__ghost_near_cache__:";
+    /**
+     * 删除键消息
+     */
+    private static final byte EVICT = 0;
+    /**
+     * 清除缓存消息
+     */
+    private static final byte CLEAR = 1;
+    /**
+     * 消息头长度，来源Id加消息类型
+     */
+    private static final int HEADER_LENGTH = 9;
+    /**
+     * 版本分段数量
+     */
+    private static final int STRIPES = 64;
+    /**
+     * 本地缓存
+     */
+    private final TinyLfuCache nearCache;
+    /**
+     * 分段版本，键失效时增加
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    /**
+     * 失效消息频道
+     */
+    private final String channel;
+    private final byte[] channelBytes;
+    /**
+     * 来源Id，忽略自己发布的消息
+     */
+    private final long origin = ThreadLocalRandom.current().nextLong();
+    /**
+     * 缓存写入是否支持发布失效消息
+     * 不支持时只处理本节点的失效
+     */
+    private volatile boolean publishSupported = true;
+
+    /**
+     * 初始化带本地近端缓存的redis缓存
+     *
+     * @param name                     缓存名称
+     * @param cacheWriter              redis缓存写入
+     * @param cacheConfig              缓存配置，需要启用近端缓存
+     * @param messageListenerContainer 消息监听容器，为null时只处理本节点的失效
+     */
+    protected NearRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfig,
+                             @Nullable RedisMessageListenerContainer messageListenerContainer) {
+        super(name, cacheWriter, cacheConfig);
+        if (!cacheConfig.isNearCacheEnabled()) {
+            throw new IllegalArgumentException("near cache not enabled for cache " + name);
+        }
+        Duration ttl = cacheConfig.getNearCacheTtl();
+        this.nearCache = new TinyLfuCache(name, cacheConfig.getNearCacheMaximumSize(), null,
+                ttl.isZero() || ttl.isNegative() ? null : ttl, true);
+        this.channel = CHANNEL_PREFIX + name;
+        this.channelBytes = this.channel.getBytes(StandardCharsets.UTF_8);
+        if (messageListenerContainer != null) {
+            messageListenerContainer.addMessageListener(this, new ChannelTopic(this.channel));
+        }
+    }
+
+    /**
+     * 获取本地缓存
+     *
+     * @return
+     */
+    public TinyLfuCache getNearCache() {
+        return nearCache;
+    }
+
+    /**
+     * 获取失效消息频道
+     *
+     * @return
+     */
+    public String getChannel() {
+        return channel;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String cacheKey = this.createCacheKey(key);
+        ValueWrapper wrapper = this.nearCache.get(cacheKey);
+        if (wrapper != null) {
+            return this.toStoreValue(wrapper.get());
+        }
+        //读redis前记录版本，填充后版本变化说明期间键已失效
+        int stripe = stripe(cacheKey);
+        long version = this.versions.get(stripe);
+        Object value = super.lookup(key);
+        if (value != null) {
+            Duration ttl = this.nearTtl(cacheKey);
+            if (ttl != null && ttl.isZero()) {
+                //redis条目已过期
+                return value;
+            }
+            this.nearCache.put(cacheKey, this.fromStoreValue(value), ttl);
+            if (this.versions.get(stripe) != version) {
+                this.nearCache.evict(cacheKey);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        super.put(key, value);
+        this.invalidate(this.createCacheKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        ValueWrapper wrapper = super.putIfAbsent(key, value);
+        if (wrapper == null) {
+            this.invalidate(this.createCacheKey(key));
+        }
+        return wrapper;
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        this.invalidate(this.createCacheKey(key));
+    }
+
+    @Override
+    public void clear() {
+        this.clearLocal();
+        //redis可能在后台清除，完成后再次清除期间读回的本地条目并通知其它节点
+        this.getNativeCache().clean(this.getName(), this.serializeCacheKey(this.createCacheKey("*")), () -> {
+            this.clearLocal();
+            this.publish(CLEAR, null);
+        });
+    }
+
+    /**
+     * 获取本地条目过期时间
+     * redis条目没有过期时间时使用本地缓存过期时间
+     *
+     * @param cacheKey 缓存键
+     * @return 为null时使用本地缓存过期时间，redis条目已过期返回 {@link Duration#ZERO}
+     */
+    @Nullable
+    private Duration nearTtl(String cacheKey) {
+        Duration ttl = this.getCacheConfiguration().getTtl();
+        if (ttl.isZero() || ttl.isNegative()) {
+            return null;
+        }
+        Duration remaining = this.getNativeCache().getTtl(this.getName(), this.serializeCacheKey(cacheKey));
+        if (remaining == null) {
+            return null;
+        }
+        Duration nearTtl = this.getCacheConfiguration().getNearCacheTtl();
+        if (!nearTtl.isZero() && !nearTtl.isNegative() && nearTtl.compareTo(remaining) < 0) {
+            return nearTtl;
+        }
+        return remaining;
+    }
+
+    /**
+     * 处理其它节点发布的失效消息
+     *
+     * @param message 失效消息
+     * @param pattern 匹配的频道模式
+     */
+    @Override
+    public void onMessage(Message message, @Nullable byte[] pattern) {
+        byte[] body = message.getBody();
+        if (body == null || body.length < HEADER_LENGTH) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        if (buffer.getLong() == this.origin) {
+            return;
+        }
+        if (buffer.get() == CLEAR) {
+            this.clearLocal();
+        } else {
+            this.invalidateLocal(new String(body, HEADER_LENGTH, body.length - HEADER_LENGTH, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 删除本地与其它节点的本地条目
+     *
+     * @param cacheKey 缓存键
+     */
+    private void invalidate(String cacheKey) {
+        this.invalidateLocal(cacheKey);
+        this.publish(EVICT, cacheKey);
+    }
+
+    /**
+     * 删除本地条目
+     * 先增加版本再删除，正在填充的读取会发现版本变化
+     *
+     * @param cacheKey 缓存键
+     */
+    private void invalidateLocal(String cacheKey) {
+        this.versions.incrementAndGet(stripe(cacheKey));
+        this.nearCache.evict(cacheKey);
+    }
+
+    /**
+     * 清除本地缓存
+     */
+    private void clearLocal() {
+        for (int i = 0; i < STRIPES; i++) {
+            this.versions.incrementAndGet(i);
+        }
+        this.nearCache.clear();
+    }
+
+    /**
+     * 发布失效消息
+     * 发布失败只影响其它节点的本地条目，由本地过期时间兜底
+     * 缓存写入不支持发布时不再发布
+     *
+     * @param type     消息类型
+     * @param cacheKey 缓存键，清除缓存时为null
+     */
+    private void publish(byte type, @Nullable String cacheKey) {
+        if (!this.publishSupported) {
+            return;
+        }
+        byte[] key = cacheKey == null ? new byte[0] : cacheKey.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + key.length);
+        buffer.putLong(this.origin).put(type).put(key);
+        try {
+            this.getNativeCache().publish(this.channelBytes, buffer.array());
+        } catch (UnsupportedOperationException e) {
+            this.publishSupported = false;
+            this.logger.warn("near cache " + this.getName() + " writer does not support publish, invalidation stays local");
+        } catch (RuntimeException e) {
+            this.logger.warn("near cache " + this.getName() + " publish invalidation failed", e);
+        }
+    }
+
+    private static int stripe(String cacheKey) {
+        int h = cacheKey.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -179,8 +179,8 @@ public class RedisCache extends AbstractValueAdaptingCache {
 	@Override
 	public void clear() {
 
-//		byte[] pattern = conversionService.convert(createCacheKey("*"), byte[].class);
-//		cacheWriter.clean(name, pattern);
+		byte[] pattern = serializeCacheKey(createCacheKey("*"));
+		cacheWriter.clean(name, pattern);
 	}
 
 	/**
@@ -47,10 +47,20 @@ public class RedisCacheConfiguration {
 
 	private final ConverterContainer converterContainer;
 
-	@SuppressWarnings("unchecked")
+	private final long nearCacheMaximumSize;
+	private final Duration nearCacheTtl;
+
 	private RedisCacheConfiguration(Duration ttl, Boolean cacheNullValues, Boolean usePrefix, CacheKeyPrefix keyPrefix,
 									RedisSerializationContext.SerializationPair<String> keySerializationPair, RedisSerializationContext.SerializationPair<?> valueSerializationPair,
 									ConverterContainer converterContainer) {
+		this(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializationPair, valueSerializationPair, converterContainer,
+				0, Duration.ZERO);
+	}
+
+	@SuppressWarnings("unchecked")
+	private RedisCacheConfiguration(Duration ttl, Boolean cacheNullValues, Boolean usePrefix, CacheKeyPrefix keyPrefix,
+									RedisSerializationContext.SerializationPair<String> keySerializationPair, RedisSerializationContext.SerializationPair<?> valueSerializationPair,
+									ConverterContainer converterContainer, long nearCacheMaximumSize, Duration nearCacheTtl) {
 
 		this.ttl = ttl;
 		this.cacheNullValues = cacheNullValues;
@@ -59,6 +69,8 @@ public class RedisCacheConfiguration {
 		this.keySerializationPair = keySerializationPair;
 		this.valueSerializationPair = (RedisSerializationContext.SerializationPair<Object>) valueSerializationPair;
 		this.converterContainer = converterContainer;
+		this.nearCacheMaximumSize = nearCacheMaximumSize;
+		this.nearCacheTtl = nearCacheTtl;
 	}
 
 	/**
@@ -133,7 +145,7 @@ public class RedisCacheConfiguration {
 		Assert.notNull(ttl, "TTL duration must not be null!");
 
 		return new RedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializationPair,
-				valueSerializationPair, conversionService);
+				valueSerializationPair, conversionService, nearCacheMaximumSize, nearCacheTtl);
 	}
 
 	/**
@@ -183,7 +195,7 @@ public class RedisCacheConfiguration {
 		Assert.notNull(cacheKeyPrefix, "Function for computing prefix must not be null!");
 
 		return new RedisCacheConfiguration(ttl, cacheNullValues, true, cacheKeyPrefix, keySerializationPair,
-				valueSerializationPair, conversionService);
+				valueSerializationPair, conversionService, nearCacheMaximumSize, nearCacheTtl);
 	}
 
 	/**
@@ -196,7 +208,25 @@ public class RedisCacheConfiguration {
 	 */
 	public RedisCacheConfiguration disableCachingNullValues() {
 		return new RedisCacheConfiguration(ttl, false, usePrefix, keyPrefix, keySerializationPair, valueSerializationPair,
-				conversionService);
+				conversionService, nearCacheMaximumSize, nearCacheTtl);
+	}
+
+	/**
+	 * Keep a bounded local near cache in front of Redis for this cache.
+	 * Entries are dropped on every node when a key is put, evicted or the cache is cleared, provided the
+	 * {@link RedisCacheManager} has a message listener container for invalidation messages.
+	 *
+	 * @param maximumSize maximum number of local entries, must be positive.
+	 * @param ttl local entry expiration, {@link Duration#ZERO} to expire on invalidation and eviction only.
+	 * @return new {@link RedisCacheConfiguration}.
+	 */
+	public RedisCacheConfiguration enableNearCache(long maximumSize, Duration ttl) {
+
+		Assert.isFalse(maximumSize > 0, "Near cache maximum size must be positive!");
+		Assert.notNull(ttl, "Near cache TTL duration must not be null!");
+
+		return new RedisCacheConfiguration(this.ttl, cacheNullValues, usePrefix, keyPrefix, keySerializationPair,
+				valueSerializationPair, conversionService, maximumSize, ttl);
 	}
 
 	/**
@@ -209,7 +239,7 @@ public class RedisCacheConfiguration {
 	public RedisCacheConfiguration disableKeyPrefix() {
 
 		return new RedisCacheConfiguration(ttl, cacheNullValues, false, keyPrefix, keySerializationPair,
-				valueSerializationPair, conversionService);
+				valueSerializationPair, conversionService, nearCacheMaximumSize, nearCacheTtl);
 	}
 
 	/**
@@ -223,7 +253,7 @@ public class RedisCacheConfiguration {
 		Assert.notNull(conversionService, "ConversionService must not be null!");
 
 		return new RedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializationPair,
-				valueSerializationPair, conversionService);
+				valueSerializationPair, conversionService, nearCacheMaximumSize, nearCacheTtl);
 	}
 
 	/**
@@ -237,7 +267,7 @@ public class RedisCacheConfiguration {
 		Assert.notNull(keySerializationPair, "KeySerializationPair must not be null!");
 
 		return new RedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializationPair,
-				valueSerializationPair, conversionService);
+				valueSerializationPair, conversionService, nearCacheMaximumSize, nearCacheTtl);
 	}
 
 	/**
@@ -251,7 +281,7 @@ public class RedisCacheConfiguration {
 		Assert.notNull(valueSerializationPair, "ValueSerializationPair must not be null!");
 
 		return new RedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializationPair,
-				valueSerializationPair, conversionService);
+				valueSerializationPair, conversionService, nearCacheMaximumSize, nearCacheTtl);
 	}
 
 	/**
@@ -305,6 +335,27 @@ public class RedisCacheConfiguration {
 		return valueSerializationPair;
 	}
 
+	/**
+	 * @return {@literal true} if a local near cache is kept in front of Redis.
+	 */
+	public boolean isNearCacheEnabled() {
+		return nearCacheMaximumSize > 0;
+	}
+
+	/**
+	 * @return maximum number of local near cache entries, {@literal 0} if disabled.
+	 */
+	public long getNearCacheMaximumSize() {
+		return nearCacheMaximumSize;
+	}
+
+	/**
+	 * @return local near cache entry expiration. Never {@literal null}.
+	 */
+	public Duration getNearCacheTtl() {
+		return nearCacheTtl;
+	}
+
 	/**
 	 * @return The expiration time (ttl) for cache entries. Never {@literal null}.
 	 */
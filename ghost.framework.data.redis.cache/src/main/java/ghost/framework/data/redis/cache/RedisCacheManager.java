@@ -18,6 +18,7 @@ package ghost.framework.data.redis.cache;
 import com.sun.istack.internal.Nullable;
 import ghost.framework.data.redis.cache.transaction.AbstractRedisCacheTransactionManager;
 import ghost.framework.data.redis.connection.RedisConnectionFactory;
+import ghost.framework.data.redis.listener.RedisMessageListenerContainer;
 import ghost.framework.util.Assert;
 
 import java.util.*;
@@ -42,6 +43,7 @@ public class RedisCacheManager extends AbstractRedisCacheTransactionManager {
 	private final RedisCacheConfiguration defaultCacheConfig;
 	private final Map<String, RedisCacheConfiguration> initialCacheConfiguration;
 	private final boolean allowInFlightCacheCreation;
+	private @Nullable RedisMessageListenerContainer messageListenerContainer;
 	/**
 	 * Creates new {@link RedisCacheManager} using given {@link RedisCacheWriter} and default
 	 * {@link RedisCacheConfiguration}.
@@ -257,6 +259,17 @@ public class RedisCacheManager extends AbstractRedisCacheTransactionManager {
 		return Collections.unmodifiableMap(configurationMap);
 	}
 
+	/**
+	 * Set the {@link RedisMessageListenerContainer} used by near caches to receive invalidation messages from
+	 * other nodes. Without a container near caches only see local invalidations.
+	 *
+	 * @param messageListenerContainer can be {@literal null}.
+	 * @see RedisCacheConfiguration#enableNearCache(long, java.time.Duration)
+	 */
+	public void setMessageListenerContainer(@Nullable RedisMessageListenerContainer messageListenerContainer) {
+		this.messageListenerContainer = messageListenerContainer;
+	}
+
 	/**
 	 * Configuration hook for creating {@link RedisCache} with given name and {@code cacheConfig}.
 	 *
@@ -265,7 +278,14 @@ public class RedisCacheManager extends AbstractRedisCacheTransactionManager {
 	 * @return never {@literal null}.
 	 */
 	protected RedisCache createRedisCache(String name, @Nullable RedisCacheConfiguration cacheConfig) {
-		return new RedisCache(name, cacheWriter, cacheConfig != null ? cacheConfig : defaultCacheConfig);
+
+		RedisCacheConfiguration config = cacheConfig != null ? cacheConfig : defaultCacheConfig;
+
+		if (config.isNearCacheEnabled()) {
+			return new NearRedisCache(name, cacheWriter, config, messageListenerContainer);
+		}
+
+		return new RedisCache(name, cacheWriter, config);
 	}
 
 	/**
@@ -283,6 +303,7 @@ public class RedisCacheManager extends AbstractRedisCacheTransactionManager {
 		private final Map<String, RedisCacheConfiguration> initialCaches = new LinkedHashMap<>();
 		private boolean enableTransactions;
 		boolean allowInFlightCacheCreation = true;
+		private @Nullable RedisMessageListenerContainer messageListenerContainer;
 
 		private RedisCacheManagerBuilder() {}
 
@@ -408,6 +429,21 @@ public class RedisCacheManager extends AbstractRedisCacheTransactionManager {
 			return this;
 		}
 
+		/**
+		 * Configure the {@link RedisMessageListenerContainer} near caches subscribe to for invalidation messages.
+		 *
+		 * @param messageListenerContainer must not be {@literal null}.
+		 * @return this {@link RedisCacheManagerBuilder}.
+		 */
+		public RedisCacheManagerBuilder messageListenerContainer(RedisMessageListenerContainer messageListenerContainer) {
+
+			Assert.notNull(messageListenerContainer, "MessageListenerContainer must not be null!");
+
+			this.messageListenerContainer = messageListenerContainer;
+
+			return this;
+		}
+
 		/**
 		 * Disable in-flight {@link ghost.framework.cache.Cache} creation for unconfigured caches.
 		 * <p />
@@ -458,6 +494,8 @@ public class RedisCacheManager extends AbstractRedisCacheTransactionManager {
 			RedisCacheManager cm = new RedisCacheManager(cacheWriter, defaultCacheConfiguration, initialCaches,
 					allowInFlightCacheCreation);
 
+			cm.setMessageListenerContainer(messageListenerContainer);
+
 //			cm.setTransactionAware(enableTransactions);
 
 			return cm;
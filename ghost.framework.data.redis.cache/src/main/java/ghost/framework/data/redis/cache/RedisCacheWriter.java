@@ -20,6 +20,7 @@ import ghost.framework.data.redis.connection.RedisConnectionFactory;
 import ghost.framework.util.Assert;
 
 import java.time.Duration;
+import java.util.concurrent.Executor;
 
 /**
  * {@link RedisCacheWriter} provides low level access to Redis commands ({@code SET, SETNX, GET, EXPIRE,...}) used for
@@ -59,6 +60,54 @@ public interface RedisCacheWriter {
 		return new DefaultRedisCacheWriter(connectionFactory, Duration.ofMillis(50));
 	}
 
+	/**
+	 * Create new {@link RedisCacheWriter} without locking behavior.
+	 *
+	 * @param connectionFactory must not be {@literal null}.
+	 * @param batchStrategy strategy used to clean caches. Must not be {@literal null}.
+	 * @return new instance of {@link DefaultRedisCacheWriter}.
+	 */
+	static RedisCacheWriter nonLockingRedisCacheWriter(RedisConnectionFactory connectionFactory,
+			BatchStrategy batchStrategy) {
+		return nonLockingRedisCacheWriter(connectionFactory, batchStrategy, null);
+	}
+
+	/**
+	 * Create new {@link RedisCacheWriter} without locking behavior.
+	 *
+	 * @param connectionFactory must not be {@literal null}.
+	 * @param batchStrategy strategy used to clean caches. Must not be {@literal null}.
+	 * @param cleanExecutor executor to clean caches in the background. Can be {@literal null} to clean in the calling
+	 *          thread.
+	 * @return new instance of {@link DefaultRedisCacheWriter}.
+	 */
+	static RedisCacheWriter nonLockingRedisCacheWriter(RedisConnectionFactory connectionFactory,
+			BatchStrategy batchStrategy, @Nullable Executor cleanExecutor) {
+
+		Assert.notNull(connectionFactory, "ConnectionFactory must not be null!");
+		Assert.notNull(batchStrategy, "BatchStrategy must not be null!");
+
+		return new DefaultRedisCacheWriter(connectionFactory, Duration.ZERO, batchStrategy, cleanExecutor);
+	}
+
+	/**
+	 * Create new {@link RedisCacheWriter} with locking behavior.
+	 *
+	 * @param connectionFactory must not be {@literal null}.
+	 * @param batchStrategy strategy used to clean caches. Must not be {@literal null}.
+	 * @param cleanExecutor executor to clean caches in the background. Can be {@literal null} to clean in the calling
+	 *          thread.
+	 * @return new instance of {@link DefaultRedisCacheWriter}.
+	 */
+	static RedisCacheWriter lockingRedisCacheWriter(RedisConnectionFactory connectionFactory,
+			BatchStrategy batchStrategy, @Nullable Executor cleanExecutor) {
+
+		Assert.notNull(connectionFactory, "ConnectionFactory must not be null!");
+		Assert.notNull(batchStrategy, "BatchStrategy must not be null!");
+
+		return new DefaultRedisCacheWriter(connectionFactory, Duration.ofMillis(50), batchStrategy, cleanExecutor);
+	}
+
 	/**
 	 * Write the given key/value pair to Redis an set the expiration time if defined.
 	 *
@@ -100,10 +149,57 @@ public interface RedisCacheWriter {
 	void remove(String name, byte[] key);
 
 	/**
-	 * Remove all keys following the given pattern.
+	 * Remove all keys following the given pattern. How keys are looked up and removed is defined by the
+	 * {@link BatchStrategy} of the writer; the call may return before the keys are removed if the writer cleans in the
+	 * background.
 	 *
 	 * @param name The cache name must not be {@literal null}.
 	 * @param pattern The pattern for the keys to remove. Must not be {@literal null}.
 	 */
 	void clean(String name, byte[] pattern);
+
+	/**
+	 * Remove all keys following the given pattern and run the given callback once they are removed. The callback also
+	 * runs if cleaning fails. Writers that clean in the background must override this method so the callback runs after
+	 * the background clean.
+	 *
+	 * @param name The cache name must not be {@literal null}.
+	 * @param pattern The pattern for the keys to remove. Must not be {@literal null}.
+	 * @param callback Runs after the keys are removed. Must not be {@literal null}.
+	 */
+	default void clean(String name, byte[] pattern, Runnable callback) {
+
+		try {
+			clean(name, pattern);
+		} finally {
+			callback.run();
+		}
+	}
+
+	/**
+	 * Get the remaining time to live of the given key.
+	 *
+	 * @param name must not be {@literal null}.
+	 * @param key must not be {@literal null}.
+	 * @return {@link Duration#ZERO} if the key does not exist, {@literal null} if the key does not expire or the writer
+	 *         cannot tell.
+	 */
+	@Nullable
+	default Duration getTtl(String name, byte[] key) {
+		return null;
+	}
+
+	/**
+	 * Publish the given message to the given channel.
+	 * <p>
+	 * The default implementation throws {@link UnsupportedOperationException}. Callers such as {@link NearRedisCache}
+	 * then keep invalidation local to the current node.
+	 *
+	 * @param channel The channel to publish to. Must not be {@literal null}.
+	 * @param message The message to publish. Must not be {@literal null}.
+	 * @throws UnsupportedOperationException if the writer cannot publish messages.
+	 */
+	default void publish(byte[] channel, byte[] message) {
+		throw new UnsupportedOperationException(getClass().getName() + " does not support publish");
+	}
 }
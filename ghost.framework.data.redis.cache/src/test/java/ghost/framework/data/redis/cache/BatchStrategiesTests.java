@@ -0,0 +1,244 @@
+package ghost.framework.data.redis.cache;
+
+import ghost.framework.data.redis.connection.RedisClusterConnection;
+import ghost.framework.data.redis.connection.RedisClusterNode;
+import ghost.framework.data.redis.connection.RedisConnection;
+import ghost.framework.data.redis.connection.RedisNode;
+import ghost.framework.data.redis.connection.core.Cursor;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.data.redis.cache
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link BatchStrategies} 单元测试
+ * @Date: 2020/6/28:16:10
+ */
+public class BatchStrategiesTests {
+    private static final byte[] PATTERN = bytes("cache::*");
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static List<byte[]> keys(String prefix, int count) {
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(bytes(prefix + i));
+        }
+        return keys;
+    }
+
+    private static RedisClusterNode node(String host, RedisNode.NodeType type) {
+        return RedisClusterNode.newRedisClusterNode().listeningAt(host, 7000).promotedAs(type).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cursor<byte[]> cursor(List<byte[]> keys) {
+        Iterator<byte[]> iterator = keys.iterator();
+        return (Cursor<byte[]>) Proxy.newProxyInstance(Cursor.class.getClassLoader(), new Class<?>[]{Cursor.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hasNext":
+                            return iterator.hasNext();
+                        case "next":
+                            return iterator.next();
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void scanOnClusterScansEachMaster() {
+        RedisClusterNode first = node("first", RedisNode.NodeType.MASTER);
+        RedisClusterNode second = node("second", RedisNode.NodeType.MASTER);
+        RedisClusterNode replica = node("replica", RedisNode.NodeType.SLAVE);
+        Map<String, List<byte[]>> nodeKeys = new HashMap<>();
+        nodeKeys.put("first", keys("cache::a", 3));
+        nodeKeys.put("second", keys("cache::b", 2));
+        List<String> scanned = new ArrayList<>();
+        FakeConnection fake = new FakeConnection() {
+            @Override
+            Object invoke(String name, Object[] args) {
+                switch (name) {
+                    case "clusterGetNodes":
+                        return Arrays.asList(first, replica, second);
+                    case "scan":
+                        if (args.length == 1) {
+                            throw new UnsupportedOperationException("Scan is not supported across multiple nodes within a cluster");
+                        }
+                        String host = ((RedisClusterNode) args[0]).getHost();
+                        scanned.add(host);
+                        return cursor(nodeKeys.get(host));
+                    default:
+                        return super.invoke(name, args);
+                }
+            }
+        };
+        long count = BatchStrategies.scan(10).cleanCache(fake.cluster(), "cache", PATTERN);
+        assertThat(count).isEqualTo(5);
+        //从节点不扫描
+        assertThat(scanned).containsExactly("first", "second");
+        assertThat(fake.unlinked).containsExactly("cache::a0", "cache::a1", "cache::a2", "cache::b0", "cache::b1");
+    }
+
+    @Test
+    public void clusterUnlinkWithoutPipeline() {
+        FakeConnection fake = new FakeConnection() {
+            @Override
+            Object invoke(String name, Object[] args) {
+                if (name.equals("keys")) {
+                    return new LinkedHashSet<>(keys("cache::", 300));
+                }
+                return super.invoke(name, args);
+            }
+        };
+        //集群连接打开管道会抛出异常，超过分块大小时逐块删除
+        long count = BatchStrategies.keys().cleanCache(fake.cluster(), "cache", PATTERN);
+        assertThat(count).isEqualTo(300);
+        assertThat(fake.unlinks).isEqualTo(3);
+        assertThat(fake.unlinked).hasSize(300);
+    }
+
+    @Test
+    public void standaloneUnlinkUsesPipeline() {
+        FakeConnection fake = new FakeConnection() {
+            @Override
+            Object invoke(String name, Object[] args) {
+                if (name.equals("scan")) {
+                    return cursor(keys("cache::", 300));
+                }
+                return super.invoke(name, args);
+            }
+        };
+        long count = BatchStrategies.scan(1000).cleanCache(fake.standalone(), "cache", PATTERN);
+        assertThat(count).isEqualTo(300);
+        assertThat(fake.pipelined).isTrue();
+        assertThat(fake.unlinks).isEqualTo(3);
+    }
+
+    @Test
+    public void keySetIndexUsesHashTag() {
+        FakeConnection fake = new FakeConnection();
+        BatchStrategy strategy = BatchStrategies.keySetIndex(10);
+        strategy.onPut(fake.standalone(), "cache", bytes("cache::a"));
+        strategy.onRemove(fake.standalone(), "cache", bytes("cache::a"));
+        assertThat(fake.calls).containsExactly("sAdd {cache}~keys", "sRem {cache}~keys");
+    }
+
+    @Test
+    public void keySetIndexClearsRenamedIndex() {
+        List<String> evalKeys = new ArrayList<>();
+        FakeConnection fake = new FakeConnection() {
+            @Override
+            Object invoke(String name, Object[] args) {
+                switch (name) {
+                    case "eval":
+                        for (byte[] key : (byte[][]) args[3]) {
+                            evalKeys.add(string(key));
+                        }
+                        return 1L;
+                    case "sScan":
+                        return cursor(keys("cache::", 3));
+                    default:
+                        return super.invoke(name, args);
+                }
+            }
+        };
+        long count = BatchStrategies.keySetIndex(10).cleanCache(fake.cluster(), "cache", PATTERN);
+        assertThat(count).isEqualTo(3);
+        //索引键与转移键在同一个集群槽
+        assertThat(evalKeys.get(0)).isEqualTo("{cache}~keys");
+        assertThat(evalKeys.get(1)).startsWith("{cache}~keys~");
+        assertThat(fake.unlinked).containsExactly("cache::0", "cache::1", "cache::2", evalKeys.get(1));
+    }
+
+    @Test
+    public void keySetIndexWithoutIndexRemovesNothing() {
+        //索引不存在或已被并发清除转移时脚本返回0
+        FakeConnection fake = new FakeConnection();
+        long count = BatchStrategies.keySetIndex(10).cleanCache(fake.standalone(), "cache", PATTERN);
+        assertThat(count).isEqualTo(0);
+        assertThat(fake.calls).containsExactly("eval");
+        assertThat(fake.unlinked).isEmpty();
+    }
+
+    /**
+     * 记录调用的redis连接
+     */
+    private static class FakeConnection {
+        private final List<String> calls = new ArrayList<>();
+        private final List<String> unlinked = new ArrayList<>();
+        private int unlinks;
+        private boolean cluster;
+        private boolean pipelined;
+        private List<Object> pipeline;
+
+        RedisConnection standalone() {
+            return (RedisConnection) Proxy.newProxyInstance(RedisConnection.class.getClassLoader(),
+                    new Class<?>[]{RedisConnection.class}, (proxy, method, args) -> invoke(method.getName(), args));
+        }
+
+        RedisClusterConnection cluster() {
+            this.cluster = true;
+            return (RedisClusterConnection) Proxy.newProxyInstance(RedisClusterConnection.class.getClassLoader(),
+                    new Class<?>[]{RedisClusterConnection.class}, (proxy, method, args) -> invoke(method.getName(), args));
+        }
+
+        Object invoke(String name, Object[] args) {
+            switch (name) {
+                case "sAdd":
+                case "sRem":
+                    calls.add(name + " " + string((byte[]) args[0]));
+                    return 1L;
+                case "eval":
+                    calls.add(name);
+                    return 0L;
+                case "openPipeline":
+                    if (cluster) {
+                        throw new UnsupportedOperationException("Pipeline is currently not supported for cluster connection.");
+                    }
+                    pipelined = true;
+                    pipeline = new ArrayList<>();
+                    return null;
+                case "closePipeline":
+                    List<Object> results = pipeline;
+                    pipeline = null;
+                    return results;
+                case "unlink":
+                    byte[][] keys = (byte[][]) args[0];
+                    unlinks++;
+                    for (byte[] key : keys) {
+                        unlinked.add(string(key));
+                    }
+                    if (pipeline != null) {
+                        pipeline.add((long) keys.length);
+                        return null;
+                    }
+                    return (long) keys.length;
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package ghost.framework.data.redis.cache;
+
+import ghost.framework.data.redis.connection.Message;
+import ghost.framework.data.redis.connection.MessageListener;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.data.redis.cache
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link NearRedisCache} 本地命中与失效单元测试
+ * @Date: 2020/6/28:15:30
+ */
+public class NearRedisCacheTests {
+    private static final String NAME = "near";
+
+    private static NearRedisCache cache(RedisCacheWriter writer) {
+        NearRedisCache cache = new NearRedisCache(NAME, writer,
+                RedisCacheConfiguration.defaultCacheConfig().enableNearCache(100, Duration.ZERO), null);
+        if (writer instanceof MemoryCacheWriter) {
+            ((MemoryCacheWriter) writer).listeners.add(cache);
+        }
+        return cache;
+    }
+
+    @Test
+    public void localHitSkipsRedis() {
+        MemoryCacheWriter writer = new MemoryCacheWriter();
+        NearRedisCache cache = cache(writer);
+        cache.put("k", "v");
+        assertThat(cache.get("k").get()).isEqualTo("v");
+        assertThat(cache.get("k").get()).isEqualTo("v");
+        //第二次读取命中本地缓存
+        assertThat(writer.gets.get()).isEqualTo(1);
+        assertThat(cache.getNearCache().get(cache.createCacheKey("k"))).isNotNull();
+    }
+
+    @Test
+    public void localMissReadsRedis() {
+        MemoryCacheWriter writer = new MemoryCacheWriter();
+        NearRedisCache cache = cache(writer);
+        assertThat(cache.get("k")).isNull();
+        assertThat(cache.get("k")).isNull();
+        //redis没有的键不填充本地缓存
+        assertThat(writer.gets.get()).isEqualTo(2);
+        assertThat(cache.getNearCache().get(cache.createCacheKey("k"))).isNull();
+    }
+
+    @Test
+    public void putAndEvictInvalidateLocal() {
+        MemoryCacheWriter writer = new MemoryCacheWriter();
+        NearRedisCache cache = cache(writer);
+        cache.put("k", "v1");
+        assertThat(cache.get("k").get()).isEqualTo("v1");
+        cache.put("k", "v2");
+        assertThat(cache.get("k").get()).isEqualTo("v2");
+        cache.evict("k");
+        assertThat(cache.getNearCache().get(cache.createCacheKey("k"))).isNull();
+        assertThat(cache.get("k")).isNull();
+    }
+
+    @Test
+    public void putInvalidatesOtherNodes() {
+        MemoryCacheWriter writer = new MemoryCacheWriter();
+        NearRedisCache first = cache(writer);
+        NearRedisCache second = cache(writer);
+        first.put("k", "v1");
+        assertThat(second.get("k").get()).isEqualTo("v1");
+        first.put("k", "v2");
+        //其它节点收到失效消息后从redis读取新值
+        assertThat(second.getNearCache().get(second.createCacheKey("k"))).isNull();
+        assertThat(second.get("k").get()).isEqualTo("v2");
+    }
+
+    @Test
+    public void ignoresOwnMessages() {
+        MemoryCacheWriter writer = new MemoryCacheWriter();
+        NearRedisCache cache = cache(writer);
+        cache.put("k", "v");
+        cache.get("k");
+        //重复投递自己发布的失效消息不删除本地条目
+        cache.onMessage(writer.last, null);
+        assertThat(cache.getNearCache().get(cache.createCacheKey("k"))).isNotNull();
+    }
+
+    @Test
+    public void clearInvalidatesOtherNodes() {
+        MemoryCacheWriter writer = new MemoryCacheWriter();
+        NearRedisCache first = cache(writer);
+        NearRedisCache second = cache(writer);
+        first.put("a", "1");
+        first.put("b", "2");
+        second.get("a");
+        second.get("b");
+        assertThat(second.getNearCache().getEstimatedSize()).isEqualTo(2);
+        first.clear();
+        assertThat(second.getNearCache().getEstimatedSize()).isEqualTo(0);
+        assertThat(second.get("a")).isNull();
+    }
+
+    @Test
+    public void writerWithoutPublishKeepsInvalidationLocal() {
+        AtomicInteger publishes = new AtomicInteger();
+        MemoryCacheWriter writer = new MemoryCacheWriter() {
+            @Override
+            public void publish(byte[] channel, byte[] message) {
+                publishes.incrementAndGet();
+                throw new UnsupportedOperationException("publish");
+            }
+        };
+        NearRedisCache cache = cache(writer);
+        cache.put("k", "v1");
+        assertThat(cache.get("k").get()).isEqualTo("v1");
+        cache.put("k", "v2");
+        assertThat(cache.get("k").get()).isEqualTo("v2");
+        cache.evict("k");
+        assertThat(cache.get("k")).isNull();
+        //不支持发布后不再尝试发布
+        assertThat(publishes.get()).isEqualTo(1);
+    }
+
+    /**
+     * 内存缓存写入
+     * 发布的消息同步投递给所有监听
+     */
+    private static class MemoryCacheWriter implements RedisCacheWriter {
+        private final Map<String, byte[]> map = new ConcurrentHashMap<>();
+        private final List<MessageListener> listeners = new CopyOnWriteArrayList<>();
+        private final AtomicInteger gets = new AtomicInteger();
+        private volatile Message last;
+
+        private static String key(byte[] key) {
+            return new String(key, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void put(String name, byte[] key, byte[] value, Duration ttl) {
+            map.put(key(key), value);
+        }
+
+        @Override
+        public byte[] get(String name, byte[] key) {
+            gets.incrementAndGet();
+            return map.get(key(key));
+        }
+
+        @Override
+        public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+            return map.putIfAbsent(key(key), value);
+        }
+
+        @Override
+        public void remove(String name, byte[] key) {
+            map.remove(key(key));
+        }
+
+        @Override
+        public void clean(String name, byte[] pattern) {
+            map.clear();
+        }
+
+        @Override
+        public void publish(byte[] channel, byte[] message) {
+            last = new Message() {
+                @Override
+                public byte[] getBody() {
+                    return message;
+                }
+
+                @Override
+                public byte[] getChannel() {
+                    return channel;
+                }
+            };
+            for (MessageListener listener : listeners) {
+                listener.onMessage(last, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ghost.framework.jmx.server.plugin;
+
+import ghost.framework.context.metrics.*;
+
+import javax.management.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * package: ghost.framework.jmx.server.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:度量动态MBean
+ * 每个度量导出为只读属性，属性名称为 度量编号.统计项，计时器单位为毫秒
+ * 度量在运行时增加，每次获取 {@link MBeanInfo} 时重新生成属性列表
+ * @Date: 2020/6/18:11:05
+ */
+final class MetricsMBean implements DynamicMBean {
+    /**
+     * 计数器统计项
+     */
+    private static final String COUNT = "count";
+    /**
+     * 计时器与直方图统计项
+     */
+    private static final String[] DISTRIBUTION = {COUNT, "total", "max", "p50", "p99"};
+    /**
+     * 度量注册表
+     */
+    private final IMeterRegistry registry;
+
+    MetricsMBean(IMeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        int i = attribute.lastIndexOf('.');
+        IMeter meter = i == -1 ? null : this.registry.getMeter(attribute.substring(0, i));
+        if (meter == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        String item = attribute.substring(i + 1);
+        switch (meter.getType()) {
+            case Counter:
+                if (COUNT.equals(item)) {
+                    return ((ICounter) meter).getCount();
+                }
+                break;
+            case Timer:
+                ITimer timer = (ITimer) meter;
+                switch (item) {
+                    case COUNT:
+                        return timer.getCount();
+                    case "total":
+                        return timer.getTotalTime(TimeUnit.MILLISECONDS);
+                    case "max":
+                        return timer.getMax(TimeUnit.MILLISECONDS);
+                    case "p50":
+                        return timer.getPercentile(0.5, TimeUnit.MILLISECONDS);
+                    case "p99":
+                        return timer.getPercentile(0.99, TimeUnit.MILLISECONDS);
+                }
+                break;
+            default:
+                IHistogram histogram = (IHistogram) meter;
+                switch (item) {
+                    case COUNT:
+                        return histogram.getCount();
+                    case "total":
+                        return histogram.getSum();
+                    case "max":
+                        return histogram.getMax();
+                    case "p50":
+                        return histogram.getPercentile(0.5);
+                    case "p99":
+                        return histogram.getPercentile(0.99);
+                }
+                break;
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, this.getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                //不存在的属性不返回
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " read only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (IMeter meter : this.registry.getMeters()) {
+            switch (meter.getType()) {
+                case Counter:
+                    attributes.add(attribute(meter.getId() + "." + COUNT, Long.class, meter.getType()));
+                    break;
+                case Timer:
+                    attributes.add(attribute(meter.getId() + "." + COUNT, Long.class, meter.getType()));
+                    for (int i = 1; i < DISTRIBUTION.length; i++) {
+                        attributes.add(attribute(meter.getId() + "." + DISTRIBUTION[i], Double.class, meter.getType()));
+                    }
+                    break;
+                default:
+                    for (String item : DISTRIBUTION) {
+                        attributes.add(attribute(meter.getId() + "." + item, Long.class, meter.getType()));
+                    }
+                    break;
+            }
+        }
+        return new MBeanInfo(MetricsMBean.class.getName(), "ghost framework metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+
+    /**
+     * 创建属性描述
+     *
+     * @param name 属性名称
+     * @param type 属性类型
+     * @param meterType 度量类型
+     * @return
+     */
+    private static MBeanAttributeInfo attribute(String name, Class<?> type, MeterType meterType) {
+        return new MBeanAttributeInfo(name, type.getName(), meterType.name(), true, false, false);
+    }
+}
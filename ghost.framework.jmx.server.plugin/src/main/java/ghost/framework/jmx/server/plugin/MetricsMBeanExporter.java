@@ -0,0 +1,85 @@
+package ghost.framework.jmx.server.plugin;
+
+import ghost.framework.beans.annotation.injection.Autowired;
+import ghost.framework.beans.annotation.invoke.Loader;
+import ghost.framework.beans.annotation.invoke.Unloader;
+import ghost.framework.beans.annotation.stereotype.Component;
+import ghost.framework.context.metrics.IMeterRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * package: ghost.framework.jmx.server.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:度量JMX导出
+ * 插件加载时把应用度量注册表注册到平台 {@link MBeanServer}，插件卸载时注销
+ * @Date: 2020/6/18:11:30
+ */
+@Component
+public class MetricsMBeanExporter {
+    private final Log log = LogFactory.getLog(MetricsMBeanExporter.class);
+    /**
+     * 度量对象名称
+     */
+    public static final String OBJECT_NAME = "ghost.framework:type=Metrics";
+    /**
+     * 度量注册表
+     */
+    @Autowired
+    private IMeterRegistry registry;
+    /**
+     * 注册的对象名称
+     */
+    private ObjectName objectName;
+
+    /**
+     * 注册度量MBean
+     */
+    @Loader
+    public void loader() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new MetricsMBean(this.registry), name);
+            this.objectName = name;
+        } catch (Exception e) {
+            if (this.log.isDebugEnabled()) {
+                e.printStackTrace();
+                this.log.debug(e.getMessage());
+            } else {
+                this.log.error(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 注销度量MBean
+     */
+    @Unloader
+    public void unloader() {
+        if (this.objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+        } catch (Exception e) {
+            if (this.log.isDebugEnabled()) {
+                e.printStackTrace();
+                this.log.debug(e.getMessage());
+            } else {
+                this.log.error(e.getMessage());
+            }
+        } finally {
+            this.objectName = null;
+        }
+    }
+}
@@ -11,12 +11,15 @@ import ghost.framework.beans.execute.LoadingMode;
 import ghost.framework.beans.plugin.bean.annotation.PluginPackage;
 import ghost.framework.beans.plugin.event.PluginApplicationEvent;
 import ghost.framework.beans.plugin.exception.PluginLoaderException;
+import ghost.framework.context.application.ApplicationConstant;
 import ghost.framework.context.application.IApplication;
 import ghost.framework.context.assembly.IClassLoader;
 import ghost.framework.context.base.ICoreInterface;
 import ghost.framework.context.bean.factory.ClassAnnotationBeanTargetHandle;
 import ghost.framework.context.bean.factory.IClassAnnotationBeanFactoryContainer;
 import ghost.framework.context.bean.factory.scan.container.IScanResourceBeanFactoryContainer;
+import ghost.framework.context.bootstrap.BootstrapScheduler;
+import ghost.framework.context.bootstrap.BootstrapTimeline;
 import ghost.framework.context.event.maven.IMavenPluginEventTargetHandle;
 import ghost.framework.context.event.maven.MavenPluginEventTargetHandle;
 import ghost.framework.context.event.scan.ScanResourceEventTargetHandle;
@@ -35,10 +38,9 @@ import ghost.framework.util.PropertiesUtil;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import java.net.MalformedURLException;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Properties;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 /**
  * package: ghost.framework.core.application.loader
  *
@@ -46,6 +48,7 @@ import java.util.Properties;
  * @link: 手机:13715848993, QQ 27048384
  * @Description:maven插件加载类
  * 按照 {@link IMavenPluginEventTargetHandle::isAlreadyLoaded()}获取状态判断是否已经加载依赖包，如果未加载依赖包时先加载依赖包后从新开始加载插件列表
+ * 插件依赖包使用 {@link BootstrapScheduler} 并行解析，插件按依赖包关系排序后在当前线程顺序加载，保证插件内绑定顺序确定
  * @Date: 2020/2/3:23:27
  * @param <O> 为应用或模块核心接口，作为插件加载的位置
  * @param <T> 目标对象，为Class<?>或Map<FileArtifact, List<FileArtifact>>对象
@@ -106,19 +109,11 @@ public class MavenPluginLoader
                 if (event.getOwner() instanceof IApplication) {
 //                    artifact.getProperties().put("global", String.valueOf(dependency.global()));
                 }
-                if (this.log.isDebugEnabled()) {
-                    this.log.debug(event.getOwner().getName() + ">" + artifact.toString());
-                }
-                //加载插件依赖列表
-                List<FileArtifact> artifactList = dependencyLoader.loader(artifact);
-                //获取插件信息
-                ArtifactUitl.findFirst(artifactList, artifact);
-                if (this.log.isDebugEnabled()) {
-                    this.log.debug(event.getOwner().getName() + ">" + artifact.toString());
-                }
                 //添加插件地图
-                map.put(artifact, artifactList);
+                map.put(artifact, new ArrayList<>());
             }
+            //并行加载插件依赖列表
+            map = this.resolve(event, map, dependencyLoader::loader);
             //没有插件退出
             if (map.size() == 0) {
                 return;
@@ -138,8 +133,11 @@ public class MavenPluginLoader
             IClassLoader classLoader = event.getOwner().getClassLoader();
             //开始加载插件
             Map<FileArtifact, List<FileArtifact>> map = event.getPlugins();
-            //遍历插件列表
-            for (Map.Entry<FileArtifact, List<FileArtifact>> artifact : map.entrySet()) {
+            //获取启动时间线
+            BootstrapTimeline timeline = this.app.getNullableBean(BootstrapTimeline.class);
+            //按插件依赖关系顺序遍历插件列表
+            for (Map.Entry<FileArtifact, List<FileArtifact>> artifact : this.order(map)) {
+                BootstrapTimeline.Step step = timeline == null ? null : timeline.begin(artifact.getKey().toString(), "load");
                 //获取模块注释信息
                 try {
                     //先添加依赖包
@@ -209,6 +207,10 @@ public class MavenPluginLoader
                     event.getOwner().getBean(IClassAnnotationBeanFactoryContainer.class).loader(new ClassAnnotationBeanTargetHandle(event.getOwner(), packageClass, source.getName(), source));
                 } catch (MalformedURLException e) {
                     throw new PluginLoaderException(artifact.toString(), e);
+                } finally {
+                    if (step != null) {
+                        step.end();
+                    }
                 }
             }
             return;
@@ -229,20 +231,8 @@ public class MavenPluginLoader
         Map<FileArtifact, List<FileArtifact>> map = event.getPlugins();
         //获取maven依赖加载器接口
         IMavenDependencyLoader dependencyLoader = this.app.getBean(IMavenDependencyLoader.class);
-        //获取应用启动类的插件注释列表
-        for (Map.Entry<FileArtifact, List<FileArtifact>> entry : map.entrySet()) {
-            if (this.log.isDebugEnabled()) {
-                this.log.debug(event.getOwner().getName() + ">" + entry.getKey().toString());
-            }
-            //加载插件依赖列表
-            List<FileArtifact> artifactList = dependencyLoader.loader(entry.getKey(), downloadCallback);
-            //获取插件信息
-            ArtifactUitl.findFirst(artifactList, entry.getKey());
-            if (this.log.isDebugEnabled()) {
-                this.log.debug(event.getOwner().getName() + ">" + entry.getKey().toString());
-            }
-            entry.getValue().addAll(artifactList);
-        }
+        //并行加载插件依赖列表
+        map = this.resolve(event, map, a -> dependencyLoader.loader(a, downloadCallback));
         //没有插件退出
         if (map.size() == 0) {
             return;
@@ -255,6 +245,145 @@ public class MavenPluginLoader
         this.loader(event);
     }
 
+    /**
+     * 获取启动并行线程数
+     *
+     * @return
+     */
+    private int getParallelism() {
+        if (this.app.getEnv() != null && this.app.getEnv().containsKey(ApplicationConstant.Bootstrap.PARALLELISM)) {
+            return this.app.getEnv().getInt(ApplicationConstant.Bootstrap.PARALLELISM);
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * 获取插件键
+     * 解析依赖时会设置插件文件，插件对象哈希值会改变，调度使用插件坐标作为键
+     *
+     * @param groupId    组id
+     * @param artifactId 包id
+     * @return
+     */
+    private static String key(String groupId, String artifactId) {
+        return groupId + ":" + artifactId;
+    }
+
+    /**
+     * 获取插件版本键
+     *
+     * @param artifact 插件信息
+     * @return
+     */
+    private static String key(FileArtifact artifact) {
+        return key(artifact.getGroupId(), artifact.getArtifactId()) + ":" + artifact.getVersion();
+    }
+
+    /**
+     * 并行解析插件依赖列表
+     * 插件地图值中已经声明的其它插件作为调度依赖，先解析被依赖的插件，没有相互依赖的插件在有界线程池中并行执行
+     * 解析会设置插件文件改变插件哈希值，解析完成后按原顺序创建新的插件地图，不修改已经放入地图的键
+     *
+     * @param event    事件对象
+     * @param map      插件地图
+     * @param resolver 插件依赖解析函数
+     * @return 返回解析后的插件地图
+     */
+    private Map<FileArtifact, List<FileArtifact>> resolve(E event, Map<FileArtifact, List<FileArtifact>> map, Function<FileArtifact, List<FileArtifact>> resolver) {
+        BootstrapTimeline timeline = this.app.getNullableBean(BootstrapTimeline.class);
+        BootstrapScheduler<String> scheduler = new BootstrapScheduler<>(this.getParallelism(), "plugin-resolve");
+        //插件坐标对应版本键
+        Map<String, String> keys = new HashMap<>();
+        for (FileArtifact artifact : map.keySet()) {
+            keys.put(key(artifact.getGroupId(), artifact.getArtifactId()), key(artifact));
+        }
+        List<FileArtifact> artifacts = new ArrayList<>(map.keySet());
+        List<List<FileArtifact>> values = new ArrayList<>(map.values());
+        for (int i = 0; i < artifacts.size(); i++) {
+            FileArtifact artifact = artifacts.get(i);
+            List<FileArtifact> value = values.get(i);
+            //插件地图值中声明的其它插件
+            List<String> depends = new ArrayList<>();
+            for (FileArtifact a : value) {
+                String k = keys.get(key(a.getGroupId(), a.getArtifactId()));
+                if (k != null && !k.equals(key(artifact))) {
+                    depends.add(k);
+                }
+            }
+            scheduler.add(key(artifact), depends, () -> {
+                BootstrapTimeline.Step step = timeline == null ? null : timeline.begin(artifact.toString(), "resolve");
+                try {
+                    if (this.log.isDebugEnabled()) {
+                        this.log.debug(event.getOwner().getName() + ">" + artifact.toString());
+                    }
+                    //加载插件依赖列表
+                    List<FileArtifact> artifactList = resolver.apply(artifact);
+                    //获取插件信息
+                    ArtifactUitl.findFirst(artifactList, artifact);
+                    if (this.log.isDebugEnabled()) {
+                        this.log.debug(event.getOwner().getName() + ">" + artifact.toString());
+                    }
+                    value.addAll(artifactList);
+                } finally {
+                    if (step != null) {
+                        step.end();
+                    }
+                }
+            });
+        }
+        try {
+            scheduler.run();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new PluginLoaderException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PluginLoaderException(e);
+        }
+        //插件哈希值已经改变，重新创建插件地图
+        Map<FileArtifact, List<FileArtifact>> resolved = new LinkedHashMap<>();
+        for (int i = 0; i < artifacts.size(); i++) {
+            resolved.put(artifacts.get(i), values.get(i));
+        }
+        return resolved;
+    }
+
+    /**
+     * 按插件依赖关系排序
+     * 插件依赖包列表中包含的其它插件先加载，没有相互依赖的插件保持声明顺序
+     *
+     * @param map 插件地图
+     * @return 返回排序后的插件列表
+     * @throws PluginLoaderException 同一插件声明了多个版本
+     */
+    private List<Map.Entry<FileArtifact, List<FileArtifact>>> order(Map<FileArtifact, List<FileArtifact>> map) {
+        Map<String, Map.Entry<FileArtifact, List<FileArtifact>>> entries = new LinkedHashMap<>();
+        for (Map.Entry<FileArtifact, List<FileArtifact>> entry : map.entrySet()) {
+            Map.Entry<FileArtifact, List<FileArtifact>> exist = entries.put(key(entry.getKey().getGroupId(), entry.getKey().getArtifactId()), entry);
+            if (exist != null) {
+                throw new PluginLoaderException("plugin " + key(exist.getKey()) + " and " + key(entry.getKey()) + " can not be loaded together");
+            }
+        }
+        Map<String, List<String>> graph = new LinkedHashMap<>();
+        for (Map.Entry<String, Map.Entry<FileArtifact, List<FileArtifact>>> entry : entries.entrySet()) {
+            List<String> depends = new ArrayList<>();
+            for (FileArtifact a : entry.getValue().getValue()) {
+                String k = key(a.getGroupId(), a.getArtifactId());
+                if (!k.equals(entry.getKey()) && entries.containsKey(k)) {
+                    depends.add(k);
+                }
+            }
+            graph.put(entry.getKey(), depends);
+        }
+        List<Map.Entry<FileArtifact, List<FileArtifact>>> list = new ArrayList<>(entries.size());
+        for (String k : BootstrapScheduler.order(graph)) {
+            list.add(entries.get(k));
+        }
+        return list;
+    }
+
     /**
      * 卸载插件
      *
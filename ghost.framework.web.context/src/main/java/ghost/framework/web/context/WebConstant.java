@@ -9,6 +9,11 @@ package ghost.framework.web.context;
 public final class WebConstant {
     public final class HttpSession {
         public static final String HTTP_SESSION_LOCALE_ATTRIBUTE = "session.locale";
+        /**
+         * 没有会话仓库绑定时使用内存会话仓库的会话数量上限配置键
+         * 上限按分段平均分配，是近似上限，见分段内存会话仓库 ShardedMapSessionRepository
+         */
+        public static final String MEMORY_MAXIMUM_SESSIONS = "ghost.web.session.memory.maximumSessions";
     }
     public final class HttpServletRequest {
         public static final String HTTP_SERVLET_REQUEST_LOCALE_ATTRIBUTE = "http.servlet.request.locale";
@@ -8,6 +8,9 @@ import ghost.framework.context.method.MethodTarget;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 /**
  * package: ghost.framework.web.module.controller
  *
@@ -32,6 +35,46 @@ public final class ExceptionHandlerMethod extends MethodTarget implements IHttpR
 
     private RestControllerAdvice advice;
 
+    /**
+     * 函数扩展属性地图
+     */
+    private Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    /**
+     * 设置函数扩展属性
+     * {@link IHttpRequestMethod#setAttribute(String, Object)}
+     *
+     * @param name 属性名称
+     * @param o    属性对象
+     */
+    @Override
+    public void setAttribute(String name, Object o) {
+        this.attributes.put(name, o);
+    }
+
+    /**
+     * 获取函数扩展属性
+     * {@link IHttpRequestMethod#getAttribute(String)}
+     *
+     * @param name 属性名称
+     * @return
+     */
+    @Override
+    public Object getAttribute(String name) {
+        return this.attributes.get(name);
+    }
+
+    /**
+     * 获取函数扩展属性列表
+     * {@link IHttpRequestMethod#getAttributeNames()}
+     *
+     * @return
+     */
+    @Override
+    public Set<String> getAttributeNames() {
+        return this.attributes.keySet();
+    }
+
     /**
      * 指定处理的包
      * 通配符格式 ghost.framework.web.module.controller.*
@@ -102,6 +145,6 @@ public final class ExceptionHandlerMethod extends MethodTarget implements IHttpR
      */
     @Override
     public Object invoke(Object[] parameters) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-        return this.method.invoke(this.target, parameters);
+        return this.invokeMethod(parameters);
     }
 }
\ No newline at end of file
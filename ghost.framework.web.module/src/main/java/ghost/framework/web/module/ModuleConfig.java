@@ -13,6 +13,7 @@ import ghost.framework.web.module.bean.factory.ClassRestControllerAnnotationBean
 import ghost.framework.web.module.bean.factory.ClassWebResourceAnnotationBeanFactory;
 import ghost.framework.web.module.bean.factory.locale.ClassWebI18nNavAnnotationBeanFactory;
 import ghost.framework.web.module.controller.ControllerExceptionHandlerContainer;
+import ghost.framework.web.module.controller.MetricsRestController;
 import ghost.framework.web.module.event.annotation.resource.ClassWebResourceResolverAnnotationEventFactory;
 import ghost.framework.web.module.event.method.MethodRequestMappingAnnotationEventFactory;
 import ghost.framework.web.module.event.servlet.context.container.ServletContextBeanListenerContainer;
@@ -147,6 +148,8 @@ public class ModuleConfig {
         this.module.addBean(RequestMethodReturnValueApplicationXJavascriptResolver.class);
         this.module.addBean(RequestMethodReturnValueTextHtmlResolver.class);
         this.module.addBean(RequestMethodReturnValueImageClassResolver.class);
+        //注册度量文本控制器
+        this.module.addBean(MetricsRestController.class);
     }
 //    @Invoke
 //    @Order(1)
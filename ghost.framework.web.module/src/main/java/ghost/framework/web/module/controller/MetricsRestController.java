@@ -0,0 +1,96 @@
+package ghost.framework.web.module.controller;
+
+import ghost.framework.beans.annotation.application.Application;
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.beans.annotation.injection.Autowired;
+import ghost.framework.context.application.ApplicationConstant;
+import ghost.framework.context.application.IApplication;
+import ghost.framework.context.environment.IEnvironment;
+import ghost.framework.context.metrics.IMeterRegistry;
+import ghost.framework.context.metrics.MeterTextFormat;
+import ghost.framework.web.context.bind.annotation.RequestMapping;
+import ghost.framework.web.context.bind.annotation.RequestMethod;
+import ghost.framework.web.context.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * package: ghost.framework.web.module.controller
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:度量文本控制器
+ * 以文本格式输出 {@link IMeterRegistry} 全部度量，格式见 {@link MeterTextFormat}
+ * 配置 {@link ApplicationConstant.Metrics#TOKEN} 时需要提供访问令牌，未配置时只允许本机地址访问
+ * @Date: 2020/6/18:10:30
+ */
+@RestController
+public class MetricsRestController {
+    /**
+     * 度量注册表
+     */
+    @Application
+    @Autowired
+    @Nullable
+    private IMeterRegistry meterRegistry;
+    /**
+     * 应用接口
+     */
+    @Application
+    @Autowired
+    private IApplication app;
+
+    /**
+     * 输出度量文本
+     *
+     * @param request  请求对象
+     * @param response 响应对象
+     * @throws IOException
+     */
+    @RequestMapping(value = "/metrics", method = RequestMethod.GET)
+    public void metrics(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (this.meterRegistry == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!this.isAllowed(request)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/plain;charset=UTF-8");
+        PrintWriter writer = response.getWriter();
+        MeterTextFormat.write(this.meterRegistry, writer);
+        writer.flush();
+    }
+
+    /**
+     * 验证访问权限
+     *
+     * @param request 请求对象
+     * @return
+     */
+    private boolean isAllowed(HttpServletRequest request) {
+        IEnvironment env = this.app.getEnv();
+        String token = env != null && env.containsKey(ApplicationConstant.Metrics.TOKEN) ? env.getString(ApplicationConstant.Metrics.TOKEN) : null;
+        if (token != null && !token.isEmpty()) {
+            String value = request.getHeader(ApplicationConstant.Metrics.TOKEN_HEADER);
+            //固定时间比较，避免通过响应时间猜测令牌
+            return value != null && MessageDigest.isEqual(
+                    token.getBytes(StandardCharsets.UTF_8),
+                    value.getBytes(StandardCharsets.UTF_8));
+        }
+        //未配置令牌只允许本机访问
+        try {
+            return InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -138,7 +138,7 @@ public final class HttpControllerContainer extends AbstractCollection<Object> im
                 //添加新的请求函数地图
                 for (Map.Entry<HttpRequestMethodPath, IHttpRequestMethod> entry : requestMethodList.entrySet()) {
                     if (!sortedMap.containsKey(entry.getKey())) {
-                        sortedMap.put(entry.getKey(), entry.getValue());
+                        this.httpRequestMethodContainer.put(entry.getKey(), entry.getValue());
                     }
                 }
             }
@@ -204,9 +204,9 @@ public final class HttpControllerContainer extends AbstractCollection<Object> im
             //锁定同步
             synchronized (sortedMap) {
                 //清理http请求控制器容器
-                sortedMap.clear();
+                this.httpRequestMethodContainer.clear();
                 //添加新的请求函数地图
-                requestMethodList.forEach(sortedMap::put);
+                requestMethodList.forEach(this.httpRequestMethodContainer::put);
             }
         }
     }
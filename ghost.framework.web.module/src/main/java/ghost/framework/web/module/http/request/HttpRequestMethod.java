@@ -16,6 +16,7 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 /**
  * @Author: 郭树灿{guoshucan-pc}
  * @link: 手机:13715848993, QQ 27048384
@@ -58,7 +59,7 @@ public final class HttpRequestMethod extends MethodTarget implements IHttpReques
     /**
      * 函数扩展属性地图
      */
-    private Map<String, Object> attributes = new HashMap<>();
+    private Map<String, Object> attributes = new ConcurrentHashMap<>();
 
     /**
      * 设置函数扩展属性
@@ -469,6 +470,6 @@ public final class HttpRequestMethod extends MethodTarget implements IHttpReques
     @Override
     public Object invoke(Object[] parameters) throws IllegalAccessException, IllegalArgumentException,
             InvocationTargetException {
-        return this.method.invoke(this.target, parameters);
+        return this.invokeMethod(parameters);
     }
 }
\ No newline at end of file
@@ -1,14 +1,17 @@
 package ghost.framework.web.module.http.request;
 
+import ghost.framework.beans.annotation.application.Application;
+import ghost.framework.beans.annotation.constraints.Nullable;
 import ghost.framework.beans.annotation.injection.Autowired;
 import ghost.framework.beans.annotation.stereotype.Component;
+import ghost.framework.context.metrics.IMeterRegistry;
+import ghost.framework.context.metrics.ITimer;
 import ghost.framework.context.utils.AntPathMatcher;
 import ghost.framework.util.Assert;
 import ghost.framework.util.CollectionUtils;
 import ghost.framework.util.ReflectUtil;
 import ghost.framework.util.StringUtils;
 import ghost.framework.web.context.bind.annotation.RequestMapping;
-import ghost.framework.web.context.bind.annotation.RequestMethod;
 import ghost.framework.web.context.bind.annotation.RestController;
 import ghost.framework.web.context.controller.IControllerExceptionHandlerContainer;
 import ghost.framework.web.context.http.request.HttpRequestMethodPath;
@@ -31,6 +34,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URLDecoder;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 /**
  * package: ghost.framework.web.module.http
  *
@@ -53,6 +57,7 @@ public final class HttpRequestMethodContainer extends AbstractMap<HttpRequestMet
 
     /**
      * 获取请求函数列表
+     * 修改请求函数需要通过容器的 {@link #put(HttpRequestMethodPath, IHttpRequestMethod)} 与 {@link #remove(Object)} 函数，以便重新构建路由树
      *
      * @return
      */
@@ -72,7 +77,11 @@ public final class HttpRequestMethodContainer extends AbstractMap<HttpRequestMet
     public IHttpRequestMethod put(HttpRequestMethodPath key, IHttpRequestMethod value) {
         Assert.notNullOrEmpty(key, "add is key null error");
         Assert.notNull(value, "add is value null error");
-        sortedMap.put(key, value);
+        synchronized (this.sortedMap) {
+            this.sortedMap.put(key, value);
+            this.routeTrie = null;
+            this.pruneRouteMeters();
+        }
         this.log.info("put path " + key + " method " + value.getMethod().getName());
         return value;
     }
@@ -91,7 +100,7 @@ public final class HttpRequestMethodContainer extends AbstractMap<HttpRequestMet
         Assert.notNullOrEmpty(key, "remove is key null error");
         //判断删除键为请求对象处理
         if (key instanceof IHttpRequestMethod) {
-            return super.remove(((IHttpRequestMethod) key).getPath());
+            return this.remove(((IHttpRequestMethod) key).getPath());
         }
         //判断不为字符串类型处理
         if (!(key instanceof String)) {
@@ -104,10 +113,31 @@ public final class HttpRequestMethodContainer extends AbstractMap<HttpRequestMet
                 for (Method method : list) {
                     this.sortedMap.remove(method.getAnnotation(RequestMapping.class).value());
                 }
+                this.routeTrie = null;
+                this.pruneRouteMeters();
                 return null;
             }
         }
-        return super.remove(key);
+        synchronized (this.sortedMap) {
+            try {
+                return super.remove(key);
+            } finally {
+                this.routeTrie = null;
+                this.pruneRouteMeters();
+            }
+        }
+    }
+
+    /**
+     * 清除请求函数
+     */
+    @Override
+    public void clear() {
+        synchronized (this.sortedMap) {
+            this.sortedMap.clear();
+            this.routeTrie = null;
+            this.pruneRouteMeters();
+        }
     }
 
     /**
@@ -125,10 +155,159 @@ public final class HttpRequestMethodContainer extends AbstractMap<HttpRequestMet
      */
     @Autowired
     private IControllerExceptionHandlerContainer exceptionHandlerContainer;
+    /**
+     * 度量注册表
+     */
+    @Application
+    @Autowired
+    @Nullable
+    private IMeterRegistry meterRegistry;
+
+    /**
+     * 路由计时器
+     */
+    private static final class RouteMeters {
+        /**
+         * 空计时器，没有度量注册表时使用
+         */
+        private static final RouteMeters EMPTY = new RouteMeters(null, null);
+        /**
+         * 路由匹配耗时
+         */
+        private final ITimer match;
+        /**
+         * 参数解析耗时
+         */
+        private final ITimer argument;
+        /**
+         * 请求函数调用耗时
+         */
+        private final ITimer invoke;
+        /**
+         * 返回值写入耗时
+         */
+        private final ITimer returnValue;
+        /**
+         * 路由路径
+         */
+        private final String route;
+
+        private RouteMeters(IMeterRegistry registry, String route) {
+            this.route = route;
+            this.match = registry == null ? null : registry.timer("http.route.match", "route", route);
+            this.argument = registry == null ? null : registry.timer("http.argument.resolve", "route", route);
+            this.invoke = registry == null ? null : registry.timer("http.handler.invoke", "route", route);
+            this.returnValue = registry == null ? null : registry.timer("http.return.write", "route", route);
+        }
+
+        /**
+         * 从度量注册表删除路由计时器
+         *
+         * @param registry 度量注册表
+         */
+        private void remove(IMeterRegistry registry) {
+            registry.remove(this.match.getId());
+            registry.remove(this.argument.getId());
+            registry.remove(this.invoke.getId());
+            registry.remove(this.returnValue.getId());
+        }
+    }
+
+    /**
+     * 路由计时器缓存
+     * 请求函数删除时删除对应的路由计时器
+     */
+    private final Map<IHttpRequestMethod, RouteMeters> routeMeters = new ConcurrentHashMap<>();
+
+    /**
+     * 获取路由计时器
+     *
+     * @param requestMethod 请求函数
+     * @return
+     */
+    private RouteMeters getRouteMeters(IHttpRequestMethod requestMethod) {
+        IMeterRegistry registry = this.meterRegistry;
+        if (registry == null) {
+            return RouteMeters.EMPTY;
+        }
+        RouteMeters meters = this.routeMeters.get(requestMethod);
+        if (meters == null) {
+            meters = this.routeMeters.computeIfAbsent(requestMethod, k -> new RouteMeters(registry, k.getPath()));
+        }
+        return meters;
+    }
+
+    /**
+     * 删除已删除请求函数的路由计时器
+     * 路由路径没有其它请求函数时同时从度量注册表删除路由度量，在 {@link #sortedMap} 锁内调用
+     */
+    private void pruneRouteMeters() {
+        if (this.routeMeters.isEmpty()) {
+            return;
+        }
+        IMeterRegistry registry = this.meterRegistry;
+        Set<IHttpRequestMethod> methods = Collections.newSetFromMap(new IdentityHashMap<>());
+        methods.addAll(this.sortedMap.values());
+        Set<String> routes = new HashSet<>();
+        for (IHttpRequestMethod method : methods) {
+            routes.add(method.getPath());
+        }
+        Iterator<Map.Entry<IHttpRequestMethod, RouteMeters>> iterator = this.routeMeters.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<IHttpRequestMethod, RouteMeters> entry = iterator.next();
+            if (methods.contains(entry.getKey())) {
+                continue;
+            }
+            iterator.remove();
+            if (registry != null && !routes.contains(entry.getValue().route)) {
+                entry.getValue().remove(registry);
+            }
+        }
+    }
+
+    /**
+     * 记录耗时
+     *
+     * @param timer 计时器，为null时不记录
+     * @param start 开始时间
+     * @return 返回当前时间，作为下一阶段开始时间
+     */
+    private static long record(ITimer timer, long start) {
+        long now = System.nanoTime();
+        if (timer != null) {
+            timer.recordNanos(now - start);
+        }
+        return now;
+    }
+
     /**
      * 路径匹配器
      */
     private AntPathMatcher pathMatcher = new AntPathMatcher();
+    /**
+     * 请求函数路由树
+     * 请求函数变更时清空，在下次请求时重新构建
+     */
+    private volatile HttpRequestMethodRouteTrie routeTrie;
+
+    /**
+     * 获取请求函数路由树
+     *
+     * @return
+     */
+    private HttpRequestMethodRouteTrie getRouteTrie() {
+        HttpRequestMethodRouteTrie trie = this.routeTrie;
+        if (trie == null) {
+            synchronized (this.sortedMap) {
+                trie = this.routeTrie;
+                if (trie == null) {
+                    trie = new HttpRequestMethodRouteTrie(this.pathMatcher, this.sortedMap);
+                    this.routeTrie = trie;
+                }
+            }
+        }
+        return trie;
+    }
     /**
      * 执行http请求函数处理
      *
@@ -149,60 +328,22 @@ public final class HttpRequestMethodContainer extends AbstractMap<HttpRequestMet
         if(path.equals("/")){
             return false;
         }
-        //获取请求函数
-        IHttpRequestMethod requestMethod = null;
-        Map<String, String> stringMap = new HashMap<>();
-        System.out.println(pathMatcher.match("/i18n/{language}.json", path));
-        //遍历路径匹配
-        for (Map.Entry<HttpRequestMethodPath, IHttpRequestMethod> entry : this.sortedMap.entrySet()) {
-            //匹配路径
-            if (this.pathMatcher.match(entry.getKey().getPath(), path) ||
-                    this.pathMatcher.matchStart(entry.getKey().getPath(), path)) {
-                //找到匹配路径，获取路径请求函数对象
-                requestMethod = entry.getValue();
-                //判断请求模式
-                if (!CollectionUtils.isEmpty(requestMethod.getRequestMethods())) {
-                    //遍历比对函数注释的请求模式列表
-                    boolean isMethod = false;
-                    for (RequestMethod method : requestMethod.getRequestMethods()) {
-                        //判断函数支持的请求模式
-                        if (request.getMethod().equalsIgnoreCase(method.name())) {
-                            //找到有效的请求模式注释
-                            isMethod = true;
-                            break;
-                        }
-                    }
-                    //判断是否找到有效的请求模式注释
-                    if (!isMethod) {
-                        //未找到有效的注释请求模式，清理请求函数从新遍历往下继续寻找支持当前请求模式的请求函数
-                        requestMethod = null;
-                        continue;
-                    }
-                }
-                //判断请求类型
-                if (!CollectionUtils.isEmpty(requestMethod.getConsumes())) {
-                    boolean is = false;
-                    for (String consume : requestMethod.getConsumes()) {
-                        if (consume.equals(request.getContentType())) {
-                            is = true;
-                            break;
-                        }
-                    }
-                    //判断内容类型是否正确
-                    if (!is) {
-                        return false;
-                    }
-                }
-                //解析地址参数值列表，为 PathVariable 注释先解析参数
-                stringMap = this.pathMatcher.extractUriTemplateVariables(entry.getKey().getPath(), path);
-                break;
-            }
-        }
+        //匹配路由树获取请求函数
+        long start = System.nanoTime();
+        HttpRequestMethodRouteTrie.Match match = this.getRouteTrie().match(request.getMethod(), path);
         //判断没有请求函数执行下一个过滤器
-        if (requestMethod == null) {
+        if (match == null) {
+            return false;
+        }
+        IHttpRequestMethod requestMethod = match.getRequestMethod();
+        RouteMeters meters = this.getRouteMeters(requestMethod);
+        start = record(meters.match, start);
+        //判断请求类型
+        if (!match.isConsume(request.getContentType())) {
             return false;
         }
-        //解析地址参数值列表，为 PathVariable 注释先解析参数
+        //路由匹配时已解析地址参数值列表，为 PathVariable 注释先解析参数
+        Map<String, String> stringMap = match.getVariables();
         //对地址参数进行编码
         for (Map.Entry<String, String> entry : stringMap.entrySet()) {
             entry.setValue(URLDecoder.decode(entry.getValue(), request.getCharacterEncoding()));
@@ -242,22 +383,23 @@ public final class HttpRequestMethodContainer extends AbstractMap<HttpRequestMet
         try {
             //处理函数调用整个流程是否出现错误
             try {
+                //获取调用函数数组参数
+                start = System.nanoTime();
+                Object[] args = this.methodArgumentResolverContainer.resolveMethod(request, response, requestMethod);
+                start = record(meters.argument, start);
+                //调用请求函数
+                Object value = requestMethod.invoke(args);
+                start = record(meters.invoke, start);
                 //判断函数是否返回类型
-                if (requestMethod.getMethod().getReturnType().equals(Void.TYPE)) {
-                    //不属于返回类型
-                    requestMethod.invoke(this.methodArgumentResolverContainer.resolveMethod(request, response, requestMethod));
-                } else {
+                if (!requestMethod.getMethod().getReturnType().equals(Void.TYPE)) {
                     //解析返回值
                     this.methodReturnValueResolverContainer.resolveReturnValue(
                             request,
                             response,
                             requestMethod,
-                            //调用请求函数
-                            requestMethod.invoke(
-                                    //获取调用函数数组参数
-                                    this.methodArgumentResolverContainer.resolveMethod(request, response, requestMethod)
-                            )
+                            value
                     );
+                    record(meters.returnValue, start);
                 }
             } catch (InvocationTargetException e) {
                 exception = e.getTargetException();
@@ -0,0 +1,434 @@
+package ghost.framework.web.module.http.request;
+
+import ghost.framework.context.utils.AntPathMatcher;
+import ghost.framework.web.context.bind.annotation.RequestMethod;
+import ghost.framework.web.context.http.request.HttpRequestMethodPath;
+import ghost.framework.web.context.http.request.IHttpRequestMethod;
+
+import java.util.*;
+
+/**
+ * package: ghost.framework.web.module.http.request
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:http请求函数路由树
+ * 将 {@link HttpRequestMethodContainer} 的请求路径按 "/" 分段编译成路由树，
+ * 分段类型为字面量、{var} 变量、** 通配符与其它 {@link AntPathMatcher} 模式分段
+ * 匹配优先级为 字面量 > 变量 > 模式 > 通配符，匹配时同时采集路径变量
+ * 树构建后不再修改，由容器在请求函数变更时重新构建
+ * @Date: 2020/6/5:10:26
+ */
+public final class HttpRequestMethodRouteTrie {
+    /**
+     * 路径分隔符
+     */
+    private static final char SEPARATOR = '/';
+    /**
+     * 通配符分段
+     */
+    private static final String WILDCARD = "**";
+    /**
+     * 空路由数组
+     */
+    private static final Route[] EMPTY_ROUTES = new Route[0];
+    /**
+     * 路径匹配器，用于模式分段匹配与复杂路径变量解析
+     */
+    private final AntPathMatcher pathMatcher;
+    /**
+     * 根节点
+     */
+    private final Node root = new Node(null);
+
+    /**
+     * 初始化http请求函数路由树
+     *
+     * @param pathMatcher 路径匹配器
+     * @param map         请求函数地图，按地图遍历顺序添加
+     */
+    public HttpRequestMethodRouteTrie(AntPathMatcher pathMatcher, Map<HttpRequestMethodPath, IHttpRequestMethod> map) {
+        this.pathMatcher = pathMatcher;
+        for (Map.Entry<HttpRequestMethodPath, IHttpRequestMethod> entry : map.entrySet()) {
+            this.add(entry.getKey().getPath(), entry.getValue());
+        }
+        this.root.compile();
+    }
+
+    /**
+     * 添加路由
+     *
+     * @param path          请求路径
+     * @param requestMethod 请求函数
+     */
+    private void add(String path, IHttpRequestMethod requestMethod) {
+        String[] segments = tokenize(path);
+        Node node = this.root;
+        boolean simple = true;
+        boolean wildcard = false;
+        List<Integer> variableIndexes = new ArrayList<>();
+        List<String> variableNames = new ArrayList<>();
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.equals(WILDCARD)) {
+                if (node.wildcard == null) {
+                    node.wildcard = new Node(null);
+                }
+                node = node.wildcard;
+                wildcard = true;
+            } else if (isVariable(segment)) {
+                if (node.variable == null) {
+                    node.variable = new Node(null);
+                }
+                node = node.variable;
+                //通配符后的变量分段位置不固定
+                if (wildcard) {
+                    simple = false;
+                } else {
+                    variableIndexes.add(i);
+                    variableNames.add(segment.substring(1, segment.length() - 1));
+                }
+            } else if (this.pathMatcher.isPattern(segment)) {
+                if (node.patterns == null) {
+                    node.patterns = new LinkedHashMap<>();
+                }
+                node = node.patterns.computeIfAbsent(segment, Node::new);
+                simple = false;
+            } else {
+                if (node.literals == null) {
+                    node.literals = new HashMap<>();
+                }
+                node = node.literals.computeIfAbsent(segment, k -> new Node(null));
+            }
+        }
+        int[] indexes = new int[variableIndexes.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = variableIndexes.get(i);
+        }
+        node.routeList.add(new Route(
+                path,
+                requestMethod,
+                simple,
+                indexes,
+                variableNames.toArray(new String[0]),
+                path.length() > 1 && path.charAt(path.length() - 1) == SEPARATOR,
+                segments.length > 0 && segments[segments.length - 1].equals(WILDCARD)));
+    }
+
+    /**
+     * 判断是否为 {var} 变量分段
+     * 带正则表达式的 {var:regex} 变量分段作为模式分段处理
+     *
+     * @param segment 路径分段
+     * @return
+     */
+    private static boolean isVariable(String segment) {
+        return segment.length() > 2 &&
+                segment.charAt(0) == '{' &&
+                segment.charAt(segment.length() - 1) == '}' &&
+                segment.indexOf('{', 1) == -1 &&
+                segment.indexOf(':') == -1;
+    }
+
+    /**
+     * 路径分段，忽略空分段
+     * 与 {@link AntPathMatcher} 默认分段规则一致
+     *
+     * @param path 路径
+     * @return
+     */
+    private static String[] tokenize(String path) {
+        int count = 0;
+        int length = path.length();
+        for (int i = 0; i < length; i++) {
+            if (path.charAt(i) != SEPARATOR && (i == 0 || path.charAt(i - 1) == SEPARATOR)) {
+                count++;
+            }
+        }
+        String[] segments = new String[count];
+        int index = 0;
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == SEPARATOR) {
+                if (start != -1) {
+                    segments[index++] = path.substring(start, i);
+                    start = -1;
+                }
+            } else if (start == -1) {
+                start = i;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * 匹配请求路径
+     *
+     * @param method 请求模式
+     * @param path   请求路径
+     * @return 返回匹配结果，未匹配返回null
+     */
+    public Match match(String method, String path) {
+        String[] segments = tokenize(path);
+        boolean trailingSlash = path.length() > 1 && path.charAt(path.length() - 1) == SEPARATOR;
+        Route route = this.find(this.root, segments, 0, method.toUpperCase(Locale.ENGLISH), trailingSlash);
+        if (route == null) {
+            return null;
+        }
+        return new Match(route, this.extractVariables(route, segments, path));
+    }
+
+    /**
+     * 查找节点路由
+     *
+     * @param node          当前节点
+     * @param segments      请求路径分段
+     * @param index         当前分段位置
+     * @param method        请求模式
+     * @param trailingSlash 请求路径是否以分隔符结尾
+     * @return
+     */
+    private Route find(Node node, String[] segments, int index, String method, boolean trailingSlash) {
+        if (index == segments.length) {
+            Route route = node.select(method, trailingSlash);
+            if (route != null) {
+                return route;
+            }
+            //通配符可匹配零个分段
+            if (node.wildcard != null) {
+                return this.find(node.wildcard, segments, index, method, trailingSlash);
+            }
+            return null;
+        }
+        String segment = segments[index];
+        Route route;
+        if (node.literals != null) {
+            Node child = node.literals.get(segment);
+            if (child != null && (route = this.find(child, segments, index + 1, method, trailingSlash)) != null) {
+                return route;
+            }
+        }
+        if (node.variable != null && (route = this.find(node.variable, segments, index + 1, method, trailingSlash)) != null) {
+            return route;
+        }
+        if (node.patterns != null) {
+            for (Node child : node.patterns.values()) {
+                if (this.pathMatcher.match(child.pattern, segment) &&
+                        (route = this.find(child, segments, index + 1, method, trailingSlash)) != null) {
+                    return route;
+                }
+            }
+        }
+        if (node.wildcard != null) {
+            //通配符依次匹配零个到全部剩余分段
+            for (int i = index; i <= segments.length; i++) {
+                if ((route = this.find(node.wildcard, segments, i, method, trailingSlash)) != null) {
+                    return route;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析路径变量
+     * 简单路由直接使用分段位置获取变量，其它路由使用 {@link AntPathMatcher#extractUriTemplateVariables(String, String)} 解析
+     *
+     * @param route    匹配路由
+     * @param segments 请求路径分段
+     * @param path     请求路径
+     * @return
+     */
+    private Map<String, String> extractVariables(Route route, String[] segments, String path) {
+        if (!route.simple) {
+            return this.pathMatcher.extractUriTemplateVariables(route.path, path);
+        }
+        Map<String, String> map = new LinkedHashMap<>(route.variableNames.length * 2);
+        for (int i = 0; i < route.variableNames.length; i++) {
+            map.put(route.variableNames[i], segments[route.variableIndexes[i]]);
+        }
+        return map;
+    }
+
+    /**
+     * 路由树节点
+     */
+    private static final class Node {
+        /**
+         * 模式分段节点的模式
+         */
+        private final String pattern;
+        /**
+         * 字面量子节点
+         */
+        private Map<String, Node> literals;
+        /**
+         * 变量子节点
+         */
+        private Node variable;
+        /**
+         * 模式子节点
+         */
+        private Map<String, Node> patterns;
+        /**
+         * 通配符子节点
+         */
+        private Node wildcard;
+        /**
+         * 构建时的路由列表
+         */
+        private List<Route> routeList = new ArrayList<>();
+        /**
+         * 按请求模式索引的路由数组
+         * 包含指定该请求模式与未指定请求模式的路由，保持添加顺序
+         */
+        private Map<String, Route[]> methodRoutes = Collections.emptyMap();
+        /**
+         * 未指定请求模式的路由数组
+         */
+        private Route[] anyRoutes = EMPTY_ROUTES;
+
+        private Node(String pattern) {
+            this.pattern = pattern;
+        }
+
+        /**
+         * 编译节点
+         */
+        private void compile() {
+            if (!this.routeList.isEmpty()) {
+                List<Route> anyList = new ArrayList<>();
+                Map<String, List<Route>> map = new HashMap<>();
+                for (Route route : this.routeList) {
+                    if (route.requestMethods.length == 0) {
+                        anyList.add(route);
+                        for (List<Route> list : map.values()) {
+                            list.add(route);
+                        }
+                    } else {
+                        for (RequestMethod m : route.requestMethods) {
+                            map.computeIfAbsent(m.name(), k -> new ArrayList<>(anyList)).add(route);
+                        }
+                    }
+                }
+                this.anyRoutes = anyList.toArray(EMPTY_ROUTES);
+                this.methodRoutes = new HashMap<>(map.size() * 2);
+                for (Map.Entry<String, List<Route>> entry : map.entrySet()) {
+                    this.methodRoutes.put(entry.getKey(), entry.getValue().toArray(EMPTY_ROUTES));
+                }
+            }
+            this.routeList = null;
+            if (this.literals != null) {
+                this.literals.values().forEach(Node::compile);
+            }
+            if (this.variable != null) {
+                this.variable.compile();
+            }
+            if (this.patterns != null) {
+                this.patterns.values().forEach(Node::compile);
+            }
+            if (this.wildcard != null) {
+                this.wildcard.compile();
+            }
+        }
+
+        /**
+         * 选择请求模式与结尾分隔符匹配的路由
+         *
+         * @param method        请求模式
+         * @param trailingSlash 请求路径是否以分隔符结尾
+         * @return
+         */
+        private Route select(String method, boolean trailingSlash) {
+            Route[] routes = this.methodRoutes.get(method);
+            if (routes == null) {
+                routes = this.anyRoutes;
+            }
+            for (Route route : routes) {
+                if (route.wildcard || route.trailingSlash == trailingSlash) {
+                    return route;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 路由
+     */
+    private static final class Route {
+        private final String path;
+        private final IHttpRequestMethod requestMethod;
+        private final RequestMethod[] requestMethods;
+        /**
+         * 请求内容类型集合，未指定时为null
+         */
+        private final Set<String> consumes;
+        /**
+         * 是否可按分段位置直接获取路径变量
+         */
+        private final boolean simple;
+        private final int[] variableIndexes;
+        private final String[] variableNames;
+        private final boolean trailingSlash;
+        /**
+         * 是否以通配符结尾
+         */
+        private final boolean wildcard;
+
+        private Route(String path, IHttpRequestMethod requestMethod, boolean simple, int[] variableIndexes, String[] variableNames, boolean trailingSlash, boolean wildcard) {
+            this.path = path;
+            this.requestMethod = requestMethod;
+            RequestMethod[] requestMethods = requestMethod.getRequestMethods();
+            this.requestMethods = requestMethods == null ? new RequestMethod[0] : requestMethods;
+            String[] consumes = requestMethod.getConsumes();
+            this.consumes = consumes == null || consumes.length == 0 ? null : new HashSet<>(Arrays.asList(consumes));
+            this.simple = simple;
+            this.variableIndexes = variableIndexes;
+            this.variableNames = variableNames;
+            this.trailingSlash = trailingSlash;
+            this.wildcard = wildcard;
+        }
+    }
+
+    /**
+     * 匹配结果
+     */
+    public static final class Match {
+        private final Route route;
+        private final Map<String, String> variables;
+
+        private Match(Route route, Map<String, String> variables) {
+            this.route = route;
+            this.variables = variables;
+        }
+
+        /**
+         * 获取请求函数
+         *
+         * @return
+         */
+        public IHttpRequestMethod getRequestMethod() {
+            return route.requestMethod;
+        }
+
+        /**
+         * 获取路径变量
+         *
+         * @return
+         */
+        public Map<String, String> getVariables() {
+            return variables;
+        }
+
+        /**
+         * 判断请求内容类型是否有效
+         *
+         * @param contentType 请求内容类型
+         * @return
+         */
+        public boolean isConsume(String contentType) {
+            return route.consumes == null || route.consumes.contains(contentType);
+        }
+    }
+}
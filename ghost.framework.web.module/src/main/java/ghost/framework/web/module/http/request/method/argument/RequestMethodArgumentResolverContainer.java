@@ -11,11 +11,13 @@ import ghost.framework.web.context.http.request.IHttpRequestMethod;
 import ghost.framework.web.context.http.request.method.argument.IRequestMethodArgumentAnnotationResolver;
 import ghost.framework.web.context.http.request.method.argument.IRequestMethodArgumentResolver;
 import ghost.framework.web.context.http.request.method.argument.IRequestMethodArgumentResolverContainer;
+import ghost.framework.web.context.utils.WebUtils;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * package: ghost.framework.web.module.http.request.method.argument
@@ -33,11 +35,16 @@ public final class RequestMethodArgumentResolverContainer<V extends IRequestMeth
     /**
      * 参数类型解析器
      */
-    private List<IRequestMethodArgumentResolver> list = new ArrayList<>();
+    private List<IRequestMethodArgumentResolver> list = new CopyOnWriteArrayList<>();
     /**
      * 参数注释解析器列表
      */
-    private List<IRequestMethodArgumentAnnotationResolver> annotationList = new ArrayList<>();
+    private List<IRequestMethodArgumentAnnotationResolver> annotationList = new CopyOnWriteArrayList<>();
+    /**
+     * 解析器版本
+     * 添加或删除解析器时递增，使请求函数已缓存的解析计划失效
+     */
+    private final AtomicLong version = new AtomicLong();
     /**
      * 添加参数解析器
      *
@@ -51,12 +58,20 @@ public final class RequestMethodArgumentResolverContainer<V extends IRequestMeth
         if(argumentResolver instanceof IRequestMethodArgumentAnnotationResolver){
             //添加注释解析器
             synchronized (annotationList) {
-                return annotationList.add((IRequestMethodArgumentAnnotationResolver)argumentResolver);
+                try {
+                    return annotationList.add((IRequestMethodArgumentAnnotationResolver) argumentResolver);
+                } finally {
+                    this.version.incrementAndGet();
+                }
             }
         }
         //添加类型解析器
         synchronized (list) {
-            return list.add(argumentResolver);
+            try {
+                return list.add(argumentResolver);
+            } finally {
+                this.version.incrementAndGet();
+            }
         }
     }
 
@@ -73,12 +88,20 @@ public final class RequestMethodArgumentResolverContainer<V extends IRequestMeth
         if(argumentResolver instanceof IRequestMethodArgumentAnnotationResolver){
             //删除注释解析器
             synchronized (annotationList) {
-                return annotationList.remove(argumentResolver);
+                try {
+                    return annotationList.remove(argumentResolver);
+                } finally {
+                    this.version.incrementAndGet();
+                }
             }
         }
         //删除类型解析器
         synchronized (list) {
-            return list.remove(argumentResolver);
+            try {
+                return list.remove(argumentResolver);
+            } finally {
+                this.version.incrementAndGet();
+            }
         }
     }
 
@@ -97,6 +120,91 @@ public final class RequestMethodArgumentResolverContainer<V extends IRequestMeth
      */
     @Autowired
     private IAnnotationValidFactoryContainer validFactoryContainer;
+    /**
+     * 错误处理请求的参数解析计划扩展属性名称
+     * {@link RequestMethodArgumentThrowableClassResolver} 只在请求存在 {@link WebUtils#ERROR_EXCEPTION_ATTRIBUTE} 属性时解析参数，
+     * 错误处理请求与正常请求分别缓存解析计划
+     */
+    private static final String ERROR_EXECUTION_ARGUMENT_RESOLVER_ATTRIBUTE = IHttpRequestMethod.EXECUTION_ARGUMENT_RESOLVER_ATTRIBUTE + "_ERROR";
+    /**
+     * 请求函数参数解析计划
+     * 按参数位置保存对应的解析器，保存在 {@link IHttpRequestMethod#EXECUTION_ARGUMENT_RESOLVER_ATTRIBUTE} 扩展属性中
+     */
+    private static final class ResolverPlan {
+        /**
+         * 创建计划时的解析器版本
+         */
+        private final long version;
+        /**
+         * 参数解析器数组，没有对应解析器的参数为null
+         */
+        private final IRequestMethodArgumentResolver[] resolvers;
+
+        private ResolverPlan(long version, IRequestMethodArgumentResolver[] resolvers) {
+            this.version = version;
+            this.resolvers = resolvers;
+        }
+    }
+
+    /**
+     * 获取请求函数参数解析计划
+     * 解析器选择与函数参数及请求是否为错误处理相关，首次请求时按是否错误处理分别创建并缓存在请求函数中，解析器变更后重新创建
+     *
+     * @param request       请求对象
+     * @param response      响应对象
+     * @param requestMethod 请求函数
+     * @return
+     * @throws ResolverException
+     */
+    private ResolverPlan getResolverPlan(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
+                                         @NotNull IHttpRequestMethod requestMethod) throws ResolverException {
+        long version = this.version.get();
+        String attributeName = request.getAttribute(WebUtils.ERROR_EXCEPTION_ATTRIBUTE) == null ?
+                IHttpRequestMethod.EXECUTION_ARGUMENT_RESOLVER_ATTRIBUTE : ERROR_EXECUTION_ARGUMENT_RESOLVER_ATTRIBUTE;
+        Object o = requestMethod.getAttribute(attributeName);
+        if (o instanceof ResolverPlan && ((ResolverPlan) o).version == version) {
+            return (ResolverPlan) o;
+        }
+        NameParameter[] parameters = requestMethod.getParameters();
+        IRequestMethodArgumentResolver[] resolvers = new IRequestMethodArgumentResolver[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            resolvers[i] = this.findResolver(request, response, requestMethod, parameters[i]);
+        }
+        ResolverPlan plan = new ResolverPlan(version, resolvers);
+        requestMethod.setAttribute(attributeName, plan);
+        return plan;
+    }
+
+    /**
+     * 查找参数解析器
+     * 先遍历注释解析器，再遍历类型解析器
+     *
+     * @param request       请求对象
+     * @param response      响应对象
+     * @param requestMethod 请求函数
+     * @param parameter     函数参数
+     * @return 返回参数解析器，没有对应解析器返回null
+     * @throws ResolverException
+     */
+    private IRequestMethodArgumentResolver findResolver(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
+                                                        @NotNull IHttpRequestMethod requestMethod, @NotNull NameParameter parameter) throws ResolverException {
+        //遍历注释解析器
+        for (IRequestMethodArgumentAnnotationResolver annotationResolver : this.annotationList) {
+            //判断是否有对应解析器
+            if (annotationResolver.isResolver(request, response, requestMethod, parameter)) {
+                return annotationResolver;
+            }
+        }
+        //遍历类型解析器
+        for (IRequestMethodArgumentResolver argumentResolver : this.list) {
+            //判断是否有对应解析器
+            if (argumentResolver.isResolver(request, response, requestMethod, parameter)) {
+                return argumentResolver;
+            }
+        }
+        return null;
+    }
+
     /**
      * 函数解析器
      *
@@ -112,41 +220,18 @@ public final class RequestMethodArgumentResolverContainer<V extends IRequestMeth
             //没有函数参数
             return null;
         }
+        //获取参数解析计划
+        IRequestMethodArgumentResolver[] resolvers = this.getResolverPlan(request, response, requestMethod).resolvers;
+        NameParameter[] nameParameters = requestMethod.getParameters();
         //声明函数数组参数
         Object[] parameters = new Object[requestMethod.getMethod().getParameterCount()];
-        int i = 0;
-        //参数是否已经处理
-        boolean is = false;
-        for (NameParameter parameter : requestMethod.getParameters()) {
-            //重置未解析状态
-            is = false;
-            //遍历注释解析器
-            for (IRequestMethodArgumentAnnotationResolver annotationResolver : this.annotationList) {
-                //判断是否有对应解析器
-                if (annotationResolver.isResolver(request, response, requestMethod, parameter)) {
-                    //解析参数
-                    parameters[i] = annotationResolver.resolveArgument(request, response, requestMethod, parameter);
-                    i++;
-                    //退出解析器循环，执行下一个函数参数
-                    is = true;
-                    break;
-                }
-            }
-            if (is) {
-                continue;
-            }
-            //遍历类型解析器
-            for (IRequestMethodArgumentResolver argumentResolver : this.list) {
-                //判断是否有对应解析器
-                if (argumentResolver.isResolver(request, response, requestMethod, parameter)) {
-                    //解析参数
-                    parameters[i] = argumentResolver.resolveArgument(request, response, requestMethod, parameter);
-                    i++;
-                    //退出解析器循环，执行下一个函数参数
-                    break;
-                }
+        for (int i = 0; i < resolvers.length; i++) {
+            //没有对应解析器的参数保持null
+            if (resolvers[i] != null) {
+                //解析参数
+                parameters[i] = resolvers[i].resolveArgument(request, response, requestMethod, nameParameters[i]);
             }
         }
         return parameters;
     }
-}
\ No newline at end of file
+}
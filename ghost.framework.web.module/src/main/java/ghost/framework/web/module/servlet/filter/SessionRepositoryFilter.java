@@ -18,10 +18,14 @@ package ghost.framework.web.module.servlet.filter;
 import ghost.framework.beans.annotation.container.BeanMapContainer;
 import ghost.framework.beans.annotation.order.Order;
 import ghost.framework.beans.annotation.stereotype.Component;
+import ghost.framework.context.application.event.ApplicationEventPublisher;
+import ghost.framework.context.module.environment.IModuleEnvironment;
+import ghost.framework.web.context.WebConstant;
 import ghost.framework.web.context.servlet.context.IFilterContainer;
 import ghost.framework.web.session.core.ISessionRepositoryFilter;
 import ghost.framework.web.session.core.Session;
 import ghost.framework.web.session.core.SessionRepository;
+import ghost.framework.web.session.core.ShardedMapSessionRepository;
 import ghost.framework.web.session.core.web.http.*;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -96,6 +100,10 @@ public class SessionRepositoryFilter<S extends Session> extends ghost.framework.
 	private static final String CURRENT_SESSION_ATTR = SESSION_REPOSITORY_ATTR + ".CURRENT_SESSION";
 
 	private SessionRepository<S> sessionRepository;
+	/**
+	 * 过滤器自己创建的内存会话仓库，销毁过滤器时关闭
+	 */
+	private ShardedMapSessionRepository memorySessionRepository;
 	@Override
 	public void setSessionRepository(SessionRepository<S> sessionRepository) {
 		this.sessionRepository = sessionRepository;
@@ -139,13 +147,32 @@ public class SessionRepositoryFilter<S extends Session> extends ghost.framework.
 		return cookieSerializer;
 	}
 	@Override
+	@SuppressWarnings("unchecked")
 	public void init(FilterConfig filterConfig) throws ServletException {
 		super.init(filterConfig);
 		//从web容器中获取会话仓库接口进行会话操作
 		this.sessionRepository = this.module.getNullableBean(SessionRepository.class);
+		if (this.sessionRepository == null) {
+			//没有绑定会话仓库时按配置使用内存会话仓库
+			IModuleEnvironment env = this.module.getEnv();
+			if (env != null && env.containsKey(WebConstant.HttpSession.MEMORY_MAXIMUM_SESSIONS)) {
+				this.memorySessionRepository = new ShardedMapSessionRepository(env.getInt(WebConstant.HttpSession.MEMORY_MAXIMUM_SESSIONS));
+				//有事件推送绑定时推送会话删除与过期事件
+				this.memorySessionRepository.setApplicationEventPublisher(this.module.getNullableBean(ApplicationEventPublisher.class));
+				this.sessionRepository = (SessionRepository<S>) this.memorySessionRepository;
+			}
+		}
 		this.cookieSerializer = this.createDefaultCookieSerializer();
 	}
 
+	@Override
+	public void destroy() {
+		if (this.memorySessionRepository != null) {
+			this.memorySessionRepository.close();
+			this.memorySessionRepository = null;
+		}
+	}
+
 	/**
 	 * 处理会话数据
 	 * @param request
@@ -0,0 +1,234 @@
+package ghost.framework.web.module.http.request;
+
+import ghost.framework.context.parameter.NameParameter;
+import ghost.framework.context.utils.AntPathMatcher;
+import ghost.framework.web.context.bind.annotation.RequestMethod;
+import ghost.framework.web.context.http.request.HttpRequestMethodPath;
+import ghost.framework.web.context.http.request.IHttpRequestMethod;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.web.module.http.request
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link HttpRequestMethodRouteTrie} 单元测试
+ * @Date: 2020/6/5:16:40
+ */
+public class HttpRequestMethodRouteTrieTests {
+    private final Map<HttpRequestMethodPath, IHttpRequestMethod> map = new LinkedHashMap<>();
+
+    private TestRequestMethod add(String path, RequestMethod... requestMethods) {
+        return add(path, new String[0], requestMethods);
+    }
+
+    private TestRequestMethod add(String path, String[] consumes, RequestMethod... requestMethods) {
+        TestRequestMethod requestMethod = new TestRequestMethod(path, consumes, requestMethods);
+        map.put(new HttpRequestMethodPath(path, requestMethod), requestMethod);
+        return requestMethod;
+    }
+
+    private HttpRequestMethodRouteTrie trie() {
+        return new HttpRequestMethodRouteTrie(new AntPathMatcher(), map);
+    }
+
+    @Test
+    public void literal() {
+        TestRequestMethod users = add("/users");
+        TestRequestMethod list = add("/users/list");
+        HttpRequestMethodRouteTrie trie = trie();
+        assertThat(trie.match("GET", "/users").getRequestMethod()).isSameAs(users);
+        assertThat(trie.match("GET", "/users/list").getRequestMethod()).isSameAs(list);
+        assertThat(trie.match("GET", "/users/list").getVariables()).isEmpty();
+        assertThat(trie.match("GET", "/users/other")).isNull();
+        assertThat(trie.match("GET", "/")).isNull();
+    }
+
+    @Test
+    public void trailingSlash() {
+        TestRequestMethod plain = add("/a");
+        TestRequestMethod slash = add("/b/");
+        HttpRequestMethodRouteTrie trie = trie();
+        assertThat(trie.match("GET", "/a").getRequestMethod()).isSameAs(plain);
+        assertThat(trie.match("GET", "/a/")).isNull();
+        assertThat(trie.match("GET", "/b/").getRequestMethod()).isSameAs(slash);
+        assertThat(trie.match("GET", "/b")).isNull();
+    }
+
+    @Test
+    public void variable() {
+        TestRequestMethod item = add("/users/{id}/items/{itemId}");
+        HttpRequestMethodRouteTrie trie = trie();
+        HttpRequestMethodRouteTrie.Match match = trie.match("GET", "/users/7/items/42");
+        assertThat(match.getRequestMethod()).isSameAs(item);
+        assertThat(match.getVariables()).hasSize(2);
+        assertThat(match.getVariables()).containsEntry("id", "7");
+        assertThat(match.getVariables()).containsEntry("itemId", "42");
+        assertThat(trie.match("GET", "/users/7/items")).isNull();
+    }
+
+    @Test
+    public void literalBeforeVariable() {
+        //变量路由先注册，字面量仍然优先
+        TestRequestMethod byId = add("/users/{id}");
+        TestRequestMethod me = add("/users/me");
+        HttpRequestMethodRouteTrie trie = trie();
+        assertThat(trie.match("GET", "/users/me").getRequestMethod()).isSameAs(me);
+        assertThat(trie.match("GET", "/users/me").getVariables()).isEmpty();
+        assertThat(trie.match("GET", "/users/5").getRequestMethod()).isSameAs(byId);
+        assertThat(trie.match("GET", "/users/5").getVariables()).containsEntry("id", "5");
+    }
+
+    @Test
+    public void backtrackFromLiteralToVariable() {
+        TestRequestMethod literal = add("/a/b/d");
+        TestRequestMethod variable = add("/a/{x}/c");
+        HttpRequestMethodRouteTrie trie = trie();
+        assertThat(trie.match("GET", "/a/b/d").getRequestMethod()).isSameAs(literal);
+        HttpRequestMethodRouteTrie.Match match = trie.match("GET", "/a/b/c");
+        assertThat(match.getRequestMethod()).isSameAs(variable);
+        assertThat(match.getVariables()).containsEntry("x", "b");
+    }
+
+    @Test
+    public void variableBeforePatternBeforeWildcard() {
+        TestRequestMethod wildcard = add("/static/**");
+        TestRequestMethod pattern = add("/static/*.css");
+        TestRequestMethod variable = add("/files/{name}");
+        add("/files/*.txt");
+        HttpRequestMethodRouteTrie trie = trie();
+        assertThat(trie.match("GET", "/static/site.css").getRequestMethod()).isSameAs(pattern);
+        assertThat(trie.match("GET", "/static/site.js").getRequestMethod()).isSameAs(wildcard);
+        assertThat(trie.match("GET", "/static/css/site.css").getRequestMethod()).isSameAs(wildcard);
+        assertThat(trie.match("GET", "/files/a.txt").getRequestMethod()).isSameAs(variable);
+        assertThat(trie.match("GET", "/files/a.txt").getVariables()).containsEntry("name", "a.txt");
+    }
+
+    @Test
+    public void wildcard() {
+        TestRequestMethod all = add("/static/**");
+        HttpRequestMethodRouteTrie trie = trie();
+        //通配符匹配零个分段
+        assertThat(trie.match("GET", "/static").getRequestMethod()).isSameAs(all);
+        assertThat(trie.match("GET", "/static/").getRequestMethod()).isSameAs(all);
+        assertThat(trie.match("GET", "/static/a/b/c.js").getRequestMethod()).isSameAs(all);
+        assertThat(trie.match("GET", "/other/a")).isNull();
+    }
+
+    @Test
+    public void wildcardInTheMiddle() {
+        TestRequestMethod route = add("/api/**/detail/{id}");
+        HttpRequestMethodRouteTrie trie = trie();
+        HttpRequestMethodRouteTrie.Match match = trie.match("GET", "/api/v1/orders/detail/9");
+        assertThat(match.getRequestMethod()).isSameAs(route);
+        assertThat(match.getVariables()).containsEntry("id", "9");
+        assertThat(trie.match("GET", "/api/detail/3").getVariables()).containsEntry("id", "3");
+        assertThat(trie.match("GET", "/api/v1/orders/summary/9")).isNull();
+    }
+
+    @Test
+    public void requestMethod() {
+        TestRequestMethod get = add("/items", RequestMethod.GET);
+        TestRequestMethod post = add("/items", RequestMethod.POST);
+        HttpRequestMethodRouteTrie trie = trie();
+        assertThat(trie.match("GET", "/items").getRequestMethod()).isSameAs(get);
+        assertThat(trie.match("post", "/items").getRequestMethod()).isSameAs(post);
+        assertThat(trie.match("DELETE", "/items")).isNull();
+    }
+
+    @Test
+    public void requestMethodFallback() {
+        TestRequestMethod get = add("/mixed", RequestMethod.GET);
+        TestRequestMethod any = add("/mixed");
+        TestRequestMethod anyOnly = add("/any");
+        HttpRequestMethodRouteTrie trie = trie();
+        assertThat(trie.match("GET", "/mixed").getRequestMethod()).isSameAs(get);
+        //未指定请求模式的路由匹配其它请求模式
+        assertThat(trie.match("PUT", "/mixed").getRequestMethod()).isSameAs(any);
+        assertThat(trie.match("DELETE", "/any").getRequestMethod()).isSameAs(anyOnly);
+        assertThat(trie.match("GET", "/any").getRequestMethod()).isSameAs(anyOnly);
+    }
+
+    @Test
+    public void requestMethodFallbackToOtherSegment() {
+        //字面量路由请求模式不匹配时回退到变量路由
+        add("/orders/new", RequestMethod.POST);
+        TestRequestMethod byId = add("/orders/{id}", RequestMethod.GET);
+        HttpRequestMethodRouteTrie trie = trie();
+        HttpRequestMethodRouteTrie.Match match = trie.match("GET", "/orders/new");
+        assertThat(match.getRequestMethod()).isSameAs(byId);
+        assertThat(match.getVariables()).containsEntry("id", "new");
+    }
+
+    @Test
+    public void consumes() {
+        add("/json", new String[]{"application/json"}, RequestMethod.POST);
+        add("/any", new String[0], RequestMethod.POST);
+        HttpRequestMethodRouteTrie trie = trie();
+        HttpRequestMethodRouteTrie.Match json = trie.match("POST", "/json");
+        assertThat(json.isConsume("application/json")).isTrue();
+        assertThat(json.isConsume("text/plain")).isFalse();
+        assertThat(trie.match("POST", "/any").isConsume("text/plain")).isTrue();
+    }
+
+    /**
+     * 测试请求函数
+     */
+    private static final class TestRequestMethod implements IHttpRequestMethod {
+        private final String path;
+        private final String[] consumes;
+        private final RequestMethod[] requestMethods;
+
+        private TestRequestMethod(String path, String[] consumes, RequestMethod[] requestMethods) {
+            this.path = path;
+            this.consumes = consumes;
+            this.requestMethods = requestMethods;
+        }
+
+        @Override
+        public NameParameter[] getParameters() {
+            return new NameParameter[0];
+        }
+
+        @Override
+        public Method getMethod() {
+            return null;
+        }
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public Object invoke(Object[] parameters) {
+            return null;
+        }
+
+        @Override
+        public String[] getConsumes() {
+            return consumes;
+        }
+
+        @Override
+        public RequestMethod[] getRequestMethods() {
+            return requestMethods;
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
+    }
+}
@@ -55,6 +55,12 @@ public final class MapSession implements Session, Serializable {
 
 	private Map<String, Object> sessionAttrs = new HashMap<>();
 
+	/**
+	 * Whether {@link #sessionAttrs} is shared with another copy and must be copied before
+	 * it is modified.
+	 */
+	private transient boolean sessionAttrsShared;
+
 	private Instant creationTime = Instant.now();
 
 	private Instant lastAccessedTime = this.creationTime;
@@ -107,6 +113,25 @@ public final class MapSession implements Session, Serializable {
 		this.maxInactiveInterval = session.getMaxInactiveInterval();
 	}
 
+	/**
+	 * Creates a copy of the provided {@link MapSession} sharing its attribute map. Either
+	 * copy copies the attribute map on its first attribute change, so creating the copy
+	 * does not copy the attributes.
+	 *
+	 * @param session the {@link MapSession} to copy. Cannot be null.
+	 * @return the copy
+	 */
+	static MapSession copyOnWrite(MapSession session) {
+		MapSession copy = new MapSession(session.id);
+		copy.sessionAttrs = session.sessionAttrs;
+		copy.sessionAttrsShared = true;
+		session.sessionAttrsShared = true;
+		copy.lastAccessedTime = session.lastAccessedTime;
+		copy.creationTime = session.creationTime;
+		copy.maxInactiveInterval = session.maxInactiveInterval;
+		return copy;
+	}
+
 	@Override
 	public void setLastAccessedTime(Instant lastAccessedTime) {
 		this.lastAccessedTime = lastAccessedTime;
@@ -182,13 +207,23 @@ public final class MapSession implements Session, Serializable {
 		if (attributeValue == null) {
 			removeAttribute(attributeName);
 		} else {
-			this.sessionAttrs.put(attributeName, attributeValue);
+			writableSessionAttrs().put(attributeName, attributeValue);
 		}
 	}
 
 	@Override
 	public void removeAttribute(String attributeName) {
-		this.sessionAttrs.remove(attributeName);
+		if (this.sessionAttrs.containsKey(attributeName)) {
+			writableSessionAttrs().remove(attributeName);
+		}
+	}
+
+	private Map<String, Object> writableSessionAttrs() {
+		if (this.sessionAttrsShared) {
+			this.sessionAttrs = new HashMap<>(this.sessionAttrs);
+			this.sessionAttrsShared = false;
+		}
+		return this.sessionAttrs;
 	}
 
 	/**
@@ -27,7 +27,8 @@ import java.util.Map;
  *
  * <p>
  * The implementation does NOT support firing {@link SessionDeletedEvent} or
- * {@link SessionExpiredEvent}.
+ * {@link SessionExpiredEvent}, see {@link ShardedMapSessionRepository} for an in-memory
+ * implementation that does.
  * </p>
  *
  * @author Rob Winch
@@ -72,7 +73,7 @@ public class MapSessionRepository implements SessionRepository<MapSession> {
 		if (!session.getId().equals(session.getOriginalId())) {
 			this.sessions.remove(session.getOriginalId());
 		}
-		this.sessions.put(session.getId(), new MapSession(session));
+		this.sessions.put(session.getId(), MapSession.copyOnWrite(session));
 	}
 
 	@Override
@@ -85,6 +86,9 @@ public class MapSessionRepository implements SessionRepository<MapSession> {
 			deleteById(saved.getId());
 			return null;
 		}
+		if (saved instanceof MapSession) {
+			return MapSession.copyOnWrite((MapSession) saved);
+		}
 		return new MapSession(saved);
 	}
 
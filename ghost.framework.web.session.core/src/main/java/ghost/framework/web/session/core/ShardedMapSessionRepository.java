@@ -0,0 +1,587 @@
+package ghost.framework.web.session.core;
+
+import ghost.framework.context.application.event.ApplicationEventPublisher;
+import ghost.framework.web.session.core.events.AbstractSessionEvent;
+import ghost.framework.web.session.core.events.SessionDeletedEvent;
+import ghost.framework.web.session.core.events.SessionExpiredEvent;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * package: ghost.framework.web.session.core
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:分段内存会话仓库
+ * 会话按Id散列到多个分段，每个分段一个按访问排序的 {@link LinkedHashMap} 与一个分层时间轮，由分段锁保护
+ * 时间轮每秒推进一次，到期会话删除并推送 {@link SessionExpiredEvent}，不需要等待读取时才发现过期
+ * 保存与读取使用 {@link MapSession#copyOnWrite(MapSession)} 共享属性表，首次修改属性时才复制
+ * 会话数量超过上限时按最近最少使用淘汰，有溢出仓库时转存到溢出仓库，读取时再从溢出仓库取回
+ * 上限按分段平均分配，每个分段单独淘汰，总数量上限是近似值：
+ * 会话散列不均时某个分段满了就开始淘汰，此时总数量可能低于上限；各分段都满时总数量最多超出上限 分段数量-1 个
+ * 溢出仓库的转存、取回与删除都在会话所在分段锁内执行，并发读取不会在转存或取回期间错过会话
+ * @Date: 2020/6/29:9:40
+ */
+public class ShardedMapSessionRepository implements SessionRepository<MapSession>, AutoCloseable {
+    private final Log logger = LogFactory.getLog(ShardedMapSessionRepository.class);
+    /**
+     * 时间轮层数
+     */
+    private static final int LEVELS = 4;
+    /**
+     * 每层槽位位数
+     */
+    private static final int SLOT_BITS = 6;
+    /**
+     * 每层槽位数量
+     */
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    /**
+     * 时间轮最大跨度，超过的过期时间按最大跨度放置，到期时重新放置
+     * 单位秒
+     */
+    private static final long MAX_SPAN = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    /**
+     * 会话条目
+     */
+    private static final class Entry {
+        private final MapSession session;
+        /**
+         * 过期时间
+         * 单位秒，不过期为 {@link Long#MAX_VALUE}
+         */
+        private final long expireTick;
+        /**
+         * 时间轮槽位链表
+         */
+        private Entry prev;
+        private Entry next;
+        private int level = -1;
+        private int slot;
+
+        private Entry(MapSession session) {
+            this.session = session;
+            Duration interval = session.getMaxInactiveInterval();
+            if (interval.isNegative()) {
+                this.expireTick = Long.MAX_VALUE;
+            } else {
+                long expireMillis = session.getLastAccessedTime().toEpochMilli() + interval.toMillis();
+                this.expireTick = (expireMillis + 999) / 1000;
+            }
+        }
+    }
+
+    /**
+     * 会话分段
+     */
+    private final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        /**
+         * 按访问排序的会话表，头部为最久未访问的会话
+         */
+        private final LinkedHashMap<String, Entry> sessions = new LinkedHashMap<>(16, 0.75f, true);
+        /**
+         * 分层时间轮，第L层每个槽位跨度为64的L次方秒
+         */
+        private final Entry[][] wheel = new Entry[LEVELS][SLOTS];
+        /**
+         * 时间轮当前时间
+         * 单位秒
+         */
+        private long currentTick;
+
+        private Shard(long tick) {
+            this.currentTick = tick;
+        }
+
+        /**
+         * 放入会话，需要持有分段锁
+         *
+         * @param entry   会话条目
+         * @param evicted 超过上限淘汰的会话列表
+         */
+        private void put(Entry entry, List<MapSession> evicted) {
+            Entry old = this.sessions.put(entry.session.getId(), entry);
+            if (old != null) {
+                this.unschedule(old);
+            }
+            this.schedule(entry, entry.expireTick);
+            if (this.sessions.size() > shardCapacity) {
+                Iterator<Entry> iterator = this.sessions.values().iterator();
+                Entry eldest = iterator.next();
+                iterator.remove();
+                this.unschedule(eldest);
+                evicted.add(eldest.session);
+            }
+        }
+
+        /**
+         * 删除会话，需要持有分段锁
+         *
+         * @param id 会话Id
+         * @return 返回删除的会话条目
+         */
+        private Entry remove(String id) {
+            Entry entry = this.sessions.remove(id);
+            if (entry != null) {
+                this.unschedule(entry);
+            }
+            return entry;
+        }
+
+        /**
+         * 推进时间轮，需要持有分段锁
+         *
+         * @param tick    推进到的时间
+         * @param expired 过期的会话列表
+         */
+        private void advance(long tick, List<MapSession> expired) {
+            if (tick - this.currentTick > MAX_SPAN) {
+                //长时间未推进只推进最后一圈，每个槽位在一圈内都会被处理
+                this.currentTick = tick - MAX_SPAN;
+            }
+            while (this.currentTick < tick) {
+                long ct = ++this.currentTick;
+                //高层先降级，降到低层的条目在同一时间继续降级
+                for (int level = LEVELS - 1; level > 0; level--) {
+                    if ((ct & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                        this.cascade(level, (int) (ct >>> (SLOT_BITS * level)) & SLOT_MASK);
+                    }
+                }
+                int slot = (int) ct & SLOT_MASK;
+                Entry entry = this.wheel[0][slot];
+                this.wheel[0][slot] = null;
+                while (entry != null) {
+                    Entry next = entry.next;
+                    entry.prev = entry.next = null;
+                    entry.level = -1;
+                    if (entry.expireTick <= ct) {
+                        this.sessions.remove(entry.session.getId());
+                        expired.add(entry.session);
+                    } else {
+                        this.schedule(entry, entry.expireTick);
+                    }
+                    entry = next;
+                }
+            }
+        }
+
+        /**
+         * 高层槽位的条目降级放置
+         *
+         * @param level 层
+         * @param slot  槽位
+         */
+        private void cascade(int level, int slot) {
+            Entry entry = this.wheel[level][slot];
+            this.wheel[level][slot] = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.prev = entry.next = null;
+                entry.level = -1;
+                this.place(entry, Math.max(entry.expireTick, this.currentTick));
+                entry = next;
+            }
+        }
+
+        /**
+         * 放入时间轮，不过期的会话不放入
+         *
+         * @param entry 会话条目
+         * @param tick  过期时间
+         */
+        private void schedule(Entry entry, long tick) {
+            if (tick == Long.MAX_VALUE) {
+                return;
+            }
+            //当前时间槽位已处理，最早放到下一秒
+            this.place(entry, Math.max(tick, this.currentTick + 1));
+        }
+
+        private void place(Entry entry, long tick) {
+            long delta = tick - this.currentTick;
+            if (delta > MAX_SPAN) {
+                tick = this.currentTick + MAX_SPAN;
+                delta = MAX_SPAN;
+            }
+            int level = 0;
+            while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+                level++;
+            }
+            int slot = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+            Entry head = this.wheel[level][slot];
+            entry.level = level;
+            entry.slot = slot;
+            entry.prev = null;
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            this.wheel[level][slot] = entry;
+        }
+
+        private void unschedule(Entry entry) {
+            if (entry.level < 0) {
+                return;
+            }
+            if (entry.prev == null) {
+                this.wheel[entry.level][entry.slot] = entry.next;
+            } else {
+                entry.prev.next = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = entry.next = null;
+            entry.level = -1;
+        }
+    }
+
+    /**
+     * 会话分段
+     */
+    private final Shard[] shards;
+    private final int shardMask;
+    /**
+     * 每个分段的会话数量上限
+     */
+    private final int shardCapacity;
+    /**
+     * 推进时间轮的定时线程
+     */
+    private final ScheduledExecutorService ticker;
+    /**
+     * 事件推送，为null时不推送会话删除与过期事件
+     */
+    private volatile ApplicationEventPublisher eventPublisher;
+    /**
+     * 溢出仓库，为null时淘汰的会话直接删除
+     */
+    private volatile SessionRepository<MapSession> spillRepository;
+    /**
+     * 不为null时覆盖新建会话的 {@link Session#setMaxInactiveInterval(Duration)}
+     */
+    private Integer defaultMaxInactiveInterval;
+    private boolean def;
+
+    /**
+     * 初始化分段内存会话仓库
+     *
+     * @param maximumSessions 内存会话数量近似上限
+     */
+    public ShardedMapSessionRepository(int maximumSessions) {
+        this(maximumSessions, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * 初始化分段内存会话仓库
+     * 每个分段上限为 maximumSessions 除以分段数量向上取整，分段数量超过上限时减少分段数量
+     *
+     * @param maximumSessions 内存会话数量近似上限
+     * @param shards          分段数量，向上取2的幂
+     */
+    public ShardedMapSessionRepository(int maximumSessions, int shards) {
+        if (maximumSessions <= 0) {
+            throw new IllegalArgumentException("maximumSessions must be greater than 0");
+        }
+        if (shards <= 0) {
+            throw new IllegalArgumentException("shards must be greater than 0");
+        }
+        int count = 1;
+        while (count < shards && count < 1 << 16) {
+            count <<= 1;
+        }
+        if (count > maximumSessions) {
+            count = Math.max(1, Integer.highestOneBit(maximumSessions));
+        }
+        this.shards = new Shard[count];
+        this.shardMask = count - 1;
+        this.shardCapacity = (maximumSessions + count - 1) / count;
+        long tick = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < count; i++) {
+            this.shards[i] = new Shard(tick);
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ghost-session-timer-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleWithFixedDelay(() -> {
+            try {
+                this.cleanUpExpiredSessions();
+            } catch (RuntimeException e) {
+                this.logger.error(e.getMessage(), e);
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 设置事件推送
+     *
+     * @param eventPublisher 事件推送，为null时不推送会话删除与过期事件
+     */
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 设置溢出仓库
+     *
+     * @param spillRepository 溢出仓库，为null时淘汰的会话直接删除并推送 {@link SessionDeletedEvent}
+     */
+    public void setSpillRepository(SessionRepository<MapSession> spillRepository) {
+        this.spillRepository = spillRepository;
+    }
+
+    /**
+     * 不为null时覆盖新建会话的 {@link Session#setMaxInactiveInterval(Duration)}
+     *
+     * @param defaultMaxInactiveInterval 会话保持秒数
+     */
+    public void setDefaultMaxInactiveInterval(int defaultMaxInactiveInterval) {
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+    }
+
+    /**
+     * 获取内存会话数量
+     *
+     * @return
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : this.shards) {
+            shard.lock.lock();
+            try {
+                size += shard.sessions.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public MapSession createSession() {
+        MapSession result = new MapSession();
+        if (this.defaultMaxInactiveInterval != null) {
+            result.setMaxInactiveInterval(Duration.ofSeconds(this.defaultMaxInactiveInterval));
+        }
+        return result;
+    }
+
+    @Override
+    public void save(MapSession session) {
+        if (!session.getId().equals(session.getOriginalId())) {
+            Shard shard = this.shard(session.getOriginalId());
+            shard.lock.lock();
+            try {
+                shard.remove(session.getOriginalId());
+                SessionRepository<MapSession> spill = this.spillRepository;
+                if (spill != null) {
+                    spill.deleteById(session.getOriginalId());
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        this.put(MapSession.copyOnWrite(session));
+    }
+
+    @Override
+    public MapSession findById(String id) {
+        Shard shard = this.shard(id);
+        MapSession expired = null;
+        shard.lock.lock();
+        try {
+            Entry entry = shard.sessions.get(id);
+            if (entry != null) {
+                //时间轮未推进前发现过期直接删除
+                if (!entry.session.isExpired()) {
+                    return MapSession.copyOnWrite(entry.session);
+                }
+                shard.remove(id);
+                expired = entry.session;
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+        if (expired != null) {
+            this.publish(new SessionExpiredEvent(this, expired));
+            return null;
+        }
+        return this.promote(shard, id);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        Shard shard = this.shard(id);
+        Entry entry;
+        shard.lock.lock();
+        try {
+            entry = shard.remove(id);
+            SessionRepository<MapSession> spill = this.spillRepository;
+            if (spill != null) {
+                spill.deleteById(id);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+        if (entry != null) {
+            this.publish(new SessionDeletedEvent(this, entry.session));
+        }
+    }
+
+    /**
+     * 推进全部分段的时间轮，删除过期会话并推送 {@link SessionExpiredEvent}
+     */
+    @Override
+    public void cleanUpExpiredSessions() {
+        long tick = System.currentTimeMillis() / 1000;
+        List<MapSession> expired = new ArrayList<>();
+        for (Shard shard : this.shards) {
+            shard.lock.lock();
+            try {
+                shard.advance(tick, expired);
+            } finally {
+                shard.lock.unlock();
+            }
+            //事件在锁外推送
+            for (MapSession session : expired) {
+                this.publish(new SessionExpiredEvent(this, session));
+            }
+            expired.clear();
+        }
+        SessionRepository<MapSession> spill = this.spillRepository;
+        if (spill != null) {
+            spill.cleanUpExpiredSessions();
+        }
+    }
+
+    /**
+     * 停止推进时间轮
+     */
+    @Override
+    public void close() {
+        this.ticker.shutdownNow();
+    }
+
+    @Override
+    public boolean isDefault() {
+        return def;
+    }
+
+    @Override
+    public void setDefault(boolean def) {
+        this.def = def;
+    }
+
+    /**
+     * 从溢出仓库取回会话
+     * 在分段锁内重新查找，等待锁期间其它线程可能已经取回或保存了会话
+     *
+     * @param shard 会话所在分段
+     * @param id    会话Id
+     * @return 返回会话，没有返回null
+     */
+    private MapSession promote(Shard shard, String id) {
+        SessionRepository<MapSession> spill = this.spillRepository;
+        if (spill == null) {
+            return null;
+        }
+        List<MapSession> evicted = new ArrayList<>(1);
+        MapSession session;
+        shard.lock.lock();
+        try {
+            Entry entry = shard.sessions.get(id);
+            if (entry != null) {
+                return entry.session.isExpired() ? null : MapSession.copyOnWrite(entry.session);
+            }
+            session = spill.findById(id);
+            if (session == null) {
+                return null;
+            }
+            shard.put(new Entry(MapSession.copyOnWrite(session)), evicted);
+            spill.deleteById(id);
+            this.spill(spill, evicted);
+        } finally {
+            shard.lock.unlock();
+        }
+        return session;
+    }
+
+    /**
+     * 放入会话
+     * 有溢出仓库时超过上限淘汰的会话在分段锁内转存，没有溢出仓库时在锁外推送删除事件
+     *
+     * @param session 会话
+     */
+    private void put(MapSession session) {
+        Shard shard = this.shard(session.getId());
+        List<MapSession> evicted = new ArrayList<>(1);
+        Entry entry = new Entry(session);
+        SessionRepository<MapSession> spill = this.spillRepository;
+        shard.lock.lock();
+        try {
+            shard.put(entry, evicted);
+            if (spill != null) {
+                this.spill(spill, evicted);
+                return;
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+        for (MapSession eldest : evicted) {
+            this.publish(new SessionDeletedEvent(this, eldest));
+        }
+    }
+
+    /**
+     * 转存淘汰的会话，需要持有分段锁
+     *
+     * @param spill   溢出仓库
+     * @param evicted 淘汰的会话列表
+     */
+    private void spill(SessionRepository<MapSession> spill, List<MapSession> evicted) {
+        for (MapSession eldest : evicted) {
+            spill.save(eldest);
+        }
+    }
+
+    private void publish(AbstractSessionEvent event) {
+        ApplicationEventPublisher publisher = this.eventPublisher;
+        if (publisher == null) {
+            return;
+        }
+        try {
+            publisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            this.logger.error(e.getMessage(), e);
+        }
+    }
+
+    private Shard shard(String id) {
+        int h = id.hashCode();
+        return this.shards[(h ^ (h >>> 16)) & this.shardMask];
+    }
+
+    @Override
+    public String toString() {
+        return "ShardedMapSessionRepository{" +
+                "isDefault=" + def +
+                ", shards=" + shards.length +
+                ", shardCapacity=" + shardCapacity +
+                '}';
+    }
+}
@@ -0,0 +1,206 @@
+package ghost.framework.web.session.core;
+
+import ghost.framework.beans.application.event.AbstractApplicationEvent;
+import ghost.framework.web.session.core.events.SessionDeletedEvent;
+import ghost.framework.web.session.core.events.SessionExpiredEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.web.session.core
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link ShardedMapSessionRepository} 单元测试
+ * @Date: 2020/6/29:15:20
+ */
+public class ShardedMapSessionRepositoryTests {
+    private final Map<String, Session> spilled = new ConcurrentHashMap<>();
+    private final List<AbstractApplicationEvent> events = new CopyOnWriteArrayList<>();
+    private ShardedMapSessionRepository repository;
+
+    private ShardedMapSessionRepository repository(int maximumSessions, int shards, boolean spill) {
+        repository = new ShardedMapSessionRepository(maximumSessions, shards);
+        repository.setApplicationEventPublisher(events::add);
+        if (spill) {
+            repository.setSpillRepository(new MapSessionRepository(spilled));
+        }
+        return repository;
+    }
+
+    @AfterEach
+    public void close() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    private MapSession save(String value) {
+        MapSession session = repository.createSession();
+        session.setAttribute("value", value);
+        repository.save(session);
+        return session;
+    }
+
+    @Test
+    public void saveAndFind() {
+        repository(16, 4, false);
+        MapSession session = save("a");
+        MapSession found = repository.findById(session.getId());
+        assertThat(found).isNotNull();
+        assertThat((String) found.getAttribute("value")).isEqualTo("a");
+        //修改读取的会话不影响仓库中的会话
+        found.setAttribute("value", "b");
+        assertThat((String) repository.findById(session.getId()).getAttribute("value")).isEqualTo("a");
+        assertThat(repository.findById("missing")).isNull();
+    }
+
+    @Test
+    public void capIsApproximate() {
+        repository(10, 4, false);
+        for (int i = 0; i < 200; i++) {
+            save(String.valueOf(i));
+        }
+        //每个分段上限为 10/4 向上取整，各分段都满时总数量超出上限
+        assertThat(repository.size()).isEqualTo(12);
+    }
+
+    @Test
+    public void evictsEldestWithoutSpill() {
+        repository(2, 1, false);
+        MapSession first = save("1");
+        MapSession second = save("2");
+        //访问后第二个会话成为最早访问的会话
+        repository.findById(first.getId());
+        save("3");
+        assertThat(repository.size()).isEqualTo(2);
+        assertThat(repository.findById(second.getId())).isNull();
+        assertThat(repository.findById(first.getId())).isNotNull();
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0)).isInstanceOf(SessionDeletedEvent.class);
+    }
+
+    @Test
+    public void spillAndPromote() {
+        repository(2, 1, true);
+        MapSession first = save("1");
+        MapSession second = save("2");
+        MapSession third = save("3");
+        assertThat(repository.size()).isEqualTo(2);
+        assertThat(spilled).containsOnlyKeys(first.getId());
+        //取回溢出会话，同时淘汰最早访问的会话到溢出仓库
+        MapSession found = repository.findById(first.getId());
+        assertThat((String) found.getAttribute("value")).isEqualTo("1");
+        assertThat(repository.size()).isEqualTo(2);
+        assertThat(spilled).containsOnlyKeys(second.getId());
+        assertThat(repository.findById(second.getId())).isNotNull();
+        assertThat(repository.findById(third.getId())).isNotNull();
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    public void deleteRemovesSpilledSession() {
+        repository(1, 1, true);
+        MapSession first = save("1");
+        MapSession second = save("2");
+        assertThat(spilled).containsOnlyKeys(first.getId());
+        repository.deleteById(first.getId());
+        repository.deleteById(second.getId());
+        assertThat(spilled).isEmpty();
+        assertThat(repository.size()).isZero();
+        assertThat(repository.findById(first.getId())).isNull();
+        assertThat(repository.findById(second.getId())).isNull();
+    }
+
+    @Test
+    public void changedIdRemovesOriginal() {
+        repository(1, 1, true);
+        MapSession first = save("1");
+        save("2");
+        MapSession found = repository.findById(first.getId());
+        String originalId = found.getId();
+        found.changeSessionId();
+        repository.save(found);
+        assertThat(repository.findById(originalId)).isNull();
+        assertThat(spilled).doesNotContainKey(originalId);
+        assertThat(repository.findById(found.getId())).isNotNull();
+    }
+
+    @Test
+    public void expired() {
+        repository(16, 1, false);
+        MapSession session = repository.createSession();
+        session.setMaxInactiveInterval(Duration.ofSeconds(10));
+        session.setLastAccessedTime(Instant.now().minusSeconds(60));
+        repository.save(session);
+        assertThat(repository.findById(session.getId())).isNull();
+        assertThat(repository.size()).isZero();
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0)).isInstanceOf(SessionExpiredEvent.class);
+    }
+
+    @Test
+    public void concurrentFindNeverLosesSpilledSession() throws Exception {
+        repository(4, 1, true);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            ids.add(save(String.valueOf(i)).getId());
+        }
+        AtomicReference<String> lost = new AtomicReference<>();
+        run(8, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20000 && lost.get() == null; i++) {
+                String id = ids.get(random.nextInt(ids.size()));
+                if (repository.findById(id) == null) {
+                    lost.compareAndSet(null, id);
+                }
+            }
+        });
+        assertThat(lost.get()).isNull();
+        //每个会话只在内存或溢出仓库其中一处
+        assertThat(repository.size() + spilled.size()).isEqualTo(ids.size());
+        assertThat(events).isEmpty();
+    }
+
+    /**
+     * 多线程同时执行
+     *
+     * @param threads 线程数量
+     * @param task    任务
+     * @throws InterruptedException
+     */
+    private static void run(int threads, Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> list = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run();
+            });
+            thread.start();
+            list.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : list) {
+            thread.join();
+        }
+    }
+}
@@ -129,6 +129,19 @@ public class JdbcIndexedSessionRepository implements SessionRepository<JdbcIndex
 			+ "FROM %TABLE_NAME% S "
 			+ "LEFT OUTER JOIN %TABLE_NAME%_ATTRIBUTES SA ON S." + Constant.DEFAULT_SESSION_ID + " = SA." + Constant.DEFAULT_SESSION_ID + " "
 			+ "WHERE S." + Constant.DEFAULT_SESSION_ID + " = ?";
+	/**
+	 * 批量获取会话数据
+	 * 按会话Id排序，同一会话的键值行相邻
+	 */
+	private static final String GET_SESSIONS_QUERY = "SELECT S." + Constant.DEFAULT_SESSION_ID + ", S." + Constant.DEFAULT_CREATION_TIME + ", S." + Constant.DEFAULT_LAST_ACCESS_TIME + ", S." + Constant.DEFAULT_MAX_INACTIVE_INTERVAL + ", SA." + Constant.DEFAULT_ATTRIBUTE_NAME + ", SA." + Constant.DEFAULT_ATTRIBUTE_BYTES + " "
+			+ "FROM %TABLE_NAME% S "
+			+ "LEFT OUTER JOIN %TABLE_NAME%_ATTRIBUTES SA ON S." + Constant.DEFAULT_SESSION_ID + " = SA." + Constant.DEFAULT_SESSION_ID + " "
+			+ "WHERE S." + Constant.DEFAULT_SESSION_ID + " IN (%SESSION_IDS%) "
+			+ "ORDER BY S." + Constant.DEFAULT_SESSION_ID;
+	/**
+	 * 默认批量获取每页会话数量
+	 */
+	public static final int DEFAULT_BULK_LOAD_PAGE_SIZE = 100;
 	/**
 	 * 更新会话过期
 	 */
@@ -188,6 +201,14 @@ public class JdbcIndexedSessionRepository implements SessionRepository<JdbcIndex
 
 	private String getSessionQuery;
 
+	private String getSessionsQuery;
+	/**
+	 * 整页的批量获取会话数据语句
+	 */
+	private String getSessionsPageQuery;
+
+	private int bulkLoadPageSize = DEFAULT_BULK_LOAD_PAGE_SIZE;
+
 	private String updateSessionQuery;
 
 	private String updateSessionAttributeQuery;
@@ -431,6 +452,72 @@ public class JdbcIndexedSessionRepository implements SessionRepository<JdbcIndex
 		return null;
 	}
 
+	/**
+	 * 批量获取会话，每页一个 {@code IN} 查询
+	 * 过期的会话删除且不返回
+	 *
+	 * @param ids 会话Id列表
+	 * @return 返回找到且未过期的会话，键为会话Id
+	 */
+	public Map<String, JdbcSession> findAllById(Collection<String> ids) {
+		List<String> list = ids instanceof List ? (List<String>) ids : new ArrayList<>(ids);
+		Map<String, JdbcSession> sessionMap = new HashMap<>(list.size());
+		for (int from = 0; from < list.size(); from += this.bulkLoadPageSize) {
+			List<String> page = list.subList(from, Math.min(from + this.bulkLoadPageSize, list.size()));
+			List<JdbcSession> sessions;
+			if (this.transactionOperations == null) {
+				sessions = findAllByIdInternal(page);
+			} else {
+				sessions = this.transactionOperations.execute((status) -> findAllByIdInternal(page));
+			}
+			for (JdbcSession session : sessions) {
+				if (session.isExpired()) {
+					deleteById(session.getId());
+				} else {
+					sessionMap.put(session.getId(), session);
+				}
+			}
+		}
+		return sessionMap;
+	}
+
+	private List<JdbcSession> findAllByIdInternal(final List<String> ids) {
+		String query = ids.size() == this.bulkLoadPageSize ? this.getSessionsPageQuery : getSessionsQuery(ids.size());
+		return this.jdbcOperations.query(query, (ps) -> {
+			for (int i = 0; i < ids.size(); i++) {
+				ps.setString(i + 1, ids.get(i));
+			}
+		}, this.extractor);
+	}
+
+	/**
+	 * 获取指定会话数量的批量获取会话数据语句
+	 *
+	 * @param count 会话数量
+	 * @return
+	 */
+	private String getSessionsQuery(int count) {
+		StringBuilder placeholders = new StringBuilder(count * 3);
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				placeholders.append(", ");
+			}
+			placeholders.append('?');
+		}
+		return StringUtils.replace(this.getSessionsQuery, "%SESSION_IDS%", placeholders.toString());
+	}
+
+	/**
+	 * 设置批量获取每页会话数量
+	 *
+	 * @param bulkLoadPageSize 每页会话数量，默认 {@link #DEFAULT_BULK_LOAD_PAGE_SIZE}
+	 */
+	public void setBulkLoadPageSize(int bulkLoadPageSize) {
+		Assert.isFalse(bulkLoadPageSize > 0, "bulkLoadPageSize must be positive");
+		this.bulkLoadPageSize = bulkLoadPageSize;
+		this.getSessionsPageQuery = getSessionsQuery(bulkLoadPageSize);
+	}
+
 	@Override
 	public void deleteById(final String id) {
 		if (transactionOperations == null) {
@@ -587,6 +674,8 @@ public class JdbcIndexedSessionRepository implements SessionRepository<JdbcIndex
 		this.createSessionQuery = getQuery(CREATE_SESSION_QUERY);
 		this.createSessionAttributeQuery = getQuery(CREATE_SESSION_ATTRIBUTE_QUERY);
 		this.getSessionQuery = getQuery(GET_SESSION_QUERY);
+		this.getSessionsQuery = getQuery(GET_SESSIONS_QUERY);
+		this.getSessionsPageQuery = getSessionsQuery(this.bulkLoadPageSize);
 		this.existSessionQuery = getQuery(EXIST_SESSION_QUERY);
 		this.updateSessionQuery = getQuery(UPDATE_SESSION_QUERY);
 		this.updateSessionAttributeQuery = getQuery(UPDATE_SESSION_ATTRIBUTE_QUERY);
@@ -17,6 +17,10 @@
 package ghost.framework.web.session.data.redis.plugin;
 
 import ghost.framework.data.dao.NonTransientDataAccessException;
+import ghost.framework.data.redis.connection.core.Cursor;
+import ghost.framework.data.redis.connection.core.ScanOptions;
+import ghost.framework.data.redis.core.RedisOperations;
+import ghost.framework.data.redis.core.SessionCallback;
 import ghost.framework.util.Assert;
 import ghost.framework.util.NestedExceptionUtils;
 import ghost.framework.web.session.core.*;
@@ -43,12 +47,27 @@ import org.apache.commons.logging.LogFactory;
 //import ghost.framework.session.web.http.SessionRepositoryFilter;
 //import ghost.framework.util.Assert;
 
+import java.math.BigDecimal;
+import java.io.IOException;
+import java.math.BigInteger;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * <p>
@@ -241,6 +260,31 @@ import java.util.Set;
  * the key is only removed if the TTL on that key is expired.
  * </p>
  *
+ * <h2>Local session cache</h2>
+ *
+ * <p>
+ * With {@link #setLocalCacheTtl(Duration)} each node keeps a short lived copy of the
+ * sessions it loaded, so requests following each other closely do not reload the session
+ * hash. A copy is dropped when it expires, when this node saves the session and when
+ * Redis publishes a keyspace event for its session hash, or a {@code del} or
+ * {@code expired} keyevent for it. Only keyspace events of the session key prefix are
+ * subscribed, they require {@code notify-keyspace-events} to include {@code K} and
+ * {@code h}. The local session cache keeps at most
+ * {@link #setLocalCacheMaximumSize(int)} sessions and drops the least recently used one
+ * when it is full.
+ * Attribute values of a copy are shared with the sessions created from it, mutable
+ * attributes must be set again after they are modified.
+ * </p>
+ *
+ * <p>
+ * Saves only write attributes that changed. Setting an immutable attribute value
+ * ({@link String}, primitive wrappers, {@link BigInteger}, {@link BigDecimal} or an
+ * enum) equal to the stored value is not written. With
+ * {@link #setLastAccessedTimeWriteThreshold(Duration)} a last accessed time that moved
+ * less than the threshold is only written along with other changes, so the session may
+ * expire up to the threshold earlier than its max inactive interval.
+ * </p>
+ *
  * @author Rob Winch
  * @author Vedran Pavic
  * @since 2.2.0
@@ -252,11 +296,18 @@ public class RedisIndexedSessionRepository
 
 	private static final String SPRING_SECURITY_CONTEXT = "SPRING_SECURITY_CONTEXT";
 
+	private static final int LOCAL_SESSION_VERSION_STRIPES = 64;
+
 	/**
 	 * The default Redis database used by Spring Session.
 	 */
 	public static final int DEFAULT_DATABASE = 0;
 
+	/**
+	 * The default number of sessions loaded by one pipelined batch.
+	 */
+	public static final int DEFAULT_BULK_LOAD_BATCH_SIZE = 100;
+
 	/**
 	 * The default namespace for each key and channel in Redis used by Spring Session.
 	 */
@@ -275,6 +326,8 @@ public class RedisIndexedSessionRepository
 
 	private String sessionExpiredChannel;
 
+	private String sessionChangedChannelPrefix;
+
 	private final RedisOperations<Object, Object> sessionRedisOperations;
 
 	private final RedisSessionExpirationPolicy expirationPolicy;
@@ -296,6 +349,22 @@ public class RedisIndexedSessionRepository
 
 	private SaveMode saveMode = SaveMode.ON_SET_ATTRIBUTE;
 
+	private Duration localCacheTtl = Duration.ZERO;
+
+	private int localCacheMaximumSize = 10000;
+
+	private Duration lastAccessedTimeWriteThreshold = Duration.ZERO;
+
+	private int bulkLoadBatchSize = DEFAULT_BULK_LOAD_BATCH_SIZE;
+
+	private final Map<String, LocalSession> localSessions = Collections.synchronizedMap(new LocalSessionMap());
+
+	/**
+	 * Invalidation counters striped by session id. A load only caches its copy if no
+	 * invalidation of the stripe happened while it was reading Redis.
+	 */
+	private final AtomicLongArray localSessionVersions = new AtomicLongArray(LOCAL_SESSION_VERSION_STRIPES);
+
 	/**
 	 * Creates a new instance. For an example, refer to the class level javadoc.
 	 * @param sessionRedisOperations the {@link RedisOperations} to use for managing the
@@ -369,6 +438,60 @@ public class RedisIndexedSessionRepository
 		this.saveMode = saveMode;
 	}
 
+	/**
+	 * Sets how long a loaded session is kept in the local session cache. The default is
+	 * {@link Duration#ZERO} which disables the local session cache.
+	 * @param localCacheTtl the local session cache time to live
+	 */
+	public void setLocalCacheTtl(Duration localCacheTtl) {
+		Assert.notNull(localCacheTtl, "localCacheTtl cannot be null");
+		this.localCacheTtl = localCacheTtl;
+		if (!isLocalCacheEnabled()) {
+			this.localSessions.clear();
+		}
+	}
+
+	/**
+	 * Sets the maximum number of sessions in the local session cache. The default is
+	 * 10000.
+	 * @param localCacheMaximumSize the maximum number of locally cached sessions
+	 */
+	public void setLocalCacheMaximumSize(int localCacheMaximumSize) {
+		Assert.isFalse(localCacheMaximumSize > 0, "localCacheMaximumSize must be positive");
+		this.localCacheMaximumSize = localCacheMaximumSize;
+	}
+
+	/**
+	 * Returns whether loaded sessions are kept in the local session cache.
+	 * @return {@code true} if the local session cache is enabled
+	 */
+	public boolean isLocalCacheEnabled() {
+		return !this.localCacheTtl.isZero() && !this.localCacheTtl.isNegative();
+	}
+
+	/**
+	 * Sets the minimum change of the last accessed time that is written on its own. Smaller
+	 * changes are only written along with other changes of the session. The default is
+	 * {@link Duration#ZERO} which writes every change.
+	 * @param lastAccessedTimeWriteThreshold the last accessed time write threshold
+	 */
+	public void setLastAccessedTimeWriteThreshold(Duration lastAccessedTimeWriteThreshold) {
+		Assert.notNull(lastAccessedTimeWriteThreshold, "lastAccessedTimeWriteThreshold cannot be null");
+		this.lastAccessedTimeWriteThreshold = lastAccessedTimeWriteThreshold;
+	}
+
+	/**
+	 * Sets the number of sessions loaded by one pipelined batch in
+	 * {@link #findAllById(Collection)} and per page of
+	 * {@link #streamByIndexNameAndIndexValue(String, String)}. Defaults to
+	 * {@link #DEFAULT_BULK_LOAD_BATCH_SIZE}.
+	 * @param bulkLoadBatchSize the bulk load batch size
+	 */
+	public void setBulkLoadBatchSize(int bulkLoadBatchSize) {
+		Assert.isFalse(bulkLoadBatchSize > 0, "bulkLoadBatchSize must be positive");
+		this.bulkLoadBatchSize = bulkLoadBatchSize;
+	}
+
 	/**
 	 * Sets the database index to use. Defaults to {@link #DEFAULT_DATABASE}.
 	 * @param database the database index to use
@@ -382,6 +505,7 @@ public class RedisIndexedSessionRepository
 		this.sessionCreatedChannelPrefix = this.namespace + "event:" + this.database + ":created:";
 		this.sessionDeletedChannel = "__keyevent@" + this.database + "__:del";
 		this.sessionExpiredChannel = "__keyevent@" + this.database + "__:expired";
+		this.sessionChangedChannelPrefix = "__keyspace@" + this.database + "__:" + getSessionKey("");
 	}
 
 	/**
@@ -418,16 +542,134 @@ public class RedisIndexedSessionRepository
 		}
 		String principalKey = getPrincipalKey(indexValue);
 		Set<Object> sessionIds = this.sessionRedisOperations.boundSetOps(principalKey).members();
-		Map<String, RedisSession> sessions = new HashMap<>(sessionIds.size());
+		List<String> ids = new ArrayList<>(sessionIds.size());
 		for (Object id : sessionIds) {
-			RedisSession session = findById((String) id);
-			if (session != null) {
-				sessions.put(session.getId(), session);
+			ids.add((String) id);
+		}
+		return findAllById(ids);
+	}
+
+	/**
+	 * Loads the sessions missing from the local session cache with one pipelined batch of
+	 * {@code HGETALL} per {@link #setBulkLoadBatchSize(int) bulk load batch size} ids.
+	 * @param ids the session ids to load
+	 * @return the sessions that were found and are not expired
+	 */
+	@Override
+	public Map<String, RedisSession> findAllById(Collection<String> ids) {
+		Map<String, RedisSession> sessions = new HashMap<>(ids.size());
+		List<String> missing = new ArrayList<>(ids.size());
+		for (String id : ids) {
+			MapSession loaded = getLocalSession(id);
+			if (loaded == null) {
+				missing.add(id);
+			}
+			else if (!loaded.isExpired()) {
+				sessions.put(id, toRedisSession(loaded));
 			}
 		}
+		for (int from = 0; from < missing.size(); from += this.bulkLoadBatchSize) {
+			loadSessions(missing.subList(from, Math.min(from + this.bulkLoadBatchSize, missing.size())), sessions);
+		}
 		return sessions;
 	}
 
+	/**
+	 * Streams the sessions of a principal. The principal index set is read with
+	 * {@code SSCAN} and every page of ids is loaded with {@link #findAllById(Collection)},
+	 * so the sessions of a principal are never held in memory at once. {@code SSCAN}
+	 * may return a member more than once while the set is rehashed, so the ids already
+	 * returned are remembered and skipped. The returned stream holds a Redis cursor and
+	 * must be closed.
+	 * @param indexName the name of the index
+	 * @param indexValue the value of the index to search for
+	 * @return the sessions of the principal
+	 */
+	@Override
+	public Stream<RedisSession> streamByIndexNameAndIndexValue(String indexName, String indexValue) {
+		if (!PRINCIPAL_NAME_INDEX_NAME.equals(indexName)) {
+			return Stream.empty();
+		}
+		Cursor<Object> cursor = this.sessionRedisOperations.boundSetOps(getPrincipalKey(indexValue))
+				.scan(ScanOptions.scanOptions().count(this.bulkLoadBatchSize).build());
+		Iterator<RedisSession> sessions = new Iterator<RedisSession>() {
+
+			private final Set<String> seen = new HashSet<>();
+
+			private Iterator<RedisSession> page = Collections.emptyIterator();
+
+			@Override
+			public boolean hasNext() {
+				while (!this.page.hasNext() && cursor.hasNext()) {
+					List<String> ids = new ArrayList<>(RedisIndexedSessionRepository.this.bulkLoadBatchSize);
+					while (ids.size() < RedisIndexedSessionRepository.this.bulkLoadBatchSize && cursor.hasNext()) {
+						String id = (String) cursor.next();
+						if (this.seen.add(id)) {
+							ids.add(id);
+						}
+					}
+					this.page = findAllById(ids).values().iterator();
+				}
+				return this.page.hasNext();
+			}
+
+			@Override
+			public RedisSession next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return this.page.next();
+			}
+
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(sessions, Spliterator.NONNULL), false)
+				.onClose(() -> {
+					try {
+						cursor.close();
+					}
+					catch (IOException ex) {
+						logger.debug("Failed to close the principal index cursor", ex);
+					}
+				});
+	}
+
+	/**
+	 * Loads the sessions of one batch of ids with a single pipeline and caches them
+	 * locally.
+	 * @param ids the session ids to load
+	 * @param sessions the map to add the sessions that were found and are not expired to
+	 */
+	@SuppressWarnings("unchecked")
+	private void loadSessions(List<String> ids, Map<String, RedisSession> sessions) {
+		int[] stripes = new int[ids.size()];
+		long[] versions = new long[ids.size()];
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = getLocalSessionStripe(ids.get(i));
+			versions[i] = this.localSessionVersions.get(stripes[i]);
+		}
+		List<Object> results = this.sessionRedisOperations.executePipelined(new SessionCallback<Object>() {
+			@Override
+			public <K, V> Object execute(RedisOperations<K, V> operations) {
+				for (String id : ids) {
+					operations.opsForHash().entries((K) getSessionKey(id));
+				}
+				return null;
+			}
+		});
+		for (int i = 0; i < stripes.length; i++) {
+			Map<Object, Object> entries = (Map<Object, Object>) results.get(i);
+			if (entries == null || entries.isEmpty()) {
+				continue;
+			}
+			String id = ids.get(i);
+			MapSession loaded = loadSession(id, entries);
+			putLocalSession(id, loaded, stripes[i], versions[i]);
+			if (!loaded.isExpired()) {
+				sessions.put(id, toRedisSession(loaded));
+			}
+		}
+	}
+
 	/**
 	 * Gets the session.
 	 * @param id the session id
@@ -436,19 +678,89 @@ public class RedisIndexedSessionRepository
 	 * @return the Redis session
 	 */
 	private RedisSession getSession(String id, boolean allowExpired) {
-		Map<Object, Object> entries = getSessionBoundHashOperations(id).entries();
-		if (entries.isEmpty()) {
-			return null;
+		// sessions that may be expired are only read for deletion and events, they bypass
+		// the local session cache so a destroyed session is not cached again
+		MapSession loaded = allowExpired ? null : getLocalSession(id);
+		if (loaded == null) {
+			int stripe = getLocalSessionStripe(id);
+			long version = this.localSessionVersions.get(stripe);
+			Map<Object, Object> entries = getSessionBoundHashOperations(id).entries();
+			if (entries.isEmpty()) {
+				return null;
+			}
+			loaded = loadSession(id, entries);
+			if (!allowExpired) {
+				putLocalSession(id, loaded, stripe, version);
+			}
 		}
-		MapSession loaded = loadSession(id, entries);
 		if (!allowExpired && loaded.isExpired()) {
 			return null;
 		}
+		return toRedisSession(loaded);
+	}
+
+	private RedisSession toRedisSession(MapSession loaded) {
 		RedisSession result = new RedisSession(loaded, false);
 		result.originalLastAccessTime = loaded.getLastAccessedTime();
 		return result;
 	}
 
+	/**
+	 * Returns a copy of the locally cached session.
+	 * @param id the session id
+	 * @return a copy of the session or {@code null} if it is not cached or expired
+	 */
+	private MapSession getLocalSession(String id) {
+		if (!isLocalCacheEnabled()) {
+			return null;
+		}
+		LocalSession local = this.localSessions.get(id);
+		if (local == null) {
+			return null;
+		}
+		if (local.isExpired(System.nanoTime())) {
+			this.localSessions.remove(id, local);
+			return null;
+		}
+		return new MapSession(local.session);
+	}
+
+	/**
+	 * Caches a copy of a session loaded from Redis, unless it was invalidated while it
+	 * was loaded.
+	 * @param id the session id
+	 * @param loaded the loaded session
+	 * @param stripe the invalidation stripe of the session id
+	 * @param version the invalidation counter read before loading
+	 */
+	private void putLocalSession(String id, MapSession loaded, int stripe, long version) {
+		if (!isLocalCacheEnabled()) {
+			return;
+		}
+		LocalSession local = new LocalSession(new MapSession(loaded), System.nanoTime() + this.localCacheTtl.toNanos());
+		this.localSessions.put(id, local);
+		if (this.localSessionVersions.get(stripe) != version) {
+			this.localSessions.remove(id, local);
+		}
+	}
+
+	/**
+	 * Drops the locally cached copy of a session.
+	 * @param id the session id
+	 */
+	private void invalidateLocalSession(String id) {
+		if (!isLocalCacheEnabled()) {
+			return;
+		}
+		this.localSessionVersions.incrementAndGet(getLocalSessionStripe(id));
+		this.localSessions.remove(id);
+	}
+
+	private static int getLocalSessionStripe(String id) {
+		int h = id.hashCode();
+		return (h ^ (h >>> 16)) & (LOCAL_SESSION_VERSION_STRIPES - 1);
+	}
+
 	private MapSession loadSession(String id, Map<Object, Object> entries) {
 		MapSession loaded = new MapSession(id);
 		for (Map.Entry<Object, Object> entry : entries.entrySet()) {
@@ -504,6 +816,11 @@ public class RedisIndexedSessionRepository
 
 		String channel = new String(messageChannel);
 
+		if (channel.startsWith(this.sessionChangedChannelPrefix)) {
+			invalidateLocalSession(channel.substring(this.sessionChangedChannelPrefix.length()));
+			return;
+		}
+
 		if (channel.startsWith(this.sessionCreatedChannelPrefix)) {
 			// TODO: is this thread safe?
 			@SuppressWarnings("unchecked")
@@ -523,6 +840,7 @@ public class RedisIndexedSessionRepository
 			int endIndex = body.length();
 			String sessionId = body.substring(beginIndex, endIndex);
 
+			invalidateLocalSession(sessionId);
 			RedisSession session = getSession(sessionId, true);
 
 			if (session == null) {
@@ -639,6 +957,15 @@ public class RedisIndexedSessionRepository
 		return this.sessionExpiredChannel;
 	}
 
+	/**
+	 * Gets the prefix of the keyspace channels Redis publishes session hash events to. The
+	 * session id follows the prefix. Used to invalidate the local session cache.
+	 * @return the prefix of the keyspace channels of session hashes
+	 */
+	public String getSessionChangedChannelPrefix() {
+		return this.sessionChangedChannelPrefix;
+	}
+
 	/**
 	 * Gets the {@link BoundHashOperations} to operate on a {@link Session}.
 	 * @param sessionId the id of the {@link Session} to work with
@@ -658,6 +985,62 @@ public class RedisIndexedSessionRepository
 		return RedisSessionMapper.ATTRIBUTE_PREFIX + attributeName;
 	}
 
+	/**
+	 * Whether setting {@code value} over {@code previous} can be skipped. Only immutable
+	 * values are compared, a mutable value set again may have been modified in place.
+	 * @param previous the current attribute value
+	 * @param value the new attribute value
+	 * @return {@code true} if the new value is an equal immutable value
+	 */
+	private static boolean isUnchangedImmutable(Object previous, Object value) {
+		if (previous == null || !previous.equals(value)) {
+			return false;
+		}
+		return value instanceof String || value instanceof Boolean || value instanceof Character
+				|| value instanceof Byte || value instanceof Short || value instanceof Integer
+				|| value instanceof Long || value instanceof Float || value instanceof Double
+				|| value instanceof BigInteger || value instanceof BigDecimal || value instanceof Enum;
+	}
+
+	/**
+	 * Local session cache map in access order that drops the least recently used session
+	 * when it holds more than the maximum size. Access is synchronized by the caller.
+	 */
+	private final class LocalSessionMap extends LinkedHashMap<String, LocalSession> {
+
+		private static final long serialVersionUID = 4715240817215926583L;
+
+		LocalSessionMap() {
+			super(16, 0.75f, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, LocalSession> eldest) {
+			return size() > RedisIndexedSessionRepository.this.localCacheMaximumSize;
+		}
+
+	}
+
+	/**
+	 * A locally cached session copy.
+	 */
+	private static final class LocalSession {
+
+		private final MapSession session;
+
+		private final long expiresAt;
+
+		LocalSession(MapSession session, long expiresAt) {
+			this.session = session;
+			this.expiresAt = expiresAt;
+		}
+
+		boolean isExpired(long now) {
+			return now - this.expiresAt >= 0;
+		}
+
+	}
+
 	/**
 	 * A custom implementation of {@link Session} that uses a {@link MapSession} as the
 	 * basis for its mapping. It keeps track of any attributes that have changed. When
@@ -680,6 +1063,11 @@ public class RedisIndexedSessionRepository
 
 		private String originalSessionId;
 
+		/**
+		 * Whether a last accessed time change below the write threshold is pending.
+		 */
+		private boolean lastAccessedTimeDeferred;
+
 		RedisSession(MapSession cached, boolean isNew) {
 			this.cached = cached;
 			this.isNew = isNew;
@@ -701,6 +1089,12 @@ public class RedisIndexedSessionRepository
 		@Override
 		public void setLastAccessedTime(Instant lastAccessedTime) {
 			this.cached.setLastAccessedTime(lastAccessedTime);
+			Duration threshold = RedisIndexedSessionRepository.this.lastAccessedTimeWriteThreshold;
+			if (!this.isNew && this.originalLastAccessTime != null && !threshold.isZero()
+					&& Duration.between(this.originalLastAccessTime, lastAccessedTime).compareTo(threshold) < 0) {
+				this.lastAccessedTimeDeferred = true;
+				return;
+			}
 			this.delta.put(RedisSessionMapper.LAST_ACCESSED_TIME_KEY, getLastAccessedTime().toEpochMilli());
 			flushImmediateIfNecessary();
 		}
@@ -759,13 +1153,20 @@ public class RedisIndexedSessionRepository
 
 		@Override
 		public void setAttribute(String attributeName, Object attributeValue) {
+			Object previous = this.cached.getAttribute(attributeName);
 			this.cached.setAttribute(attributeName, attributeValue);
+			if (!this.isNew && isUnchangedImmutable(previous, attributeValue)) {
+				return;
+			}
 			this.delta.put(getSessionAttrNameKey(attributeName), attributeValue);
 			flushImmediateIfNecessary();
 		}
 
 		@Override
 		public void removeAttribute(String attributeName) {
+			if (!this.isNew && this.cached.getAttribute(attributeName) == null) {
+				return;
+			}
 			this.cached.removeAttribute(attributeName);
 			this.delta.put(getSessionAttrNameKey(attributeName), null);
 			flushImmediateIfNecessary();
@@ -790,8 +1191,14 @@ public class RedisIndexedSessionRepository
 			if (this.delta.isEmpty()) {
 				return;
 			}
+			if (this.lastAccessedTimeDeferred) {
+				// keep the stored last accessed time in line with the expiration updated below
+				this.delta.put(RedisSessionMapper.LAST_ACCESSED_TIME_KEY, getLastAccessedTime().toEpochMilli());
+				this.lastAccessedTimeDeferred = false;
+			}
 			String sessionId = getId();
 			getSessionBoundHashOperations(sessionId).putAll(this.delta);
+			invalidateLocalSession(sessionId);
 			String principalSessionKey = getSessionAttrNameKey(
 					FindByIndexNameSessionRepository.PRINCIPAL_NAME_INDEX_NAME);
 			String securityPrincipalSessionKey = getSessionAttrNameKey(SPRING_SECURITY_CONTEXT);
@@ -824,6 +1231,7 @@ public class RedisIndexedSessionRepository
 				return;
 			}
 			if (!this.isNew) {
+				invalidateLocalSession(this.originalSessionId);
 				String originalSessionIdKey = getSessionKey(this.originalSessionId);
 				String sessionIdKey = getSessionKey(sessionId);
 				try {
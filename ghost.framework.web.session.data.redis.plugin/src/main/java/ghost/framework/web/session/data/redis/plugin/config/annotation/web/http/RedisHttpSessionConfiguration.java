@@ -162,6 +162,10 @@ public class RedisHttpSessionConfiguration extends SpringHttpSessionConfiguratio
 						new ChannelTopic(sessionRepository.getSessionExpiredChannel())));
 		container.addMessageListener(sessionRepository,
 				Collections.singletonList(new PatternTopic(sessionRepository.getSessionCreatedChannelPrefix() + "*")));
+		if (sessionRepository.isLocalCacheEnabled()) {
+			container.addMessageListener(sessionRepository,
+					Collections.singletonList(new PatternTopic(sessionRepository.getSessionChangedChannelPrefix() + "*")));
+		}
 		return container;
 	}
 
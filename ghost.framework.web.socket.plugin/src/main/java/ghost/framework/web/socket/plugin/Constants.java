@@ -59,12 +59,23 @@ public class Constants {
     // RFC 6455 limits OP Codes to 4 bits so these should never clash
     // Always set bit 4 so these will be treated as control codes
     public static final byte INTERNAL_OPCODE_FLUSH = 0x18;
+    /**
+     * 内部广播操作码
+     * 消息包内容为已编码完成的完整帧（包含帧头），直接写入网络流
+     */
+    public static final byte INTERNAL_OPCODE_BROADCAST = 0x19;
     /**
      * 默认缓冲区大小
      * 默认为8*1024
      * 如果从System.getProperty中获取到当前参数配置时使用当前系统参数作为默认缓冲区大小值
      */
     public static final int DEFAULT_BUFFER_SIZE = Integer.getInteger("ghost.framework.web.socket.plugin.DEFAULT_BUFFER_SIZE", 8 * 1024).intValue();
+    /**
+     * 广播慢消费者默认最大等待帧数
+     * 默认为64
+     * 如果从System.getProperty中获取到当前参数配置时使用当前系统参数作为默认值
+     */
+    public static final int DEFAULT_BROADCAST_MAX_PENDING_FRAMES = Integer.getInteger("ghost.framework.web.socket.plugin.DEFAULT_BROADCAST_MAX_PENDING_FRAMES", 64).intValue();
 
     // Client connection
     /**
@@ -36,8 +36,8 @@ public class PerMessageDeflate implements Transformation {
     private static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
     private static final String CLIENT_MAX_WINDOW_BITS = "client_max_window_bits";
 
-    private static final int RSV_BITMASK = 0b100;
-    private static final byte[] EOM_BYTES = new byte[] {0, 0, -1, -1};
+    static final int RSV_BITMASK = 0b100;
+    static final byte[] EOM_BYTES = new byte[] {0, 0, -1, -1};
     /**
      * 基于Tomcat的Websocket范例及permessage-deflate扩展特性的研究
      */
@@ -305,6 +305,20 @@ public class PerMessageDeflate implements Transformation {
     }
 
 
+    @Override
+    public WsBroadcastFrame.Encoding getBroadcastEncoding() {
+        // Only a server that resets the compressor after every message
+        // produces output that does not depend on earlier messages
+        if (!isServer || serverContextTakeover) {
+            return null;
+        }
+        if (next == null || next.getBroadcastEncoding() == WsBroadcastFrame.Encoding.PLAIN) {
+            return WsBroadcastFrame.Encoding.DEFLATED;
+        }
+        return null;
+    }
+
+
     @Override
     public boolean validateRsvBits(int i) {
         if ((i & RSV_BITMASK) != 0) {
@@ -106,6 +106,18 @@ public interface Transformation {
      */
     List<MessagePart> sendMessagePart(List<MessagePart> messageParts) throws IOException;
 
+    /**
+     * Obtain the encoding a pre-encoded broadcast frame must use so it can be
+     * written as-is by an endpoint using this transformation.
+     *
+     * @return  The required encoding or {@code null} if this transformation
+     *          (or a subsequent one) keeps per-session state and each message
+     *          has to be passed through {@link #sendMessagePart(List)}
+     */
+    default WsBroadcastFrame.Encoding getBroadcastEncoding() {
+        return null;
+    }
+
     /**
      * Clean-up any resources that were used by the transformation.
      */
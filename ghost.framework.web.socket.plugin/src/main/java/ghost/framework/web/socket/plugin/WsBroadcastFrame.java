@@ -0,0 +1,173 @@
+package ghost.framework.web.socket.plugin;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+/**
+ * package: ghost.framework.web.socket.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description: 广播帧
+ * 消息内容只编码一次，帧头与内容合并为只读缓冲区，所有服务端会话共享同一份帧数据写入网络流
+ * 每个会话写入时只复制缓冲区位置（{@link ByteBuffer#duplicate()}），不复制内容
+ * @Date: 2020/6/28:21:16
+ */
+public final class WsBroadcastFrame {
+    /**
+     * 广播帧编码方式
+     */
+    public enum Encoding {
+        /**
+         * 未压缩帧
+         */
+        PLAIN,
+        /**
+         * permessage-deflate压缩帧（服务端无上下文接管）
+         */
+        DEFLATED
+    }
+
+    /**
+     * 帧头最大长度
+     * 2字节基础头 + 8字节扩展长度，服务端帧没有掩盖码
+     */
+    private static final int MAX_HEADER_SIZE = 10;
+    /**
+     * 操作码
+     */
+    private final byte opCode;
+    /**
+     * 未编码内容
+     * 会话需要经过转换处理（客户端掩盖码、压缩上下文接管等）时使用
+     */
+    private final ByteBuffer payload;
+    /**
+     * 未压缩完整帧
+     */
+    private final ByteBuffer plainFrame;
+    /**
+     * 压缩完整帧
+     * 首次有会话需要时才生成
+     */
+    private volatile ByteBuffer deflatedFrame;
+
+    /**
+     * 初始化广播帧
+     * @param opCode 操作码
+     * @param payload 消息内容
+     */
+    private WsBroadcastFrame(byte opCode, ByteBuffer payload) {
+        this.opCode = opCode;
+        this.payload = payload;
+        this.plainFrame = encode(0, payload);
+    }
+
+    /**
+     * 创建文本广播帧
+     * @param text 文本内容
+     * @return
+     */
+    public static WsBroadcastFrame text(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("text");
+        }
+        return new WsBroadcastFrame(Constants.OPCODE_TEXT, ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 创建二进制广播帧
+     * 复制内容，创建后调用者可以继续修改 {@code data}
+     * @param data 二进制内容
+     * @return
+     */
+    public static WsBroadcastFrame binary(ByteBuffer data) {
+        if (data == null) {
+            throw new IllegalArgumentException("data");
+        }
+        ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+        copy.put(data.duplicate());
+        copy.flip();
+        return new WsBroadcastFrame(Constants.OPCODE_BINARY, copy);
+    }
+
+    /**
+     * 获取操作码
+     * @return
+     */
+    public byte getOpCode() {
+        return opCode;
+    }
+
+    /**
+     * 获取未编码内容
+     * 每次返回独立位置的缓冲区，转换处理可以修改位置
+     * @return
+     */
+    ByteBuffer getPayload() {
+        return payload.duplicate();
+    }
+
+    /**
+     * 获取完整帧
+     * 每次返回独立位置的只读缓冲区
+     * @param encoding 编码方式
+     * @return
+     */
+    ByteBuffer getFrame(Encoding encoding) {
+        if (encoding == Encoding.DEFLATED) {
+            ByteBuffer frame = deflatedFrame;
+            if (frame == null) {
+                //重复压缩结果相同，并发时不需要锁定
+                frame = encode(PerMessageDeflate.RSV_BITMASK, deflate(payload.duplicate()));
+                deflatedFrame = frame;
+            }
+            return frame.duplicate();
+        }
+        return plainFrame.duplicate();
+    }
+
+    /**
+     * 编码完整帧
+     * @param rsv 扩展位
+     * @param content 帧内容
+     * @return
+     */
+    private ByteBuffer encode(int rsv, ByteBuffer content) {
+        ByteBuffer frame = ByteBuffer.allocateDirect(MAX_HEADER_SIZE + content.remaining());
+        WsRemoteEndpointImplBase.writeHeader(frame, true, rsv, opCode, false, content, null, true);
+        frame.put(content.duplicate());
+        frame.flip();
+        return frame.asReadOnlyBuffer();
+    }
+
+    /**
+     * 压缩内容
+     * 每条消息使用独立的压缩器，与 {@link PerMessageDeflate} 无上下文接管时的输出一致
+     * @param content 未压缩内容
+     * @return
+     */
+    private static ByteBuffer deflate(ByteBuffer content) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(content.array(), content.arrayOffset() + content.position(), content.remaining());
+            byte[] buffer = new byte[Math.max(64, content.remaining() + 64)];
+            int length = 0;
+            while (true) {
+                length += deflater.deflate(buffer, length, buffer.length - length, Deflater.SYNC_FLUSH);
+                if (length < buffer.length) {
+                    break;
+                }
+                //缓冲区已满，扩容后继续输出
+                byte[] expanded = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, expanded, 0, length);
+                buffer = expanded;
+            }
+            //去掉消息结束字节
+            return ByteBuffer.wrap(buffer, 0, length - PerMessageDeflate.EOM_BYTES.length).slice();
+        } finally {
+            deflater.end();
+        }
+    }
+}
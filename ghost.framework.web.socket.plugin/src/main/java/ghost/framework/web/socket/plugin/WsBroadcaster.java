@@ -0,0 +1,225 @@
+package ghost.framework.web.socket.plugin;
+
+import javax.websocket.Session;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * package: ghost.framework.web.socket.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description: 广播发送器
+ * 消息只编码一次为 {@link WsBroadcastFrame}，空闲会话直接写入共享帧
+ * 只有正在发送中的慢消费者会话才在会话内排队，超过最大等待帧数时按 {@link SlowConsumerPolicy} 处理
+ * 使用 {@link Session#getOpenSessions()} 获取广播会话列表
+ * @Date: 2020/6/28:21:48
+ */
+public class WsBroadcaster {
+    /**
+     * 慢消费者处理策略
+     */
+    public enum SlowConsumerPolicy {
+        /**
+         * 丢弃最新广播消息
+         */
+        DROP_NEWEST,
+        /**
+         * 丢弃最早等待的广播消息
+         */
+        DROP_OLDEST,
+        /**
+         * 中止会话，不发送关闭消息直接关闭网络连接
+         */
+        CLOSE
+    }
+
+    /**
+     * 单个会话的广播结果
+     */
+    public enum Delivery {
+        /**
+         * 已开始写入网络流
+         */
+        WRITTEN,
+        /**
+         * 会话正在发送中，已排队等待
+         */
+        QUEUED,
+        /**
+         * 已丢弃
+         */
+        DROPPED,
+        /**
+         * 慢消费者已被关闭
+         */
+        CLOSED
+    }
+
+    /**
+     * 每个会话最大等待帧数
+     */
+    private volatile int maxPendingFrames = Constants.DEFAULT_BROADCAST_MAX_PENDING_FRAMES;
+    /**
+     * 慢消费者处理策略
+     */
+    private volatile SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DROP_OLDEST;
+
+    /**
+     * 获取每个会话最大等待帧数
+     * @return
+     */
+    public int getMaxPendingFrames() {
+        return maxPendingFrames;
+    }
+
+    /**
+     * 设置每个会话最大等待帧数
+     * @param maxPendingFrames 最大等待帧数，0表示会话正在发送中时不排队
+     */
+    public void setMaxPendingFrames(int maxPendingFrames) {
+        if (maxPendingFrames < 0) {
+            throw new IllegalArgumentException("maxPendingFrames");
+        }
+        this.maxPendingFrames = maxPendingFrames;
+    }
+
+    /**
+     * 获取慢消费者处理策略
+     * @return
+     */
+    public SlowConsumerPolicy getSlowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+
+    /**
+     * 设置慢消费者处理策略
+     * @param slowConsumerPolicy 处理策略
+     */
+    public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+        if (slowConsumerPolicy == null) {
+            throw new IllegalArgumentException("slowConsumerPolicy");
+        }
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
+    /**
+     * 广播文本消息
+     * @param sessions 会话列表
+     * @param text 文本内容
+     * @return
+     */
+    public Result broadcast(Collection<? extends Session> sessions, String text) {
+        return broadcast(sessions, WsBroadcastFrame.text(text));
+    }
+
+    /**
+     * 广播二进制消息
+     * @param sessions 会话列表
+     * @param data 二进制内容
+     * @return
+     */
+    public Result broadcast(Collection<? extends Session> sessions, ByteBuffer data) {
+        return broadcast(sessions, WsBroadcastFrame.binary(data));
+    }
+
+    /**
+     * 广播帧
+     * 不是 {@link WsSession} 或已经关闭的会话被跳过
+     * @param sessions 会话列表
+     * @param frame 广播帧
+     * @return
+     */
+    public Result broadcast(Collection<? extends Session> sessions, WsBroadcastFrame frame) {
+        if (frame == null) {
+            throw new IllegalArgumentException("frame");
+        }
+        int maxPendingFrames = this.maxPendingFrames;
+        SlowConsumerPolicy slowConsumerPolicy = this.slowConsumerPolicy;
+        Result result = new Result();
+        for (Session session : sessions) {
+            if (!(session instanceof WsSession) || !session.isOpen()) {
+                result.skipped++;
+                continue;
+            }
+            result.add(((WsSession) session).sendBroadcastFrame(frame, maxPendingFrames, slowConsumerPolicy));
+        }
+        return result;
+    }
+
+    /**
+     * 广播结果统计
+     */
+    public static final class Result {
+        private int written;
+        private int queued;
+        private int dropped;
+        private int closed;
+        private int skipped;
+
+        private void add(Delivery delivery) {
+            switch (delivery) {
+                case WRITTEN:
+                    written++;
+                    break;
+                case QUEUED:
+                    queued++;
+                    break;
+                case DROPPED:
+                    dropped++;
+                    break;
+                case CLOSED:
+                    closed++;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * 获取已开始写入的会话数
+         * @return
+         */
+        public int getWritten() {
+            return written;
+        }
+
+        /**
+         * 获取排队等待的会话数
+         * @return
+         */
+        public int getQueued() {
+            return queued;
+        }
+
+        /**
+         * 获取丢弃广播消息的会话数
+         * @return
+         */
+        public int getDropped() {
+            return dropped;
+        }
+
+        /**
+         * 获取因慢消费者被关闭的会话数
+         * @return
+         */
+        public int getClosed() {
+            return closed;
+        }
+
+        /**
+         * 获取跳过的会话数
+         * @return
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{written=" + written + ", queued=" + queued + ", dropped=" + dropped +
+                    ", closed=" + closed + ", skipped=" + skipped + "}";
+        }
+    }
+}
@@ -1091,6 +1091,12 @@ public abstract class WsFrameBase {
             // NO-OP，因为这是终端转换
         }
 
+        @Override
+        public WsBroadcastFrame.Encoding getBroadcastEncoding() {
+            // 终端转换不修改消息内容，广播帧可以原样写入
+            return WsBroadcastFrame.Encoding.PLAIN;
+        }
+
         /**
          * {@inheritDoc}
          * <p>
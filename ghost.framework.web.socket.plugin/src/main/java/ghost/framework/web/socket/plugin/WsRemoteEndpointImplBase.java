@@ -61,6 +61,11 @@ public abstract class WsRemoteEndpointImplBase implements RemoteEndpoint {
     private final Semaphore messagePartInProgress = new Semaphore(1);
     private final Queue<MessagePart> messagePartQueue = new ArrayDeque<>();
     private final Object messagePartLock = new Object();
+    /**
+     * 等待写入的广播帧
+     * 由messagePartLock锁定
+     */
+    private final Queue<WsBroadcastFrame> broadcastQueue = new ArrayDeque<>();
     // State
     private volatile boolean closed = false;
     private boolean fragmented = false;
@@ -386,37 +391,167 @@ public abstract class WsRemoteEndpointImplBase implements RemoteEndpoint {
             return;
         }
 
-        MessagePart mp = messageParts.remove(0);
+        MessagePart mp = queueMessageParts(messageParts);
+        if (mp != null) {
+            // Actual write has to be outside sync block to avoid possible
+            // deadlock between messagePartLock and writeLock in
+            // o.a.coyote.http11.upgrade.AbstractServletOutputStream
+            writeMessagePart(mp);
+        }
+    }
 
-        boolean doWrite = false;
+    /**
+     * 加入发送消息包
+     * @param messageParts 消息包列表
+     * @return 没有正在发送的消息包时返回需要立即写入的第一个消息包，否则全部排队等待并返回null
+     */
+    private MessagePart queueMessageParts(List<MessagePart> messageParts) {
+        MessagePart mp = messageParts.remove(0);
         synchronized (messagePartLock) {
             if (Constants.OPCODE_CLOSE == mp.getOpCode() && getBatchingAllowed()) {
                 // Should not happen. To late to send batched messages now since
                 // the session has been closed. Complain loudly.
                 log.warn(UpgradeUtil.getLocalContainer().getString("wsRemoteEndpoint.flushOnCloseFailed"));
             }
-            if (messagePartInProgress.tryAcquire()) {
-                doWrite = true;
-            } else {
+            boolean doWrite = messagePartInProgress.tryAcquire();
+            if (!doWrite) {
                 // When a control message is sent while another message is being
                 // sent, the control message is queued. Chances are the
                 // subsequent data message part will end up queued while the
                 // control message is sent. The logic in this class (state
                 // machine, EndMessageHandler, TextMessageSendHandler) ensures
                 // that there will only ever be one data message part in the
-                // queue. There could be multiple control messages in the queue.
+                // queue besides complete broadcast frames. There could be
+                // multiple control messages in the queue.
 
                 // Add it to the queue
                 messagePartQueue.add(mp);
             }
             // Add any remaining messages to the queue
             messagePartQueue.addAll(messageParts);
+            return doWrite ? mp : null;
         }
-        if (doWrite) {
+    }
+
+    /**
+     * 写入广播帧
+     * 广播帧不占用状态机，只通过消息包队列写入，应用发送的消息不会因为广播而出现状态错误
+     * 应用没有正在发送的消息时立即加入消息包队列，否则排队等待，状态机完成当前消息后继续写入
+     * @param frame 广播帧
+     * @param maxPendingFrames 最大等待帧数
+     * @param policy 慢消费者处理策略
+     * @return
+     */
+    WsBroadcaster.Delivery sendBroadcastFrame(WsBroadcastFrame frame, int maxPendingFrames,
+            WsBroadcaster.SlowConsumerPolicy policy) {
+        synchronized (messagePartLock) {
+            if (closed) {
+                return WsBroadcaster.Delivery.DROPPED;
+            }
+            // Frames already waiting must be written first to keep the
+            // broadcast order
+            if (!broadcastQueue.isEmpty() || !stateMachine.broadcastStart()) {
+                if (broadcastQueue.size() < maxPendingFrames) {
+                    broadcastQueue.add(frame);
+                    return WsBroadcaster.Delivery.QUEUED;
+                }
+                switch (policy) {
+                    case DROP_OLDEST:
+                        if (broadcastQueue.poll() != null) {
+                            broadcastQueue.add(frame);
+                        }
+                        return WsBroadcaster.Delivery.DROPPED;
+                    case CLOSE:
+                        broadcastQueue.clear();
+                        return WsBroadcaster.Delivery.CLOSED;
+                    default:
+                        return WsBroadcaster.Delivery.DROPPED;
+                }
+            }
+        }
+        writeBroadcastFrame(frame);
+        // Frames queued by other threads while this one held the broadcast
+        // slot
+        drainBroadcastQueue();
+        return WsBroadcaster.Delivery.WRITTEN;
+    }
+
+    /**
+     * 写入等待的广播帧
+     * 状态机完成消息或广播帧加入消息包队列后调用，循环写入直到队列为空或应用开始发送新消息
+     */
+    private void drainBroadcastQueue() {
+        while (true) {
+            WsBroadcastFrame frame;
+            synchronized (messagePartLock) {
+                if (closed || broadcastQueue.isEmpty() || !stateMachine.broadcastStart()) {
+                    return;
+                }
+                frame = broadcastQueue.poll();
+            }
+            writeBroadcastFrame(frame);
+        }
+    }
+
+    /**
+     * 写入广播帧
+     * 调用前必须已经通过 {@link StateMachine#broadcastStart()} 获取广播发送权
+     * 消息包加入队列后立即释放发送权，写入网络流在释放后进行
+     * @param frame 广播帧
+     */
+    private void writeBroadcastFrame(WsBroadcastFrame frame) {
+        MessagePart mp = null;
+        try {
+            wsSession.updateLastActive();
+            SendHandler handler = new EndMessageHandler(this, new BroadcastSendHandler(this));
+            // Masked and batched output is built per session by writeMessagePart()
+            WsBroadcastFrame.Encoding encoding = null;
+            if (!isMasked() && !getBatchingAllowed()) {
+                encoding = transformation.getBroadcastEncoding();
+            }
+            List<MessagePart> messageParts = new ArrayList<>();
+            if (encoding == null) {
+                //转换有会话状态，每个会话单独编码
+                messageParts.add(new MessagePart(true, 0, frame.getOpCode(), frame.getPayload(),
+                        intermediateMessageHandler, handler, -1));
+                messageParts = transformation.sendMessagePart(messageParts);
+            } else {
+                //共享已编码完成的完整帧
+                messageParts.add(new MessagePart(true, 0, Constants.INTERNAL_OPCODE_BROADCAST,
+                        frame.getFrame(encoding), intermediateMessageHandler, handler, -1));
+            }
+            if (messageParts.size() > 0) {
+                mp = queueMessageParts(messageParts);
+            }
+        } catch (IOException ioe) {
+            broadcastFailed(ioe);
+        } finally {
+            stateMachine.broadcastEnd();
+        }
+        if (mp != null) {
             // Actual write has to be outside sync block to avoid possible
             // deadlock between messagePartLock and writeLock in
             // o.a.coyote.http11.upgrade.AbstractServletOutputStream
-            writeMessagePart(mp);
+            try {
+                writeMessagePart(mp);
+            } catch (IllegalStateException e) {
+                // Closed after the frame was queued, the broadcast to the
+                // remaining sessions carries on
+                broadcastFailed(e);
+            }
+        }
+    }
+
+    /**
+     * 广播帧写入失败
+     * @param t 错误
+     */
+    private void broadcastFailed(Throwable t) {
+        synchronized (messagePartLock) {
+            broadcastQueue.clear();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(UpgradeUtil.getLocalContainer().getString("wsRemoteEndpoint.broadcastFailed", wsSession.getId()), t);
         }
     }
 
@@ -476,6 +611,13 @@ public abstract class WsRemoteEndpointImplBase implements RemoteEndpoint {
             doWrite(flushHandler, mp.getBlockingWriteTimeoutExpiry(), outputBuffer);
             return;
         }
+        //判断内部广播操作码，消息内容已经是包含帧头的完整帧
+        if (Constants.INTERNAL_OPCODE_BROADCAST == mp.getOpCode()) {
+            nextFragmented = fragmented;
+            nextText = text;
+            doWrite(mp.getEndHandler(), mp.getBlockingWriteTimeoutExpiry(), mp.getPayload());
+            return;
+        }
 
         // Control messages may be sent in the middle of fragmented message
         // so they have no effect on the fragmented or text flags
@@ -775,6 +917,9 @@ public abstract class WsRemoteEndpointImplBase implements RemoteEndpoint {
         // The transformation handles both input and output. It only needs to be
         // closed once so it is closed here on the output side.
         transformation.close();
+        synchronized (messagePartLock) {
+            broadcastQueue.clear();
+        }
         doClose();
     }
 
@@ -808,7 +953,7 @@ public abstract class WsRemoteEndpointImplBase implements RemoteEndpoint {
      * @param mask 掩盖码
      * @param first 是否第一个包
      */
-    private static void writeHeader(ByteBuffer headerBuffer, boolean fin,
+    static void writeHeader(ByteBuffer headerBuffer, boolean fin,
             int rsv, byte opCode, boolean masked, ByteBuffer payload,
             byte[] mask, boolean first) {
 
@@ -1244,20 +1389,28 @@ public abstract class WsRemoteEndpointImplBase implements RemoteEndpoint {
     /**
      * 状态机
      */
-    private static class StateMachine {
+    private class StateMachine {
         private State state = State.OPEN;
+        /**
+         * 广播帧正在编码并加入消息包队列
+         * 期间应用消息需要等待，避免应用消息与广播帧交错或同时使用转换
+         */
+        private boolean broadcasting = false;
 
         public synchronized void streamStart() {
+            awaitBroadcast();
             checkState(State.OPEN);
             state = State.STREAM_WRITING;
         }
 
         public synchronized void writeStart() {
+            awaitBroadcast();
             checkState(State.OPEN);
             state = State.WRITER_WRITING;
         }
 
         public synchronized void binaryPartialStart() {
+            awaitBroadcast();
             checkState(State.OPEN, State.BINARY_PARTIAL_READY);
             state = State.BINARY_PARTIAL_WRITING;
         }
@@ -1266,11 +1419,13 @@ public abstract class WsRemoteEndpointImplBase implements RemoteEndpoint {
          * 发送二进制启动状态
          */
         public synchronized void binaryStart() {
+            awaitBroadcast();
             checkState(State.OPEN);
             state = State.BINARY_FULL_WRITING;
         }
 
         public synchronized void textPartialStart() {
+            awaitBroadcast();
             checkState(State.OPEN, State.TEXT_PARTIAL_READY);
             state = State.TEXT_PARTIAL_WRITING;
         }
@@ -1279,16 +1434,67 @@ public abstract class WsRemoteEndpointImplBase implements RemoteEndpoint {
          * 发送文本启动状态
          */
         public synchronized void textStart() {
+            awaitBroadcast();
             checkState(State.OPEN);
             //设置文本全文状态
             state = State.TEXT_FULL_WRITING;
         }
 
+        /**
+         * 获取广播发送权
+         * 不改变应用消息状态，广播帧加入消息包队列后由 {@link #broadcastEnd()} 释放
+         * @return 应用没有正在发送的消息并且没有其它广播帧正在加入队列时返回true
+         */
+        public synchronized boolean broadcastStart() {
+            if (state != State.OPEN || broadcasting) {
+                return false;
+            }
+            broadcasting = true;
+            return true;
+        }
+
+        /**
+         * 释放广播发送权
+         * 唤醒等待发送的应用消息
+         */
+        public synchronized void broadcastEnd() {
+            broadcasting = false;
+            notifyAll();
+        }
+
+        /**
+         * 等待正在加入队列的广播帧
+         * 广播只在编码并加入消息包队列期间持有发送权，等待时间很短
+         */
+        private void awaitBroadcast() {
+            boolean interrupted = false;
+            while (broadcasting) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                // Restore the interrupt status for the caller
+                Thread.currentThread().interrupt();
+            }
+        }
+
         /**
          * 更新状态机
+         * 消息完成后继续写入等待的广播帧
          * @param last
          */
-        public synchronized void complete(boolean last) {
+        public void complete(boolean last) {
+            if (doComplete(last)) {
+                // Outside the monitor, drainBroadcastQueue() takes
+                // messagePartLock before calling broadcastStart()
+                drainBroadcastQueue();
+            }
+        }
+
+        private synchronized boolean doComplete(boolean last) {
             if (last) {
                 checkState(State.TEXT_PARTIAL_WRITING, State.TEXT_FULL_WRITING,
                         State.BINARY_PARTIAL_WRITING, State.BINARY_FULL_WRITING,
@@ -1313,6 +1519,7 @@ public abstract class WsRemoteEndpointImplBase implements RemoteEndpoint {
                             "BUG: This code should never be called");
                 }
             }
+            return state == State.OPEN;
         }
 
         /**
@@ -1331,6 +1538,27 @@ public abstract class WsRemoteEndpointImplBase implements RemoteEndpoint {
     }
 
 
+    /**
+     * 广播帧发送完成处理
+     * 广播帧不占用状态机，只需要处理写入失败
+     */
+    private static class BroadcastSendHandler implements SendHandler {
+
+        private final WsRemoteEndpointImplBase endpoint;
+
+        public BroadcastSendHandler(WsRemoteEndpointImplBase endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void onResult(SendResult result) {
+            if (!result.isOK()) {
+                endpoint.broadcastFailed(result.getException());
+            }
+        }
+    }
+
+
     private static class StateUpdateSendHandler implements SendHandler {
 
         private final SendHandler handler;
@@ -585,6 +585,27 @@ public final class WsSession implements Session {
         return webSocketContainer.getOpenSessions(getSessionMapKey());
     }
 
+    /**
+     * 写入广播帧
+     * 慢消费者策略为关闭时中止当前会话，不在广播线程上等待关闭消息写入
+     * @param frame 广播帧
+     * @param maxPendingFrames 最大等待帧数
+     * @param policy 慢消费者处理策略
+     * @return
+     */
+    WsBroadcaster.Delivery sendBroadcastFrame(WsBroadcastFrame frame, int maxPendingFrames,
+                                              WsBroadcaster.SlowConsumerPolicy policy) {
+        if (state != State.OPEN) {
+            return WsBroadcaster.Delivery.DROPPED;
+        }
+        WsBroadcaster.Delivery delivery = wsRemoteEndpoint.sendBroadcastFrame(frame, maxPendingFrames, policy);
+        if (delivery == WsBroadcaster.Delivery.CLOSED) {
+            abort(new CloseReason(CloseReason.CloseCodes.CLOSED_ABNORMALLY,
+                    UpgradeUtil.getLocalContainer().getString("wsRemoteEndpoint.slowConsumer")));
+        }
+        return delivery;
+    }
+
     /**
      * 获取异步发送对象
      * @return
@@ -678,7 +699,40 @@ public final class WsSession implements Session {
             }
             fireEndpointOnClose(closeReasonLocal);
         }
+        failFutures();
+    }
 
+    /**
+     * 中止连接
+     * 不发送关闭消息，直接关闭网络连接并通知本地终结点，调用线程不等待任何写入
+     * 慢消费者的发送队列已满，关闭消息同样无法及时写出，{@link #doClose(CloseReason, CloseReason)} 会阻塞到发送超时
+     * @param closeReason 通知本地终结点的关闭原因
+     */
+    private void abort(CloseReason closeReason) {
+        // Double-checked locking. OK because state is volatile
+        if (state != State.OPEN) {
+            return;
+        }
+        synchronized (stateLock) {
+            if (state != State.OPEN) {
+                return;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug(UpgradeUtil.getLocalContainer().getString("wsSession.doClose", id));
+            }
+            state = State.CLOSED;
+            //关闭网络连接，正在进行的写入以失败结束
+            wsRemoteEndpoint.close();
+            webSocketContainer.unregisterSession(getSessionMapKey(), this);
+            fireEndpointOnClose(closeReason);
+        }
+        failFutures();
+    }
+
+    /**
+     * 以失败结束所有未完成的发送
+     */
+    private void failFutures() {
         IOException ioe = new IOException(UpgradeUtil.getLocalContainer().getString("wsSession.messageFailed"));
         SendResult sr = new SendResult(ioe);
         for (FutureToSendHandler f2sh : futures.keySet()) {
@@ -0,0 +1,564 @@
+package ghost.framework.web.socket.plugin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.CloseReason;
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.Extension;
+import javax.websocket.SendHandler;
+import javax.websocket.Session;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Inflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.web.socket.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link WsBroadcaster} 广播与应用消息交错发送测试
+ * @Date: 2020/6/29:10:40
+ */
+public class WsBroadcasterTests {
+    private static final int MESSAGES = 2000;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private WsBroadcaster broadcaster() {
+        WsBroadcaster broadcaster = new WsBroadcaster();
+        //测试不丢弃广播消息
+        broadcaster.setMaxPendingFrames(MESSAGES);
+        return broadcaster;
+    }
+
+    /**
+     * 慢消费者测试的广播
+     * 最多排队两帧
+     * @param policy 慢消费者处理策略
+     * @return
+     */
+    private static WsBroadcaster broadcaster(WsBroadcaster.SlowConsumerPolicy policy) {
+        WsBroadcaster broadcaster = new WsBroadcaster();
+        broadcaster.setMaxPendingFrames(2);
+        broadcaster.setSlowConsumerPolicy(policy);
+        return broadcaster;
+    }
+
+    private WsSession session(TestRemoteEndpoint remote) throws DeploymentException {
+        return session(remote, new AtomicReference<>());
+    }
+
+    private WsSession session(TestRemoteEndpoint remote, AtomicReference<CloseReason> closeReason) throws DeploymentException {
+        return new WsSession(new Endpoint() {
+            @Override
+            public void onOpen(Session session, EndpointConfig config) {
+            }
+
+            @Override
+            public void onClose(Session session, CloseReason reason) {
+                closeReason.set(reason);
+            }
+        }, remote, new WsWebSocketContainer(), null, null, null, null, null,
+                Collections.<Extension>emptyList(), null, null, false, ClientEndpointConfig.Builder.create().build());
+    }
+
+    @Test
+    public void broadcastsInterleaveWithBasicRemoteSends() throws Exception {
+        TestRemoteEndpoint remote = new TestRemoteEndpoint(executor);
+        WsSession session = session(remote);
+        WsBroadcaster broadcaster = broadcaster();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        run(() -> {
+            for (int i = 0; i < MESSAGES; i++) {
+                broadcaster.broadcast(Collections.singletonList(session), "b" + i);
+            }
+        }, () -> {
+            try {
+                for (int i = 0; i < MESSAGES; i++) {
+                    //广播不能使应用发送出现状态错误
+                    session.getBasicRemote().sendText("a" + i);
+                }
+            } catch (Throwable e) {
+                error.compareAndSet(null, e);
+            }
+        });
+        assertThat(error.get()).isNull();
+        List<Frame> frames = remote.awaitFrames(MESSAGES * 2);
+        assertMessages(frames, "a", MESSAGES);
+        assertMessages(frames, "b", MESSAGES);
+    }
+
+    @Test
+    public void broadcastsDoNotSplitFragmentedMessage() throws Exception {
+        TestRemoteEndpoint remote = new TestRemoteEndpoint(executor);
+        WsSession session = session(remote);
+        WsBroadcaster broadcaster = broadcaster();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        run(() -> {
+            for (int i = 0; i < MESSAGES; i++) {
+                broadcaster.broadcast(Collections.singletonList(session), "b" + i);
+            }
+        }, () -> {
+            try {
+                for (int i = 0; i < MESSAGES / 2; i++) {
+                    session.getBasicRemote().sendText("a" + i, false);
+                    session.getBasicRemote().sendText("-", true);
+                }
+            } catch (Throwable e) {
+                error.compareAndSet(null, e);
+            }
+        });
+        assertThat(error.get()).isNull();
+        List<Frame> frames = remote.awaitFrames(MESSAGES * 2);
+        //分片消息的后续帧之前不能插入广播帧
+        for (int i = 0; i < frames.size(); i++) {
+            Frame frame = frames.get(i);
+            if (frame.opCode == Constants.OPCODE_TEXT && !frame.fin) {
+                assertThat(frames.get(i + 1).opCode).isEqualTo(Constants.OPCODE_CONTINUATION);
+                assertThat(frames.get(i + 1).fin).isTrue();
+            }
+        }
+        assertMessages(frames, "b", MESSAGES);
+    }
+
+    @Test
+    public void broadcastsInterleaveWithAsyncRemoteSends() throws Exception {
+        TestRemoteEndpoint remote = new TestRemoteEndpoint(executor);
+        WsSession session = session(remote);
+        WsBroadcaster broadcaster = broadcaster();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        run(() -> {
+            for (int i = 0; i < MESSAGES; i++) {
+                broadcaster.broadcast(Collections.singletonList(session), "b" + i);
+            }
+        }, () -> {
+            try {
+                for (int i = 0; i < MESSAGES; i++) {
+                    session.getAsyncRemote().sendText("a" + i).get(10, TimeUnit.SECONDS);
+                }
+            } catch (Throwable e) {
+                error.compareAndSet(null, e);
+            }
+        });
+        assertThat(error.get()).isNull();
+        List<Frame> frames = remote.awaitFrames(MESSAGES * 2);
+        assertMessages(frames, "a", MESSAGES);
+        assertMessages(frames, "b", MESSAGES);
+    }
+
+    @Test
+    public void slowConsumerDropsNewest() throws Exception {
+        TestRemoteEndpoint remote = new TestRemoteEndpoint(executor);
+        WsSession session = session(remote);
+        WsBroadcaster broadcaster = broadcaster(WsBroadcaster.SlowConsumerPolicy.DROP_NEWEST);
+        //应用消息写入未完成，广播帧排队等待
+        remote.stall();
+        session.getAsyncRemote().sendText("a");
+        assertThat(deliver(broadcaster, session, "b0")).isEqualTo(WsBroadcaster.Delivery.QUEUED);
+        assertThat(deliver(broadcaster, session, "b1")).isEqualTo(WsBroadcaster.Delivery.QUEUED);
+        assertThat(deliver(broadcaster, session, "b2")).isEqualTo(WsBroadcaster.Delivery.DROPPED);
+        remote.resume();
+        assertThat(texts(remote.awaitFrames(3))).containsExactly("a", "b0", "b1");
+        assertThat(session.isOpen()).isTrue();
+    }
+
+    @Test
+    public void slowConsumerDropsOldest() throws Exception {
+        TestRemoteEndpoint remote = new TestRemoteEndpoint(executor);
+        WsSession session = session(remote);
+        WsBroadcaster broadcaster = broadcaster(WsBroadcaster.SlowConsumerPolicy.DROP_OLDEST);
+        remote.stall();
+        session.getAsyncRemote().sendText("a");
+        assertThat(deliver(broadcaster, session, "b0")).isEqualTo(WsBroadcaster.Delivery.QUEUED);
+        assertThat(deliver(broadcaster, session, "b1")).isEqualTo(WsBroadcaster.Delivery.QUEUED);
+        assertThat(deliver(broadcaster, session, "b2")).isEqualTo(WsBroadcaster.Delivery.DROPPED);
+        remote.resume();
+        assertThat(texts(remote.awaitFrames(3))).containsExactly("a", "b1", "b2");
+        assertThat(session.isOpen()).isTrue();
+    }
+
+    @Test
+    public void slowConsumerIsAbortedWithoutBlocking() throws Exception {
+        TestRemoteEndpoint remote = new TestRemoteEndpoint(executor);
+        AtomicReference<CloseReason> closeReason = new AtomicReference<>();
+        WsSession session = session(remote, closeReason);
+        WsBroadcaster broadcaster = broadcaster(WsBroadcaster.SlowConsumerPolicy.CLOSE);
+        remote.stall();
+        Future<Void> future = session.getAsyncRemote().sendText("a");
+        assertThat(deliver(broadcaster, session, "b0")).isEqualTo(WsBroadcaster.Delivery.QUEUED);
+        assertThat(deliver(broadcaster, session, "b1")).isEqualTo(WsBroadcaster.Delivery.QUEUED);
+        long start = System.currentTimeMillis();
+        assertThat(deliver(broadcaster, session, "b2")).isEqualTo(WsBroadcaster.Delivery.CLOSED);
+        //广播线程不等待关闭消息写入
+        assertThat(System.currentTimeMillis() - start).isLessThan(1000L);
+        assertThat(session.isOpen()).isFalse();
+        assertThat(remote.closed).isTrue();
+        assertThat(closeReason.get().getCloseCode()).isEqualTo(CloseReason.CloseCodes.CLOSED_ABNORMALLY);
+        //未完成的发送以失败结束，没有写入关闭消息与排队的广播帧
+        assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThat(texts(remote.frames())).containsExactly("a");
+        assertThat(broadcaster.broadcast(Collections.singletonList(session), "b3").getSkipped()).isEqualTo(1);
+    }
+
+    @Test
+    public void deflatedFrameIsSharedBySessions() throws Exception {
+        TestRemoteEndpoint first = new TestRemoteEndpoint(executor, WsBroadcastFrame.Encoding.DEFLATED);
+        TestRemoteEndpoint second = new TestRemoteEndpoint(executor, WsBroadcastFrame.Encoding.DEFLATED);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            text.append("broadcast ");
+        }
+        WsBroadcastFrame frame = WsBroadcastFrame.text(text.toString());
+        WsBroadcaster.Result result = broadcaster().broadcast(Arrays.asList(session(first), session(second)), frame);
+        assertThat(result.getWritten()).isEqualTo(2);
+        //两个会话写入同一份预先压缩的完整帧
+        ByteBuffer shared = frame.getFrame(WsBroadcastFrame.Encoding.DEFLATED);
+        byte[] expected = new byte[shared.remaining()];
+        shared.get(expected);
+        assertThat(Arrays.equals(first.awaitWire(expected.length), expected)).isTrue();
+        assertThat(Arrays.equals(second.awaitWire(expected.length), expected)).isTrue();
+        Frame written = first.frames().get(0);
+        assertThat(written.rsv).isEqualTo(PerMessageDeflate.RSV_BITMASK);
+        assertThat(written.payload.length).isLessThan(text.length());
+        assertThat(inflate(written.payload)).isEqualTo(text.toString());
+    }
+
+    /**
+     * 向单个会话广播
+     * @param broadcaster 广播
+     * @param session 会话
+     * @param text 文本内容
+     * @return
+     */
+    private static WsBroadcaster.Delivery deliver(WsBroadcaster broadcaster, WsSession session, String text) {
+        WsBroadcaster.Result result = broadcaster.broadcast(Collections.singletonList(session), text);
+        if (result.getWritten() == 1) {
+            return WsBroadcaster.Delivery.WRITTEN;
+        }
+        if (result.getQueued() == 1) {
+            return WsBroadcaster.Delivery.QUEUED;
+        }
+        if (result.getDropped() == 1) {
+            return WsBroadcaster.Delivery.DROPPED;
+        }
+        if (result.getClosed() == 1) {
+            return WsBroadcaster.Delivery.CLOSED;
+        }
+        return null;
+    }
+
+    private static List<String> texts(List<Frame> frames) {
+        List<String> texts = new ArrayList<>();
+        for (Frame frame : frames) {
+            texts.add(frame.text);
+        }
+        return texts;
+    }
+
+    /**
+     * 解压无上下文接管的permessage-deflate消息内容
+     * @param payload 压缩内容
+     * @return
+     * @throws Exception
+     */
+    private static String inflate(byte[] payload) throws Exception {
+        Inflater inflater = new Inflater(true);
+        try {
+            byte[] input = Arrays.copyOf(payload, payload.length + PerMessageDeflate.EOM_BYTES.length);
+            System.arraycopy(PerMessageDeflate.EOM_BYTES, 0, input, payload.length, PerMessageDeflate.EOM_BYTES.length);
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[256];
+            int length;
+            while ((length = inflater.inflate(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 检验指定前缀的完整消息按发送顺序写入
+     * @param frames 写入的帧
+     * @param prefix 消息前缀
+     * @param count 消息数量
+     */
+    private static void assertMessages(List<Frame> frames, String prefix, int count) {
+        List<String> messages = new ArrayList<>();
+        for (Frame frame : frames) {
+            if (frame.opCode == Constants.OPCODE_TEXT && frame.fin && frame.text.startsWith(prefix)) {
+                messages.add(frame.text);
+            }
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            expected.add(prefix + i);
+        }
+        assertThat(messages).isEqualTo(expected);
+    }
+
+    /**
+     * 同时执行广播与应用发送
+     * @param broadcast 广播任务
+     * @param send 应用发送任务
+     * @throws InterruptedException
+     */
+    private static void run(Runnable broadcast, Runnable send) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> list = new ArrayList<>();
+        for (Runnable task : new Runnable[]{broadcast, send}) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run();
+            });
+            thread.start();
+            list.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : list) {
+            thread.join();
+        }
+    }
+
+    /**
+     * 写入的帧
+     */
+    private static final class Frame {
+        private final boolean fin;
+        private final int rsv;
+        private final byte opCode;
+        private final byte[] payload;
+        private final String text;
+
+        private Frame(boolean fin, int rsv, byte opCode, byte[] payload) {
+            this.fin = fin;
+            this.rsv = rsv;
+            this.opCode = opCode;
+            this.payload = payload;
+            this.text = new String(payload, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String toString() {
+            return opCode + (fin ? ":" : "+:") + text;
+        }
+    }
+
+    /**
+     * 测试远程终结点
+     * 块写入同步完成，异步写入由执行器完成，记录写入网络流的字节
+     * 暂停期间异步写入不完成，模拟慢消费者
+     */
+    private static final class TestRemoteEndpoint extends WsRemoteEndpointImplBase {
+        private final ExecutorService executor;
+        private final ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        private final List<SendHandler> stalled = new ArrayList<>();
+        private boolean stall;
+        private volatile boolean closed;
+
+        private TestRemoteEndpoint(ExecutorService executor) {
+            this(executor, WsBroadcastFrame.Encoding.PLAIN);
+        }
+
+        private TestRemoteEndpoint(ExecutorService executor, WsBroadcastFrame.Encoding encoding) {
+            this.executor = executor;
+            setTransformation(new PlainTransformation(encoding));
+        }
+
+        @Override
+        protected void doWrite(SendHandler handler, long blockingWriteTimeoutExpiry, ByteBuffer... data) {
+            synchronized (wire) {
+                for (ByteBuffer buffer : data) {
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    wire.write(bytes, 0, bytes.length);
+                }
+            }
+            if (blockingWriteTimeoutExpiry == -1) {
+                synchronized (stalled) {
+                    if (stall) {
+                        stalled.add(handler);
+                        return;
+                    }
+                }
+                executor.execute(() -> handler.onResult(SENDRESULT_OK));
+            } else {
+                handler.onResult(SENDRESULT_OK);
+            }
+        }
+
+        /**
+         * 暂停完成异步写入
+         */
+        private void stall() {
+            synchronized (stalled) {
+                stall = true;
+            }
+        }
+
+        /**
+         * 完成暂停期间的异步写入
+         */
+        private void resume() {
+            List<SendHandler> handlers;
+            synchronized (stalled) {
+                stall = false;
+                handlers = new ArrayList<>(stalled);
+                stalled.clear();
+            }
+            for (SendHandler handler : handlers) {
+                handler.onResult(SENDRESULT_OK);
+            }
+        }
+
+        @Override
+        protected boolean isMasked() {
+            return false;
+        }
+
+        @Override
+        protected void doClose() {
+            closed = true;
+        }
+
+        /**
+         * 等待写入指定数量的字节
+         * @param length 字节数量
+         * @return
+         * @throws InterruptedException
+         */
+        private byte[] awaitWire(int length) throws InterruptedException {
+            long expiry = System.currentTimeMillis() + 10000;
+            byte[] bytes = wire();
+            while (bytes.length < length && System.currentTimeMillis() < expiry) {
+                Thread.sleep(10);
+                bytes = wire();
+            }
+            return bytes;
+        }
+
+        private byte[] wire() {
+            synchronized (wire) {
+                return wire.toByteArray();
+            }
+        }
+
+        /**
+         * 等待写入指定数量的帧
+         * @param count 帧数量
+         * @return
+         * @throws InterruptedException
+         */
+        private List<Frame> awaitFrames(int count) throws InterruptedException {
+            long expiry = System.currentTimeMillis() + 10000;
+            List<Frame> frames = frames();
+            while (frames.size() < count && System.currentTimeMillis() < expiry) {
+                Thread.sleep(10);
+                frames = frames();
+            }
+            return frames;
+        }
+
+        /**
+         * 解析写入的服务端帧
+         * @return
+         */
+        private List<Frame> frames() {
+            ByteBuffer buffer = ByteBuffer.wrap(wire());
+            List<Frame> frames = new ArrayList<>();
+            while (buffer.hasRemaining()) {
+                byte b0 = buffer.get();
+                int length = buffer.get() & 0x7F;
+                if (length == 126) {
+                    length = buffer.getShort() & 0xFFFF;
+                } else if (length == 127) {
+                    length = (int) buffer.getLong();
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                frames.add(new Frame((b0 & 0x80) != 0, (b0 >> 4) & 0x07, (byte) (b0 & 0x0F), payload));
+            }
+            return frames;
+        }
+    }
+
+    /**
+     * 不修改消息内容的转换
+     * 广播帧编码方式由测试指定
+     */
+    private static final class PlainTransformation implements Transformation {
+        private final WsBroadcastFrame.Encoding encoding;
+
+        private PlainTransformation(WsBroadcastFrame.Encoding encoding) {
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void setNext(Transformation t) {
+        }
+
+        @Override
+        public boolean validateRsvBits(int i) {
+            return true;
+        }
+
+        @Override
+        public Extension getExtensionResponse() {
+            return null;
+        }
+
+        @Override
+        public TransformationResult getMoreData(byte opCode, boolean fin, int rsv, ByteBuffer dest) {
+            return TransformationResult.END_OF_FRAME;
+        }
+
+        @Override
+        public boolean validateRsv(int rsv, byte opCode) {
+            return rsv == 0;
+        }
+
+        @Override
+        public List<MessagePart> sendMessagePart(List<MessagePart> messageParts) {
+            return messageParts;
+        }
+
+        @Override
+        public WsBroadcastFrame.Encoding getBroadcastEncoding() {
+            return encoding;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}